@@ -0,0 +1,165 @@
+package afv2_jml25.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import provided.datapacket.ADataPacket;
+import provided.datapacket.ADataPacketAlgoCmd;
+import provided.datapacket.DataPacket;
+import provided.datapacket.DataPacketAlgo;
+import provided.datapacket.DataPacketBatchProcessor;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.IDataPacketID;
+import provided.datapacket.VDataPacket;
+
+/**
+ * Processing of 10k-packet batches, sequentially as the IPacketListData command used to do and 
+ * with DataPacketBatchProcessor, for different shares of commutative packets.   Also compares 
+ * filling and iterating the array-backed VDataPacket with the Vector it used to extend.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchExecutionBenchmark {
+
+	/**
+	 * Number of packets per batch
+	 */
+	private static final int BATCH_SIZE = 10000;
+
+	/**
+	 * Percentage of the packets that are of a commutative type
+	 */
+	@Param({ "0", "50", "100" })
+	public int commutativePercent;
+
+	/**
+	 * CPU work done by each command, in Blackhole tokens
+	 */
+	@Param({ "200" })
+	public int work;
+
+	/**
+	 * The visitor
+	 */
+	private DataPacketAlgo<Integer, Void> algo;
+
+	/**
+	 * The batch
+	 */
+	private List<DataPacket<IDataPacketData, String>> batch;
+
+	/**
+	 * The batch processor
+	 */
+	private DataPacketBatchProcessor processor;
+
+	/**
+	 * Build the batch.   Types 0 and 1 are commutative, types 2 and 3 are order-sensitive.
+	 */
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setup() {
+		algo = BenchFixtures.makeAlgo(BenchFixtures.VisitorMode.DENSE);
+		List<Class<? extends IDataPacketData>> types = BenchFixtures.syntheticTypes(4);
+		IDataPacketID[] ids = BenchFixtures.syntheticIDs(4);
+		final int tokens = work;
+		for (int t = 0; t < 4; t++) {
+			final int result = t;
+			algo.setCmd(ids[t], new ADataPacketAlgoCmd<Integer, IDataPacketData, Void, Void, ADataPacket>() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public Integer apply(IDataPacketID index, ADataPacket host, Void... params) {
+					Blackhole.consumeCPU(tokens);
+					return result;
+				}
+			});
+		}
+		processor = new DataPacketBatchProcessor();
+		processor.setCommutative(ids[0], true);
+		processor.setCommutative(ids[1], true);
+
+		batch = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			boolean commutative = (i % 100) < commutativePercent;
+			int type = (commutative ? 0 : 2) + (i & 1);
+			batch.add(new DataPacket<IDataPacketData, String>(BenchFixtures.newInstance(types.get(type)), "sender"));
+		}
+	}
+
+	/**
+	 * Process the batch one packet after the other.
+	 * @param bh sink for the results
+	 */
+	@Benchmark
+	public void sequential(Blackhole bh) {
+		for (DataPacket<IDataPacketData, String> packet : batch) {
+			bh.consume(packet.execute(algo));
+		}
+	}
+
+	/**
+	 * Process the batch with the batch processor.
+	 * @return the results
+	 */
+	@Benchmark
+	public List<Integer> batchProcessor() {
+		return processor.execute(batch, algo);
+	}
+
+	/**
+	 * Fill and iterate a VDataPacket.
+	 * @param bh sink for the packets
+	 * @return the container
+	 */
+	@Benchmark
+	public VDataPacket fillAndIterateVDataPacket(Blackhole bh) {
+		VDataPacket vdp = new VDataPacket();
+		for (ADataPacket packet : batch) {
+			vdp.add(packet);
+		}
+		for (ADataPacket packet : vdp) {
+			bh.consume(packet);
+		}
+		return vdp;
+	}
+
+	/**
+	 * Fill and iterate a Vector, as VDataPacket used to be.
+	 * @param bh sink for the packets
+	 * @return the container
+	 */
+	@Benchmark
+	public Vector<ADataPacket> fillAndIterateVector(Blackhole bh) {
+		Vector<ADataPacket> vector = new Vector<>();
+		for (ADataPacket packet : batch) {
+			vector.add(packet);
+		}
+		for (ADataPacket packet : vector) {
+			bh.consume(packet);
+		}
+		return vector;
+	}
+}
@@ -0,0 +1,254 @@
+package afv2_jml25.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.List;
+
+import common.dataPacket.AppDataPacket;
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IAppConnectionData;
+import common.dataPacket.data.IRoomConnectionData;
+import common.serverObj.IAppConnection;
+import common.serverObj.INamedAppConnection;
+import common.serverObj.INamedRoomConnection;
+import common.serverObj.IRoomConnection;
+import provided.datapacket.ADataPacket;
+import provided.datapacket.ADataPacketAlgoCmd;
+import provided.datapacket.DataPacket;
+import provided.datapacket.DataPacketAlgo;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Shared set-up code for the benchmarks.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public final class BenchFixtures {
+
+	/**
+	 * Storage modes of the visitor under test
+	 */
+	public enum VisitorMode {
+		/**
+		 * The original synchronized Hashtable
+		 */
+		HASHTABLE,
+		/**
+		 * Hashtable plus the ordinal-indexed dense array
+		 */
+		DENSE,
+		/**
+		 * Immutable snapshot replaced on every change
+		 */
+		COPY_ON_WRITE,
+		/**
+		 * Immutable snapshot plus the ordinal-indexed dense array
+		 */
+		COPY_ON_WRITE_DENSE
+	}
+
+	/**
+	 * The bytes of the SyntheticData template class
+	 */
+	private static byte[] templateBytes;
+
+	/**
+	 * Synthetic data types made so far, shared so that ordinals stay dense across benchmarks in one JVM
+	 */
+	private static final List<Class<? extends IDataPacketData>> syntheticTypes = new ArrayList<>();
+
+	/**
+	 * Utility class
+	 */
+	private BenchFixtures() {
+	}
+
+	/**
+	 * Get n distinct data types, each with its own IDataPacketID.
+	 * @param n the number of data types
+	 * @return n distinct synthetic data types
+	 */
+	@SuppressWarnings("unchecked")
+	public static synchronized List<Class<? extends IDataPacketData>> syntheticTypes(int n) {
+		try {
+			if (null == templateBytes) {
+				try (InputStream in = SyntheticData.class.getResourceAsStream("SyntheticData.class")) {
+					templateBytes = in.readAllBytes();
+				}
+			}
+			while (syntheticTypes.size() < n) {
+				syntheticTypes.add((Class<? extends IDataPacketData>) MethodHandles.lookup()
+						.defineHiddenClass(templateBytes, true).lookupClass());
+			}
+		} catch (IOException | IllegalAccessException e) {
+			throw new IllegalStateException("Could not define synthetic data types", e);
+		}
+		return new ArrayList<>(syntheticTypes.subList(0, n));
+	}
+
+	/**
+	 * Get the IDs of the first n synthetic data types.
+	 * @param n the number of data types
+	 * @return the interned ID of each type, in the order of syntheticTypes()
+	 */
+	public static IDataPacketID[] syntheticIDs(int n) {
+		IDataPacketID[] ids = new IDataPacketID[n];
+		int i = 0;
+		for (Class<? extends IDataPacketData> type : syntheticTypes(n)) {
+			ids[i++] = DataPacketIDFactory.Singleton.makeID(type);
+		}
+		return ids;
+	}
+
+	/**
+	 * Instantiate a synthetic data type
+	 * @param type a type returned by syntheticTypes()
+	 * @return an instance of the type
+	 */
+	public static IDataPacketData newInstance(Class<? extends IDataPacketData> type) {
+		try {
+			return type.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Make a visitor with the given storage mode whose default command returns -1.
+	 * @param mode the storage mode
+	 * @return a new visitor
+	 */
+	public static DataPacketAlgo<Integer, Void> makeAlgo(VisitorMode mode) {
+		boolean copyOnWrite = mode == VisitorMode.COPY_ON_WRITE || mode == VisitorMode.COPY_ON_WRITE_DENSE;
+		DataPacketAlgo<Integer, Void> algo = new DataPacketAlgo<Integer, Void>(makeCmd(-1), copyOnWrite);
+		algo.setDenseDispatch(mode == VisitorMode.DENSE || mode == VisitorMode.COPY_ON_WRITE_DENSE);
+		return algo;
+	}
+
+	/**
+	 * Make a command that returns a fixed value
+	 * @param result the value to return
+	 * @return a new command
+	 */
+	public static ADataPacketAlgoCmd<Integer, IDataPacketData, Void, Void, ADataPacket> makeCmd(final int result) {
+		return new ADataPacketAlgoCmd<Integer, IDataPacketData, Void, Void, ADataPacket>() {
+
+			private static final long serialVersionUID = 4125536802410957436L;
+
+			@Override
+			public Integer apply(IDataPacketID index, ADataPacket host, Void... params) {
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Make n packets of distinct synthetic types and install a command for each type in the given visitor.
+	 * @param algo the visitor to install the commands into, may be null
+	 * @param n the number of types
+	 * @return one packet per type
+	 */
+	public static ADataPacket[] installSyntheticCmds(DataPacketAlgo<Integer, Void> algo, int n) {
+		ADataPacket[] packets = new ADataPacket[n];
+		int i = 0;
+		for (Class<? extends IDataPacketData> type : syntheticTypes(n)) {
+			IDataPacketData data = newInstance(type);
+			if (null != algo) {
+				algo.setCmd(data.getID(), makeCmd(i));
+			}
+			packets[i++] = new DataPacket<IDataPacketData, String>(data, "sender");
+		}
+		return packets;
+	}
+
+	/**
+	 * Room connection that discards everything it receives, exported as a real RMI stub by makeSender()
+	 */
+	private static final IRoomConnection SINK = new IRoomConnection() {
+		@Override
+		public void sendMessage(RoomDataPacket<? extends IRoomConnectionData> data) throws RemoteException {
+		}
+	};
+
+	/**
+	 * App connection that discards everything it receives, exported as a real RMI stub by makeSender()
+	 */
+	private static final IAppConnection APP_SINK = new IAppConnection() {
+		@Override
+		public void sendMessage(AppDataPacket<? extends IAppConnectionData> data) throws RemoteException {
+		}
+	};
+
+	/**
+	 * Make a sender dyad around real, exported RMI stubs so that serialized sizes match production.
+	 * Call releaseSenders() when done.
+	 * @param name the friendly name of the sender
+	 * @return a sender dyad
+	 */
+	public static synchronized INamedRoomConnection makeSender(String name) {
+		try {
+			IRoomConnection stub = (IRoomConnection) UnicastRemoteObject.toStub(SINK);
+			IAppConnection appStub = (IAppConnection) UnicastRemoteObject.toStub(APP_SINK);
+			return INamedRoomConnection.make(name, stub, INamedAppConnection.make(name, appStub));
+		} catch (RemoteException e) {
+			try {
+				IRoomConnection stub = (IRoomConnection) UnicastRemoteObject.exportObject(SINK, 0);
+				IAppConnection appStub = (IAppConnection) UnicastRemoteObject.exportObject(APP_SINK, 0);
+				return INamedRoomConnection.make(name, stub, INamedAppConnection.make(name, appStub));
+			} catch (RemoteException e1) {
+				throw new IllegalStateException(e1);
+			}
+		}
+	}
+
+	/**
+	 * Unexport the stubs made by makeSender()
+	 */
+	public static synchronized void releaseSenders() {
+		try {
+			UnicastRemoteObject.unexportObject(SINK, true);
+			UnicastRemoteObject.unexportObject(APP_SINK, true);
+		} catch (RemoteException e) {
+			// not exported
+		}
+	}
+
+	/**
+	 * Serialize an object with standard Java serialization
+	 * @param obj the object
+	 * @return the serialized bytes
+	 */
+	public static byte[] serialize(Object obj) {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(obj);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Deserialize an object with standard Java serialization
+	 * @param bytes the serialized bytes
+	 * @return the object
+	 */
+	public static Object deserialize(byte[] bytes) {
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return ois.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
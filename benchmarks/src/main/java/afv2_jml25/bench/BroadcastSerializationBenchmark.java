@@ -0,0 +1,101 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import common.serverObj.INamedRoomConnection;
+import provided.datapacket.SerializedDataPacket;
+
+/**
+ * Sender-side serialization cost of broadcasting one RoomDataPacket to every member of a room:
+ * serializing the packet once per member, as RMI does for plain sendMessage() calls, versus serializing it once
+ * into a SerializedDataPacket and serializing only the envelope per member.
+ * Run with -prof gc to compare the allocation per broadcast as well.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastSerializationBenchmark {
+
+	/**
+	 * The kind of payload, see RoomDataPacketSerializationBenchmark.makePacket()
+	 */
+	@Param({ "TEXT", "MAP", "PACKET_LIST" })
+	public String payload;
+
+	/**
+	 * Number of room members
+	 */
+	@Param({ "10", "50" })
+	public int members;
+
+	/**
+	 * The packet to broadcast
+	 */
+	private RoomDataPacket<? extends IRoomConnectionData> packet;
+
+	/**
+	 * Build the packet for the payload kind
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		INamedRoomConnection sender = BenchFixtures.makeSender("bench");
+		packet = RoomDataPacketSerializationBenchmark.makePacket(payload, sender);
+	}
+
+	/**
+	 * Release the RMI stubs
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchFixtures.releaseSenders();
+	}
+
+	/**
+	 * Serialize the packet for every member.
+	 * @return the total number of bytes serialized
+	 */
+	@Benchmark
+	public long perMember() {
+		long total = 0;
+		for (int i = 0; i < members; i++) {
+			total += BenchFixtures.serialize(packet).length;
+		}
+		return total;
+	}
+
+	/**
+	 * Serialize the packet once into an envelope and serialize the envelope for every member.
+	 * @return the total number of bytes serialized
+	 */
+	@Benchmark
+	public long serializeOnce() {
+		SerializedDataPacket<?> envelope = SerializedDataPacket.make(packet);
+		long total = 0;
+		for (int i = 0; i < members; i++) {
+			total += BenchFixtures.serialize(envelope).length;
+		}
+		return total;
+	}
+}
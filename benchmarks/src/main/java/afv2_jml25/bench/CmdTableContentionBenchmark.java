@@ -0,0 +1,136 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.bench.BenchFixtures.VisitorMode;
+import provided.datapacket.ADataPacket;
+import provided.datapacket.ADataPacketAlgoCmd;
+import provided.datapacket.DataPacketAlgo;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Dispatch throughput while another thread keeps installing commands, as happens when a room 
+ * receives ICmdData for unknown message types while other members keep sending.
+ * Compares the synchronized Hashtable with the copy-on-write command table.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class CmdTableContentionBenchmark {
+
+	/**
+	 * Number of distinct IDs with an installed command
+	 */
+	@Param({ "100" })
+	public int idCount;
+
+	/**
+	 * Storage mode of the visitor
+	 */
+	@Param({ "HASHTABLE", "COPY_ON_WRITE", "COPY_ON_WRITE_DENSE" })
+	public VisitorMode mode;
+
+	/**
+	 * The shared visitor
+	 */
+	private DataPacketAlgo<Integer, Void> algo;
+
+	/**
+	 * One packet per installed ID
+	 */
+	private ADataPacket[] packets;
+
+	/**
+	 * Interned IDs of the packets
+	 */
+	private IDataPacketID[] ids;
+
+	/**
+	 * Command re-installed by the writer
+	 */
+	private ADataPacketAlgoCmd<Integer, IDataPacketData, Void, Void, ADataPacket> cmd;
+
+	/**
+	 * Build the shared visitor
+	 */
+	@Setup
+	public void setup() {
+		algo = BenchFixtures.makeAlgo(mode);
+		packets = BenchFixtures.installSyntheticCmds(algo, idCount);
+		ids = BenchFixtures.syntheticIDs(idCount);
+		cmd = BenchFixtures.makeCmd(0);
+	}
+
+	/**
+	 * Per-thread round-robin position
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		/**
+		 * Next packet to use
+		 */
+		int next;
+	}
+
+	/**
+	 * Readers dispatching packets.
+	 * @param cursor the thread's position
+	 * @return the command's result
+	 */
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public Integer dispatch(Cursor cursor) {
+		ADataPacket packet = packets[cursor.next];
+		cursor.next = (cursor.next + 1) % idCount;
+		return packet.execute(algo);
+	}
+
+	/**
+	 * A writer installing commands.
+	 * @param cursor the thread's position
+	 */
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public void install(Cursor cursor) {
+		IDataPacketID id = ids[cursor.next];
+		cursor.next = (cursor.next + 1) % idCount;
+		algo.setCmd(id, cmd);
+	}
+
+	/**
+	 * Readers only, as the baseline.
+	 * @param cursor the thread's position
+	 * @return the command's result
+	 */
+	@Benchmark
+	@Group("readOnly")
+	@GroupThreads(4)
+	public Integer dispatchOnly(Cursor cursor) {
+		ADataPacket packet = packets[cursor.next];
+		cursor.next = (cursor.next + 1) % idCount;
+		return packet.execute(algo);
+	}
+}
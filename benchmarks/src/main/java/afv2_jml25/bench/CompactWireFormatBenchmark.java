@@ -0,0 +1,109 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import common.dataPacket.CompactDataCodecs;
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import provided.datapacket.CompactDataPacketFormat;
+
+/**
+ * Size and throughput of the compact DataPacket wire format against standard serialization.
+ * The serialized size in both formats is printed at set-up.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompactWireFormatBenchmark {
+
+	/**
+	 * The kind of payload, see RoomDataPacketSerializationBenchmark.makePacket()
+	 */
+	@Param({ "TEXT", "MAP", "PACKET_LIST" })
+	public String payload;
+
+	/**
+	 * STANDARD or COMPACT
+	 */
+	@Param({ "STANDARD", "COMPACT" })
+	public String format;
+
+	/**
+	 * The packet under test
+	 */
+	private RoomDataPacket<? extends IRoomConnectionData> packet;
+
+	/**
+	 * The serialized packet
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Build the packet and select the format
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		CompactDataCodecs.install();
+		packet = RoomDataPacketSerializationBenchmark.makePacket(payload, BenchFixtures.makeSender("bench"));
+
+		CompactDataPacketFormat.Singleton.setEnabled(false);
+		int standardSize = BenchFixtures.serialize(packet).length;
+		CompactDataPacketFormat.Singleton.setEnabled(true);
+		int compactSize = BenchFixtures.serialize(packet).length;
+		System.out.println("\n" + payload + " packet: " + standardSize + " bytes standard, " + compactSize
+				+ " bytes compact (" + (100 * compactSize / standardSize) + "%)");
+
+		CompactDataPacketFormat.Singleton.setEnabled("COMPACT".equals(format));
+		bytes = BenchFixtures.serialize(packet);
+		if (!packet.getClass().equals(BenchFixtures.deserialize(bytes).getClass())) {
+			throw new IllegalStateException("Round trip did not restore the packet class");
+		}
+	}
+
+	/**
+	 * Restore the default format and release the RMI stubs
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		CompactDataPacketFormat.Singleton.setEnabled(false);
+		BenchFixtures.releaseSenders();
+	}
+
+	/**
+	 * Serialize the packet.
+	 * @return the serialized bytes
+	 */
+	@Benchmark
+	public byte[] serialize() {
+		return BenchFixtures.serialize(packet);
+	}
+
+	/**
+	 * Deserialize the packet.
+	 * @return the packet
+	 */
+	@Benchmark
+	public Object deserialize() {
+		return BenchFixtures.deserialize(bytes);
+	}
+}
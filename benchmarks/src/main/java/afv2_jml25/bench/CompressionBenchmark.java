@@ -0,0 +1,122 @@
+package afv2_jml25.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import common.dataPacket.data.room.IPacketListData;
+import common.dataPacket.data.room.ITextData;
+import common.serverObj.INamedRoomConnection;
+import provided.datapacket.DataPacketCompressor;
+import provided.datapacket.SerializedDataPacket;
+
+/**
+ * One RMI hop of a room message sent as a plain envelope versus through DataPacketCompressor with the room's
+ * settings, from packing on the sender to unpacking on the receiver.   The message is an IPacketListData of chat
+ * messages, like a catch-up list, so its size grows with the list.   The envelope sizes and the compressor's
+ * metrics are printed at set-up and tear down.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+	/**
+	 * Number of chat messages in the list
+	 */
+	@Param({ "1", "50", "500" })
+	public int messages;
+
+	/**
+	 * The message under test
+	 */
+	private RoomDataPacket<IPacketListData> packet;
+
+	/**
+	 * The compressor under test, with the room's settings
+	 */
+	private DataPacketCompressor compressor;
+
+	/**
+	 * Build the message and print its plain and compressed sizes
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		INamedRoomConnection sender = BenchFixtures.makeSender("bench");
+		ArrayList<RoomDataPacket<IRoomConnectionData>> packets = new ArrayList<>();
+		for (int i = 0; i < messages; i++) {
+			packets.add(new RoomDataPacket<IRoomConnectionData>(
+					ITextData.make("Player " + (i % 8) + ": Country " + i + " has been eliminated!"), sender));
+		}
+		packet = new RoomDataPacket<IPacketListData>(IPacketListData.make(packets), sender);
+		compressor = new DataPacketCompressor(4096, Deflater.BEST_SPEED);
+
+		int plain = SerializedDataPacket.make(packet).getSize();
+		int compressed = new DataPacketCompressor(4096, Deflater.BEST_SPEED).compress(SerializedDataPacket.make(packet))
+				.getSize();
+		System.out.println("\n" + messages + " messages: " + plain + " bytes plain, " + compressed + " compressed");
+	}
+
+	/**
+	 * Print the compressor's metrics and release the RMI stubs
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println("\nCompressor: " + compressor);
+		BenchFixtures.releaseSenders();
+	}
+
+	/**
+	 * Send the message as a plain envelope.
+	 * @return the message as unpacked by the receiver
+	 * @throws Exception if the envelope cannot be unpacked
+	 */
+	@Benchmark
+	public Object plain() throws Exception {
+		return hop(SerializedDataPacket.make(packet)).unpack();
+	}
+
+	/**
+	 * Send the message through the compressor.
+	 * @return the message as unpacked by the receiver
+	 * @throws Exception if the envelope cannot be unpacked
+	 */
+	@Benchmark
+	public Object compressed() throws Exception {
+		return compressor.unpack(hop(compressor.compress(SerializedDataPacket.make(packet))));
+	}
+
+	/**
+	 * Serialize and deserialize an envelope, as RMI does.
+	 * @param envelope the envelope sent
+	 * @return the envelope received
+	 */
+	@SuppressWarnings("unchecked")
+	private static SerializedDataPacket<RoomDataPacket<IPacketListData>> hop(
+			SerializedDataPacket<RoomDataPacket<IPacketListData>> envelope) {
+		return (SerializedDataPacket<RoomDataPacket<IPacketListData>>) BenchFixtures
+				.deserialize(BenchFixtures.serialize(envelope));
+	}
+}
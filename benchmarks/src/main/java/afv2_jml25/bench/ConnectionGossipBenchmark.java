@@ -0,0 +1,465 @@
+package afv2_jml25.bench;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import common.dataPacket.AppDataPacket;
+import common.dataPacket.data.IAppConnectionData;
+import common.dataPacket.data.app.IConnectionDeltaData;
+import common.dataPacket.data.app.IConnectionDigestData;
+import common.dataPacket.data.app.IConnectionSetData;
+import common.serverObj.IAppConnection;
+import common.serverObj.INamedAppConnection;
+import provided.datapacket.PeerMembership;
+import provided.datapacket.PeerMembership.Member;
+import provided.datapacket.SerializedDataPacket;
+
+/**
+ * Simulation of N apps joining a lobby, one every millisecond, each connecting to the lobby's server app only,
+ * with the original whole connection set exchange (IConnectionSetData) versus the PeerMembership gossip with the
+ * app's settings.   Messages take one millisecond;  the anti-entropy rounds run every 5 s, from a random phase.
+ * <br>
+ * The score is the time to simulate one lobby.   The simulated time until every app knows every other, the
+ * number of messages and the bytes sent are printed at tear down.   The bytes are estimated from the serialized
+ * size of each message type with real RMI stubs, measured at set-up per connection and per digest entry.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class ConnectionGossipBenchmark {
+
+	/**
+	 * How the apps exchange their connections
+	 */
+	public enum Protocol {
+		/**
+		 * Every app sends its whole set to every app it had not seen
+		 */
+		FULL_SET,
+		/**
+		 * Digests, deltas and bounded rumors through PeerMembership
+		 */
+		GOSSIP
+	}
+
+	/**
+	 * Number of apps in the lobby
+	 */
+	@Param({ "10", "50", "100", "500" })
+	public int apps;
+
+	/**
+	 * The protocol under test
+	 */
+	@Param({ "FULL_SET", "GOSSIP" })
+	public Protocol protocol;
+
+	/**
+	 * Simulated time a message takes, in milliseconds
+	 */
+	private static final long HOP_MILLIS = 1;
+
+	/**
+	 * Simulated time between two apps joining, in milliseconds
+	 */
+	private static final long JOIN_MILLIS = 1;
+
+	/**
+	 * Period of the anti-entropy rounds, as in GameAppModel, in milliseconds
+	 */
+	private static final long ANTI_ENTROPY_PERIOD = 5000;
+
+	/**
+	 * Fan-out of the rumors, as in GameAppModel
+	 */
+	private static final int GOSSIP_FAN_OUT = 3;
+
+	/**
+	 * Simulated time after which a lobby is given up on, in milliseconds
+	 */
+	private static final long GIVE_UP_MILLIS = 600000;
+
+	/**
+	 * Serialized size of a connection set, by number of connections
+	 */
+	private IntToLongFunction setBytes;
+
+	/**
+	 * Serialized size of a delta without a digest, by number of members
+	 */
+	private IntToLongFunction deltaBytes;
+
+	/**
+	 * Serialized size of a digest, by number of entries, -1 for a checksum only
+	 */
+	private IntToLongFunction digestBytes;
+
+	/**
+	 * Serialized size a digest adds to a delta, by number of entries, -1 for none
+	 */
+	private IntToLongFunction digestInDeltaBytes;
+
+	/**
+	 * The connections exported to measure the message sizes, each with its own stub
+	 */
+	private final List<IAppConnection> sinks = new ArrayList<>();
+
+	/**
+	 * The last lobby simulated
+	 */
+	private Lobby last;
+
+	/**
+	 * Measure the serialized size of each message type and fit it to a fixed plus a per-entry cost
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		List<INamedAppConnection> dyads = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			IAppConnection sink = (data) -> {
+			};
+			try {
+				sinks.add(sink);
+				IAppConnection stub = (IAppConnection) UnicastRemoteObject.exportObject(sink, 0);
+				dyads.add(INamedAppConnection.make("Player " + i, stub));
+			} catch (RemoteException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		INamedAppConnection sender = dyads.get(0);
+		long[] set = new long[4];
+		long[] delta = new long[4];
+		long[] digest = new long[4];
+		for (int k = 2; k <= 3; k++) {
+			HashSet<INamedAppConnection> connections = new HashSet<>(dyads.subList(0, k));
+			ArrayList<Member<INamedAppConnection>> members = new ArrayList<>();
+			HashMap<UUID, Long> versions = new HashMap<>();
+			for (INamedAppConnection dyad : dyads.subList(0, k)) {
+				UUID id = UUID.randomUUID();
+				members.add(new Member<INamedAppConnection>(id, dyad, 1, false));
+				versions.put(id, 1L);
+			}
+			set[k] = size(IConnectionSetData.make(connections), sender);
+			delta[k] = size(IConnectionDeltaData.make(members, null), sender);
+			digest[k] = size(IConnectionDigestData.make(0, versions), sender);
+		}
+		long checksumOnly = size(IConnectionDigestData.make(0, null), sender);
+		setBytes = linear(set);
+		deltaBytes = linear(delta);
+		IntToLongFunction digestEntries = linear(digest);
+		digestBytes = (d) -> d < 0 ? checksumOnly : digestEntries.applyAsLong(d);
+		digestInDeltaBytes = (d) -> d < 0 ? 0 : digestEntries.applyAsLong(d) - checksumOnly;
+		System.out.println("\nBytes per message: set " + set[2] + "/" + set[3] + ", delta " + delta[2] + "/" + delta[3]
+				+ ", digest " + digest[2] + "/" + digest[3] + " for 2/3 entries, checksum " + checksumOnly);
+	}
+
+	/**
+	 * Print the last lobby and unexport the connections
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println("\n" + protocol + ", " + apps + " apps: " + last);
+		for (IAppConnection sink : sinks) {
+			try {
+				UnicastRemoteObject.unexportObject(sink, true);
+			} catch (RemoteException e) {
+				// not exported
+			}
+		}
+		sinks.clear();
+	}
+
+	/**
+	 * Simulate one lobby.
+	 * @return the simulated time until every app knows every other, in milliseconds
+	 */
+	@Benchmark
+	public long join() {
+		last = new Lobby();
+		return last.run();
+	}
+
+	/**
+	 * The apps of one lobby and their messages in flight
+	 */
+	private class Lobby {
+		/**
+		 * A message or timer due at a simulated time
+		 */
+		private final class Event implements Comparable<Event> {
+			/**
+			 * When it is due
+			 */
+			final long at;
+
+			/**
+			 * Tie breaker, in scheduling order
+			 */
+			final long seq = scheduled++;
+
+			/**
+			 * What happens
+			 */
+			final Runnable action;
+
+			/**
+			 * @param at When it is due
+			 * @param action What happens
+			 */
+			Event(long at, Runnable action) {
+				this.at = at;
+				this.action = action;
+			}
+
+			@Override
+			public int compareTo(Event o) {
+				return at != o.at ? Long.compare(at, o.at) : Long.compare(seq, o.seq);
+			}
+		}
+
+		/**
+		 * Pending events
+		 */
+		final PriorityQueue<Event> events = new PriorityQueue<>();
+
+		/**
+		 * Number of events scheduled so far
+		 */
+		long scheduled = 0;
+
+		/**
+		 * The simulated time, in milliseconds
+		 */
+		long now = 0;
+
+		/**
+		 * Number of messages sent
+		 */
+		long messages = 0;
+
+		/**
+		 * Estimated bytes sent
+		 */
+		long bytes = 0;
+
+		/**
+		 * Number of apps that know every other
+		 */
+		int complete = 0;
+
+		/**
+		 * When the last app got to know every other, or -1
+		 */
+		long convergedAt = -1;
+
+		/**
+		 * Number of other apps each app knows
+		 */
+		final int[] known = new int[apps];
+
+		/**
+		 * The connection set of each app, for FULL_SET
+		 */
+		final List<Set<Integer>> sets = new ArrayList<>();
+
+		/**
+		 * The membership of each app, for GOSSIP
+		 */
+		final List<PeerMembership<Integer>> members = new ArrayList<>();
+
+		/**
+		 * Run the lobby until every app knows every other and the messages in flight are delivered
+		 * @return the simulated time until every app knew every other, or -1
+		 */
+		long run() {
+			for (int i = 0; i < apps; i++) {
+				final int app = i;
+				if (Protocol.FULL_SET == protocol) {
+					sets.add(new HashSet<>(Set.of(app)));
+				} else {
+					PeerMembership<Integer> membership = new PeerMembership<>(UUID.randomUUID(), app, transport(app),
+							GOSSIP_FAN_OUT);
+					membership.addListener(new PeerMembership.IMembershipListener<Integer>() {
+						@Override
+						public void joined(Integer peer) {
+							learned(app);
+						}
+					});
+					members.add(membership);
+					schedule(ThreadLocalRandom.current().nextLong(ANTI_ENTROPY_PERIOD), () -> antiEntropy(app));
+				}
+				if (0 < app) {
+					schedule(app * JOIN_MILLIS, () -> connect(app, 0));
+				}
+			}
+			while (!events.isEmpty() && now < GIVE_UP_MILLIS) {
+				Event event = events.poll();
+				now = event.at;
+				event.action.run();
+			}
+			return convergedAt;
+		}
+
+		/**
+		 * An app connects to another, as GameAppModel.connectToDyad() does
+		 * @param app The app
+		 * @param to The app it connects to
+		 */
+		void connect(int app, int to) {
+			if (Protocol.FULL_SET == protocol) {
+				if (sets.get(app).add(to)) {
+					learned(app);
+					sendSet(app, to);
+				}
+			} else {
+				members.get(app).hello(to);
+			}
+		}
+
+		/**
+		 * An app receives a connection set, as the original IConnectionSetData command does
+		 * @param app The app
+		 * @param remote The set received
+		 */
+		void receiveSet(int app, Set<Integer> remote) {
+			for (Integer other : remote) {
+				if (sets.get(app).add(other)) {
+					learned(app);
+					sendSet(app, other);
+				}
+			}
+		}
+
+		/**
+		 * An app sends its whole connection set
+		 * @param app The app
+		 * @param to The app it sends to
+		 */
+		void sendSet(int app, int to) {
+			Set<Integer> copy = new HashSet<>(sets.get(app));
+			send(setBytes.applyAsLong(copy.size()), () -> receiveSet(to, copy));
+		}
+
+		/**
+		 * Run an app's anti-entropy round and schedule the next one, until every app knows every other
+		 * @param app The app
+		 */
+		void antiEntropy(int app) {
+			if (convergedAt < 0) {
+				members.get(app).antiEntropy();
+				schedule(now + ANTI_ENTROPY_PERIOD, () -> antiEntropy(app));
+			}
+		}
+
+		/**
+		 * @param app An app
+		 * @return The app's gossip transport, delivering one hop later
+		 */
+		PeerMembership.IGossipTransport<Integer> transport(int app) {
+			return new PeerMembership.IGossipTransport<Integer>() {
+				@Override
+				public void sendDigest(Integer to, long checksum, Map<UUID, Long> digest) {
+					Map<UUID, Long> copy = null == digest ? null : new HashMap<>(digest);
+					send(digestBytes.applyAsLong(null == copy ? -1 : copy.size()),
+							() -> members.get(to).receiveDigest(app, checksum, copy));
+				}
+
+				@Override
+				public void sendDelta(Integer to, List<Member<Integer>> delta, Map<UUID, Long> digest) {
+					List<Member<Integer>> copy = new ArrayList<>(delta);
+					Map<UUID, Long> digestCopy = null == digest ? null : new HashMap<>(digest);
+					send(deltaBytes.applyAsLong(copy.size())
+							+ digestInDeltaBytes.applyAsLong(null == digestCopy ? -1 : digestCopy.size()),
+							() -> members.get(to).receiveDelta(app, copy, digestCopy));
+				}
+			};
+		}
+
+		/**
+		 * An app got to know one more app
+		 * @param app The app
+		 */
+		void learned(int app) {
+			if (++known[app] == apps - 1 && ++complete == apps) {
+				convergedAt = now;
+			}
+		}
+
+		/**
+		 * Send a message, delivered one hop later
+		 * @param size The estimated size of the message, in bytes
+		 * @param delivery What the receiver does with it
+		 */
+		void send(long size, Runnable delivery) {
+			messages++;
+			bytes += size;
+			schedule(now + HOP_MILLIS, delivery);
+		}
+
+		/**
+		 * Schedule an event
+		 * @param at When it is due
+		 * @param action What happens
+		 */
+		void schedule(long at, Runnable action) {
+			events.add(new Event(at, action));
+		}
+
+		@Override
+		public String toString() {
+			return (convergedAt < 0 ? "did not converge" : "converged after " + convergedAt + " ms") + ", "
+					+ messages + " messages, " + String.format("%.1f", bytes / 1048576.0) + " MiB"
+					+ (members.isEmpty() ? "" : "; server: " + members.get(0));
+		}
+	}
+
+	/**
+	 * @param data A message
+	 * @param sender Its sender
+	 * @return Its size as a plain serialized envelope
+	 */
+	private static long size(IAppConnectionData data, INamedAppConnection sender) {
+		return SerializedDataPacket.make(new AppDataPacket<IAppConnectionData>(data, sender)).getSize();
+	}
+
+	/**
+	 * @param sizes The sizes measured for 2 and 3 entries
+	 * @return The size by number of entries, extrapolated from them
+	 */
+	private static IntToLongFunction linear(long[] sizes) {
+		long perEntry = sizes[3] - sizes[2];
+		long fixed = sizes[2] - 2 * perEntry;
+		return (n) -> fixed + perEntry * n;
+	}
+}
@@ -0,0 +1,104 @@
+package afv2_jml25.bench;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import common.dataPacket.data.room.ITextData;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Cost of making IDs with DataPacketIDFactory and of using them as hash keys.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataPacketIDBenchmark {
+
+	/**
+	 * An interned ID
+	 */
+	private IDataPacketID id;
+
+	/**
+	 * An equal ID that went through serialization
+	 */
+	private IDataPacketID deserializedID;
+
+	/**
+	 * Map keyed by the interned ID
+	 */
+	private HashMap<IDataPacketID, Integer> map = new HashMap<>();
+
+	/**
+	 * Make the IDs
+	 */
+	@Setup
+	public void setup() {
+		id = ITextData.GetID();
+		deserializedID = (IDataPacketID) BenchFixtures.deserialize(BenchFixtures.serialize(id));
+		map.put(id, 42);
+	}
+
+	/**
+	 * Make an ID through the factory, as every getID() call does.
+	 * @return the ID
+	 */
+	@Benchmark
+	public IDataPacketID makeID() {
+		return DataPacketIDFactory.Singleton.makeID(ITextData.class);
+	}
+
+	/**
+	 * Make an ID through a data type's static GetID().
+	 * @return the ID
+	 */
+	@Benchmark
+	public IDataPacketID getID() {
+		return ITextData.GetID();
+	}
+
+	/**
+	 * Hash an ID.
+	 * @return the hash code
+	 */
+	@Benchmark
+	public int hashID() {
+		return id.hashCode();
+	}
+
+	/**
+	 * Look up a map with the interned ID.
+	 * @return the mapped value
+	 */
+	@Benchmark
+	public Integer lookupInterned() {
+		return map.get(id);
+	}
+
+	/**
+	 * Look up a map with the deserialized ID.
+	 * @return the mapped value
+	 */
+	@Benchmark
+	public Integer lookupDeserialized() {
+		return map.get(deserializedID);
+	}
+}
@@ -0,0 +1,136 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.bench.BenchFixtures.VisitorMode;
+import provided.datapacket.ADataPacket;
+import provided.datapacket.DataPacketAlgo;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Cost of resolving a command in AExtVisitor.caseAt() as the number of installed IDs grows.
+ * The packets are visited round-robin so that the lookup is not trivially predicted.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+	/**
+	 * Number of distinct IDs with an installed command
+	 */
+	@Param({ "10", "100", "1000" })
+	public int idCount;
+
+	/**
+	 * Storage mode of the visitor
+	 */
+	@Param({ "HASHTABLE", "DENSE", "COPY_ON_WRITE", "COPY_ON_WRITE_DENSE" })
+	public VisitorMode mode;
+
+	/**
+	 * The visitor under test
+	 */
+	private DataPacketAlgo<Integer, Void> algo;
+
+	/**
+	 * One packet per installed ID
+	 */
+	private ADataPacket[] packets;
+
+	/**
+	 * Interned IDs of the packets
+	 */
+	private IDataPacketID[] ids;
+
+	/**
+	 * Data types of the packets
+	 */
+	private Class<? extends IDataPacketData>[] types;
+
+	/**
+	 * A packet whose ID has no installed command
+	 */
+	private ADataPacket unknownPacket;
+
+	/**
+	 * Round-robin position
+	 */
+	private int next;
+
+	/**
+	 * Build the visitor and the packets
+	 */
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setup() {
+		algo = BenchFixtures.makeAlgo(mode);
+		packets = BenchFixtures.installSyntheticCmds(algo, idCount);
+		ids = BenchFixtures.syntheticIDs(idCount);
+		types = BenchFixtures.syntheticTypes(idCount).toArray(new Class[idCount]);
+		// the types beyond idCount are defined but have no command in this visitor
+		unknownPacket = BenchFixtures.installSyntheticCmds(null, idCount + 1)[idCount];
+	}
+
+	/**
+	 * Visit a packet through its execute() method, as the rooms do.
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer execute() {
+		ADataPacket packet = packets[next];
+		next = (next + 1) % idCount;
+		return packet.execute(algo);
+	}
+
+	/**
+	 * Call caseAt() directly with an interned ID.
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer caseAt() {
+		int i = next;
+		next = (next + 1) % idCount;
+		return algo.caseAt(ids[i], packets[i]);
+	}
+
+	/**
+	 * Call caseAt() with an equal ID that was not interned, as after deserialization of a foreign ID.
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer caseAtFreshID() {
+		int i = next;
+		next = (next + 1) % idCount;
+		return algo.caseAt(DataPacketIDFactory.Singleton.makeID(types[i]), packets[i]);
+	}
+
+	/**
+	 * Visit a packet whose ID falls through to the default command.
+	 * @return the default command's result
+	 */
+	@Benchmark
+	public Integer executeDefault() {
+		return unknownPacket.execute(algo);
+	}
+}
@@ -0,0 +1,111 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.bench.BenchFixtures.VisitorMode;
+import provided.datapacket.ADataPacket;
+import provided.datapacket.DataPacketAlgo;
+import provided.datapacket.IDataPacketID;
+import provided.extvisitor.DispatchStats;
+
+/**
+ * Overhead of DispatchStats on AExtVisitor.caseAt(), with recording disabled and enabled.
+ * The contended variant dispatches the same few IDs from several threads to exercise the striped counters.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchStatsBenchmark {
+
+	/**
+	 * Number of distinct IDs with an installed command
+	 */
+	private static final int ID_COUNT = 8;
+
+	/**
+	 * Whether the statistics are being recorded
+	 */
+	@Param({ "false", "true" })
+	public boolean enabled;
+
+	/**
+	 * The visitor under test
+	 */
+	private DataPacketAlgo<Integer, Void> algo;
+
+	/**
+	 * One packet per installed ID
+	 */
+	private ADataPacket[] packets;
+
+	/**
+	 * Interned IDs of the packets
+	 */
+	private IDataPacketID[] ids;
+
+	/**
+	 * Per-thread round-robin position
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		/**
+		 * Next packet to dispatch
+		 */
+		int next;
+	}
+
+	/**
+	 * Build the visitor, the packets and the statistics
+	 */
+	@Setup
+	public void setup() {
+		algo = BenchFixtures.makeAlgo(VisitorMode.COPY_ON_WRITE_DENSE);
+		packets = BenchFixtures.installSyntheticCmds(algo, ID_COUNT);
+		ids = BenchFixtures.syntheticIDs(ID_COUNT);
+		new DispatchStats<IDataPacketID>(algo).setEnabled(enabled);
+	}
+
+	/**
+	 * Call caseAt() from a single thread.
+	 * @param cursor The thread's position
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer caseAt(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = (i + 1) % ID_COUNT;
+		return algo.caseAt(ids[i], packets[i]);
+	}
+
+	/**
+	 * Call caseAt() from four threads at once.
+	 * @param cursor The thread's position
+	 * @return the command's result
+	 */
+	@Benchmark
+	@Threads(4)
+	public Integer caseAtContended(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = (i + 1) % ID_COUNT;
+		return algo.caseAt(ids[i], packets[i]);
+	}
+}
@@ -0,0 +1,113 @@
+package afv2_jml25.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import provided.datapacket.DataPacketFanOut;
+import provided.datapacket.DataPacketFanOut.Outcome;
+
+/**
+ * Time for a room-wide send to reach the last member, sending one member after the other versus concurrently
+ * through DataPacketFanOut.   Each send is simulated by parking for one round trip, so the serial loop takes
+ * about members x RTT and the fan-out about one RTT.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FanOutBenchmark {
+
+	/**
+	 * Number of room members
+	 */
+	@Param({ "10", "50" })
+	public int members;
+
+	/**
+	 * Simulated round trip time of one send, in milliseconds
+	 */
+	@Param({ "2" })
+	public int rttMillis;
+
+	/**
+	 * The room members
+	 */
+	private List<Integer> roster;
+
+	/**
+	 * The fan-out under test
+	 */
+	private DataPacketFanOut fanOut;
+
+	/**
+	 * Build the roster and the fan-out
+	 */
+	@Setup
+	public void setup() {
+		roster = new ArrayList<Integer>();
+		for (int i = 0; i < members; i++) {
+			roster.add(i);
+		}
+		fanOut = new DataPacketFanOut("bench-send", 1000);
+	}
+
+	/**
+	 * Stop the fan-out's threads
+	 */
+	@TearDown
+	public void tearDown() {
+		fanOut.shutdown();
+	}
+
+	/**
+	 * Simulate a send to one member
+	 * @param member The member
+	 */
+	private void sendTo(Integer member) {
+		LockSupport.parkNanos(rttMillis * 1000000L);
+	}
+
+	/**
+	 * Send to the members one after the other, as the room did before.
+	 * @return the number of members sent to
+	 */
+	@Benchmark
+	public int serial() {
+		int sent = 0;
+		for (Integer member : roster) {
+			sendTo(member);
+			sent++;
+		}
+		return sent;
+	}
+
+	/**
+	 * Send to the members concurrently and wait for every outcome.
+	 * @return the outcomes
+	 */
+	@Benchmark
+	public Map<Integer, Outcome> fanOut() {
+		return fanOut.send(roster, this::sendTo).join();
+	}
+}
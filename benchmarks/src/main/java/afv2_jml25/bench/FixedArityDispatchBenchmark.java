@@ -0,0 +1,111 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.bench.BenchFixtures.VisitorMode;
+import provided.datapacket.ADataPacket;
+import provided.datapacket.DataPacketAlgo;
+import provided.datapacket.IDataPacketID;
+import provided.extvisitor.DispatchStats;
+
+/**
+ * Allocation per dispatch of the fixed-arity execute()/caseAt()/apply() overloads versus the vararg path.
+ * Run with the GC profiler to see the allocation rate, e.g.
+ * <pre>java -jar target/benchmarks.jar FixedArityDispatchBenchmark -prof gc</pre>
+ * and compare gc.alloc.rate.norm (bytes per operation):  the fixed-arity benchmarks should report 0.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-XX:-DoEscapeAnalysis" })
+@State(Scope.Thread)
+public class FixedArityDispatchBenchmark {
+
+	/**
+	 * Number of distinct IDs with an installed command
+	 */
+	private static final int ID_COUNT = 8;
+
+	/**
+	 * Whether the visitor has a DispatchStats monitor installed
+	 */
+	@Param({ "false", "true" })
+	public boolean monitored;
+
+	/**
+	 * The visitor under test
+	 */
+	private DataPacketAlgo<Integer, Void> algo;
+
+	/**
+	 * One packet per installed ID
+	 */
+	private ADataPacket[] packets;
+
+	/**
+	 * Round-robin position
+	 */
+	private int next;
+
+	/**
+	 * Build the visitor and the packets
+	 */
+	@Setup
+	public void setup() {
+		algo = BenchFixtures.makeAlgo(VisitorMode.COPY_ON_WRITE_DENSE);
+		packets = BenchFixtures.installSyntheticCmds(algo, ID_COUNT);
+		new DispatchStats<IDataPacketID>(algo).setEnabled(monitored);
+	}
+
+	/**
+	 * @return the next packet, round-robin
+	 */
+	private ADataPacket nextPacket() {
+		ADataPacket packet = packets[next];
+		next = (next + 1) % ID_COUNT;
+		return packet;
+	}
+
+	/**
+	 * execute(algo):  the zero-argument overload, as used by the rooms.
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer executeNoParams() {
+		return nextPacket().execute(algo);
+	}
+
+	/**
+	 * execute(algo, param):  the one-argument overload with a Void parameter.
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer executeOneParam() {
+		return nextPacket().execute(algo, (Void) null);
+	}
+
+	/**
+	 * execute(algo, params...):  the vararg method, which needs a new array for every call.
+	 * @return the command's result
+	 */
+	@Benchmark
+	public Integer executeVarargs() {
+		return nextPacket().execute(algo, null, null);
+	}
+}
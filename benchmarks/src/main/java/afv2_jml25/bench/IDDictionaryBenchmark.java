@@ -0,0 +1,152 @@
+package afv2_jml25.bench;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.api.IEliminationData;
+import afv2_jml25.api.IGameBooleanData;
+import common.dataPacket.CompactDataCodecs;
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import common.dataPacket.data.room.ICmdRequestData;
+import common.serverObj.INamedRoomConnection;
+import provided.datapacket.CompactDataPacketFormat;
+import provided.datapacket.DataPacketIDDictionary;
+
+/**
+ * Bytes and throughput of the small control packets of a game round with and without the per-peer 
+ * DataPacketIDDictionary, in both wire formats.   The size of the first and of later packets is printed at set-up.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IDDictionaryBenchmark {
+
+	/**
+	 * The kind of control packet
+	 */
+	@Param({ "GAME_BOOLEAN", "ELIMINATION", "CMD_REQUEST" })
+	public String payload;
+
+	/**
+	 * STANDARD or COMPACT wire format
+	 */
+	@Param({ "STANDARD", "COMPACT" })
+	public String format;
+
+	/**
+	 * Whether the ID dictionary is used
+	 */
+	@Param({ "false", "true" })
+	public boolean dictionary;
+
+	/**
+	 * The packet under test
+	 */
+	private RoomDataPacket<? extends IRoomConnectionData> packet;
+
+	/**
+	 * Stands for the receiving peer
+	 */
+	private final Object peer = new Object();
+
+	/**
+	 * The packet serialized in the steady state
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Output of the last send
+	 */
+	private byte[] sent;
+
+	/**
+	 * Build the packet and prime the dictionary
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		CompactDataCodecs.install();
+		INamedRoomConnection sender = BenchFixtures.makeSender("bench");
+		switch (payload) {
+		case "GAME_BOOLEAN":
+			packet = new RoomDataPacket<IGameBooleanData>(IGameBooleanData.make(), sender);
+			break;
+		case "ELIMINATION":
+			packet = new RoomDataPacket<IEliminationData>(IEliminationData.make(UUID.randomUUID()), sender);
+			break;
+		default:
+			packet = new RoomDataPacket<ICmdRequestData>(ICmdRequestData.make(IGameBooleanData.GetID()), sender);
+			break;
+		}
+		CompactDataPacketFormat.Singleton.setEnabled("COMPACT".equals(format));
+		if (dictionary) {
+			DataPacketIDDictionary.markSupported(peer);
+		}
+
+		byte[] first = send();
+		BenchFixtures.deserialize(first); // the receiver learns the codes
+		bytes = send();
+		if (!packet.getClass().equals(BenchFixtures.deserialize(bytes).getClass())) {
+			throw new IllegalStateException("Round trip did not restore the packet class");
+		}
+		System.out.println("\n" + payload + "/" + format + "/dictionary=" + dictionary + ": first packet "
+				+ first.length + " bytes, later packets " + bytes.length + " bytes");
+	}
+
+	/**
+	 * Restore the defaults and release the RMI stubs
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		CompactDataPacketFormat.Singleton.setEnabled(false);
+		DataPacketIDDictionary.forget(peer);
+		BenchFixtures.releaseSenders();
+	}
+
+	/**
+	 * Serialize the packet as a send to the peer would
+	 * @return the serialized bytes
+	 */
+	private byte[] send() {
+		DataPacketIDDictionary.send(peer, () -> sent = BenchFixtures.serialize(packet));
+		return sent;
+	}
+
+	/**
+	 * Serialize the packet in the steady state.
+	 * @return the serialized bytes
+	 */
+	@Benchmark
+	public byte[] serialize() {
+		return send();
+	}
+
+	/**
+	 * Deserialize the packet in the steady state.
+	 * @return the packet
+	 */
+	@Benchmark
+	public Object deserialize() {
+		return BenchFixtures.deserialize(bytes);
+	}
+}
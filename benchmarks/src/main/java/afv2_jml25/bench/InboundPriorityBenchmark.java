@@ -0,0 +1,176 @@
+package afv2_jml25.bench;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import provided.datapacket.DataPacketExecutor;
+import provided.datapacket.DataPacketExecutor.FullPolicy;
+
+/**
+ * Time for a game control packet, e.g. an elimination, to be processed when it arrives behind a burst of chat
+ * from several members, with the room's executor settings, with and without the control packets' priority.
+ * The workers are held until the burst and the control packet are queued, so the control packet always finds the
+ * same backlog ahead of it.   Without priority, it waits for the first batch of every member's chat;  with it, only
+ * for the packets already running.   The mean number of chat packets processed ahead of the control packet and the
+ * executor's queue depth are printed at tear down.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InboundPriorityBenchmark {
+
+	/**
+	 * Whether the control packet is submitted as a priority packet
+	 */
+	@Param({ "false", "true" })
+	public boolean priority;
+
+	/**
+	 * Number of chat packets ahead of the control packet
+	 */
+	@Param({ "200" })
+	public int burst;
+
+	/**
+	 * Number of worker threads;  a room has two by default
+	 */
+	@Param({ "1", "2" })
+	public int threads;
+
+	/**
+	 * Number of members the chat comes from
+	 */
+	private static final int SENDERS = 8;
+
+
+	/**
+	 * Simulated processing cost of one packet, in Blackhole tokens
+	 */
+	private static final int WORK = 2000;
+
+	/**
+	 * The executor under test, with the room's settings
+	 */
+	private DataPacketExecutor executor;
+
+	/**
+	 * Holds the workers until the backlog is queued
+	 */
+	private CountDownLatch gate;
+
+	/**
+	 * The chat packets of the current burst
+	 */
+	private CompletableFuture<?>[] chat;
+
+	/**
+	 * Number of chat packets processed so far in the current burst
+	 */
+	private final AtomicInteger processed = new AtomicInteger();
+
+	/**
+	 * Total number of chat packets processed ahead of the control packets
+	 */
+	private final AtomicLong ahead = new AtomicLong();
+
+	/**
+	 * Number of control packets processed
+	 */
+	private final AtomicLong controls = new AtomicLong();
+
+	/**
+	 * Make the executor
+	 */
+	@Setup
+	public void setup() {
+		executor = new DataPacketExecutor("bench-in", threads, 256, 64, FullPolicy.REJECT, 0);
+	}
+
+	/**
+	 * Report the queue depth and stop the executor's threads
+	 */
+	@TearDown
+	public void tearDown() {
+		System.out.println("\n" + (double) ahead.get() / controls.get() + " chat packets ahead of the control packet; "
+				+ executor);
+		executor.shutdown();
+	}
+
+	/**
+	 * Hold the workers and queue a burst of chat from the members, as if it had just arrived
+	 */
+	@Setup(Level.Invocation)
+	public void queueChat() {
+		gate = new CountDownLatch(1);
+		for (int i = 0; i < threads; i++) {
+			executor.forSender("gate-" + i).execute(() -> {
+				try {
+					gate.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		processed.set(0);
+		chat = new CompletableFuture<?>[burst];
+		for (int i = 0; i < burst; i++) {
+			chat[i] = CompletableFuture.runAsync(() -> {
+				Blackhole.consumeCPU(WORK);
+				processed.incrementAndGet();
+			}, executor.forSender(i % SENDERS));
+		}
+	}
+
+	/**
+	 * Let the chat drain before the next burst
+	 */
+	@TearDown(Level.Invocation)
+	public void drainChat() {
+		CompletableFuture.allOf(chat).join();
+		while (0 < executor.getPendingCount()) {
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Queue a control packet behind the chat, release the workers and wait for the control packet to be processed.
+	 * @return the number of chat packets processed ahead of it
+	 */
+	@Benchmark
+	public int controlBehindChat() {
+		CompletableFuture<Integer> control = CompletableFuture.supplyAsync(() -> {
+			int before = processed.get();
+			Blackhole.consumeCPU(WORK);
+			return before;
+		}, executor.forSender("server", priority));
+		gate.countDown();
+		int before = control.join();
+		ahead.addAndGet(before);
+		controls.incrementAndGet();
+		return before;
+	}
+}
@@ -0,0 +1,116 @@
+package afv2_jml25.bench;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import provided.mixedData.MixedDataDictionary;
+import provided.mixedData.MixedDataKey;
+
+/**
+ * Cost of get, put and getKeys on a MixedDataDictionary as the number of stored entries grows.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MixedDataDictionaryBenchmark {
+
+	/**
+	 * Number of entries in the dictionary
+	 */
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	/**
+	 * Number of entries that share one UUID
+	 */
+	private static final int KEYS_PER_ID = 10;
+
+	/**
+	 * The dictionary under test
+	 */
+	private MixedDataDictionary dict;
+
+	/**
+	 * The keys in the dictionary
+	 */
+	private MixedDataKey<Integer>[] keys;
+
+	/**
+	 * A UUID that has KEYS_PER_ID keys in the dictionary
+	 */
+	private UUID someID;
+
+	/**
+	 * Round-robin position
+	 */
+	private int next;
+
+	/**
+	 * Fill the dictionary
+	 */
+	@SuppressWarnings("unchecked")
+	@Setup
+	public void setup() {
+		dict = new MixedDataDictionary();
+		keys = new MixedDataKey[size];
+		UUID id = null;
+		for (int i = 0; i < size; i++) {
+			if (0 == i % KEYS_PER_ID) {
+				id = UUID.randomUUID();
+			}
+			keys[i] = new MixedDataKey<Integer>(id, "key" + i, Integer.class);
+			dict.put(keys[i], i);
+		}
+		someID = keys[size / 2].getID();
+	}
+
+	/**
+	 * Get a stored value.
+	 * @return the value
+	 */
+	@Benchmark
+	public Integer get() {
+		MixedDataKey<Integer> key = keys[next];
+		next = (next + 1) % size;
+		return dict.get(key);
+	}
+
+	/**
+	 * Replace a stored value.
+	 * @return the previous value
+	 */
+	@Benchmark
+	public Integer put() {
+		int i = next;
+		next = (next + 1) % size;
+		return dict.put(keys[i], i);
+	}
+
+	/**
+	 * Get all the keys of one UUID.
+	 * @return the keys
+	 */
+	@Benchmark
+	public Set<MixedDataKey<?>> getKeys() {
+		return dict.getKeys(someID);
+	}
+}
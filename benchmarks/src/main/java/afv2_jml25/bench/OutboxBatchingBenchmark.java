@@ -0,0 +1,113 @@
+package afv2_jml25.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import provided.datapacket.DataPacketOutbox;
+
+/**
+ * Time to deliver a burst of messages to one member, e.g. the 20 country eliminations GameMicroModel sends to the
+ * game server, sending them one after the other versus through DataPacketOutbox.   Each send is simulated by
+ * parking for one round trip, so the serial loop takes about burst x RTT and the outbox at most one RTT for the first
+ * message plus the batch window and one RTT for the rest.   The round trips saved are printed at tear down.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxBatchingBenchmark {
+
+	/**
+	 * Number of messages in a burst
+	 */
+	@Param({ "1", "20" })
+	public int burst;
+
+	/**
+	 * Simulated round trip time of one send, in milliseconds
+	 */
+	@Param({ "2" })
+	public int rttMillis;
+
+	/**
+	 * The outbox under test, with the room's settings
+	 */
+	private DataPacketOutbox<Integer, List<Integer>> outbox;
+
+	/**
+	 * Make the outbox
+	 */
+	@Setup
+	public void setup() {
+		outbox = new DataPacketOutbox<Integer, List<Integer>>("bench-out", 5, 32, (member, packet) -> sendTo(member),
+				(packets) -> {
+					List<Integer> list = new ArrayList<Integer>();
+					packets.forEach(list::addAll);
+					return list;
+				});
+	}
+
+	/**
+	 * Report the batching and stop the outbox's threads
+	 */
+	@TearDown
+	public void tearDown() {
+		System.out.println("\n" + outbox);
+		outbox.shutdown();
+	}
+
+	/**
+	 * Simulate a send to one member
+	 * @param member The member
+	 */
+	private void sendTo(Integer member) {
+		LockSupport.parkNanos(rttMillis * 1000000L);
+	}
+
+	/**
+	 * Send the messages one after the other, as the room did before.
+	 * @return the number of messages sent
+	 */
+	@Benchmark
+	public int serial() {
+		for (int i = 0; i < burst; i++) {
+			sendTo(0);
+		}
+		return burst;
+	}
+
+	/**
+	 * Queue the messages in the outbox and wait until they have all been sent.
+	 * @return the number of messages sent
+	 */
+	@Benchmark
+	public int outbox() {
+		CompletableFuture<?>[] sent = new CompletableFuture<?>[burst];
+		for (int i = 0; i < burst; i++) {
+			sent[i] = outbox.send(0, List.of(i));
+		}
+		CompletableFuture.allOf(sent).join();
+		return burst;
+	}
+}
@@ -0,0 +1,145 @@
+package afv2_jml25.bench;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.api.IMapData;
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import common.dataPacket.data.room.IPacketListData;
+import common.dataPacket.data.room.ITextData;
+import common.serverObj.INamedRoomConnection;
+import provided.mixedData.MixedDataDictionary;
+import provided.mixedData.MixedDataKey;
+
+/**
+ * Java serialization round trips of RoomDataPackets carrying the data types the game sends most.
+ * The serialized size of each payload is printed at set-up.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoomDataPacketSerializationBenchmark {
+
+	/**
+	 * The kind of payload
+	 */
+	@Param({ "TEXT", "MAP", "PACKET_LIST" })
+	public String payload;
+
+	/**
+	 * The packet under test
+	 */
+	private RoomDataPacket<? extends IRoomConnectionData> packet;
+
+	/**
+	 * The serialized packet
+	 */
+	private byte[] bytes;
+
+	/**
+	 * Build the packet for the payload kind
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		INamedRoomConnection sender = BenchFixtures.makeSender("bench");
+		packet = makePacket(payload, sender);
+		bytes = BenchFixtures.serialize(packet);
+		System.out.println("\n" + payload + " packet: " + bytes.length + " bytes serialized");
+	}
+
+	/**
+	 * Release the RMI stubs
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchFixtures.releaseSenders();
+	}
+
+	/**
+	 * Make a packet with a representative payload.
+	 * @param payload TEXT, MAP or PACKET_LIST
+	 * @param sender the sender dyad
+	 * @return a new packet
+	 */
+	public static RoomDataPacket<? extends IRoomConnectionData> makePacket(String payload,
+			INamedRoomConnection sender) {
+		switch (payload) {
+		case "TEXT":
+			return new RoomDataPacket<ITextData>(ITextData.make("Canada has been eliminated!"), sender);
+		case "MAP":
+			return new RoomDataPacket<IMapData>(IMapData.make(makeMapOptions()), sender);
+		case "PACKET_LIST":
+			ArrayList<RoomDataPacket<IRoomConnectionData>> packets = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				packets.add(new RoomDataPacket<IRoomConnectionData>(ITextData.make("Country " + i + " has been eliminated!"),
+						sender));
+			}
+			return new RoomDataPacket<IPacketListData>(IPacketListData.make(packets), sender);
+		default:
+			throw new IllegalArgumentException("Unknown payload: " + payload);
+		}
+	}
+
+	/**
+	 * Make a map options dictionary like the one sent at game start.
+	 * @return a new dictionary
+	 */
+	private static MixedDataDictionary makeMapOptions() {
+		MixedDataDictionary dict = new MixedDataDictionary();
+		UUID id = UUID.randomUUID();
+		dict.put(new MixedDataKey<Double>(id, "lat", Double.class), 29.7174);
+		dict.put(new MixedDataKey<Double>(id, "lng", Double.class), -95.4018);
+		dict.put(new MixedDataKey<Integer>(id, "zoom", Integer.class), 3);
+		dict.put(new MixedDataKey<String>(id, "mapType", String.class), "satellite");
+		return dict;
+	}
+
+	/**
+	 * Serialize the packet.
+	 * @return the serialized bytes
+	 */
+	@Benchmark
+	public byte[] serialize() {
+		return BenchFixtures.serialize(packet);
+	}
+
+	/**
+	 * Deserialize the packet.
+	 * @return the packet
+	 */
+	@Benchmark
+	public Object deserialize() {
+		return BenchFixtures.deserialize(bytes);
+	}
+
+	/**
+	 * Serialize then deserialize the packet, as one RMI hop does.
+	 * @return the packet
+	 */
+	@Benchmark
+	public Object roundTrip() {
+		return BenchFixtures.deserialize(BenchFixtures.serialize(packet));
+	}
+}
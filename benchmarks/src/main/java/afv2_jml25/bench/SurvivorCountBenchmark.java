@@ -0,0 +1,205 @@
+package afv2_jml25.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import afv2_jml25.api.SurvivorCount;
+
+/**
+ * Time for the game server to process a whole game of 10k players split into teams:  every round, each player
+ * still alive sends its death, if it dies that round, then an elimination check and a winner check, as
+ * GameMicroModel.gameEvaluate() does.   The deaths are drawn once per trial, so both accountings play the same game.
+ * <br>
+ * SCAN is the original accounting:  the elimination check scans the team's player statuses and the winner check
+ * scans the team statuses.   COUNTED is SurvivorCount, one count of the players alive per team and one of the
+ * teams alive, where the checks do nothing and each death costs O(1).   The number of outcomes announced, which
+ * COUNTED does exactly once, is returned.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SurvivorCountBenchmark {
+
+	/**
+	 * How the survivors are accounted for
+	 */
+	public enum Accounting {
+		/**
+		 * Status maps scanned on every check
+		 */
+		SCAN,
+		/**
+		 * SurvivorCount, updated on every death
+		 */
+		COUNTED
+	}
+
+	/**
+	 * Number of players
+	 */
+	@Param({ "10000" })
+	public int players;
+
+	/**
+	 * Number of teams the players are split into
+	 */
+	@Param({ "10", "100", "1000" })
+	public int teams;
+
+	/**
+	 * The accounting under test
+	 */
+	@Param({ "SCAN", "COUNTED" })
+	public Accounting accounting;
+
+	/**
+	 * Number of rounds, every player dies in one of them
+	 */
+	private static final int ROUNDS = 10;
+
+	/**
+	 * The round each player dies in
+	 */
+	private int[] deathRound;
+
+	/**
+	 * Draw the rounds the players die in
+	 */
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(42);
+		deathRound = new int[players];
+		for (int p = 0; p < players; p++) {
+			deathRound[p] = random.nextInt(ROUNDS);
+		}
+	}
+
+	/**
+	 * @param player a player
+	 * @return the player's team
+	 */
+	private int teamOf(int player) {
+		return player % teams;
+	}
+
+	/**
+	 * Play a game with the original scans
+	 * @return the number of outcomes announced
+	 */
+	private int scan() {
+		List<ConcurrentHashMap<Integer, Boolean>> playerStatus = new ArrayList<>(teams);
+		ConcurrentHashMap<Integer, Boolean> gameResult = new ConcurrentHashMap<>();
+		for (int t = 0; t < teams; t++) {
+			playerStatus.add(new ConcurrentHashMap<>());
+			gameResult.put(t, true);
+		}
+		for (int p = 0; p < players; p++) {
+			playerStatus.get(teamOf(p)).put(p, true);
+		}
+		int outcomes = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int p = 0; p < players; p++) {
+				if (deathRound[p] < round) {
+					continue;
+				}
+				ConcurrentHashMap<Integer, Boolean> team = playerStatus.get(teamOf(p));
+				if (deathRound[p] == round) {
+					team.put(p, false);
+				}
+				// elimination check
+				boolean teamAlive = false;
+				for (Integer player : team.keySet()) {
+					if (team.get(player)) {
+						teamAlive = true;
+					}
+				}
+				if (!teamAlive && gameResult.containsKey(teamOf(p))) {
+					gameResult.put(teamOf(p), false);
+				}
+				// winner check
+				for (Integer t : gameResult.keySet()) {
+					if (!gameResult.get(t)) {
+						gameResult.remove(t);
+					}
+				}
+				if (gameResult.size() <= 1) {
+					outcomes++;
+				}
+			}
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Play a game with SurvivorCount
+	 * @return the number of outcomes announced
+	 */
+	private int counted() {
+		int[] outcomes = { 0 };
+		SurvivorCount<Integer> teamSurvival = new SurvivorCount<>(new SurvivorCount.ISurvivorListener<Integer>() {
+			@Override
+			public void lastStanding(Integer team) {
+				outcomes[0]++;
+			}
+
+			@Override
+			public void draw() {
+				outcomes[0]++;
+			}
+		});
+		List<SurvivorCount<Integer>> playerSurvival = new ArrayList<>(teams);
+		for (int t = 0; t < teams; t++) {
+			final Integer team = t;
+			teamSurvival.add(team);
+			playerSurvival.add(new SurvivorCount<>(new SurvivorCount.ISurvivorListener<Integer>() {
+				@Override
+				public void allPerished() {
+					teamSurvival.kill(team);
+				}
+			}));
+		}
+		for (int p = 0; p < players; p++) {
+			playerSurvival.get(teamOf(p)).add(p);
+		}
+		for (int round = 0; round < ROUNDS; round++) {
+			for (int p = 0; p < players; p++) {
+				if (deathRound[p] == round) {
+					playerSurvival.get(teamOf(p)).kill(p);
+				}
+				// the elimination and winner checks only read the counts
+			}
+		}
+		return outcomes[0];
+	}
+
+	/**
+	 * Play one game
+	 * @return the number of outcomes announced
+	 */
+	@Benchmark
+	public int game() {
+		return Accounting.SCAN == accounting ? scan() : counted();
+	}
+}
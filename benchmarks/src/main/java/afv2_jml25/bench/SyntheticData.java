@@ -0,0 +1,28 @@
+package afv2_jml25.bench;
+
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Template for synthetic data types.   BenchFixtures defines this class many times over as 
+ * hidden classes, each of which has a distinct name and thus a distinct IDataPacketID.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public class SyntheticData implements IDataPacketData {
+
+	/**
+	 * For serialization
+	 */
+	private static final long serialVersionUID = -2709217862345181346L;
+
+	/**
+	 * The ID is derived from the runtime class so that every hidden copy of this class gets its own ID.
+	 */
+	@Override
+	public IDataPacketID getID() {
+		return DataPacketIDFactory.Singleton.makeID(getClass());
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * JMH benchmarks for the datapacket, visitor and serialization hot paths.
+ */
+package afv2_jml25.bench;
@@ -124,23 +124,48 @@ public class GameInitAlgoCmd extends ARoomDataPacketAlgoCmd<IGameInitData> {
 			// Create the adapter(s) to the micro-MVC. Make as many as needed.
 			IGameMicroAdapter gameAdpt = new IGameMicroAdapter() {
 				// methods that access the micro-model/view
+				@Override
+				public void startRounds(long startTime) {
+					gameMicroModel.startRounds(startTime);
+				}
 			};
 
-			// Make the keys to the game adapters. Use an informative description string.
-			MixedDataKey<IGameMicroAdapter> adapterKey = new MixedDataKey<IGameMicroAdapter>(gameUUID,
-					"IGameMicroAdapter", IGameMicroAdapter.class);
-			// Make a unique key for each adapter being stored.
-
 			// Store the adapter(s) in the local storage for other game-commands to
 			// retrieve.
 			// The name and signature of the method may vary as it is defined by the API.
-			getCmd2ModelAdpt().putLocalData(adapterKey, gameAdpt);
+			getCmd2ModelAdpt().putLocalData(adapterKey(gameUUID), gameAdpt);
 			// Add as many adapters to the local storage as needed, each with their own key.
 
+			// The round start may have come while the game was being set up
+			Long startTime = getCmd2ModelAdpt().getLocalData(startTimeKey(gameUUID));
+			if (null != startTime) {
+				gameAdpt.startRounds(startTime);
+			}
+
 			return gameMicroView; // Return the micro-view so that it will be displayed on the client's UI.
 		});
 
 		return null;
 	}
 
+	/**
+	 * Make the key to a game's adapter in the local storage
+	 * 
+	 * @param gameUUID The UUID identifying the instance of the game
+	 * @return the key to the game's IGameMicroAdapter
+	 */
+	static MixedDataKey<IGameMicroAdapter> adapterKey(UUID gameUUID) {
+		return new MixedDataKey<IGameMicroAdapter>(gameUUID, "IGameMicroAdapter", IGameMicroAdapter.class);
+	}
+
+	/**
+	 * Make the key to a game's round start time in the local storage
+	 * 
+	 * @param gameUUID The UUID identifying the instance of the game
+	 * @return the key to the start time set by the game server (IRoundStartData), on this player's clock
+	 */
+	static MixedDataKey<Long> startTimeKey(UUID gameUUID) {
+		return new MixedDataKey<Long>(gameUUID, "roundStartTime", Long.class);
+	}
+
 }
@@ -1,10 +1,16 @@
 package afv2_jml25.api;
 
-import java.util.HashSet;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
 import common.serverObj.INamedRoomConnection;
 import common.serverObj.INamedRoomID;
+import common.serverObj.IRoomConnection;
 
 /**
  * Concrete class that represents a chat room.
@@ -25,15 +31,20 @@ public class GameRoom {
 	UUID uuid;
 
 	/**
-	 * Roster of this chat room
+	 * Roster of this chat room, shared with the room's model
 	 */
-	HashSet<INamedRoomConnection> roomRoster = new HashSet<>();
+	volatile RoomRoster roomRoster = new RoomRoster();
 
 	/**
 	 * This dyad for encapsulating room to room connection info
 	 */
 	INamedRoomConnection localRoomConnection;
 
+	/**
+	 * This app's receiver in the room, to deliver messages to it without RMI
+	 */
+	IRoomConnection localReceiver;
+
 	/**
 	 * Dyad for the game room
 	 */
@@ -83,10 +94,82 @@ public class GameRoom {
 	}
 
 	/**
+	 * @param receiver this app's receiver in the room, the object exported as the room connection's stub
+	 */
+	public void setLocalReceiver(IRoomConnection receiver) {
+		this.localReceiver = receiver;
+	}
+
+	/**
+	 * Deliver a message to this app in the room, directly to its receiver if known, else through its stub.
+	 * 
+	 * @param packet the message
+	 * @return false if this app has no connection in the room
+	 * @throws RemoteException if the message could not be delivered through the stub
+	 */
+	public boolean deliver(RoomDataPacket<? extends IRoomConnectionData> packet) throws RemoteException {
+		if (null != localReceiver) {
+			localReceiver.sendMessage(packet);
+		} else if (null != localRoomConnection) {
+			localRoomConnection.sendMessage(packet);
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Listeners of the roster, moved to the new roster when it is replaced
+	 */
+	List<RoomRoster.IRosterListener> rosterListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Replace the roster.   The roster listeners are moved to the new roster and told of the members that
+	 * left and joined in the swap.
+	 * 
 	 * @param newRoster updated roster of users connected to this room
 	 */
-	public void setRoster(HashSet<INamedRoomConnection> newRoster) {
+	public synchronized void setRoster(RoomRoster newRoster) {
+		RoomRoster oldRoster = this.roomRoster;
+		for (RoomRoster.IRosterListener listener : rosterListeners) {
+			oldRoster.removeListener(listener);
+			newRoster.addListener(listener);
+		}
 		this.roomRoster = newRoster;
+		Set<INamedRoomConnection> before = oldRoster.getSnapshot();
+		Set<INamedRoomConnection> after = newRoster.getSnapshot();
+		for (RoomRoster.IRosterListener listener : rosterListeners) {
+			for (INamedRoomConnection member : before) {
+				if (!after.contains(member)) {
+					listener.left(member);
+				}
+			}
+			for (INamedRoomConnection member : after) {
+				if (!before.contains(member)) {
+					listener.joined(member);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add a listener of the roster, kept when the roster is replaced
+	 * 
+	 * @param listener the listener to add
+	 */
+	public synchronized void addRosterListener(RoomRoster.IRosterListener listener) {
+		rosterListeners.add(listener);
+		roomRoster.addListener(listener);
+	}
+
+	/**
+	 * Remove a listener of the roster
+	 * 
+	 * @param listener the listener to remove
+	 */
+	public synchronized void removeRosterListener(RoomRoster.IRosterListener listener) {
+		rosterListeners.remove(listener);
+		roomRoster.removeListener(listener);
 	}
 
 	/**
@@ -101,10 +184,10 @@ public class GameRoom {
 	}
 
 	/**
-	 * @return the roster for this chat room
+	 * @return the current roster for this chat room, as an immutable snapshot
 	 */
-	public HashSet<INamedRoomConnection> getRoster() {
-		return roomRoster;
+	public Set<INamedRoomConnection> getRoster() {
+		return roomRoster.getSnapshot();
 	}
 
 	/**
@@ -0,0 +1,60 @@
+package afv2_jml25.api;
+
+import java.util.ArrayList;
+
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Answer of an existing member of a room to an ICatchUpRequestData:  the room's recent messages, oldest first,
+ * to be replayed in order.   A type of its own, so that it cannot be mistaken for an ordinary IPacketListData
+ * batch from the same member.
+ *
+ * @author Andres Villada
+ * @author Jason Lee
+ */
+public interface ICatchUpReplyData extends IRoomConnectionData {
+
+	/**
+	 * @return ID of the data packet for the room's recent messages
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(ICatchUpReplyData.class);
+	}
+
+	@Override
+	public default IDataPacketID getID() {
+		return ICatchUpReplyData.GetID();
+	}
+
+	/**
+	 * Makes a catch-up reply
+	 *
+	 * @param packets the recent messages, oldest first, possibly none
+	 * @return data for the catch-up reply
+	 */
+	public static ICatchUpReplyData make(ArrayList<RoomDataPacket<IRoomConnectionData>> packets) {
+
+		return new ICatchUpReplyData() {
+
+			/**
+			 * Serialization
+			 */
+			private static final long serialVersionUID = -5179342093482127760L;
+
+			@Override
+			public ArrayList<RoomDataPacket<IRoomConnectionData>> getPackets() {
+				return packets;
+			}
+
+		};
+
+	}
+
+	/**
+	 * @return the recent messages, oldest first
+	 */
+	public ArrayList<RoomDataPacket<IRoomConnectionData>> getPackets();
+}
@@ -0,0 +1,56 @@
+package afv2_jml25.api;
+
+import common.dataPacket.data.IRoomConnectionData;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Request from a new member of a room to one existing member for the room's recent messages, which are sent
+ * back as one ICatchUpReplyData
+ *
+ * @author Andres Villada
+ * @author Jason Lee
+ */
+public interface ICatchUpRequestData extends IRoomConnectionData {
+
+	/**
+	 * @return ID of the data packet for requesting the room's recent messages
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(ICatchUpRequestData.class);
+	}
+
+	@Override
+	public default IDataPacketID getID() {
+		return ICatchUpRequestData.GetID();
+	}
+
+	/**
+	 * Makes a catch-up request
+	 *
+	 * @param byteBudget the maximum serialized size of the messages to send back, in bytes
+	 * @return data for the catch-up request
+	 */
+	public static ICatchUpRequestData make(long byteBudget) {
+
+		return new ICatchUpRequestData() {
+
+			/**
+			 * Serialization
+			 */
+			private static final long serialVersionUID = 7460912837454130418L;
+
+			@Override
+			public long getByteBudget() {
+				return byteBudget;
+			}
+
+		};
+
+	}
+
+	/**
+	 * @return the maximum serialized size of the messages to send back, in bytes
+	 */
+	public long getByteBudget();
+}
@@ -0,0 +1,57 @@
+package afv2_jml25.api;
+
+import common.dataPacket.data.IRoomConnectionData;
+import common.serverObj.INamedRoomConnection;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Data on team room-level to tell the game server that a player's game is set up and ready for the
+ * rounds to start
+ * 
+ * @author Andres Villada
+ * @author Jason Lee
+ */
+public interface IGameReadyData extends IRoomConnectionData {
+
+	/**
+	 * @return ID of the data packet for player readiness
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(IGameReadyData.class);
+	}
+
+	@Override
+	public default IDataPacketID getID() {
+		return IGameReadyData.GetID();
+	}
+
+	/**
+	 * Makes the readiness indication for the player
+	 * 
+	 * @param player dyad of a player
+	 * @return data for player readiness
+	 */
+	public static IGameReadyData make(INamedRoomConnection player) {
+
+		return new IGameReadyData() {
+
+			/**
+			 * Serialization
+			 */
+			private static final long serialVersionUID = -7753120953446617802L;
+
+			@Override
+			public INamedRoomConnection getPlayer() {
+				return player;
+			}
+
+		};
+
+	}
+
+	/**
+	 * @return the player dyad
+	 */
+	public INamedRoomConnection getPlayer();
+}
@@ -0,0 +1,57 @@
+package afv2_jml25.api;
+
+import common.dataPacket.data.IRoomConnectionData;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Data from the game server telling every player how long until the first round starts, so that all the players'
+ * round timers start together.   The start is relative to when the player receives it, as the players' clocks
+ * need not agree with the game server's.
+ * 
+ * @author Andres Villada
+ * @author Jason Lee
+ */
+public interface IRoundStartData extends IRoomConnectionData {
+
+	/**
+	 * @return ID of the data packet for the round start
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(IRoundStartData.class);
+	}
+
+	@Override
+	public default IDataPacketID getID() {
+		return IRoundStartData.GetID();
+	}
+
+	/**
+	 * Makes the round start data
+	 * 
+	 * @param delay how long after it is received the first round starts, in milliseconds
+	 * @return data for the round start
+	 */
+	public static IRoundStartData make(long delay) {
+
+		return new IRoundStartData() {
+
+			/**
+			 * Serialization
+			 */
+			private static final long serialVersionUID = 3194780270915634672L;
+
+			@Override
+			public long getDelay() {
+				return delay;
+			}
+
+		};
+
+	}
+
+	/**
+	 * @return how long after it is received the first round starts, in milliseconds
+	 */
+	public long getDelay();
+}
@@ -0,0 +1,152 @@
+package afv2_jml25.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import common.serverObj.INamedRoomConnection;
+
+/**
+ * Copy-on-write roster of a room.
+ * <br>
+ * The members are held as an immutable snapshot that is replaced as a whole whenever the roster changes, so
+ * readers, e.g. a fan-out to every member, iterate a consistent set without locking and never see a partially
+ * updated or momentarily empty roster.
+ * <br>
+ * update() takes the full member set from a roster sync, diffs it against the current snapshot and notifies
+ * the listeners of each member that left and then of each member that joined.   A sync that changes nothing
+ * publishes nothing.   Updates are serialized, so listeners see the changes in the order they were applied.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public class RoomRoster implements Iterable<INamedRoomConnection> {
+
+	/**
+	 * Listener for members joining and leaving the roster
+	 */
+	public interface IRosterListener {
+		/**
+		 * Called when a member joins the roster
+		 *
+		 * @param member the member that joined
+		 */
+		public default void joined(INamedRoomConnection member) {
+		}
+
+		/**
+		 * Called when a member leaves the roster
+		 *
+		 * @param member the member that left
+		 */
+		public default void left(INamedRoomConnection member) {
+		}
+	}
+
+	/**
+	 * The current members, never modified once published
+	 */
+	private volatile Set<INamedRoomConnection> snapshot = Collections.emptySet();
+
+	/**
+	 * The roster listeners
+	 */
+	private final List<IRosterListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Replace the roster with the given members, notifying the listeners of the members that left and joined.
+	 *
+	 * @param members the full, current set of members
+	 * @return true if the roster changed
+	 */
+	public synchronized boolean update(Collection<? extends INamedRoomConnection> members) {
+		Set<INamedRoomConnection> current = snapshot;
+		Set<INamedRoomConnection> next = new LinkedHashSet<INamedRoomConnection>(members);
+		List<INamedRoomConnection> joined = new ArrayList<>();
+		for (INamedRoomConnection member : next) {
+			if (!current.contains(member)) {
+				joined.add(member);
+			}
+		}
+		List<INamedRoomConnection> left = new ArrayList<>();
+		for (INamedRoomConnection member : current) {
+			if (!next.contains(member)) {
+				left.add(member);
+			}
+		}
+		if (joined.isEmpty() && left.isEmpty()) {
+			return false;
+		}
+
+		snapshot = Collections.unmodifiableSet(next);
+		for (INamedRoomConnection member : left) {
+			for (IRosterListener listener : listeners) {
+				listener.left(member);
+			}
+		}
+		for (INamedRoomConnection member : joined) {
+			for (IRosterListener listener : listeners) {
+				listener.joined(member);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the current members, as an immutable set that later updates do not affect
+	 */
+	public Set<INamedRoomConnection> getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @return the current number of members
+	 */
+	public int size() {
+		return snapshot.size();
+	}
+
+	/**
+	 * @param member a room connection
+	 * @return true if it is currently a member
+	 */
+	public boolean contains(INamedRoomConnection member) {
+		return snapshot.contains(member);
+	}
+
+	/**
+	 * Iterates the snapshot current at the time of the call.
+	 */
+	@Override
+	public Iterator<INamedRoomConnection> iterator() {
+		return snapshot.iterator();
+	}
+
+	/**
+	 * Add a roster listener
+	 *
+	 * @param listener the listener to add
+	 */
+	public void addListener(IRosterListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a roster listener
+	 *
+	 * @param listener the listener to remove
+	 */
+	public void removeListener(IRosterListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public String toString() {
+		return snapshot.toString();
+	}
+}
@@ -0,0 +1,53 @@
+package afv2_jml25.api;
+
+import java.util.UUID;
+
+import afv2_jml25.gameInstance.IGameMicroAdapter;
+import common.dataPacket.ARoomDataPacketAlgoCmd;
+import common.dataPacket.RoomDataPacket;
+import provided.datapacket.IDataPacketID;
+import provided.mixedData.MixedDataKey;
+
+/**
+ * Command that starts the rounds of a game instance once the delay set by the game server has passed, counted on
+ * this player's clock from when the start is received.   If the game is not set up yet, the start time is kept for
+ * GameInitAlgoCmd to start the rounds once it is.
+ * 
+ * @author Andres Villada (afv2)
+ * @author Jason Lee (jml25)
+ */
+public class RoundStartAlgoCmd extends ARoomDataPacketAlgoCmd<IRoundStartData> {
+
+	/**
+	 * For serialization
+	 */
+	private static final long serialVersionUID = 8529016724413950318L;
+
+	/**
+	 * Unique ID for this game instance
+	 */
+	private UUID gameUUID;
+
+	/**
+	 * Constructor is called by the game server because that's who instantiates the
+	 * game commands.
+	 * 
+	 * @param gameUUID The UUID identifying the current instance of the game
+	 */
+	public RoundStartAlgoCmd(UUID gameUUID) {
+		this.gameUUID = gameUUID;
+	}
+
+	@Override
+	public Void apply(IDataPacketID index, RoomDataPacket<IRoundStartData> host, Void... params) {
+		long startTime = System.currentTimeMillis() + host.getData().getDelay();
+		// keep the start time first, so that a game set up meanwhile sees it
+		getCmd2ModelAdpt().putLocalData(GameInitAlgoCmd.startTimeKey(gameUUID), startTime);
+		IGameMicroAdapter gameAdpt = getCmd2ModelAdpt().getLocalData(GameInitAlgoCmd.adapterKey(gameUUID));
+		if (null != gameAdpt) {
+			gameAdpt.startRounds(startTime);
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,190 @@
+package afv2_jml25.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event-driven count of who is still alive in a game, e.g. the players of a team or the teams of a game.
+ * <br>
+ * Each death updates a counter in O(1) instead of rescanning every status.   The listener is told of each death
+ * exactly once, then, also exactly once, of the outcome:  the first death that leaves one survivor or none decides
+ * it, and later deaths do not change it.   It is also told once when no survivor is left.   Deaths may be reported
+ * from any thread and more than once;  only the first report of a death counts.
+ * <br>
+ * The number alive, the survivors left and whether the outcome is decided are one atomic state, so that the death
+ * that leaves one survivor knows which one, however the deaths race.   The survivors left are kept as the XOR of
+ * their numbers, which is the last survivor's number once only one is left.
+ * <br>
+ * The survivors are all added before the first death is reported.   A new game takes a new count.
+ *
+ * @param <K> the type of the survivors, compared by equals()
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public class SurvivorCount<K> {
+
+	/**
+	 * Listener for the deaths and the outcome
+	 *
+	 * @param <K> the type of the survivors
+	 */
+	public interface ISurvivorListener<K> {
+		/**
+		 * Called once when a survivor dies, before any outcome it causes
+		 *
+		 * @param key the survivor that died
+		 */
+		public default void perished(K key) {
+		}
+
+		/**
+		 * Called once when a death leaves a single survivor, as the outcome
+		 *
+		 * @param key the last survivor
+		 */
+		public default void lastStanding(K key) {
+		}
+
+		/**
+		 * Called once, instead of lastStanding(), when a death leaves no survivor without having left a single one
+		 * first, as the outcome
+		 */
+		public default void draw() {
+		}
+
+		/**
+		 * Called once when a death leaves no survivor, after the outcome
+		 */
+		public default void allPerished() {
+		}
+	}
+
+	/**
+	 * Flag of the state set once the outcome is decided
+	 */
+	private static final long DECIDED = 1L << 62;
+
+	/**
+	 * Shift of the number of survivors alive in the state
+	 */
+	private static final int COUNT_SHIFT = 32;
+
+	/**
+	 * Mask of the XOR of the numbers of the survivors alive in the state
+	 */
+	private static final long SURVIVORS_MASK = 0xFFFFFFFFL;
+
+	/**
+	 * The survivors that are still alive, with their numbers
+	 */
+	private final ConcurrentMap<K, Integer> alive = new ConcurrentHashMap<K, Integer>();
+
+	/**
+	 * Every survivor added, by number
+	 */
+	private final ConcurrentMap<Integer, K> byNumber = new ConcurrentHashMap<Integer, K>();
+
+	/**
+	 * The next survivor's number
+	 */
+	private final AtomicInteger nextNumber = new AtomicInteger();
+
+	/**
+	 * Whether the outcome is decided, the number of survivors alive and the XOR of their numbers
+	 */
+	private final AtomicLong state = new AtomicLong();
+
+	/**
+	 * Told of the deaths and the outcome
+	 */
+	private final ISurvivorListener<K> listener;
+
+	/**
+	 * Constructor for the class
+	 *
+	 * @param listener told of the deaths and the outcome
+	 */
+	public SurvivorCount(ISurvivorListener<K> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Add a survivor
+	 *
+	 * @param key the survivor
+	 * @return false if it was already alive
+	 */
+	public boolean add(K key) {
+		int number = nextNumber.getAndIncrement();
+		if (null != alive.putIfAbsent(key, number)) {
+			return false;
+		}
+		byNumber.put(number, key);
+		state.getAndUpdate((s) -> (s + (1L << COUNT_SHIFT)) ^ number);
+		return true;
+	}
+
+	/**
+	 * Report the death of a survivor, telling the listener of it and of the outcome it causes
+	 *
+	 * @param key the survivor
+	 * @return false if it was not alive, e.g. its death was already reported
+	 */
+	public boolean kill(K key) {
+		Integer number = alive.remove(key);
+		if (null == number) {
+			return false;
+		}
+		long before;
+		long after;
+		do {
+			before = state.get();
+			after = (before - (1L << COUNT_SHIFT)) ^ number;
+			if (count(after) <= 1) {
+				after |= DECIDED;
+			}
+		} while (!state.compareAndSet(before, after));
+		listener.perished(key);
+		if (0 == (before & DECIDED) && 0 != (after & DECIDED)) {
+			if (1 == count(after)) {
+				listener.lastStanding(byNumber.get((int) (after & SURVIVORS_MASK)));
+			} else {
+				listener.draw();
+			}
+		}
+		if (0 == count(after)) {
+			listener.allPerished();
+		}
+		return true;
+	}
+
+	/**
+	 * @param key a survivor
+	 * @return whether it is still alive
+	 */
+	public boolean isAlive(K key) {
+		return alive.containsKey(key);
+	}
+
+	/**
+	 * @return the number of survivors still alive
+	 */
+	public int getAlive() {
+		return count(state.get());
+	}
+
+	/**
+	 * @param state a state
+	 * @return the number of survivors alive in the state
+	 */
+	private static int count(long state) {
+		return (int) ((state & ~DECIDED) >>> COUNT_SHIFT);
+	}
+
+	@Override
+	public String toString() {
+		return getAlive() + " alive";
+	}
+}
@@ -17,6 +17,7 @@ import afv2_jml25.gameRoom.controller.IMiniMVC2MainMVCAdapter;
 import afv2_jml25.gameRoom.controller.RoomController;
 import common.serverObj.IInitialAppConnection;
 import common.serverObj.INamedAppConnection;
+import common.serverObj.INamedRoomConnection;
 import common.serverObj.INamedRoomID;
 import provided.config.impl.AppConfigChooser;
 import provided.discovery.IEndPointData;
@@ -175,6 +176,11 @@ public class GameAppController {
 
 							model.checkWinner();
 						}
+
+						@Override
+						public void playerReady(INamedRoomConnection player) {
+							model.playerReady(player);
+						}
 					}, model.getNamedAppConnection());
 					// If the mini-Controller instances are being stored by the main controller,
 					// e.g. in a Set or UUID-MiniController dictionary, then save it here.
@@ -322,6 +328,11 @@ public class GameAppController {
 
 							model.checkWinner();
 						}
+
+						@Override
+						public void playerReady(INamedRoomConnection player) {
+							model.playerReady(player);
+						}
 					}, model.getNamedAppConnection());
 					// If the mini-Controller instances are being stored by the main controller,
 					// e.g. in a Set or UUID-MiniController dictionary, then save it here.
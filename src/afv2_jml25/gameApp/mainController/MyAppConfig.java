@@ -15,6 +15,16 @@ public class MyAppConfig extends RMIPortConfigWithBoundName {
 	 */
 	public final String username;
 
+	/**
+	 * Number of threads processing the received packets of each room
+	 */
+	public final int roomWorkers;
+
+	/**
+	 * Default number of threads processing the received packets of each room
+	 */
+	public static final int DEFAULT_ROOM_WORKERS = 2;
+
 	/**
 	 * Constructor for app configs
 	 * @param name friendly server name
@@ -24,7 +34,22 @@ public class MyAppConfig extends RMIPortConfigWithBoundName {
 	 * @param username name of user
 	 */
 	public MyAppConfig(String name, int stubPort, int classServerPort, String boundName, String username) {
+		this(name, stubPort, classServerPort, boundName, username, DEFAULT_ROOM_WORKERS);
+	}
+
+	/**
+	 * Constructor for app configs
+	 * @param name friendly server name
+	 * @param stubPort port
+	 * @param classServerPort server port
+	 * @param boundName name of the server
+	 * @param username name of user
+	 * @param roomWorkers number of threads processing the received packets of each room
+	 */
+	public MyAppConfig(String name, int stubPort, int classServerPort, String boundName, String username,
+			int roomWorkers) {
 		super(name, stubPort, classServerPort, boundName);
 		this.username = username;
+		this.roomWorkers = roomWorkers;
 	}
 }
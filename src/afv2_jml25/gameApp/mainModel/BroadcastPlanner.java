@@ -0,0 +1,176 @@
+package afv2_jml25.gameApp.mainModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import afv2_jml25.api.GameRoom;
+import common.serverObj.INamedAppConnection;
+import common.serverObj.INamedRoomConnection;
+
+/**
+ * Plans a broadcast to several rooms so that each app gets one message, however many of the rooms it is in.
+ * <br>
+ * The members of the rooms are collapsed by their app connection.   Each app is sent one IRoomBroadcastData that
+ * lists the rooms it is in, and delivers the data to each of them itself.   The apps in the same rooms get the same
+ * message, so the apps are grouped by their set of rooms and each group's message is serialized once.   Members
+ * without an app connection, or whose app does not take IRoomBroadcastData, are sent the room message directly,
+ * as before.
+ * <br>
+ * The planner also keeps count of the messages the plans saved over one message per room member and of the bytes
+ * they sent.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public class BroadcastPlanner {
+
+	/**
+	 * The messages of one broadcast
+	 */
+	public static final class Plan {
+		/**
+		 * The apps to send to, grouped by the UUIDs of the rooms they are in
+		 */
+		private final Map<Set<UUID>, List<INamedAppConnection>> groups = new LinkedHashMap<>();
+
+		/**
+		 * Our connection in each room, by room UUID
+		 */
+		private final Map<UUID, INamedRoomConnection> senders = new HashMap<>();
+
+		/**
+		 * The members without an app connection, by room
+		 */
+		private final Map<GameRoom, List<INamedRoomConnection>> direct = new LinkedHashMap<>();
+
+		/**
+		 * Number of messages one message per room member would take
+		 */
+		private int memberCount = 0;
+
+		/**
+		 * @return the apps to send to, grouped by the UUIDs of the rooms they are in
+		 */
+		public Map<Set<UUID>, List<INamedAppConnection>> getGroups() {
+			return groups;
+		}
+
+		/**
+		 * @param uuids the UUIDs of some rooms
+		 * @return our connection in each of the rooms, by room UUID
+		 */
+		public HashMap<UUID, INamedRoomConnection> getSenders(Set<UUID> uuids) {
+			HashMap<UUID, INamedRoomConnection> result = new HashMap<>(2 * uuids.size());
+			for (UUID uuid : uuids) {
+				result.put(uuid, senders.get(uuid));
+			}
+			return result;
+		}
+
+		/**
+		 * @return the members without an app connection, to send the room message to directly, by room
+		 */
+		public Map<GameRoom, List<INamedRoomConnection>> getDirect() {
+			return direct;
+		}
+
+		/**
+		 * @return the number of messages one message per room member would take
+		 */
+		public int getMemberCount() {
+			return memberCount;
+		}
+
+		/**
+		 * @return the number of messages this plan takes
+		 */
+		public int getMessageCount() {
+			int count = 0;
+			for (List<INamedAppConnection> apps : groups.values()) {
+				count += apps.size();
+			}
+			for (List<INamedRoomConnection> members : direct.values()) {
+				count += members.size();
+			}
+			return count;
+		}
+
+		@Override
+		public String toString() {
+			return getMessageCount() + " messages instead of " + memberCount + ", " + groups.size() + " distinct";
+		}
+	}
+
+	/**
+	 * Number of broadcasts planned
+	 */
+	private final LongAdder broadcastCount = new LongAdder();
+
+	/**
+	 * Number of messages saved
+	 */
+	private final LongAdder savedMessages = new LongAdder();
+
+	/**
+	 * Number of bytes sent
+	 */
+	private final LongAdder sentBytes = new LongAdder();
+
+	/**
+	 * Plan a broadcast to rooms.   The rooms without a connection of ours are left out.
+	 *
+	 * @param rooms             the rooms
+	 * @param takesRoomBroadcast whether an app can be sent IRoomBroadcastData
+	 * @return the messages to send
+	 */
+	public Plan plan(Collection<GameRoom> rooms, Predicate<? super INamedAppConnection> takesRoomBroadcast) {
+		Plan plan = new Plan();
+		Map<INamedAppConnection, Set<UUID>> appRooms = new LinkedHashMap<>();
+		for (GameRoom room : rooms) {
+			if (null == room.getLocalRoomConnection()) {
+				continue;
+			}
+			plan.senders.put(room.getUUID(), room.getLocalRoomConnection());
+			for (INamedRoomConnection member : room.getRoster()) {
+				plan.memberCount++;
+				INamedAppConnection app = member.getNamedAppConnection();
+				if (null == app || !takesRoomBroadcast.test(app)) {
+					plan.direct.computeIfAbsent(room, (k) -> new ArrayList<>()).add(member);
+				} else {
+					appRooms.computeIfAbsent(app, (k) -> new HashSet<>()).add(room.getUUID());
+				}
+			}
+		}
+		for (Map.Entry<INamedAppConnection, Set<UUID>> entry : appRooms.entrySet()) {
+			plan.groups.computeIfAbsent(entry.getValue(), (k) -> new ArrayList<>()).add(entry.getKey());
+		}
+		return plan;
+	}
+
+	/**
+	 * Count what a broadcast saved
+	 *
+	 * @param plan  the plan of the broadcast
+	 * @param bytes the bytes the plan took
+	 */
+	public void record(Plan plan, long bytes) {
+		broadcastCount.increment();
+		savedMessages.add(plan.getMemberCount() - plan.getMessageCount());
+		sentBytes.add(bytes);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d broadcasts, %d messages saved, %d bytes sent", broadcastCount.sum(),
+				savedMessages.sum(), sentBytes.sum());
+	}
+}
@@ -3,25 +3,43 @@ package afv2_jml25.gameApp.mainModel;
 import java.rmi.RemoteException;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
 
 import afv2_jml25.api.AppDataPacketAlgoCmd;
 import afv2_jml25.api.GameRoom;
 import afv2_jml25.api.IGameInitData;
 import afv2_jml25.api.IInitRosterData;
+import afv2_jml25.api.IRoundStartData;
+import afv2_jml25.api.SurvivorCount;
 import afv2_jml25.gameApp.mainController.MyAppConfig;
 import common.dataPacket.AAppDataPacketAlgoCmd;
 import common.dataPacket.AppDataPacket;
 import common.dataPacket.AppDataPacketAlgo;
+import common.dataPacket.CompactDataCodecs;
 import common.dataPacket.RoomDataPacket;
 import common.dataPacket.data.IAppConnectionData;
+import common.dataPacket.data.IRoomConnectionData;
+import common.dataPacket.data.app.IConnectionDeltaData;
+import common.dataPacket.data.app.IConnectionDigestData;
 import common.dataPacket.data.app.IConnectionSetData;
 import common.dataPacket.data.app.IInviteData;
 import common.dataPacket.data.app.IQuitData;
 import common.dataPacket.data.app.IRequestJoinRoomData;
 import common.dataPacket.data.app.IRequestRoomsData;
+import common.dataPacket.data.app.IRoomBroadcastData;
+import common.dataPacket.data.app.ISupportedTypesData;
 import common.dataPacket.data.app.ISendRoomsData;
 import common.dataPacket.data.room.ITextData;
 import common.serverObj.IAppConnection;
@@ -29,8 +47,14 @@ import common.serverObj.IInitialAppConnection;
 import common.serverObj.INamedAppConnection;
 import common.serverObj.INamedRoomConnection;
 import common.serverObj.INamedRoomID;
+import provided.datapacket.DataPacketFanOut;
+import provided.datapacket.DataPacketIDDictionary;
 import provided.datapacket.DataPacketIDFactory;
 import provided.datapacket.IDataPacketID;
+import provided.datapacket.PeerHealthTracker;
+import provided.datapacket.PeerMembership;
+import provided.datapacket.SerializedDataPacket;
+import provided.extvisitor.DispatchStats;
 import provided.logger.ILogEntry;
 import provided.logger.ILogEntryFormatter;
 import provided.logger.ILogEntryProcessor;
@@ -52,32 +76,127 @@ import provided.rmiUtils.RMIUtils;
 public class GameAppModel {
 
 	/**
-	 * List of game rooms
+	 * The game rooms by UUID, with their game status and the rooms of each player
 	 */
-	HashSet<GameRoom> roomList = new HashSet<>();
+	RoomRegistry rooms = new RoomRegistry();
+
 	/**
-	 * Set of chat room UUIDs
+	 * The teams of the current game still alive, announcing the winner or the draw once.   Replaced when a
+	 * game is generated.
 	 */
-	HashSet<UUID> idSet = new HashSet<>();
+	volatile SurvivorCount<UUID> teamSurvival = new SurvivorCount<>(new SurvivorCount.ISurvivorListener<UUID>() {
+	});
 
 	/**
-	 * Mapping from teams to game status (active or eliminated)
+	 * Announces the eliminations and the outcome of a game to every room
 	 */
-	ConcurrentHashMap<GameRoom, Boolean> gameResultMap = new ConcurrentHashMap<>();
+	private SurvivorCount.ISurvivorListener<UUID> teamSurvivalListener = new SurvivorCount.ISurvivorListener<UUID>() {
+		@Override
+		public void perished(UUID uuid) {
+			rooms.setStatus(uuid, RoomRegistry.GameStatus.ELIMINATED);
+			String team = teamName(uuid);
+			sysLogger.log(LogLevel.INFO, "Elimination of " + team);
+			ITextData elimMsgData = ITextData.make(team + " has been eliminated.");
+			// send to everyone playing that a team is eliminated
+			broadcastToRooms(rooms.getRooms(), elimMsgData);
+		}
+
+		@Override
+		public void lastStanding(UUID uuid) {
+			// we could let the team continue to try to survive and not stop the game
+			rooms.setStatus(uuid, RoomRegistry.GameStatus.WON);
+			sysLogger.log(LogLevel.INFO, "WINNER FOUND");
+			ITextData winMessageData = ITextData.make("Team [" + teamName(uuid) + "] HAS SURVIVED AND WON!");
+			// Send message about winner to players in all rooms
+			broadcastToRooms(rooms.getRooms(), winMessageData);
+		}
+
+		@Override
+		public void draw() {
+			// all games should be stopped at this point so nothing should be done.
+			// no one wins
+			sysLogger.log(LogLevel.INFO, "DRAW GAME HAS OCCURRED!");
+			// send message that all players have been eliminated
+			ITextData drawMessageData = ITextData.make("THE GAME IS A DRAW. EVERYONE HAS PERISHED.");
+			broadcastToRooms(rooms.getRooms(), drawMessageData);
+		}
+	};
 
 	/**
-	 * List of game rooms from server for client to select from
+	 * Game rooms from server for client to select from, replaced as a whole when the server sends them
 	 */
-	HashSet<INamedRoomID> roomsFromServer = new HashSet<>();
+	volatile Set<INamedRoomID> roomsFromServer = Set.of();
 
 	/**
 	 * Datapacketid factory
 	 */
 	DataPacketIDFactory idFac = DataPacketIDFactory.Singleton;
 	/**
-	 * Set of connection to this chat app.
+	 * Apps connected to this one, keyed by each app's own id and kept in sync with theirs by gossip
+	 */
+	PeerMembership<INamedAppConnection> connections;
+
+	/**
+	 * Apps that only sent their whole connection set (IConnectionSetData), without any id
+	 */
+	Set<INamedAppConnection> legacyConnections = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Apps that sent us connection gossip (IConnectionDigestData or IConnectionDeltaData), which no longer need
+	 * our whole connection set on first contact
+	 */
+	Set<INamedAppConnection> gossipingConnections = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The app level data types each connected app said it handles (ISupportedTypesData)
+	 */
+	Map<INamedAppConnection, Set<IDataPacketID>> supportedTypes = new ConcurrentHashMap<>();
+
+	/**
+	 * Apps that were sent the app level data types we handle
+	 */
+	Set<INamedAppConnection> typesSentTo = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Maximum number of apps that news of a connection is passed on to
+	 */
+	private static final int GOSSIP_FAN_OUT = 3;
+
+	/**
+	 * Period of the anti-entropy rounds of the connections, in milliseconds
 	 */
-	HashSet<INamedAppConnection> connectionSet = new HashSet<>();
+	private static final long ANTI_ENTROPY_PERIOD = 5000;
+
+	/**
+	 * Sends the gossip of the connections as app packets
+	 */
+	private PeerMembership.IGossipTransport<INamedAppConnection> gossipTransport = new PeerMembership.IGossipTransport<INamedAppConnection>() {
+		@Override
+		public void sendDigest(INamedAppConnection dyad, long checksum, Map<UUID, Long> digest) {
+			sendToApp(dyad, new AppDataPacket<IConnectionDigestData>(
+					IConnectionDigestData.make(checksum, null == digest ? null : new HashMap<>(digest)),
+					localNamedConnection));
+		}
+
+		@Override
+		public void sendDelta(INamedAppConnection dyad, List<PeerMembership.Member<INamedAppConnection>> members,
+				Map<UUID, Long> digest) {
+			sendToApp(dyad, new AppDataPacket<IConnectionDeltaData>(
+					IConnectionDeltaData.make(new ArrayList<>(members), null == digest ? null : new HashMap<>(digest)),
+					localNamedConnection));
+		}
+	};
+
+	/**
+	 * Lists the apps that join
+	 */
+	private PeerMembership.IMembershipListener<INamedAppConnection> connectionListener = new PeerMembership.IMembershipListener<INamedAppConnection>() {
+		@Override
+		public void joined(INamedAppConnection dyad) {
+			mainAdpt.addHostToDropDown(dyad);
+			sendSupportedTypes(dyad);
+		}
+	};
 
 	/**
 	 * Adapter from model to view (app-level)
@@ -160,6 +279,81 @@ public class GameAppModel {
 	 */
 	AppDataPacketAlgo appAlgo;
 
+	/**
+	 * Sends the app's broadcasts to the members of each room concurrently
+	 */
+	DataPacketFanOut appFanOut = new DataPacketFanOut("app-send", 3000);
+
+	/**
+	 * Collapses the members of the rooms a broadcast goes to into one message per app
+	 */
+	BroadcastPlanner broadcastPlanner = new BroadcastPlanner();
+
+	/**
+	 * The longest wait for every player's game to be set up before the first round starts, in milliseconds
+	 */
+	private static final long READY_TIMEOUT = 10000;
+
+	/**
+	 * Lead from the start of the first round to when it begins, in milliseconds, for the start to reach every
+	 * player
+	 */
+	private static final long START_LEAD = 2000;
+
+	/**
+	 * The launch of the current game, waiting for the players to be ready
+	 */
+	volatile LaunchCoordinator launch;
+
+	/**
+	 * Failures of the sends to each connected app, holding the sends to the apps that stopped answering
+	 */
+	PeerHealthTracker<INamedAppConnection> appHealth = new PeerHealthTracker<>(3, 1000, 16000, 5);
+
+	/**
+	 * Failures of the broadcasts to each room member, leaving the members that stopped answering out of them
+	 */
+	PeerHealthTracker<INamedRoomConnection> memberHealth = new PeerHealthTracker<>(3, 1000, 16000, 5);
+
+	/**
+	 * Logs the connected apps that stop answering and drops the ones that fail every probe from the connection
+	 * set, as if they had quit
+	 */
+	private PeerHealthTracker.IHealthListener<INamedAppConnection> appHealthListener = new PeerHealthTracker.IHealthListener<INamedAppConnection>() {
+		@Override
+		public void opened(INamedAppConnection dyad, int failures, Throwable cause) {
+			sysLogger.log(LogLevel.ERROR,
+					dyad.getName() + " is unreachable after " + failures + " failed sends: " + cause);
+		}
+
+		@Override
+		public void closed(INamedAppConnection dyad) {
+			sysLogger.log(LogLevel.INFO, dyad.getName() + " is reachable again");
+		}
+
+		@Override
+		public void dead(INamedAppConnection dyad) {
+			sysLogger.log(LogLevel.ERROR, dyad.getName() + " did not answer any probe, dropping the connection");
+			connections.evict(dyad);
+			legacyConnections.remove(dyad);
+			gossipingConnections.remove(dyad);
+			supportedTypes.remove(dyad);
+			typesSentTo.remove(dyad);
+			appHealth.forget(dyad);
+			DataPacketIDDictionary.forget(dyad.getStub());
+		}
+	};
+
+	/**
+	 * Dispatch statistics of the app level algo, exposed through JMX.   Off until enabled from a JMX console.
+	 */
+	DispatchStats<IDataPacketID> appDispatchStats;
+
+	/**
+	 * How often the dispatch statistics are logged while enabled, in milliseconds
+	 */
+	private static final long STATS_DUMP_PERIOD = 60000;
+
 	/**
 	 * Game lobby for all players
 	 */
@@ -222,13 +416,21 @@ public class GameAppModel {
 
 		username = appConfig.username;
 
+		// Be able to read the compact wire format from peers that use it.  Writing it stays off (see CompactDataPacketFormat)
+		// since peers that have not installed the same codecs could not read it.
+		CompactDataCodecs.install();
+
 		sysLogger.log(LogLevel.ERROR, "OUR NAME IS: " + username);
 
+		appHealth.addListener(appHealthListener);
+
 		connection = new IAppConnection() {
 
 			@Override
 			public void sendMessage(AppDataPacket<? extends IAppConnectionData> data) throws RemoteException {
 				// TODO Fill this in and delete every other method here
+				// an app that sends is reachable
+				appHealth.onSuccess(data.getSender());
 				data.execute(appAlgo, (Void) null);
 			}
 
@@ -247,7 +449,9 @@ public class GameAppModel {
 
 		localNamedConnection = INamedAppConnection.make(username, connectionStub);
 
-		this.connectionSet.add(localNamedConnection);
+		this.connections = new PeerMembership<>(UUID.randomUUID(), localNamedConnection, gossipTransport,
+				GOSSIP_FAN_OUT);
+		this.connections.addListener(connectionListener);
 
 		initialConnection = new IInitialAppConnection() {
 
@@ -279,7 +483,10 @@ public class GameAppModel {
 			quit();
 		}
 
-		this.appAlgo = new AppDataPacketAlgo(new AppDataPacketAlgoCmd(this.localNamedConnection));
+		// copy-on-write command table so that concurrent RMI dispatches do not contend on a lock
+		this.appAlgo = new AppDataPacketAlgo(new AppDataPacketAlgoCmd(this.localNamedConnection), true);
+		// resolve commands by the IDs' interned ordinals instead of hashing the ID on every packet
+		this.appAlgo.setDenseDispatch(true);
 
 		// command for connection set
 		IDataPacketID connectionSetID = idFac.makeID(IConnectionSetData.class);
@@ -289,48 +496,80 @@ public class GameAppModel {
 
 			@Override
 			public Void apply(IDataPacketID index, AppDataPacket<IConnectionSetData> host, Void... params) {
-				// TODO Auto-generated method stub
+				// An app that does not gossip.   Greet the apps it knows that we don't, and send it our own set
+				// once, instead of sending our whole set to each of them.
+				INamedAppConnection sender = host.getSender();
+				for (INamedAppConnection remoteDyad : host.getData().getConnectionSet()) {
+					connections.hello(remoteDyad);
+				}
 
-				// do auto-connect back
-				HashSet<INamedAppConnection> remoteNamedSet = host.getData().getConnectionSet();
+				if (!connections.contains(sender) && legacyConnections.add(sender)) {
+					mainAdpt.addHostToDropDown(sender);
+					if (!sendConnectionSet(sender)) {
+						sysLogger.log(LogLevel.ERROR, "Auto connect back failed.");
+					}
+				}
 
-				for (INamedAppConnection remoteDyad : remoteNamedSet) {
+				return null;
+			}
 
-					// We aren't connected. Add dyad to connection set and send it our connection
-					// set
-					if (!connectionSet.contains(remoteDyad)) {
-						connectionSet.add(remoteDyad);
+		};
 
-						mainAdpt.addHostToDropDown(remoteDyad);
+		this.appAlgo.setCmd(connectionSetID, connectionSetCmd);
 
-						IConnectionSetData cSetData = IConnectionSetData.make(connectionSet);
+		// commands for the connection gossip
+		this.appAlgo.setCmd(IConnectionDigestData.GetID(), new AAppDataPacketAlgoCmd<IConnectionDigestData>() {
 
-						AppDataPacket<IConnectionSetData> dp = new AppDataPacket<IConnectionSetData>(cSetData,
-								localNamedConnection);
+			private static final long serialVersionUID = -5303815740271337482L;
 
-						try {
-							remoteDyad.getStub().sendMessage(dp);
-						} catch (RemoteException e) {
-							// TODO Auto-generated catch block
-							sysLogger.log(LogLevel.ERROR, "Auto connect back failed.");
-							e.printStackTrace();
-						}
-					}
+			@Override
+			public Void apply(IDataPacketID index, AppDataPacket<IConnectionDigestData> host, Void... params) {
+				gossipingConnections.add(host.getSender());
+				connections.receiveDigest(host.getSender(), host.getData().getChecksum(), host.getData().getDigest());
+				return null;
+			}
+		});
 
-				}
+		this.appAlgo.setCmd(IConnectionDeltaData.GetID(), new AAppDataPacketAlgoCmd<IConnectionDeltaData>() {
 
+			private static final long serialVersionUID = 2046480623151862155L;
+
+			@Override
+			public Void apply(IDataPacketID index, AppDataPacket<IConnectionDeltaData> host, Void... params) {
+				legacyConnections.remove(host.getSender());
+				gossipingConnections.add(host.getSender());
+				connections.receiveDelta(host.getSender(), host.getData().getMembers(), host.getData().getDigest());
 				return null;
 			}
+		});
 
-			// @Override
-			// public Void apply(IDataPacketID index, AppDataPacket host, Void... params) {
-			// // TODO Auto-generated method stub
-			// return null;
-			// }
-			//
-		};
+		// command for the data types a connected app handles
+		this.appAlgo.setCmd(ISupportedTypesData.GetID(), new AAppDataPacketAlgoCmd<ISupportedTypesData>() {
 
-		this.appAlgo.setCmd(connectionSetID, connectionSetCmd);
+			private static final long serialVersionUID = -7516063905287446120L;
+
+			@Override
+			public Void apply(IDataPacketID index, AppDataPacket<ISupportedTypesData> host, Void... params) {
+				supportedTypes.put(host.getSender(), host.getData().getTypes());
+				if (host.getData().getTypes().contains(DataPacketIDDictionary.SUPPORT_ID)) {
+					DataPacketIDDictionary.markSupported(host.getSender().getStub());
+				}
+				sendSupportedTypes(host.getSender());
+				return null;
+			}
+		});
+
+		// command for data sent to several of our rooms at once
+		this.appAlgo.setCmd(IRoomBroadcastData.GetID(), new AAppDataPacketAlgoCmd<IRoomBroadcastData>() {
+
+			private static final long serialVersionUID = 4412360157368325021L;
+
+			@Override
+			public Void apply(IDataPacketID index, AppDataPacket<IRoomBroadcastData> host, Void... params) {
+				deliverToRooms(host.getSender(), host.getData());
+				return null;
+			}
+		});
 
 		// command for invite
 		IDataPacketID inviteID = idFac.makeID(IInviteData.class);
@@ -347,10 +586,9 @@ public class GameAppModel {
 				GameRoom newRoom = new GameRoom(host.getData().getNamedRoomID());
 
 				// mainAdpt.addRoom(newRoom);
-				if (!roomList.contains(newRoom)) {
+				if (!rooms.contains(newRoom.getUUID())) {
 					// add to gui and room list and connect
 					joinChatRoom(newRoom);
-					roomList.add(newRoom);
 					mainAdpt.addRoomToList(newRoom);
 
 				} else {
@@ -382,7 +620,12 @@ public class GameAppModel {
 				// TODO Auto-generated method stub
 
 				// remove the sender from our list of connections
-				connectionSet.remove(host.getSender());
+				connections.remove(host.getSender());
+				legacyConnections.remove(host.getSender());
+				gossipingConnections.remove(host.getSender());
+				supportedTypes.remove(host.getSender());
+				typesSentTo.remove(host.getSender());
+				DataPacketIDDictionary.forget(host.getSender().getStub());
 				return null;
 			}
 
@@ -408,9 +651,8 @@ public class GameAppModel {
 
 			@Override
 			public Void apply(IDataPacketID index, AppDataPacket<ISendRoomsData> host, Void... params) {
-				roomsFromServer.clear();
-				roomsFromServer.addAll(host.getData().getChatRooms());
-				mainAdpt.serverRooms(roomsFromServer);
+				roomsFromServer = Set.copyOf(host.getData().getChatRooms());
+				mainAdpt.serverRooms(new HashSet<>(roomsFromServer));
 				return null;
 			}
 
@@ -429,13 +671,8 @@ public class GameAppModel {
 
 			@Override
 			public Void apply(IDataPacketID index, AppDataPacket<IRequestJoinRoomData> host, Void... params) {
-				try {
-					host.getSender().sendMessage(new AppDataPacket<IInviteData>(
-							IInviteData.make(host.getData().getNamedRoomID()), localNamedConnection));
-				} catch (RemoteException e) {
-					e.printStackTrace();
-
-				}
+				sendToApp(host.getSender(), new AppDataPacket<IInviteData>(
+						IInviteData.make(host.getData().getNamedRoomID()), localNamedConnection));
 				return null;
 			}
 
@@ -456,22 +693,29 @@ public class GameAppModel {
 			@Override
 			public Void apply(IDataPacketID index, AppDataPacket<IRequestRoomsData> host, Void... params) {
 				HashSet<INamedRoomID> roomsToSend = new HashSet<>();
-				for (GameRoom room : roomList) {
+				for (GameRoom room : rooms.getRooms()) {
 					roomsToSend.add(INamedRoomID.make(room.getName(), room.getUUID()));
 
 				}
-				try {
-					host.getSender().sendMessage(
-							new AppDataPacket<ISendRoomsData>(ISendRoomsData.make(roomsToSend), localNamedConnection));
-				} catch (RemoteException e) {
-					e.printStackTrace();
-				}
+				sendToApp(host.getSender(),
+						new AppDataPacket<ISendRoomsData>(ISendRoomsData.make(roomsToSend), localNamedConnection));
 				return null;
 			}
 
 		};
 
 		this.appAlgo.setCmd(requestRoomsID, requestRoomsCmd);
+
+		// Per-type dispatch statistics, off by default
+		this.appDispatchStats = new DispatchStats<>(this.appAlgo);
+		try {
+			this.appDispatchStats.register("app");
+		} catch (JMException e) {
+			sysLogger.log(LogLevel.ERROR, "Could not register the app dispatch statistics: " + e);
+		}
+		this.appDispatchStats.startDump(sysLogger, STATS_DUMP_PERIOD);
+
+		this.connections.startAntiEntropy(ANTI_ENTROPY_PERIOD);
 	}
 
 	/**
@@ -530,8 +774,9 @@ public class GameAppModel {
 	}
 
 	/**
-	 * Adds dyad to set of connection dyads and sends to the contained remote
-	 * connection the current set of connections.
+	 * Makes first contact with a connection dyad, sending it our id and the digest of our connections.   It
+	 * answers with the connections we are missing, and passes us on to the others.   Until it has sent us any
+	 * gossip, it may be an app that does not gossip, so it is also sent our whole connection set.
 	 * 
 	 * @param remoteDyad dyad containing connection stub and name
 	 */
@@ -539,31 +784,66 @@ public class GameAppModel {
 
 		/**
 		 * Start the connection process - we want to add the dyad to our complete graph
-		 * - if we aren't already connected, add to our set of connections and send over
-		 * our connection set - otherwise, do nothing.
+		 * - if we aren't already connected, say hello and let gossip fill in the rest
+		 * - otherwise, do nothing.
 		 */
 
-		if (!this.connectionSet.contains(remoteDyad)) {
-			this.connectionSet.add(remoteDyad);
-			this.mainAdpt.addHostToDropDown(remoteDyad);
-
-			IAppConnection remoteStub = remoteDyad.getStub();
-
-			IConnectionSetData data = IConnectionSetData.make(connectionSet);
+		if (!this.connections.hello(remoteDyad)) {
+			this.sysLogger.log(LogLevel.DEBUG, "Already connected to " + remoteDyad);
+		} else if (!this.gossipingConnections.contains(remoteDyad) && !this.legacyConnections.contains(remoteDyad)) {
+			if (!sendConnectionSet(remoteDyad)) {
+				this.sysLogger.log(LogLevel.ERROR, "Failed to send the connection set to " + remoteDyad);
+			}
+		}
+		sendSupportedTypes(remoteDyad);
 
-			AppDataPacket<IConnectionSetData> dp = new AppDataPacket<IConnectionSetData>(data,
-					this.localNamedConnection);
+	}
 
-			try {
-				remoteStub.sendMessage(dp);
-			} catch (RemoteException e) {
-				// TODO Auto-generated catch block
-				this.sysLogger.log(LogLevel.ERROR, "Failed to send connection set.");
-				e.printStackTrace();
-			}
+	/**
+	 * Tells an app, once, the app level data types we handle, and that we decode data packet ID codes, so that
+	 * the app sends us its IDs as codes.
+	 * 
+	 * @param remoteDyad the app
+	 */
+	private void sendSupportedTypes(INamedAppConnection remoteDyad) {
+		if (this.localNamedConnection.equals(remoteDyad) || !this.typesSentTo.add(remoteDyad)) {
+			return;
+		}
+		HashSet<IDataPacketID> types = new HashSet<>(this.appAlgo.getAllIndices());
+		types.add(DataPacketIDDictionary.SUPPORT_ID);
+		if (!sendToApp(remoteDyad,
+				new AppDataPacket<ISupportedTypesData>(ISupportedTypesData.make(types), this.localNamedConnection))) {
+			this.typesSentTo.remove(remoteDyad);
+			this.sysLogger.log(LogLevel.ERROR, "Failed to send the supported data types to " + remoteDyad);
+		}
+	}
 
+	/**
+	 * Whether an app takes IRoomBroadcastData, i.e. is this app or said it handles it.
+	 * 
+	 * @param app the app
+	 * @return true if the app can be sent IRoomBroadcastData
+	 */
+	private boolean takesRoomBroadcast(INamedAppConnection app) {
+		if (this.localNamedConnection.equals(app)) {
+			return true;
 		}
+		Set<IDataPacketID> types = this.supportedTypes.get(app);
+		return null != types && types.contains(IRoomBroadcastData.GetID());
+	}
 
+	/**
+	 * Sends an app our whole connection set, ourselves included, the way apps that do not gossip connect.
+	 * 
+	 * @param remoteDyad the app
+	 * @return true if the set was sent
+	 */
+	private boolean sendConnectionSet(INamedAppConnection remoteDyad) {
+		HashSet<INamedAppConnection> connectionSet = new HashSet<>(this.connections.getPeers());
+		connectionSet.addAll(this.legacyConnections);
+		connectionSet.add(this.localNamedConnection);
+		return sendToApp(remoteDyad,
+				new AppDataPacket<IConnectionSetData>(IConnectionSetData.make(connectionSet), this.localNamedConnection));
 	}
 
 	/**
@@ -584,7 +864,7 @@ public class GameAppModel {
 
 		miniAdpt = mainAdpt.createChatRoom(this.pubSubSyncManager, name);
 
-		this.sysLogger.log(LogLevel.INFO, "Our list of rooms: " + this.roomList.toString());
+		this.sysLogger.log(LogLevel.INFO, "Our list of rooms: " + this.rooms);
 
 	}
 
@@ -594,11 +874,8 @@ public class GameAppModel {
 	 * @param room a chat room
 	 */
 	public void joinChatRoom(GameRoom room) {
-		if (!roomList.contains(room)) {
+		if (this.rooms.add(room)) {
 			mainAdpt.joinChatRoom(room);
-			// joinChatRoom(chatRoom);
-			this.roomList.add(room);
-			this.idSet.add(room.getUUID());
 		} else {
 			this.sysLogger.log(LogLevel.INFO, "You're already in this chat room!");
 		}
@@ -612,12 +889,19 @@ public class GameAppModel {
 		try {
 
 			// TODO: Change to message passing
+			connections.stopAntiEntropy();
+			connections.leave();
+			List<INamedAppConnection> connectionSet = connections.getPeers();
+			connectionSet.addAll(legacyConnections);
 			for (INamedAppConnection c : connectionSet) {
 				// c.getStub().removeNamedConnection(this.localNamedConnection);
 				IQuitData data = IQuitData.make();
 				AppDataPacket<IQuitData> dp = new AppDataPacket<IQuitData>(data, localNamedConnection);
-				c.getStub().sendMessage(dp);
+				sendToApp(c, dp);
 			}
+			sysLogger.log(LogLevel.INFO, "App health: " + appHealth + "; member health: " + memberHealth);
+			sysLogger.log(LogLevel.INFO, "Multi-room broadcasts: " + broadcastPlanner);
+			sysLogger.log(LogLevel.INFO, "Connections: " + connections);
 			registry.unbind(this.appConfig.boundName);
 		} catch (Exception e) {
 			// TODO Auto-generated catch block
@@ -676,11 +960,11 @@ public class GameAppModel {
 	public void receiveRoom(GameRoom room) {
 		// TODO Auto-generated method stub
 		this.sysLogger.log(LogLevel.INFO, "Receiving room in main model." + room.toString());
-		this.roomList.add(room);
-		this.idSet.add(room.getUUID());
-		this.mainAdpt.addRoomToList(room);
+		if (null == this.rooms.put(room)) {
+			this.mainAdpt.addRoomToList(room);
+		}
 		this.sysLogger.log(LogLevel.INFO, "ADDED ROOM TO LIST: " + room.toString());
-		this.sysLogger.log(LogLevel.INFO, "Our room list: " + this.roomList.toString());
+		this.sysLogger.log(LogLevel.INFO, "Our room list: " + this.rooms);
 	}
 
 	/**
@@ -689,13 +973,7 @@ public class GameAppModel {
 	 * @param uuid id of chat room
 	 */
 	public void removeRoom(UUID uuid) {
-		// TODO Auto-generated method stub
-		for (GameRoom room : this.roomList) {
-			if (room.getUUID().equals(uuid)) {
-				this.roomList.remove(room);
-			}
-		}
-		this.idSet.remove(uuid);
+		this.rooms.remove(uuid);
 	}
 
 	/**
@@ -729,12 +1007,7 @@ public class GameAppModel {
 		IInviteData data = IInviteData.make(room.getNamedRoomID());
 		AppDataPacket<IInviteData> dp = new AppDataPacket<IInviteData>(data, localNamedConnection);
 
-		try {
-			remoteConnectionDyad.getStub().sendMessage(dp);
-		} catch (RemoteException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		sendToApp(remoteConnectionDyad, dp);
 	}
 
 	/**
@@ -743,17 +1016,8 @@ public class GameAppModel {
 	 * @param msg message to be broadcasted
 	 */
 	public void broadcastMessage(String msg) {
-		roomList.forEach(room -> room.getRoster().forEach(user -> {
-			try {
-				user.sendMessage(new RoomDataPacket<ITextData>(ITextData.make(msg), room.getLocalRoomConnection())); // need
-																														// our
-																														// own
-																														// named
-																														// connection
-			} catch (RemoteException e) {
-				e.printStackTrace();
-			}
-		}));
+		ITextData msgData = ITextData.make(msg);
+		broadcastToRooms(rooms.getRooms(), msgData);
 	}
 
 	/**
@@ -765,132 +1029,231 @@ public class GameAppModel {
 	}
 
 	/**
-	 * Generates the game for all users connected to this user
+	 * Generates the game for all users connected to this user.   The game is sent to every player at once, and
+	 * the first round starts for everyone at the same time once every player's game is set up or the launch
+	 * times out.
 	 */
 	public void genGame() {
-		for (GameRoom lobby : roomList) {
-			if (lobby != null) {
-				gameResultMap.put(lobby, true);
-			}
-	
-			IInitRosterData rosterData = IInitRosterData.make();
-			RoomDataPacket<IInitRosterData> rosterPacket = new RoomDataPacket<>(rosterData, lobby.getLocalRoomConnection());
+		List<GameRoom> lobbies = rooms.getRooms();
+		SurvivorCount<UUID> survival = new SurvivorCount<>(teamSurvivalListener);
+		for (GameRoom lobby : lobbies) {
+			rooms.setStatus(lobby.getUUID(), RoomRegistry.GameStatus.PLAYING);
+			survival.add(lobby.getUUID());
+		}
+		this.teamSurvival = survival;
+
+		Map<INamedRoomConnection, GameRoom> players = new LinkedHashMap<>();
+		for (GameRoom lobby : lobbies) {
 			try {
-				lobby.getLocalRoomConnection().sendMessage(rosterPacket);
-			} catch (RemoteException e1) {
-				e1.printStackTrace();
+				if (!lobby.deliver(new RoomDataPacket<>(IInitRosterData.make(), lobby.getLocalRoomConnection()))) {
+					continue;
+				}
+			} catch (RemoteException e) {
+				sysLogger.log(LogLevel.ERROR, "Could not set up the roster of " + lobby.getName() + ": " + e);
 			}
-	
 			for (INamedRoomConnection player : lobby.getRoster()) {
-				IGameInitData data = IGameInitData.make(player);
-				RoomDataPacket<IGameInitData> dp = new RoomDataPacket<>(data, lobby.getLocalRoomConnection());
 				// UNCOMMENT FOR DEMO DAY, server should not play the game
 				if (!player.equals(lobby.getLocalRoomConnection())) {
-					ITextData textData = ITextData.make("Sent game to " + player.getName() + ".");
-					RoomDataPacket<ITextData> msgDp = new RoomDataPacket<>(textData, lobby.getLocalRoomConnection());
-					try {
-						player.sendMessage(msgDp);
-						player.sendMessage(dp);
-					} catch (RemoteException e) {
-						e.printStackTrace();
-					}
+					players.putIfAbsent(player, lobby);
 				}
 			}
 		}
+
+		LaunchCoordinator previous = this.launch;
+		if (null != previous && previous.cancel()) {
+			sysLogger.log(LogLevel.INFO, "Abandoning the previous game launch: " + previous);
+		}
+		LaunchCoordinator coordinator = new LaunchCoordinator(players.keySet(), READY_TIMEOUT, START_LEAD,
+				(launched, lead) -> {
+					sendRoundStart(players, lead);
+					sysLogger.log(LogLevel.INFO, "Game launch: " + launched);
+				});
+		this.launch = coordinator;
+
+		Set<INamedRoomConnection> reachable = new HashSet<>(memberHealth.filter(players.keySet()));
+		for (INamedRoomConnection player : players.keySet()) {
+			if (!reachable.contains(player)) {
+				coordinator.sent(player, false);
+			}
+		}
+		appFanOut.send(reachable, (player) -> {
+			GameRoom lobby = players.get(player);
+			DataPacketIDDictionary.send(dictionaryPeer(player), () -> player.sendMessage(new RoomDataPacket<>(
+					ITextData.make("Sent game to " + player.getName() + "."), lobby.getLocalRoomConnection())));
+			DataPacketIDDictionary.send(dictionaryPeer(player), () -> player.sendMessage(
+					new RoomDataPacket<>(IGameInitData.make(player), lobby.getLocalRoomConnection())));
+		}).thenAccept((outcomes) -> outcomes.forEach((player, outcome) -> {
+			memberHealth.report(player, outcome.isDelivered(), outcome.getError());
+			coordinator.sent(player, outcome.isDelivered());
+			if (!outcome.isDelivered()) {
+				sysLogger.log(LogLevel.ERROR, "Could not send the game to " + player + ": " + outcome);
+			}
+		}));
 	}
 
 	/**
-	 * Checks for winner of or draw game based on the size of the map of the teams.
-	 * Game continues if not found.
+	 * Tells each player, from our connection in its lobby, how long until the first round starts.   The start is
+	 * sent to each player directly, so that it does not depend on the player's app handling IRoomBroadcastData,
+	 * and as a delay, so that it does not depend on the player's clock.   Each player is sent what is left of the
+	 * lead when its send starts, so that the players sent to last do not start late.   A player the start does not
+	 * reach starts its rounds on its own.
+	 * 
+	 * @param players the players, with their lobbies
+	 * @param lead    the lead to when the first round begins, in milliseconds
 	 */
-	public void checkWinner() {
-		// periodically checked
-//		this.sysLogger.log(LogLevel.INFO, "Size of map, currently: " + gameResultMap.size());
-		for (GameRoom team : gameResultMap.keySet()) {
-			this.sysLogger.log(LogLevel.INFO, team.getName() + " is mapped to " + gameResultMap.get(team).toString());
-			if (!gameResultMap.get(team)) {
-				gameResultMap.remove(team);
-//				this.sysLogger.log(LogLevel.INFO, "Size of map after removal: " + gameResultMap.size());
+	private void sendRoundStart(Map<INamedRoomConnection, GameRoom> players, long lead) {
+		long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lead);
+		appFanOut.send(memberHealth.filter(players.keySet()), (player) -> {
+			long delay = Math.max(0, TimeUnit.NANOSECONDS.toMillis(startNanos - System.nanoTime()));
+			DataPacketIDDictionary.send(dictionaryPeer(player), () -> player.sendMessage(new RoomDataPacket<>(
+					IRoundStartData.make(delay), players.get(player).getLocalRoomConnection())));
+		}).thenAccept((outcomes) -> outcomes.forEach((player, outcome) -> {
+			memberHealth.report(player, outcome.isDelivered(), outcome.getError());
+			if (!outcome.isDelivered()) {
+				sysLogger.log(LogLevel.ERROR, "Could not send the round start to " + player + ": " + outcome);
 			}
+		}));
+	}
 
+	/**
+	 * Records that a player's game is set up, for the launch of the current game
+	 * 
+	 * @param player the player that is ready
+	 */
+	public void playerReady(INamedRoomConnection player) {
+		LaunchCoordinator coordinator = this.launch;
+		if (null == coordinator || !coordinator.ready(player)) {
+			sysLogger.log(LogLevel.DEBUG, player.getName() + " is not waited for by a game launch.");
 		}
+	}
 
-		if (gameResultMap.keySet().size() == 0) {
-			// stop game
-			// all games should be stopped at this point so nothing should be done.
-			// no one wins
-			this.sysLogger.log(LogLevel.INFO, "DRAW GAME HAS OCCURRED!");
-			// send message that all players have been eliminated
-			for (GameRoom losers : this.roomList) {
-				ITextData drawMessageData = ITextData.make("THE GAME IS A DRAW. EVERYONE HAS PERISHED.");
-				RoomDataPacket<ITextData> drawMsgDp = new RoomDataPacket<ITextData>(drawMessageData,
-						losers.getLocalRoomConnection());
-
-				for (INamedRoomConnection loser : losers.getRoster()) {
-					try {
-						loser.sendMessage(drawMsgDp);
-					} catch (RemoteException e) {
-						e.printStackTrace();
-					}
-				}
+	/**
+	 * Checks for winner of or draw game.   Both are announced as soon as the
+	 * eliminations reach them, so this only reports the teams left.
+	 */
+	public void checkWinner() {
+		this.sysLogger.log(LogLevel.DEBUG, "Teams: " + teamSurvival);
+	}
+
+	/**
+	 * Sends data to every member of some rooms, from our connection in each room, with one message per app
+	 * however many of the rooms it is in.   Each app that said it handles IRoomBroadcastData is sent one listing
+	 * its rooms, serialized once for all the apps in the same rooms and sent concurrently.   This app delivers to
+	 * its own rooms directly, and the other members are sent the room message.
+	 * 
+	 * @param targets the rooms to send to
+	 * @param data    the data to send
+	 */
+	private void broadcastToRooms(Collection<GameRoom> targets, IRoomConnectionData data) {
+		BroadcastPlanner.Plan plan = broadcastPlanner.plan(targets, this::takesRoomBroadcast);
+		long sentBytes = 0;
+		for (Map.Entry<Set<UUID>, List<INamedAppConnection>> group : plan.getGroups().entrySet()) {
+			IRoomBroadcastData multiData = IRoomBroadcastData.make(data, plan.getSenders(group.getKey()));
+			List<INamedAppConnection> apps = new ArrayList<>(group.getValue());
+			if (apps.remove(localNamedConnection)) {
+				deliverToRooms(localNamedConnection, multiData);
+			}
+			if (apps.isEmpty()) {
+				continue;
 			}
+			SerializedDataPacket<AppDataPacket<IRoomBroadcastData>> envelope = SerializedDataPacket
+					.make(new AppDataPacket<IRoomBroadcastData>(multiData, localNamedConnection));
+			sentBytes += (long) envelope.getSize() * apps.size();
+			appFanOut.send(appHealth.filter(apps), (app) -> DataPacketIDDictionary.send(app.getStub(),
+					() -> app.sendSerializedMessage(envelope)))
+					.thenAccept((outcomes) -> outcomes.forEach((app, outcome) -> {
+						appHealth.report(app, outcome.isDelivered(), outcome.getError());
+						if (!outcome.isDelivered()) {
+							sysLogger.log(LogLevel.ERROR, "Could not send " + data.getID() + " to " + app + " for "
+									+ group.getKey().size() + " rooms: " + outcome);
+						}
+					}));
+		}
+		for (Map.Entry<GameRoom, List<INamedRoomConnection>> direct : plan.getDirect().entrySet()) {
+			sentBytes += broadcastToRoom(direct.getKey(), direct.getValue(), data);
+		}
+		broadcastPlanner.record(plan, sentBytes);
+		sysLogger.log(LogLevel.DEBUG, "Broadcast " + data.getID() + " to " + targets.size() + " rooms: " + plan
+				+ ", " + sentBytes + " bytes");
+	}
 
-		} else if (gameResultMap.keySet().size() == 1) {
-			// stop game
-			// we could let the team continue to try to survive and not stop the game
-			// winner
-			this.sysLogger.log(LogLevel.INFO, "WINNER FOUND");
-			// send winning alert, maybe with survivors
-			for (GameRoom room : this.roomList) {
-				// Send message about winner to players in all rooms
-				// At this point, only one team in the map, the winner
-				ITextData winMessageData = ITextData.make(
-						"Team [" + gameResultMap.keySet().iterator().next().getName() + "] HAS SURVIVED AND WON!");
-				RoomDataPacket<ITextData> winMsgDp = new RoomDataPacket<ITextData>(winMessageData,
-						room.getLocalRoomConnection());
-
-				for (INamedRoomConnection member : room.getRoster()) {
-					try {
-						member.sendMessage(winMsgDp);
-					} catch (RemoteException e) {
-						e.printStackTrace();
-					}
+	/**
+	 * Delivers data sent to several rooms to each of our rooms it lists, as a room message from the sender's
+	 * connection in that room.   Rooms where the listed connection is not a member, or not the sending app's,
+	 * are skipped, so that an app cannot speak in a room it is not in or for another app.
+	 * 
+	 * @param app       the app that sent the data
+	 * @param multiData the data and the sender's connection in each room
+	 */
+	private void deliverToRooms(INamedAppConnection app, IRoomBroadcastData multiData) {
+		for (Map.Entry<UUID, INamedRoomConnection> entry : multiData.getSenders().entrySet()) {
+			GameRoom room = rooms.get(entry.getKey());
+			INamedRoomConnection sender = entry.getValue();
+			if (null != room && (null == sender || !app.equals(sender.getNamedAppConnection())
+					|| !room.getRoster().contains(sender))) {
+				sysLogger.log(LogLevel.ERROR, app + " is not " + sender + " in " + room.getName()
+						+ ", not delivering " + multiData.getData().getID());
+				continue;
+			}
+			try {
+				if (null == room || !room.deliver(
+						new RoomDataPacket<IRoomConnectionData>(multiData.getData(), entry.getValue()))) {
+					sysLogger.log(LogLevel.DEBUG, "Not in room " + entry.getKey() + " to deliver "
+							+ multiData.getData().getID());
 				}
+			} catch (RemoteException e) {
+				sysLogger.log(LogLevel.ERROR, "Could not deliver " + multiData.getData().getID() + " to "
+						+ room.getName() + ": " + e);
 			}
-
 		}
+	}
 
+	/**
+	 * Sends data to some members of a room, from our connection in that room.   The packet is serialized once
+	 * and the same bytes are sent to every member, concurrently.
+	 * 
+	 * @param room    the room to send to
+	 * @param members the members to send to
+	 * @param data    the data to send
+	 * @return the number of bytes sent
+	 */
+	private long broadcastToRoom(GameRoom room, Collection<INamedRoomConnection> members, IRoomConnectionData data) {
+		RoomDataPacket<IRoomConnectionData> dp = new RoomDataPacket<IRoomConnectionData>(data,
+				room.getLocalRoomConnection());
+		SerializedDataPacket<RoomDataPacket<IRoomConnectionData>> envelope = SerializedDataPacket.make(dp);
+		appFanOut.send(memberHealth.filter(members), (member) -> DataPacketIDDictionary
+				.send(dictionaryPeer(member), () -> member.sendSerializedMessage(envelope)))
+				.thenAccept((outcomes) -> outcomes.forEach((member, outcome) -> {
+					memberHealth.report(member, outcome.isDelivered(), outcome.getError());
+					if (!outcome.isDelivered()) {
+						sysLogger.log(LogLevel.ERROR, "Could not send " + data.getID() + " to " + member + " in "
+								+ room.getName() + ": " + outcome);
+					}
+				}));
+		return (long) envelope.getSize() * members.size();
 	}
 
 	/**
-	 * Eliminate team from map by using false value in map
+	 * Eliminate a team of the current game, announcing it and, if it decides the
+	 * game, the winner or the draw.   A team is eliminated once.
 	 * 
 	 * @param uuid id of team to eliminate
 	 */
 	public void eliminateTeam(UUID uuid) {
-		this.sysLogger.log(LogLevel.INFO, "Searching for team to eliminate...");
-		for (GameRoom team : gameResultMap.keySet()) {
-			// found specific team that needs to be eliminated
-			if (team.getUUID().equals(uuid)) {
-				this.sysLogger.log(LogLevel.INFO, "Elimination of " + team.getName());
-				ITextData elimMsgData = ITextData.make(team.getName() + " has been eliminated.");
-				// send to everyone playing that a team is eliminated
-				for (GameRoom room : this.roomList) {
-					RoomDataPacket<ITextData> elimMsgDp = new RoomDataPacket<ITextData>(elimMsgData,
-							room.getLocalRoomConnection());
-					for (INamedRoomConnection member : room.getRoster()) {
-						try {
-							member.sendMessage(elimMsgDp);
-						} catch (RemoteException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-				gameResultMap.put(team, false);
-			}
+		if (!teamSurvival.kill(uuid)) {
+			this.sysLogger.log(LogLevel.DEBUG, "Team " + uuid + " is not in the game or already eliminated.");
 		}
 	}
 
+	/**
+	 * @param uuid id of a team
+	 * @return the team's name, or its id if its room is gone
+	 */
+	private String teamName(UUID uuid) {
+		GameRoom team = rooms.get(uuid);
+		return null == team ? uuid.toString() : team.getName();
+	}
+
 	/**
 	 * Request, in the form of a message, to the server for its rooms
 	 * 
@@ -898,12 +1261,7 @@ public class GameAppModel {
 	 */
 	public void requestRooms(INamedAppConnection server) {
 		this.serverConnection = server;
-		try {
-			server.sendMessage(
-					new AppDataPacket<IRequestRoomsData>(IRequestRoomsData.make(), this.localNamedConnection));
-		} catch (RemoteException e) {
-			e.printStackTrace();
-		}
+		sendToApp(server, new AppDataPacket<IRequestRoomsData>(IRequestRoomsData.make(), this.localNamedConnection));
 	}
 
 	/**
@@ -912,12 +1270,43 @@ public class GameAppModel {
 	 * @param selectedRoom the room the client wishes to join
 	 */
 	public void joinServerRoom(INamedRoomID selectedRoom) {
+		sendToApp(this.serverConnection, new AppDataPacket<IRequestJoinRoomData>(
+				IRequestJoinRoomData.make(selectedRoom), this.localNamedConnection));
+	}
+
+	/**
+	 * Sends a packet to a connected app, unless it stopped answering, and records the result in its health.
+	 * 
+	 * @param dyad the app to send to
+	 * @param dp   the packet to send
+	 * @return true if the packet was delivered
+	 */
+	private boolean sendToApp(INamedAppConnection dyad, AppDataPacket<? extends IAppConnectionData> dp) {
+		if (!appHealth.allow(dyad)) {
+			sysLogger.log(LogLevel.DEBUG, "Not sending " + dp.getData().getID() + " to unreachable " + dyad);
+			return false;
+		}
 		try {
-			this.serverConnection.sendMessage(new AppDataPacket<IRequestJoinRoomData>(
-					IRequestJoinRoomData.make(selectedRoom), this.localNamedConnection));
+			DataPacketIDDictionary.send(dyad.getStub(), () -> dyad.sendMessage(dp));
+			appHealth.onSuccess(dyad);
+			return true;
 		} catch (RemoteException e) {
-			e.printStackTrace();
+			appHealth.onFailure(dyad, e);
+			sysLogger.log(LogLevel.ERROR, "Could not send " + dp.getData().getID() + " to " + dyad + ": " + e);
+			return false;
 		}
 	}
 
+	/**
+	 * The peer whose data packet ID dictionary the sends to a room member use:  the member's app, which says
+	 * whether it decodes the codes, or the member itself if its app is not known.
+	 * 
+	 * @param member the room member
+	 * @return the peer to give DataPacketIDDictionary.send()
+	 */
+	private static Object dictionaryPeer(INamedRoomConnection member) {
+		INamedAppConnection app = member.getNamedAppConnection();
+		return null == app ? member.getStub() : app.getStub();
+	}
+
 }
@@ -0,0 +1,234 @@
+package afv2_jml25.gameApp.mainModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ObjLongConsumer;
+
+import common.serverObj.INamedRoomConnection;
+import provided.extvisitor.LatencyHistogram;
+
+/**
+ * Readiness barrier of one game launch.
+ * <br>
+ * The game is sent to every player at once, and each player answers when its game is set up (IGameReadyData).
+ * Once every player is ready, or once the timeout passes, the first round is started once for everyone at the
+ * same time, a short lead from then, so that no player's round timer starts before another's.   A player the game
+ * could not be sent to is not waited for.
+ * <br>
+ * The coordinator keeps each player's launch latency, from the launch to its answer, and reports the percentiles
+ * and the slowest players.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public class LaunchCoordinator {
+
+	/**
+	 * Shared timer for the readiness timeouts
+	 */
+	private static final ScheduledExecutorService timeoutTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new Thread(r, "LaunchCoordinator-timeout");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * Number of slowest players reported
+	 */
+	private static final int SLOWEST_COUNT = 3;
+
+	/**
+	 * When the launch started, in System.nanoTime() time
+	 */
+	private final long launchNanos = System.nanoTime();
+
+	/**
+	 * The players not ready yet
+	 */
+	private final Set<INamedRoomConnection> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The launch latency of each player that is ready, in nanoseconds
+	 */
+	private final Map<INamedRoomConnection, Long> latencies = new ConcurrentHashMap<INamedRoomConnection, Long>();
+
+	/**
+	 * The launch latencies, in microseconds
+	 */
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * The players the game could not be sent to
+	 */
+	private final Set<INamedRoomConnection> unreachable = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The number of players launched
+	 */
+	private final int playerCount;
+
+	/**
+	 * Lead from the start of the round to when it begins, in milliseconds, for the start to reach every player
+	 */
+	private final long leadMillis;
+
+	/**
+	 * Starts the round for everyone, given this launch and the lead to when the round begins, in milliseconds
+	 */
+	private final ObjLongConsumer<LaunchCoordinator> startRound;
+
+	/**
+	 * Whether the round was started
+	 */
+	private final AtomicBoolean started = new AtomicBoolean(false);
+
+	/**
+	 * The readiness timeout, null until the constructor has scheduled it
+	 */
+	private final ScheduledFuture<?> timeout;
+
+	/**
+	 * How long the launch took until the round was started, in nanoseconds, or -1
+	 */
+	private volatile long barrierNanos = -1;
+
+	/**
+	 * Constructor for the class.   Starts the launch.
+	 *
+	 * @param players       the players launched
+	 * @param timeoutMillis the longest wait for the players to be ready, in milliseconds
+	 * @param leadMillis    lead from the start of the round to when it begins, in milliseconds
+	 * @param startRound    starts the round for everyone, given this launch and the lead to when the round
+	 *                      begins, in milliseconds
+	 */
+	public LaunchCoordinator(Collection<INamedRoomConnection> players, long timeoutMillis, long leadMillis,
+			ObjLongConsumer<LaunchCoordinator> startRound) {
+		this.pending.addAll(players);
+		this.playerCount = pending.size();
+		this.leadMillis = leadMillis;
+		this.startRound = startRound;
+		this.timeout = timeoutTimer.schedule(this::start, timeoutMillis, TimeUnit.MILLISECONDS);
+		if (pending.isEmpty()) {
+			start();
+		}
+	}
+
+	/**
+	 * Record the outcome of sending the game to a player.   A player it could not be sent to is not waited for.
+	 *
+	 * @param player    the player
+	 * @param delivered whether the game was sent
+	 */
+	public void sent(INamedRoomConnection player, boolean delivered) {
+		if (!delivered && pending.remove(player)) {
+			unreachable.add(player);
+			if (pending.isEmpty()) {
+				start();
+			}
+		}
+	}
+
+	/**
+	 * Record that a player is ready
+	 *
+	 * @param player the player
+	 * @return false if the player is not part of this launch or was already ready
+	 */
+	public boolean ready(INamedRoomConnection player) {
+		if (!pending.remove(player)) {
+			return false;
+		}
+		long latency = System.nanoTime() - launchNanos;
+		latencies.put(player, latency);
+		histogram.record(latency / 1000);
+		if (pending.isEmpty()) {
+			start();
+		}
+		return true;
+	}
+
+	/**
+	 * @return whether the round was started
+	 */
+	public boolean isStarted() {
+		return started.get();
+	}
+
+	/**
+	 * @return the players not ready yet
+	 */
+	public Set<INamedRoomConnection> getPending() {
+		return Set.copyOf(pending);
+	}
+
+	/**
+	 * Abandon the launch, e.g. for a new game, without starting the round
+	 *
+	 * @return false if the round was already started
+	 */
+	public boolean cancel() {
+		if (!started.compareAndSet(false, true)) {
+			return false;
+		}
+		timeout.cancel(false);
+		return true;
+	}
+
+	/**
+	 * Start the round for everyone, once
+	 */
+	private void start() {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+		// the timeout may run this before the constructor has stored it
+		if (null != timeout) {
+			timeout.cancel(false);
+		}
+		barrierNanos = System.nanoTime() - launchNanos;
+		startRound.accept(this, leadMillis);
+	}
+
+	/**
+	 * @return the slowest players that are ready, slowest first
+	 */
+	private List<Map.Entry<INamedRoomConnection, Long>> slowest() {
+		List<Map.Entry<INamedRoomConnection, Long>> entries = new ArrayList<>(latencies.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+		return entries.subList(0, Math.min(SLOWEST_COUNT, entries.size()));
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d of %d players ready", latencies.size(), playerCount));
+		if (0 < histogram.getCount()) {
+			sb.append(String.format(" in p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms",
+					histogram.getPercentile(50) / 1000.0, histogram.getPercentile(90) / 1000.0,
+					histogram.getPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+		}
+		if (0 <= barrierNanos) {
+			sb.append(String.format(", round started after %.1f ms", barrierNanos / 1e6));
+		}
+		sb.append("; slowest:");
+		for (Map.Entry<INamedRoomConnection, Long> entry : slowest()) {
+			sb.append(String.format(" %s (%.1f ms)", entry.getKey().getName(), entry.getValue() / 1e6));
+		}
+		if (!pending.isEmpty()) {
+			sb.append("; not ready: ").append(pending);
+		}
+		if (!unreachable.isEmpty()) {
+			sb.append("; unreachable: ").append(unreachable);
+		}
+		return sb.toString();
+	}
+}
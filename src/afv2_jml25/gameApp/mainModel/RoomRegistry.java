@@ -0,0 +1,291 @@
+package afv2_jml25.gameApp.mainModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import afv2_jml25.api.GameRoom;
+import afv2_jml25.api.RoomRoster;
+import common.serverObj.INamedAppConnection;
+import common.serverObj.INamedRoomConnection;
+
+/**
+ * The rooms of the app keyed by UUID, with the game status of each and an index of the rooms each player is in.
+ * <br>
+ * Lookups by UUID and by player are O(1) and safe from any thread, e.g. the RMI threads and the GUI thread.   The
+ * rooms are also held as an immutable snapshot, replaced as a whole when a room is added or removed, so that a
+ * broadcast to every room iterates a consistent list without locking.
+ * <br>
+ * The player index follows the rosters:  it listens to each room's roster from the time the room is added until
+ * it is removed, and indexes each member by its app connection.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public class RoomRegistry {
+
+	/**
+	 * Status of a room in the current game
+	 */
+	public enum GameStatus {
+		/**
+		 * Not in a game
+		 */
+		IDLE,
+		/**
+		 * Its team is still alive
+		 */
+		PLAYING,
+		/**
+		 * Its team was eliminated
+		 */
+		ELIMINATED,
+		/**
+		 * Its team is the last one standing
+		 */
+		WON
+	}
+
+	/**
+	 * A registered room
+	 */
+	private class Entry implements RoomRoster.IRosterListener {
+		/**
+		 * The room
+		 */
+		final GameRoom room;
+
+		/**
+		 * The room's status in the current game
+		 */
+		volatile GameStatus status = GameStatus.IDLE;
+
+		/**
+		 * Constructor for the class
+		 *
+		 * @param room the room
+		 */
+		Entry(GameRoom room) {
+			this.room = room;
+		}
+
+		@Override
+		public void joined(INamedRoomConnection member) {
+			index(member, room.getUUID());
+		}
+
+		@Override
+		public void left(INamedRoomConnection member) {
+			unindex(member, room.getUUID());
+		}
+	}
+
+	/**
+	 * The rooms by UUID
+	 */
+	private final ConcurrentMap<UUID, Entry> entries = new ConcurrentHashMap<UUID, Entry>();
+
+	/**
+	 * The rooms, never modified once published
+	 */
+	private volatile List<GameRoom> snapshot = Collections.emptyList();
+
+	/**
+	 * The UUIDs of the rooms each player is in, by the player's app connection
+	 */
+	private final ConcurrentMap<INamedAppConnection, Set<UUID>> memberRooms = new ConcurrentHashMap<INamedAppConnection, Set<UUID>>();
+
+	/**
+	 * Add a room, unless a room with its UUID is already registered
+	 *
+	 * @param room the room
+	 * @return false if a room with its UUID was already registered
+	 */
+	public synchronized boolean add(GameRoom room) {
+		Entry entry = new Entry(room);
+		if (null != entries.putIfAbsent(room.getUUID(), entry)) {
+			return false;
+		}
+		publish();
+		room.addRosterListener(entry);
+		for (INamedRoomConnection member : room.getRoster()) {
+			index(member, room.getUUID());
+		}
+		return true;
+	}
+
+	/**
+	 * Add a room, replacing any room registered with its UUID, e.g. a placeholder made from an invite with the
+	 * room its model made.   The replaced room's game status is kept.
+	 *
+	 * @param room the room
+	 * @return the room replaced, or null if there was none
+	 */
+	public synchronized GameRoom put(GameRoom room) {
+		GameRoom previous = get(room.getUUID());
+		GameStatus status = getStatus(room.getUUID());
+		if (null != previous) {
+			remove(room.getUUID());
+		}
+		add(room);
+		if (null != status) {
+			setStatus(room.getUUID(), status);
+		}
+		return previous;
+	}
+
+	/**
+	 * Remove a room
+	 *
+	 * @param uuid the UUID of the room
+	 * @return the room removed, or null if it was not registered
+	 */
+	public synchronized GameRoom remove(UUID uuid) {
+		Entry entry = entries.remove(uuid);
+		if (null == entry) {
+			return null;
+		}
+		publish();
+		entry.room.removeRosterListener(entry);
+		for (INamedRoomConnection member : entry.room.getRoster()) {
+			unindex(member, uuid);
+		}
+		return entry.room;
+	}
+
+	/**
+	 * @param uuid the UUID of a room
+	 * @return the room, or null if it is not registered
+	 */
+	public GameRoom get(UUID uuid) {
+		Entry entry = entries.get(uuid);
+		return null == entry ? null : entry.room;
+	}
+
+	/**
+	 * @param uuid the UUID of a room
+	 * @return true if the room is registered
+	 */
+	public boolean contains(UUID uuid) {
+		return entries.containsKey(uuid);
+	}
+
+	/**
+	 * @return the rooms, as an immutable list that later additions and removals do not affect
+	 */
+	public List<GameRoom> getRooms() {
+		return snapshot;
+	}
+
+	/**
+	 * @param uuid the UUID of a room
+	 * @return the room's current roster, empty if it is not registered
+	 */
+	public Set<INamedRoomConnection> getRoster(UUID uuid) {
+		Entry entry = entries.get(uuid);
+		return null == entry ? Collections.emptySet() : entry.room.getRoster();
+	}
+
+	/**
+	 * @param uuid the UUID of a room
+	 * @return the room's status in the current game, or null if it is not registered
+	 */
+	public GameStatus getStatus(UUID uuid) {
+		Entry entry = entries.get(uuid);
+		return null == entry ? null : entry.status;
+	}
+
+	/**
+	 * Set a room's status in the current game
+	 *
+	 * @param uuid   the UUID of the room
+	 * @param status the status
+	 * @return false if the room is not registered
+	 */
+	public boolean setStatus(UUID uuid, GameStatus status) {
+		Entry entry = entries.get(uuid);
+		if (null == entry) {
+			return false;
+		}
+		entry.status = status;
+		return true;
+	}
+
+	/**
+	 * @param player a player's app connection
+	 * @return the UUIDs of the rooms the player is in, as a copy
+	 */
+	public Set<UUID> getRoomsOf(INamedAppConnection player) {
+		Set<UUID> uuids = memberRooms.get(player);
+		return null == uuids ? Collections.emptySet() : Set.copyOf(uuids);
+	}
+
+	/**
+	 * @return the number of rooms
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Publish a new snapshot of the rooms.   Called with the registry locked.
+	 */
+	private void publish() {
+		List<GameRoom> rooms = new ArrayList<GameRoom>(entries.size());
+		for (Entry entry : entries.values()) {
+			rooms.add(entry.room);
+		}
+		snapshot = Collections.unmodifiableList(rooms);
+	}
+
+	/**
+	 * Index a member of a room by its app connection
+	 *
+	 * @param member the member
+	 * @param uuid   the UUID of the room
+	 */
+	private void index(INamedRoomConnection member, UUID uuid) {
+		INamedAppConnection player = member.getNamedAppConnection();
+		if (null != player) {
+			// added inside compute() so that unindex() cannot drop the set as empty in between
+			memberRooms.compute(player, (k, uuids) -> {
+				Set<UUID> rooms = null == uuids ? ConcurrentHashMap.newKeySet() : uuids;
+				rooms.add(uuid);
+				return rooms;
+			});
+		}
+	}
+
+	/**
+	 * Remove a member of a room from the index
+	 *
+	 * @param member the member
+	 * @param uuid   the UUID of the room
+	 */
+	private void unindex(INamedRoomConnection member, UUID uuid) {
+		INamedAppConnection player = member.getNamedAppConnection();
+		if (null != player) {
+			memberRooms.computeIfPresent(player, (k, uuids) -> {
+				uuids.remove(uuid);
+				return uuids.isEmpty() ? null : uuids;
+			});
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (Map.Entry<UUID, Entry> entry : entries.entrySet()) {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			sb.append(entry.getValue().room).append(" (").append(entry.getValue().status).append(')');
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -7,4 +7,11 @@ package afv2_jml25.gameInstance;
  * @author Jason Lee (jml25)
  */
 public interface IGameMicroAdapter {
+
+	/**
+	 * Starts the rounds of the game at the time set by the game server.   Only the first call counts.
+	 * 
+	 * @param startTime when the first round starts, in milliseconds since the epoch on this player's clock
+	 */
+	public void startRounds(long startTime);
 }
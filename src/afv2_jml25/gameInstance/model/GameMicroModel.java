@@ -16,6 +16,7 @@ import javax.swing.Timer;
 import afv2_jml25.api.IDeathData;
 import afv2_jml25.api.IEliminationData;
 import afv2_jml25.api.IGameBooleanData;
+import afv2_jml25.api.IGameReadyData;
 import common.dataPacket.ICmd2ModelAdapter;
 import common.dataPacket.data.room.ITextData;
 import common.serverObj.INamedRoomConnection;
@@ -43,6 +44,17 @@ public class GameMicroModel {
 	 */
 	private static final int TIMER_DELAY = 35000;
 
+	/**
+	 * Longest wait for the rounds to start, in milliseconds
+	 */
+	private static final long MAX_START_DELAY = 10000;
+
+	/**
+	 * How long after the game is set up the rounds start if the game server never says when, in milliseconds:
+	 * the game server's longest wait for the players to be ready plus its lead to the start
+	 */
+	private static final int START_FALLBACK = 12000;
+
 	/**
 	 * List of countries recognized by the game
 	 */
@@ -356,6 +368,11 @@ public class GameMicroModel {
 	 */
 	private Timer timer;
 	
+	/**
+	 * Flag indicating whether or not the player has been eliminated
+	 */
+	private boolean eliminated = false;
+
 	/**
 	 * Flag indicating whether or not the player is actively in the game
 	 */
@@ -409,7 +426,9 @@ public class GameMicroModel {
 	}
 
 	/**
-	 * Starts Owl Maps
+	 * Starts Owl Maps and tells the game server that this player is ready.   The
+	 * rounds start when the game server says so (startRounds()), or on their own
+	 * after START_FALLBACK ms if the start never arrives.
 	 */
 	public void start() {
 		for (String s : countries) {
@@ -419,7 +438,37 @@ public class GameMicroModel {
 
 		startOwlMaps();
 
-		this.gameModel2ViewAdpt.roundTimer();
+		IGameReadyData ready = IGameReadyData.make(this.player);
+		this.cmd2ModelAdpt.sendMessageToDyad(ready, gameServerRoomConnection);
+
+		Timer fallback = new Timer(START_FALLBACK, (e) -> {
+			synchronized (this) {
+				if (null == timer && !eliminated) {
+					logger.log(LogLevel.ERROR, "No round start from the game server, starting the rounds now.");
+					startRounds(System.currentTimeMillis());
+				}
+			}
+		});
+		fallback.setRepeats(false);
+		fallback.start();
+	}
+
+	/**
+	 * Starts the round timer at the time set by the game server, so that every
+	 * player's rounds start together. A start time in the past starts the rounds
+	 * at once, and one too far ahead is clamped. Only the first call counts, and
+	 * none after the player is eliminated.
+	 * 
+	 * @param startTime when the first round starts, in milliseconds since the epoch
+	 *                  on this player's clock
+	 */
+	public synchronized void startRounds(long startTime) {
+		if (null != timer || eliminated) {
+			return;
+		}
+		long delay = Math.max(0, Math.min(startTime - System.currentTimeMillis(), MAX_START_DELAY));
+		this.logger.log(LogLevel.INFO, "Rounds start in " + delay + " ms.");
+
 		timer = new Timer(TIMER_DELAY, new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
 				// Beginning of round:
@@ -435,7 +484,16 @@ public class GameMicroModel {
 				active = false;
 			}
 		});
-		timer.start();
+		Timer kickoff = new Timer((int) delay, (e) -> {
+			synchronized (this) {
+				if (!eliminated) {
+					this.gameModel2ViewAdpt.roundTimer();
+					timer.start();
+				}
+			}
+		});
+		kickoff.setRepeats(false);
+		kickoff.start();
 	}
 
 	/**
@@ -499,7 +557,12 @@ public class GameMicroModel {
 		IDeathData playerDeath = IDeathData.make(this.player);
 		this.cmd2ModelAdpt.sendMessageToDyad(playerDeath, gameServerRoomConnection);
 		// Stop the timer for the player's game
-		timer.stop(); 
+		synchronized (this) {
+			eliminated = true;
+			if (null != timer) {
+				timer.stop();
+			}
+		}
 		// Player is no longer active
 		active = false; 
 		// Disable map controls for the player
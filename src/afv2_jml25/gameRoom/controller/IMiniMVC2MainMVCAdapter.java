@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import afv2_jml25.api.GameRoom;
 import afv2_jml25.gameApp.mainController.MyAppConfig;
+import common.serverObj.INamedRoomConnection;
 import provided.pubsubsync.IPubSubSyncManager;
 import provided.rmiUtils.IRMIUtils;
 
@@ -75,4 +76,11 @@ public interface IMiniMVC2MainMVCAdapter {
 	 */
 	public void checkWinner();
 
+	/**
+	 * Tells the game launch that a player's game is set up
+	 * 
+	 * @param player the player that is ready
+	 */
+	public void playerReady(INamedRoomConnection player);
+
 }
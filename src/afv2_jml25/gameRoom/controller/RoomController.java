@@ -13,6 +13,7 @@ import afv2_jml25.gameRoom.model.RoomModel;
 import afv2_jml25.gameRoom.view.IMiniView2ModelAdapter;
 import afv2_jml25.gameRoom.view.RoomView;
 import common.serverObj.INamedAppConnection;
+import common.serverObj.INamedRoomConnection;
 import provided.logger.ILogger;
 import provided.logger.ILoggerControl;
 import provided.logger.LogLevel;
@@ -116,6 +117,11 @@ public class RoomController {
 				miniMVC2MainMVCAdpt.checkWinner();
 			}
 
+			@Override
+			public void playerReady(INamedRoomConnection player) {
+				miniMVC2MainMVCAdpt.playerReady(player);
+			}
+
 		}, name, appConnection);
 
 		this.roomView = new RoomView(new IMiniView2ModelAdapter() {
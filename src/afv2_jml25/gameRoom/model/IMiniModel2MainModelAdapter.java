@@ -4,6 +4,7 @@ import java.util.UUID;
 
 import afv2_jml25.api.GameRoom;
 import afv2_jml25.gameApp.mainController.MyAppConfig;
+import common.serverObj.INamedRoomConnection;
 import provided.pubsubsync.IPubSubSyncManager;
 import provided.rmiUtils.IRMIUtils;
 
@@ -69,4 +70,11 @@ public interface IMiniModel2MainModelAdapter {
 	 * Checks to see if a team has won
 	 */
 	void checkWinner();
+
+	/**
+	 * Tells the game launch that a player's game is set up
+	 * 
+	 * @param player the player that is ready
+	 */
+	void playerReady(INamedRoomConnection player);
 }
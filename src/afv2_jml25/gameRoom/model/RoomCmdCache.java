@@ -0,0 +1,374 @@
+package afv2_jml25.gameRoom.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import common.dataPacket.ARoomDataPacketAlgoCmd;
+import common.dataPacket.data.IRoomConnectionData;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * Process-wide cache of the commands received through the unknown-message protocol (ICmdRequestData/ICmdData),
+ * shared by all the rooms so that a command is only requested and downloaded once per process.
+ * <br>
+ * A command is cached under its IDataPacketID together with a SHA-256 hash of its class files, and only once it
+ * has been verified:  its class file could be read and hashed and it survived a serialization round trip.
+ * The cache keeps the serialized form and hands out a fresh copy on every get(), so that each room can set its
+ * own ICmd2ModelAdapter on the command it installs.
+ * <br>
+ * Only one version of a command is cached per ID.   Caching a command whose class hash differs from the cached
+ * one, e.g. because a sender shipped a newer version, replaces it and notifies the invalidation listeners, as
+ * does invalidate().   Rooms should then remove the old command from their algo so that the next packet of
+ * that type picks up the new version.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class RoomCmdCache {
+
+	/**
+	 * Listener for commands leaving the cache
+	 */
+	@FunctionalInterface
+	public interface IInvalidationListener {
+		/**
+		 * Called when a cached command is replaced by a different version or invalidated.
+		 *
+		 * @param id      ID of the data type whose command is no longer valid
+		 * @param oldHash Class hash of the command that is no longer valid
+		 */
+		public void invalidated(IDataPacketID id, String oldHash);
+	}
+
+	/**
+	 * A verified, cached command
+	 */
+	private static class Entry {
+		/**
+		 * Class hash of the command
+		 */
+		final String hash;
+
+		/**
+		 * Serialized command
+		 */
+		final byte[] bytes;
+
+		/**
+		 * Class loader of the command class, to deserialize copies with
+		 */
+		final ClassLoader loader;
+
+		/**
+		 * Constructor for the class
+		 *
+		 * @param hash   Class hash of the command
+		 * @param bytes  Serialized command
+		 * @param loader Class loader of the command class
+		 */
+		Entry(String hash, byte[] bytes, ClassLoader loader) {
+			this.hash = hash;
+			this.bytes = bytes;
+			this.loader = loader;
+		}
+	}
+
+	/**
+	 * Object input stream that resolves classes through the command's class loader first, which is the RMI
+	 * class loader for downloaded commands.
+	 */
+	private static class CmdInputStream extends ObjectInputStream {
+		/**
+		 * Class loader of the command class
+		 */
+		private final ClassLoader loader;
+
+		/**
+		 * Constructor for the class
+		 *
+		 * @param in     Serialized command
+		 * @param loader Class loader of the command class
+		 * @throws IOException if the stream header cannot be read
+		 */
+		CmdInputStream(InputStream in, ClassLoader loader) throws IOException {
+			super(in);
+			this.loader = loader;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			if (null != loader) {
+				try {
+					return Class.forName(desc.getName(), false, loader);
+				} catch (ClassNotFoundException e) {
+					// fall through to the default resolution
+				}
+			}
+			return super.resolveClass(desc);
+		}
+	}
+
+	/**
+	 * Singleton instance shared by all the rooms
+	 */
+	public static final RoomCmdCache Singleton = new RoomCmdCache();
+
+	/**
+	 * The cached commands
+	 */
+	private final ConcurrentMap<IDataPacketID, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * The invalidation listeners
+	 */
+	private final List<IInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Constructor for the class, use the Singleton instance in the application.
+	 */
+	RoomCmdCache() {
+	}
+
+	/**
+	 * Verify and cache a command received for the given ID.   If a different version is already cached, it is
+	 * replaced and the invalidation listeners are notified.
+	 *
+	 * @param id  ID of the data type the command processes
+	 * @param cmd The received command
+	 * @return The class hash of the cached command or null if the command could not be verified and was not cached
+	 */
+	public String put(IDataPacketID id, ARoomDataPacketAlgoCmd<?> cmd) {
+		String hash = hashOf(cmd.getClass());
+		if (null == hash) {
+			return null;
+		}
+		Entry current = entries.get(id);
+		if (null != current && current.hash.equals(hash)) {
+			return hash;
+		}
+
+		Entry entry;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(cmd);
+			}
+			entry = new Entry(hash, bytes.toByteArray(), cmd.getClass().getClassLoader());
+			copyOf(entry); // must survive the round trip
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			return null;
+		}
+
+		Entry old = entries.put(id, entry);
+		if (null != old && !old.hash.equals(hash)) {
+			fireInvalidated(id, old.hash);
+		}
+		return hash;
+	}
+
+	/**
+	 * Get a fresh copy of the cached command for the given ID.
+	 *
+	 * @param <D> The type of data the command processes
+	 * @param id  ID of the data type
+	 * @return A new instance of the cached command, without an ICmd2ModelAdapter, or null if none is cached
+	 */
+	@SuppressWarnings("unchecked")
+	public <D extends IRoomConnectionData> ARoomDataPacketAlgoCmd<D> get(IDataPacketID id) {
+		Entry entry = entries.get(id);
+		if (null == entry) {
+			return null;
+		}
+		try {
+			return (ARoomDataPacketAlgoCmd<D>) copyOf(entry);
+		} catch (IOException | ClassNotFoundException e) {
+			// verified when cached, so only an unloaded class can get here
+			invalidate(id);
+			return null;
+		}
+	}
+
+	/**
+	 * Get the class hash of the cached command for the given ID.
+	 *
+	 * @param id ID of the data type
+	 * @return The class hash of the cached command or null if none is cached
+	 */
+	public String getHash(IDataPacketID id) {
+		Entry entry = entries.get(id);
+		return null == entry ? null : entry.hash;
+	}
+
+	/**
+	 * Remove the cached command for the given ID, if any, and notify the invalidation listeners.
+	 *
+	 * @param id ID of the data type
+	 */
+	public void invalidate(IDataPacketID id) {
+		Entry old = entries.remove(id);
+		if (null != old) {
+			fireInvalidated(id, old.hash);
+		}
+	}
+
+	/**
+	 * Add an invalidation listener
+	 *
+	 * @param listener The listener to add
+	 */
+	public void addInvalidationListener(IInvalidationListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove an invalidation listener
+	 *
+	 * @param listener The listener to remove
+	 */
+	public void removeInvalidationListener(IInvalidationListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Notify the listeners that a command is no longer valid
+	 *
+	 * @param id      ID of the data type
+	 * @param oldHash Class hash of the command that is no longer valid
+	 */
+	private void fireInvalidated(IDataPacketID id, String oldHash) {
+		for (IInvalidationListener listener : listeners) {
+			listener.invalidated(id, oldHash);
+		}
+	}
+
+	/**
+	 * Deserialize a copy of a cached command
+	 *
+	 * @param entry The cached command
+	 * @return A new instance of the command
+	 * @throws IOException            if the command cannot be deserialized
+	 * @throws ClassNotFoundException if a class of the command cannot be resolved
+	 */
+	private static ARoomDataPacketAlgoCmd<?> copyOf(Entry entry) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new CmdInputStream(new ByteArrayInputStream(entry.bytes), entry.loader)) {
+			return (ARoomDataPacketAlgoCmd<?>) in.readObject();
+		}
+	}
+
+	/**
+	 * The class hash of each command class, computed once per class
+	 */
+	private static final ClassValue<Optional<String>> classHashes = new ClassValue<Optional<String>>() {
+		@Override
+		protected Optional<String> computeValue(Class<?> type) {
+			return Optional.ofNullable(computeHash(type));
+		}
+	};
+
+	/**
+	 * Get the class hash of a command class:  the SHA-256 hash of the class files of the class, of its
+	 * superclasses from the same class loader and of their member and anonymous classes.   It is computed the
+	 * first time the class is seen, i.e. right after it was loaded, and kept for as long as the class is, so that 
+	 * it stands for the class that was loaded and not for what its codebase serves later.
+	 *
+	 * @param c The class
+	 * @return The hash as a hex string or null if the class file is not available
+	 */
+	static String hashOf(Class<?> c) {
+		return classHashes.get(c).orElse(null);
+	}
+
+	/**
+	 * Compute the class hash of a command class, as served by its class loader.
+	 *
+	 * @param c The class
+	 * @return The hash as a hex string or null if the class file is not available
+	 */
+	private static String computeHash(Class<?> c) {
+		ClassLoader loader = c.getClassLoader();
+		List<String> names = new ArrayList<String>();
+		for (Class<?> k = c; null != k && loader == k.getClassLoader(); k = k.getSuperclass()) {
+			addWithNested(k, loader, names);
+		}
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[8192];
+			for (String name : names) {
+				try (InputStream in = open(loader, name)) {
+					if (null == in) {
+						return null;
+					}
+					digest.update(name.getBytes(StandardCharsets.UTF_8));
+					for (int n = in.read(buffer); 0 <= n; n = in.read(buffer)) {
+						digest.update(buffer, 0, n);
+					}
+				}
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest()) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (IOException | NoSuchAlgorithmException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Add the name of a class and of its member and anonymous classes, recursively.   Anonymous classes are
+	 * found by their compiler-given names, Outer$1, Outer$2, ..., as long as their class files exist.
+	 *
+	 * @param c      The class
+	 * @param loader The class loader of the command class
+	 * @param names  The class names, in a fixed order
+	 */
+	private static void addWithNested(Class<?> c, ClassLoader loader, List<String> names) {
+		names.add(c.getName());
+		Class<?>[] members = c.getDeclaredClasses();
+		Arrays.sort(members, Comparator.comparing(Class::getName));
+		for (Class<?> member : members) {
+			addWithNested(member, loader, names);
+		}
+		for (int i = 1; null != resource(loader, c.getName() + "$" + i); i++) {
+			names.add(c.getName() + "$" + i);
+		}
+	}
+
+	/**
+	 * @param loader The class loader, null for the bootstrap class loader
+	 * @param name   The name of a class
+	 * @return The URL of the class file or null if it is not available
+	 */
+	private static URL resource(ClassLoader loader, String name) {
+		String path = name.replace('.', '/') + ".class";
+		return null == loader ? ClassLoader.getSystemResource(path) : loader.getResource(path);
+	}
+
+	/**
+	 * @param loader The class loader, null for the bootstrap class loader
+	 * @param name   The name of a class
+	 * @return The class file or null if it is not available
+	 */
+	private static InputStream open(ClassLoader loader, String name) {
+		String path = name.replace('.', '/') + ".class";
+		return null == loader ? ClassLoader.getSystemResourceAsStream(path) : loader.getResourceAsStream(path);
+	}
+}
@@ -1,34 +1,69 @@
 package afv2_jml25.gameRoom.model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.zip.Deflater;
 
+import javax.management.JMException;
 import javax.swing.JComponent;
 
 import afv2_jml25.api.GameRoom;
 import afv2_jml25.api.GameInitAlgoCmd;
+import afv2_jml25.api.ICatchUpReplyData;
+import afv2_jml25.api.ICatchUpRequestData;
 import afv2_jml25.api.IDeathData;
 import afv2_jml25.api.IEliminationData;
 import afv2_jml25.api.IGameBooleanData;
 import afv2_jml25.api.IGameInitData;
+import afv2_jml25.api.IGameReadyData;
 import afv2_jml25.api.IImageData;
 import afv2_jml25.api.IInitRosterData;
 import afv2_jml25.api.IMapData;
+import afv2_jml25.api.IRoundStartData;
 import afv2_jml25.api.ImageAlgoCmd;
 import afv2_jml25.api.MapAlgoCmd;
+import afv2_jml25.api.RoundStartAlgoCmd;
+import afv2_jml25.api.RoomRoster;
+import afv2_jml25.api.SurvivorCount;
 import afv2_jml25.gameApp.mainController.MyAppConfig;
+import provided.datapacket.DataPacket;
+import provided.datapacket.DataPacketBatchProcessor;
+import provided.datapacket.DataPacketExecutor;
+import provided.datapacket.DataPacketFanOut;
+import provided.datapacket.DataPacketCompressor;
+import provided.datapacket.DataPacketHistory;
+import provided.datapacket.DataPacketFanOut.Outcome;
+import provided.datapacket.DataPacketExecutor.FullPolicy;
+import provided.datapacket.DataPacketIDDictionary;
 import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.DataPacketOutbox;
+import provided.datapacket.DataPacketReorderBuffer;
+import provided.datapacket.PeerHealthTracker;
 import provided.datapacket.IDataPacketID;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.SerializedDataPacket;
+import provided.extvisitor.DispatchStats;
 import provided.logger.ILogger;
 import provided.logger.ILoggerControl;
 import provided.logger.LogLevel;
@@ -125,9 +160,67 @@ public class RoomModel {
 	ILogger logger = ILoggerControl.getSharedLogger();
 
 	/**
-	 * Room roster
+	 * Room roster, replaced as a whole on every roster sync so that senders iterate a consistent snapshot
 	 */
-	HashSet<INamedRoomConnection> roomRoster = new HashSet<>();
+	RoomRoster roomRoster = new RoomRoster();
+
+	/**
+	 * Logs the members joining and leaving the room
+	 */
+	private RoomRoster.IRosterListener rosterListener = new RoomRoster.IRosterListener() {
+		@Override
+		public void joined(INamedRoomConnection member) {
+			logger.log(LogLevel.INFO, member.getName() + " joined room " + roomName);
+			if (catchUpWanted && !member.equals(namedReceiver) && catchUpPeer.compareAndSet(null, member)) {
+				catchUpWanted = false;
+				logger.log(LogLevel.INFO, "Asking " + member.getName() + " for the recent messages of " + roomName);
+				cmd2ModelAdpt.sendMessageToDyad(ICatchUpRequestData.make(CATCH_UP_BUDGET), member);
+			}
+		}
+
+		@Override
+		public void left(INamedRoomConnection member) {
+			logger.log(LogLevel.INFO, member.getName() + " left room " + roomName);
+			// neither side of the member's message streams will be used again
+			reorderBuffer.forget(member);
+			dyadSeqs.remove(member);
+			dyadResyncs.remove(member);
+			rejectBackoff.remove(member);
+			roomHealth.forget(member);
+			heldControl.remove(member);
+		}
+	};
+
+	/**
+	 * Logs the members that stop answering and sends them the game control messages held while they did not
+	 * answer once they answer again.   Once a member fails every probe, the host of the room publishes its
+	 * removal from the room so that no member keeps sending to it.   The other members only stop sending to it, 
+	 * since a member that cannot reach another may be the one cut off, and must not evict it for everyone.
+	 */
+	private PeerHealthTracker.IHealthListener<INamedRoomConnection> healthListener = new PeerHealthTracker.IHealthListener<INamedRoomConnection>() {
+		@Override
+		public void opened(INamedRoomConnection member, int failures, Throwable cause) {
+			logger.log(LogLevel.ERROR, member.getName() + " is unreachable after " + failures
+					+ " failed sends, holding messages to it: " + cause);
+		}
+
+		@Override
+		public void closed(INamedRoomConnection member) {
+			logger.log(LogLevel.INFO, member.getName() + " is reachable again");
+			releaseHeld(member);
+		}
+
+		@Override
+		public void dead(INamedRoomConnection member) {
+			if (!host) {
+				logger.log(LogLevel.ERROR, member.getName() + " did not answer any probe, leaving its removal from "
+						+ roomName + " to the host");
+				return;
+			}
+			logger.log(LogLevel.ERROR, member.getName() + " did not answer any probe, removing it from " + roomName);
+			channelUpdate.update(IPubSubSyncUpdater.makeSetRemoveFn(member));
+		}
+	};
 
 	/**
 	 * UUID of room
@@ -145,9 +238,12 @@ public class RoomModel {
 	GameRoom room;
 
 	/**
-	 * Map for status of players in room.
+	 * The players of this room's team still alive.   The team is eliminated, once, when the last one perishes.
+	 * Replaced when the roster of players is initialized.
 	 */
-	ConcurrentHashMap<INamedRoomConnection, Boolean> playerStatusMap = new ConcurrentHashMap<>();
+	volatile SurvivorCount<INamedRoomConnection> playerSurvival = new SurvivorCount<>(
+			new SurvivorCount.ISurvivorListener<INamedRoomConnection>() {
+			});
 
 	/**
 	 * 
@@ -155,9 +251,269 @@ public class RoomModel {
 	IMixedDataDictionary mixedDict = new MixedDataDictionary();
 
 	/**
-	 * Cache to process unknown message types
+	 * Processes received packets off the RMI thread, in order per sender, game control packets ahead of chat.
+	 * When full, a packet is refused right away and returned to its sender with an IRejectStatusData, for the
+	 * sender to send again after a backoff.
+	 * Made when the room starts, with the configured number of workers.
+	 */
+	private DataPacketExecutor packetExecutor;
+
+	/**
+	 * The number of received packets that may wait for or be in processing
+	 */
+	private static final int RECEIVE_CAPACITY = 256;
+
+	/**
+	 * The number of further received game control packets that may wait for or be in processing
+	 */
+	private static final int RECEIVE_PRIORITY_CAPACITY = 64;
+
+	/**
+	 * The types of the game control packets, whose senders are served ahead of the other senders
+	 */
+	private Set<IDataPacketID> controlIDs = Set.of(IDeathData.GetID(), IEliminationData.GetID(),
+			IGameBooleanData.GetID(), IGameReadyData.GetID(), IRoundStartData.GetID());
+
+	/**
+	 * Failures of the sends to each member, leaving out of the sends the members that stopped answering
+	 */
+	private PeerHealthTracker<INamedRoomConnection> roomHealth = new PeerHealthTracker<>(HEALTH_THRESHOLD,
+			HEALTH_BACKOFF, HEALTH_MAX_BACKOFF, HEALTH_PROBES);
+
+	/**
+	 * Whether this member made the room, and is the one to remove the members that went away
+	 */
+	private volatile boolean host = false;
+
+	/**
+	 * The game control messages to each member whose sends are held, in the order they were sent, until it
+	 * answers again
+	 */
+	private ConcurrentHashMap<INamedRoomConnection, ArrayDeque<IRoomConnectionData>> heldControl = new ConcurrentHashMap<>();
+
+	/**
+	 * The maximum number of game control messages held for one member
+	 */
+	private static final int HELD_CONTROL_CAPACITY = 64;
+
+	/**
+	 * The number of sends in a row to a member that fail before messages to it are held
+	 */
+	private static final int HEALTH_THRESHOLD = 3;
+
+	/**
+	 * How long messages to an unreachable member are held before it is probed, in milliseconds, doubling after
+	 * every failed probe
+	 */
+	private static final long HEALTH_BACKOFF = 1000;
+
+	/**
+	 * The maximum time between probes of an unreachable member, in milliseconds
+	 */
+	private static final long HEALTH_MAX_BACKOFF = 16000;
+
+	/**
+	 * The number of failed probes in a row after which a member is removed from the room
+	 */
+	private static final int HEALTH_PROBES = 5;
+
+	/**
+	 * How long a message refused by a busy member waits before it is sent again, in milliseconds, doubling for
+	 * every further refusal by that member until the resent messages are no longer refused
+	 */
+	private static final long REJECT_BACKOFF = 250;
+
+	/**
+	 * The longest a refused message waits before it is sent again, in milliseconds.   A message refused again
+	 * after this wait is given up.
+	 */
+	private static final long REJECT_MAX_BACKOFF = 8000;
+
+	/**
+	 * Shared timer for sending again the messages that busy members refused
+	 */
+	private static final ScheduledExecutorService resendTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new Thread(r, "RoomModel-resend");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * The current wait before a message refused by each busy member is sent again, in milliseconds.   Members
+	 * that did not refuse a message since the last resend are not in the map.
+	 */
+	private final ConcurrentHashMap<INamedRoomConnection, Long> rejectBackoff = new ConcurrentHashMap<>();
+
+	/**
+	 * The threads the room broadcasts and the messages to single members are sent on
+	 */
+	private ExecutorService roomSenders = DataPacketFanOut.makeSenders("room-send", SEND_THREADS);
+
+	/**
+	 * The number of threads sending to the members.   A member whose sends hang holds at most one.
+	 */
+	private static final int SEND_THREADS = 8;
+
+	/**
+	 * Sends to the room members concurrently
+	 */
+	private DataPacketFanOut roomFanOut = new DataPacketFanOut(roomSenders, SEND_DEADLINE);
+
+	/**
+	 * How long a send to one member may take before it is reported as timed out, in milliseconds
+	 */
+	private static final long SEND_DEADLINE = 3000;
+
+	/**
+	 * Compresses the large messages sent to members, e.g. maps and catch-up lists, and times their unpacking
+	 */
+	private DataPacketCompressor roomCompressor = new DataPacketCompressor(COMPRESS_THRESHOLD, Deflater.BEST_SPEED);
+
+	/**
+	 * The serialized size from which messages to members are compressed, in bytes
+	 */
+	private static final int COMPRESS_THRESHOLD = 4096;
+
+	/**
+	 * Queues the messages to single members, combining bursts to the same member into one IPacketListData.   The
+	 * outbox sends to a member one send at a time, which keeps the messages in order by itself, so the sequence
+	 * numbers do not order them here.   They let the member drop a send reported as failed that still arrives
+	 * late, and they keep the order if the sends to a member are ever overlapped.   A failed send gives up
+	 * its number, and the next message to the member is marked as a resync so that the member does not wait for it.
+	 */
+	private DataPacketOutbox<INamedRoomConnection, RoomDataPacket<IRoomConnectionData>> dyadOutbox = new DataPacketOutbox<>(
+			"room-dyad", roomSenders, DYAD_BATCH_WINDOW, DYAD_MAX_BATCH,
+			(dyad, dp) -> {
+				// numbered once, so that a send made again for the ID dictionary keeps its number
+				RoomDataPacket<IRoomConnectionData> seqDp = sequenced(dyad, dp);
+				try {
+					DataPacketIDDictionary.send(dictionaryPeer(dyad), () -> dyad
+							.sendSerializedMessage(roomCompressor.compress(SerializedDataPacket.make(seqDp))));
+				} catch (Exception e) {
+					this.dyadResyncs.add(dyad);
+					throw e;
+				}
+			},
+			(packets) -> new RoomDataPacket<IRoomConnectionData>(IPacketListData.make(new ArrayList<>(packets)),
+					namedReceiver));
+
+	/**
+	 * How long messages that queue up behind a send to a member are held to collect a batch, in milliseconds
+	 */
+	private static final long DYAD_BATCH_WINDOW = 5;
+
+	/**
+	 * The maximum number of messages in one IPacketListData sent to a member
+	 */
+	private static final int DYAD_MAX_BATCH = 32;
+
+	/**
+	 * Last sequence number sent to each member, numbering the messages to a member in the order they are sent
+	 */
+	private ConcurrentHashMap<INamedRoomConnection, AtomicLong> dyadSeqs = new ConcurrentHashMap<>();
+
+	/**
+	 * The members a send to failed since the last successful one, whose next message is a resync
+	 */
+	private Set<INamedRoomConnection> dyadResyncs = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Releases the sequenced messages from each member in the order they were sent
+	 */
+	private DataPacketReorderBuffer<INamedRoomConnection, RoomDataPacket<? extends IRoomConnectionData>> reorderBuffer = new DataPacketReorderBuffer<>(
+			REORDER_CAPACITY, REORDER_GAP_TIMEOUT, RoomDataPacket::getSeq, RoomDataPacket::isResync, this::process);
+
+	/**
+	 * The maximum number of out-of-order messages held per member
+	 */
+	private static final int REORDER_CAPACITY = 256;
+
+	/**
+	 * How long a missing message from a member is waited for before it is given up on, in milliseconds
+	 */
+	private static final long REORDER_GAP_TIMEOUT = 2000;
+
+	/**
+	 * The recent room-wide messages that were taken for processing, serialized, for the members that join later
+	 */
+	private DataPacketHistory<RoomDataPacket<? extends IRoomConnectionData>> history = new DataPacketHistory<>(
+			HISTORY_BYTES, HISTORY_PACKETS);
+
+	/**
+	 * The number of bytes of serialized messages kept in the history
+	 */
+	private static final int HISTORY_BYTES = 1 << 20;
+
+	/**
+	 * The maximum number of messages kept in the history
+	 */
+	private static final int HISTORY_PACKETS = 1024;
+
+	/**
+	 * The types of the messages kept in the history:  what the members said or showed
+	 */
+	private Set<IDataPacketID> historyIDs = Set.of(ITextData.GetID(), IImageData.GetID());
+
+	/**
+	 * The maximum serialized size of the recent messages asked for or sent to a new member, in bytes
+	 */
+	private static final long CATCH_UP_BUDGET = 256 * 1024;
+
+	/**
+	 * Whether to ask for the recent messages once another member is known, i.e. this member joined the room
+	 */
+	private volatile boolean catchUpWanted = false;
+
+	/**
+	 * The member asked for the recent messages, until they arrive
+	 */
+	private AtomicReference<INamedRoomConnection> catchUpPeer = new AtomicReference<>();
+
+	/**
+	 * Executes the packets of an IPacketListData
+	 */
+	private DataPacketBatchProcessor batchProcessor = new DataPacketBatchProcessor();
+
+	/**
+	 * Dispatch statistics of the algo, exposed through JMX.   Off until enabled from a JMX console.
+	 */
+	private DispatchStats<IDataPacketID> dispatchStats;
+
+	/**
+	 * How often the dispatch statistics are logged while enabled, in milliseconds
+	 */
+	private static final long STATS_DUMP_PERIOD = 60000;
+
+	/**
+	 * Holds the packets of unknown types until their command arrives
 	 */
-	private Map<IDataPacketID, List<RoomDataPacket<IRoomConnectionData>>> unknownMsgCache = new HashMap<>();
+	private UnknownMsgCache unknownMsgCache = new UnknownMsgCache(UNKNOWN_MSG_CAPACITY, UNKNOWN_MSG_TTL);
+
+	/**
+	 * The maximum number of packets held while their command is requested
+	 */
+	private static final int UNKNOWN_MSG_CAPACITY = 1024;
+
+	/**
+	 * How long packets are held for a command that does not arrive, in milliseconds
+	 */
+	private static final long UNKNOWN_MSG_TTL = 30000;
+
+	/**
+	 * IDs whose command was received from another member or taken from the RoomCmdCache
+	 */
+	private Set<IDataPacketID> remoteCmdIDs = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Drops an installed remote command when the RoomCmdCache replaces or invalidates it, so that the next packet
+	 * of that type picks up the new version.
+	 */
+	private RoomCmdCache.IInvalidationListener cmdCacheListener = (id, oldHash) -> {
+		if (remoteCmdIDs.remove(id)) {
+			logger.log(LogLevel.INFO, "Command for " + id + " was invalidated");
+			algo.removeCmd(id);
+		}
+	};
 
 	/**
 	 * Command to model adapter
@@ -187,28 +543,20 @@ public class RoomModel {
 
 		@Override
 		public <T extends IRoomConnectionData> void sendMessageToRoom(T data) {
-			RoomDataPacket<T> dp = new RoomDataPacket<T>(data, namedReceiver);
-
-			for (INamedRoomConnection user : roomRoster) {
-				try {
-					user.getStub().sendMessage(dp);
-				} catch (RemoteException e) {
-					e.printStackTrace();
-				}
-			}
-
+			sendToRoom(data);
 		}
 
 		@Override
 		public <T extends IRoomConnectionData> void sendMessageToDyad(T data, INamedRoomConnection dyad) {
-			RoomDataPacket<T> dp = new RoomDataPacket<T>(data, namedReceiver);
-
-			try {
-				dyad.getStub().sendMessage(dp);
-			} catch (RemoteException e) {
-				e.printStackTrace();
+			if (!roomHealth.allow(dyad)) {
+				if (controlIDs.contains(data.getID())) {
+					hold(data, dyad);
+				} else {
+					logger.log(LogLevel.DEBUG, "Not sending " + data + " to unreachable " + dyad);
+				}
+				return;
 			}
-
+			sendQueued(data, dyad);
 		}
 
 		@Override
@@ -238,6 +586,59 @@ public class RoomModel {
 
 	};
 
+	/**
+	 * Queues data for a member in the outbox and records the result in the member's health.
+	 * 
+	 * @param data the data to send
+	 * @param dyad the member
+	 */
+	private void sendQueued(IRoomConnectionData data, INamedRoomConnection dyad) {
+		dyadOutbox.send(dyad, new RoomDataPacket<IRoomConnectionData>(data, namedReceiver))
+				.whenComplete((v, err) -> {
+					roomHealth.report(dyad, null == err, err);
+					if (null != err) {
+						logger.log(LogLevel.ERROR, "Could not send " + data + " to " + dyad + ": " + err);
+					}
+				});
+	}
+
+	/**
+	 * Holds a game control message to a member whose sends are held, to send once it answers again.   Beyond
+	 * HELD_CONTROL_CAPACITY messages, the oldest is dropped.
+	 * 
+	 * @param data the game control data
+	 * @param dyad the member
+	 */
+	private void hold(IRoomConnectionData data, INamedRoomConnection dyad) {
+		// atomic with the removal of the held messages when they are sent
+		heldControl.compute(dyad, (k, held) -> {
+			if (null == held) {
+				held = new ArrayDeque<>();
+			} else if (held.size() >= HELD_CONTROL_CAPACITY) {
+				logger.log(LogLevel.ERROR, "Dropping held " + held.poll().getID() + " to unreachable " + dyad);
+			}
+			held.add(data);
+			return held;
+		});
+		logger.log(LogLevel.INFO, "Holding " + data.getID() + " to unreachable " + dyad);
+	}
+
+	/**
+	 * Sends the game control messages held for a member, in order, now that it answers again
+	 * 
+	 * @param dyad the member
+	 */
+	private void releaseHeld(INamedRoomConnection dyad) {
+		ArrayDeque<IRoomConnectionData> held = heldControl.remove(dyad);
+		if (null == held) {
+			return;
+		}
+		logger.log(LogLevel.INFO, "Sending " + held.size() + " held messages to " + dyad);
+		for (IRoomConnectionData data : held) {
+			sendQueued(data, dyad);
+		}
+	}
+
 	/**
 	 * Name of the room
 	 */
@@ -289,13 +690,23 @@ public class RoomModel {
 
 		// Acquire the pubsub manager
 		MyAppConfig appConfig = this.miniModel2MainModelAdpt.getAppConfig();
+		startPacketExecutor(appConfig);
+
+		// the member that makes the room removes the members that went away
+		this.host = true;
 
 		this.receiver = new IRoomConnection() {
 
 			@Override
 			public void sendMessage(RoomDataPacket<? extends IRoomConnectionData> data) throws RemoteException {
-				// TODO Auto-generated method stub
-				data.execute(algo);
+				receive(data, null);
+			}
+
+			@Override
+			public void sendSerializedMessage(
+					SerializedDataPacket<? extends RoomDataPacket<? extends IRoomConnectionData>> envelope)
+					throws RemoteException {
+				receive(unpack(envelope), envelope);
 			}
 
 		};
@@ -309,16 +720,17 @@ public class RoomModel {
 
 		this.namedReceiver = INamedRoomConnection.make(name, receiverStub, serverConnection);
 
-		this.channelUpdate = this.pubSubSyncManager.createChannel("New Channel!", this.roomRoster, (pubSubSyncData) -> {
-
-			this.roomRoster.clear();
+		this.roomRoster.addListener(rosterListener);
+		this.roomHealth.addListener(healthListener);
+		this.channelUpdate = this.pubSubSyncManager.createChannel("New Channel!",
+				new HashSet<INamedRoomConnection>(this.roomRoster.getSnapshot()), (pubSubSyncData) -> {
 
 			logger.log(LogLevel.INFO, "PubSubSyncData: " + pubSubSyncData.getData().toString());
 
-			for (INamedRoomConnection receiver : pubSubSyncData.getData()) {
-				this.roomRoster.add(receiver);
+			// publish the new roster in one step;  the listeners get the joins and leaves
+			if (this.roomRoster.update(pubSubSyncData.getData())) {
+				logger.log(LogLevel.INFO, "This is the room roster: " + roomRoster.toString());
 			}
-			logger.log(LogLevel.INFO, "This is the room roster: " + roomRoster.toString());
 
 		}, (statusMsg) -> {
 			this.logger.log(LogLevel.INFO, "Room Roster updated: " + statusMsg);
@@ -336,6 +748,7 @@ public class RoomModel {
 		room = new GameRoom(this.roomNamedID);
 		room.setRoster(roomRoster);
 		room.setLocalRoomConnection(namedReceiver);
+		room.setLocalReceiver(receiver);
 		logger.log(LogLevel.INFO, "New chat room in room model before sending to main model: " + room.toString());
 
 		this.miniModel2MainModelAdpt.sendRoom(room);
@@ -346,7 +759,8 @@ public class RoomModel {
 	 */
 	public void algoSetUp() {
 		// initialize algo MS2
-
+		// Commands are installed from RMI threads (ICmdData) while other RMI threads are dispatching,
+		// so use a copy-on-write command table that dispatches without locking.
 		this.algo = new RoomDataPacketAlgo(new ARoomDataPacketAlgoCmd<IRoomConnectionData>() {
 
 			/**
@@ -356,25 +770,38 @@ public class RoomModel {
 
 			@Override
 			public Void apply(IDataPacketID index, RoomDataPacket<IRoomConnectionData> host, Void... params) {
-				if (!unknownMsgCache.containsKey(index)) {
-					unknownMsgCache.put(index, new ArrayList<>(Arrays.asList(host)));
-				} else {
-					// unknownMsgCache.get(index) is null
-					unknownMsgCache.get(index).add(host);
-					unknownMsgCache.put(index, unknownMsgCache.get(index));
+				// another room may already have received this command
+				ARoomDataPacketAlgoCmd<IRoomConnectionData> cachedCmd = RoomCmdCache.Singleton.get(index);
+				if (null != cachedCmd) {
+					logger.log(LogLevel.INFO, "Installing cached command for " + index);
+					cachedCmd.setCmd2ModelAdpt(cmd2ModelAdpt);
+					algo.setCmd(index, cachedCmd);
+					remoteCmdIDs.add(index);
+					replayUnknownMsgs(index, params);
+					return host.execute(algo, params);
 				}
-				try {
-					logger.log(LogLevel.INFO, "Sending cmd request to " + host.getSender().getName());
-					host.getSender().sendMessage(new RoomDataPacket<ICmdRequestData>(
-							ICmdRequestData.make(host.getData().getID()), namedReceiver));
-				} catch (Exception e) {
-					e.printStackTrace();
+
+				// one request per sender, however many packets of this type it sends before the command arrives
+				if (unknownMsgCache.hold(index, host)) {
+					try {
+						logger.log(LogLevel.INFO, "Sending cmd request to " + host.getSender().getName());
+						sendDirect(host.getSender(), new RoomDataPacket<ICmdRequestData>(
+								ICmdRequestData.make(host.getData().getID()), namedReceiver));
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
 				}
 
+				// the command may have been installed while this packet was on its way here
+				if (remoteCmdIDs.contains(index)) {
+					replayUnknownMsgs(index, params);
+				}
 				return null;
 			}
 
-		});
+		}, true);
+		// resolve commands by the IDs' interned ordinals instead of hashing the ID on every packet
+		this.algo.setDenseDispatch(true);
 
 		// text command
 		IDataPacketID textID = ITextData.GetID();
@@ -402,16 +829,16 @@ public class RoomModel {
 				IDataPacketID newID = host.getData().getUnknownMsgID();
 				ARoomDataPacketAlgoCmd<IRoomConnectionData> cmdToInstall = host.getData().getAlgoCmd();
 
+				// share the command with the other rooms;  a different version replaces the cached one
+				RoomCmdCache.Singleton.put(newID, cmdToInstall);
+
 				// set command first
 				cmdToInstall.setCmd2ModelAdpt(cmd2ModelAdpt);
 				algo.setCmd(newID, cmdToInstall);
+				remoteCmdIDs.add(newID);
 
-				// remove first message in the cache and run it
-				logger.log(LogLevel.INFO, host.getData().getUnknownMsgID().toString());
-				List<RoomDataPacket<IRoomConnectionData>> cache = unknownMsgCache.get(host.getData().getUnknownMsgID());
-				cache.remove(0).execute(algo, params);
-				unknownMsgCache.put(host.getData().getUnknownMsgID(), cache); //
-
+				logger.log(LogLevel.INFO, newID.toString());
+				replayUnknownMsgs(newID, params);
 				return null;
 			}
 		};
@@ -440,7 +867,7 @@ public class RoomModel {
 					if (cmd.equals(null)) {
 						sendRejectStatusData(host);
 					}
-					host.getSender().sendMessage(new RoomDataPacket<ICmdData<?>>(
+					sendDirect(host.getSender(), new RoomDataPacket<ICmdData<?>>(
 							ICmdData.make(host.getData().getUnknownMsgID(), cmd), namedReceiver));
 				} catch (RemoteException e) {
 					sendErrorStatusData(host);
@@ -479,6 +906,11 @@ public class RoomModel {
 			@Override
 			public Void apply(IDataPacketID index, RoomDataPacket<IRejectStatusData<?>> host, Void... params) {
 				logger.log(LogLevel.ERROR, "Reject Status message: " + host.getData().getStatusMsg());
+				DataPacket<?, ?> refused = host.getData().getCausalDataPacket();
+				if (null != refused && namedReceiver.equals(refused.getSender())
+						&& refused.getData() instanceof IRoomConnectionData) {
+					resendRefused((IRoomConnectionData) refused.getData(), host.getSender());
+				}
 				return null;
 			}
 
@@ -580,7 +1012,7 @@ public class RoomModel {
 				logger.log(LogLevel.INFO, host.getData().getPlayer().getName() + " has perished.");
 				// death message sent to room
 				sendMessage(host.getData().getPlayer().getName() + " has perished.");
-				playerStatusMap.put(host.getData().getPlayer(), false);
+				playerSurvival.kill(host.getData().getPlayer());
 				return null;
 			}
 
@@ -589,6 +1021,34 @@ public class RoomModel {
 		this.algo.setCmd(deathID, deathCmd);
 		this.cmdMap.put(deathID, deathCmd);
 
+		// command for a player whose game is set up, answering the game launch
+		IDataPacketID readyID = IGameReadyData.GetID();
+		ARoomDataPacketAlgoCmd<IGameReadyData> readyCmd = new ARoomDataPacketAlgoCmd<IGameReadyData>() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = 2967140215839507402L;
+
+			@Override
+			public Void apply(IDataPacketID index, RoomDataPacket<IGameReadyData> host, Void... params) {
+				logger.log(LogLevel.DEBUG, host.getData().getPlayer().getName() + " is ready.");
+				miniModel2MainModelAdpt.playerReady(host.getData().getPlayer());
+				return null;
+			}
+
+		};
+		readyCmd.setCmd2ModelAdpt(cmd2ModelAdpt);
+		this.algo.setCmd(readyID, readyCmd);
+		this.cmdMap.put(readyID, readyCmd);
+
+		// command for the start of the first round, the same time for every player
+		IDataPacketID roundStartID = IRoundStartData.GetID();
+		ARoomDataPacketAlgoCmd<IRoundStartData> roundStartCmd = new RoundStartAlgoCmd(this.uuid);
+		roundStartCmd.setCmd2ModelAdpt(cmd2ModelAdpt);
+		this.algo.setCmd(roundStartID, roundStartCmd);
+		this.cmdMap.put(roundStartID, roundStartCmd);
+
 		// command for initializing roster of players statuses in room model
 		// teamstatusmap
 		IDataPacketID rosterID = IInitRosterData.GetID();
@@ -610,6 +1070,67 @@ public class RoomModel {
 		this.algo.setCmd(rosterID, rosterCmd);
 		this.cmdMap.put(rosterID, rosterCmd);
 
+		// command for a new member's request for the recent messages
+		IDataPacketID catchUpID = ICatchUpRequestData.GetID();
+		ARoomDataPacketAlgoCmd<ICatchUpRequestData> catchUpCmd = new ARoomDataPacketAlgoCmd<ICatchUpRequestData>() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = -2297536100785734436L;
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public Void apply(IDataPacketID index, RoomDataPacket<ICatchUpRequestData> host, Void... params) {
+				long budget = Math.min(host.getData().getByteBudget(), CATCH_UP_BUDGET);
+				ArrayList<RoomDataPacket<IRoomConnectionData>> packets = new ArrayList<>();
+				for (SerializedDataPacket<RoomDataPacket<? extends IRoomConnectionData>> envelope : history
+						.latest(budget)) {
+					try {
+						packets.add((RoomDataPacket<IRoomConnectionData>) envelope.unpack());
+					} catch (IOException | ClassNotFoundException e) {
+						logger.log(LogLevel.ERROR, "Could not read a recent message: " + e);
+					}
+				}
+				logger.log(LogLevel.INFO,
+						"Sending " + packets.size() + " recent messages to " + host.getSender().getName());
+				// one packet, even if empty, so that the new member stops waiting
+				cmd2ModelAdpt.sendMessageToDyad(ICatchUpReplyData.make(packets), host.getSender());
+				return null;
+			}
+
+		};
+		catchUpCmd.setCmd2ModelAdpt(cmd2ModelAdpt);
+		this.algo.setCmd(catchUpID, catchUpCmd);
+		this.cmdMap.put(catchUpID, catchUpCmd);
+
+		// command for the recent messages we asked for, replayed strictly in order
+		IDataPacketID catchUpReplyID = ICatchUpReplyData.GetID();
+		ARoomDataPacketAlgoCmd<ICatchUpReplyData> catchUpReplyCmd = new ARoomDataPacketAlgoCmd<ICatchUpReplyData>() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = 3306458190785187236L;
+
+			@Override
+			public Void apply(IDataPacketID index, RoomDataPacket<ICatchUpReplyData> host, Void... params) {
+				if (!catchUpPeer.compareAndSet(host.getSender(), null)) {
+					logger.log(LogLevel.DEBUG, "Ignoring recent messages not asked of " + host.getSender().getName());
+					return null;
+				}
+				logger.log(LogLevel.INFO, "Replaying " + host.getData().getPackets().size() + " recent messages");
+				for (RoomDataPacket<IRoomConnectionData> packet : host.getData().getPackets()) {
+					packet.execute(algo, params);
+				}
+				return null;
+			}
+
+		};
+		catchUpReplyCmd.setCmd2ModelAdpt(cmd2ModelAdpt);
+		this.algo.setCmd(catchUpReplyID, catchUpReplyCmd);
+		this.cmdMap.put(catchUpReplyID, catchUpReplyCmd);
+
 		IDataPacketID packetListID = IPacketListData.GetID();
 		// messageVisitor is the RoomDataPacketAlgo
 		ARoomDataPacketAlgoCmd<IPacketListData> packetListCmd = new ARoomDataPacketAlgoCmd<IPacketListData>() {
@@ -625,16 +1146,84 @@ public class RoomModel {
 				// The data packets sent to us in the IPacketListData
 				IPacketListData data = (IPacketListData) host.getData();
 
-				// Go through each data packet in order and execute it.
-				for (RoomDataPacket<IRoomConnectionData> packet : data.getPackets()) {
-					packet.execute(algo);
-				}
+				// Execute the data packets, in order except for the commutative types, which run in parallel.
+				batchProcessor.execute(data.getPackets(), algo);
 				return null;
 			}
 		};
 
 		this.algo.setCmd(packetListID, packetListCmd);
 		this.cmdMap.put(packetListID, packetListCmd);
+
+		// Status packets only log, so they do not depend on each other or on the rest of a packet list.   Text is
+		// displayed in the order it was said, so it stays in order.
+		this.batchProcessor.setCommutative(IErrorStatusData.GetID(), true);
+		this.batchProcessor.setCommutative(IRejectStatusData.GetID(), true);
+		this.batchProcessor.setCommutative(IFailureStatusData.GetID(), true);
+
+		// remote commands installed in this algo follow the process-wide command cache
+		RoomCmdCache.Singleton.removeInvalidationListener(cmdCacheListener);
+		this.remoteCmdIDs.clear();
+		RoomCmdCache.Singleton.addInvalidationListener(cmdCacheListener);
+
+		// Per-type dispatch statistics, off by default
+		if (null != this.dispatchStats) {
+			this.dispatchStats.stopDump();
+			this.dispatchStats.unregister();
+		}
+		this.dispatchStats = new DispatchStats<>(this.algo);
+		try {
+			this.dispatchStats.register("room-" + this.uuid);
+		} catch (JMException e) {
+			logger.log(LogLevel.ERROR, "Could not register the dispatch statistics of room " + this.uuid + ": " + e);
+		}
+		this.dispatchStats.startDump(logger, STATS_DUMP_PERIOD);
+
+		// queue depth of the received packets
+		try {
+			this.packetExecutor.register("room-" + this.uuid);
+		} catch (JMException e) {
+			logger.log(LogLevel.ERROR, "Could not register the packet queue of room " + this.uuid + ": " + e);
+		}
+
+		// drop the packets whose command never arrives
+		this.unknownMsgCache.startSweep(logger, UNKNOWN_MSG_TTL);
+	}
+
+	/**
+	 * Replays, in arrival order, the packets held while the command for their type was requested
+	 * 
+	 * @param id     ID of the type whose command was just installed
+	 * @param params parameters to execute the packets with
+	 */
+	private void replayUnknownMsgs(IDataPacketID id, Void... params) {
+		for (RoomDataPacket<IRoomConnectionData> held : unknownMsgCache.release(id)) {
+			held.execute(algo, params);
+		}
+	}
+
+	/**
+	 * Sends a packet to a member right away, outside the outbox, with the member's data packet ID dictionary
+	 * 
+	 * @param dyad the member
+	 * @param dp   the packet
+	 * @throws RemoteException if the send fails
+	 */
+	private void sendDirect(INamedRoomConnection dyad, RoomDataPacket<? extends IRoomConnectionData> dp)
+			throws RemoteException {
+		DataPacketIDDictionary.send(dictionaryPeer(dyad), () -> dyad.sendMessage(dp));
+	}
+
+	/**
+	 * The peer whose data packet ID dictionary the sends to a member use:  the member's app, which says whether it
+	 * decodes the codes, or the member itself if its app is not known.
+	 * 
+	 * @param member the member
+	 * @return the peer to give DataPacketIDDictionary.send()
+	 */
+	private static Object dictionaryPeer(INamedRoomConnection member) {
+		INamedAppConnection app = member.getNamedAppConnection();
+		return null == app ? member.getStub() : app.getStub();
 	}
 
 	/**
@@ -648,7 +1237,7 @@ public class RoomModel {
 		IRejectStatusData<T> error = IRejectStatusData.make(host,
 				namedReceiver.getName() + " refused to process message of type " + host.getData().getID());
 		try {
-			host.getSender().sendMessage(new RoomDataPacket<IRejectStatusData<?>>(error, namedReceiver));
+			sendDirect(host.getSender(), new RoomDataPacket<IRejectStatusData<?>>(error, namedReceiver));
 		} catch (RemoteException e1) {
 			e1.printStackTrace();
 		}
@@ -666,7 +1255,7 @@ public class RoomModel {
 		IFailureStatusData<T> error = IFailureStatusData.make(host,
 				namedReceiver.getName() + " failed requested operation of message of type " + host.getData().getID());
 		try {
-			host.getSender().sendMessage(new RoomDataPacket<IFailureStatusData<?>>(error, namedReceiver));
+			sendDirect(host.getSender(), new RoomDataPacket<IFailureStatusData<?>>(error, namedReceiver));
 		} catch (RemoteException e1) {
 			e1.printStackTrace();
 		}
@@ -684,13 +1273,148 @@ public class RoomModel {
 				namedReceiver.getName() + " failed to recieve message of type " + host.getData().getID() + " from "
 						+ host.getSender().getName());
 		try {
-			host.getSender().sendMessage(new RoomDataPacket<IErrorStatusData<?>>(error, namedReceiver));
+			sendDirect(host.getSender(), new RoomDataPacket<IErrorStatusData<?>>(error, namedReceiver));
 		} catch (RemoteException e1) {
 			// TODO Auto-generated catch block
 			e1.printStackTrace();
 		}
 	}
 
+	/**
+	 * Queue a received packet for processing and return as soon as it is queued, so that a slow command 
+	 * does not hold the sender's remote call open.
+	 * 
+	 * @param data     the received packet
+	 * @param envelope the packet as it was received serialized, or null
+	 */
+	private void receive(RoomDataPacket<? extends IRoomConnectionData> data,
+			SerializedDataPacket<? extends RoomDataPacket<? extends IRoomConnectionData>> envelope) {
+		// a member that sends is reachable
+		roomHealth.onSuccess(data.getSender());
+
+		if (data.isSequenced()) {
+			// concurrent sends from a member may arrive out of order
+			reorderBuffer.receive(data.getSender(), data);
+			return;
+		}
+
+		// keep what was said to the whole room once it is taken for processing, reusing the bytes it was sent as
+		// if possible, so that a refused message is not sent to the new members as if it had been seen
+		if (process(data) && historyIDs.contains(data.getData().getID())) {
+			try {
+				history.add(null == envelope ? SerializedDataPacket.make(data) : envelope);
+			} catch (UncheckedIOException e) {
+				logger.log(LogLevel.ERROR, "Could not keep " + data.getData().getID() + " in the history: " + e);
+			}
+		}
+	}
+
+	/**
+	 * Unpacks a message received serialized.
+	 * 
+	 * @param envelope the serialized message
+	 * @return the message
+	 * @throws RemoteException if the message cannot be unpacked
+	 */
+	private RoomDataPacket<? extends IRoomConnectionData> unpack(
+			SerializedDataPacket<? extends RoomDataPacket<? extends IRoomConnectionData>> envelope)
+			throws RemoteException {
+		try {
+			return roomCompressor.unpack(envelope);
+		} catch (IOException | ClassNotFoundException e) {
+			throw new UnmarshalException("Could not unpack serialized message", e);
+		}
+	}
+
+	/**
+	 * Makes the bounded executor that processes the received packets.
+	 * 
+	 * @param appConfig the app configuration, giving the number of workers
+	 */
+	private void startPacketExecutor(MyAppConfig appConfig) {
+		this.packetExecutor = new DataPacketExecutor("room-packets", appConfig.roomWorkers, RECEIVE_CAPACITY,
+				RECEIVE_PRIORITY_CAPACITY, FullPolicy.REJECT, 0);
+		this.packetExecutor.setPriority((packet) -> isControl(packet.getData()));
+	}
+
+	/**
+	 * Whether data is a game control message or a list of messages holding one, which is how the control
+	 * messages to single members arrive.
+	 * 
+	 * @param data the received data
+	 * @return true if the data is or holds a game control message
+	 */
+	private boolean isControl(IDataPacketData data) {
+		if (data instanceof IPacketListData) {
+			return ((IPacketListData) data).getPackets().stream().anyMatch((dp) -> isControl(dp.getData()));
+		}
+		return controlIDs.contains(data.getID());
+	}
+
+	/**
+	 * Hands a received packet, in order, to the packet executor.
+	 * 
+	 * @param data the received packet
+	 * @return false if the executor refused the packet
+	 */
+	private boolean process(RoomDataPacket<? extends IRoomConnectionData> data) {
+		CompletableFuture<Void> done = packetExecutor.executeAsync(data, algo);
+		done.whenComplete((result, err) -> {
+			if (err instanceof RejectedExecutionException) {
+				refuseBusy(data);
+			} else if (null != err) {
+				logger.log(LogLevel.ERROR, "Failed to process " + data.getData().getID() + " from "
+						+ data.getSender() + ": " + err);
+			}
+		});
+		// a refused packet is completed before executeAsync() returns
+		return !(done.isCompletedExceptionally()
+				&& done.handle((result, err) -> err instanceof RejectedExecutionException).join());
+	}
+
+	/**
+	 * Returns to its sender a packet refused because the room is too busy, for the sender to send it again after
+	 * a backoff, unless the packet is itself a refusal, so that two busy members do not refuse each other's
+	 * refusals.
+	 * 
+	 * @param <T>  type of the refused data
+	 * @param data the refused packet
+	 */
+	private <T extends IRoomConnectionData> void refuseBusy(RoomDataPacket<T> data) {
+		logger.log(LogLevel.DEBUG, "Too busy to process " + data.getData().getID() + " from " + data.getSender()
+				+ ": " + packetExecutor);
+		if (IRejectStatusData.GetID().equals(data.getData().getID()) || namedReceiver.equals(data.getSender())) {
+			return;
+		}
+		cmd2ModelAdpt.sendMessageToDyad(IRejectStatusData.make(data, namedReceiver.getName()
+				+ " is too busy to process message of type " + data.getData().getID() + ", slow down"),
+				data.getSender());
+	}
+
+	/**
+	 * Sends again, once the member's backoff has passed, a message that a busy member refused after it was
+	 * delivered, since the member dropped it.   Every further refusal by the member before the resend doubles its
+	 * backoff;  a message refused at the maximum backoff is given up.   The resent message goes after the messages
+	 * sent to the member in the meantime.
+	 * 
+	 * @param data   the refused message
+	 * @param member the member that refused it
+	 */
+	private void resendRefused(IRoomConnectionData data, INamedRoomConnection member) {
+		Long previous = rejectBackoff.get(member);
+		if (null != previous && REJECT_MAX_BACKOFF <= previous) {
+			logger.log(LogLevel.ERROR, "Giving up on " + data.getID() + " to " + member + ", refused too often");
+			return;
+		}
+		long delay = rejectBackoff.merge(member, REJECT_BACKOFF,
+				(old, base) -> Math.min(old * 2, REJECT_MAX_BACKOFF));
+		resendTimer.schedule(() -> {
+			// no refusal while waiting:  the member is keeping up again
+			rejectBackoff.remove(member, delay);
+			cmd2ModelAdpt.sendMessageToDyad(data, member);
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
 	/**
 	 * Quit out of chat room. remote room from list of chat rooms in app and updates
 	 * the channel, unsubscribes from the channel too.
@@ -701,6 +1425,26 @@ public class RoomModel {
 		// this.channelUpdate.update(IPubSubSyncUpdater.makeRemoteSetRemoveFn(this.memberStub));
 		this.channelUpdate.update(IPubSubSyncUpdater.makeSetAddFn(this.namedReceiver));
 		this.channelUpdate.unsubscribe();
+		this.packetExecutor.shutdown();
+		this.packetExecutor.unregister();
+		this.roomFanOut.shutdown();
+		logger.log(LogLevel.INFO, "Messages to members: " + this.dyadOutbox);
+		logger.log(LogLevel.INFO, "Messages from members: " + this.reorderBuffer);
+		logger.log(LogLevel.INFO, "Message history: " + this.history);
+		logger.log(LogLevel.INFO, "Message compression: " + this.roomCompressor);
+		logger.log(LogLevel.INFO, "Member health: " + this.roomHealth);
+		logger.log(LogLevel.INFO, "Received packets: " + this.packetExecutor);
+		this.dyadOutbox.shutdown();
+		this.roomSenders.shutdown();
+		RoomCmdCache.Singleton.removeInvalidationListener(cmdCacheListener);
+		if (null != this.dispatchStats) {
+			this.dispatchStats.stopDump();
+			this.dispatchStats.unregister();
+		}
+		this.roomRoster.removeListener(rosterListener);
+		this.roomHealth.removeListener(healthListener);
+		logger.log(LogLevel.INFO, "Unknown messages: " + this.unknownMsgCache);
+		this.unknownMsgCache.stopSweep();
 	}
 
 	/**
@@ -713,12 +1457,20 @@ public class RoomModel {
 		IRMIUtils rmiUtils = this.miniModel2MainModelAdpt.getRMIUtils();
 		this.remoteURL = rmiUtils.getClassFileServerURL();
 		MyAppConfig appConfig = this.miniModel2MainModelAdpt.getAppConfig();
+		startPacketExecutor(appConfig);
 
 		this.receiver = new IRoomConnection() {
 
 			@Override
 			public void sendMessage(RoomDataPacket<? extends IRoomConnectionData> data) throws RemoteException {
-				data.execute(algo);
+				receive(data, null);
+			}
+
+			@Override
+			public void sendSerializedMessage(
+					SerializedDataPacket<? extends RoomDataPacket<? extends IRoomConnectionData>> envelope)
+					throws RemoteException {
+				receive(unpack(envelope), envelope);
 			}
 
 		};
@@ -733,15 +1485,13 @@ public class RoomModel {
 		// this.namedReceiver = new NamedReceiver(this.name, this.receiverStub);
 		this.namedReceiver = INamedRoomConnection.make(name, receiverStub, serverConnection);
 
+		// ask the first other member the roster sync brings in for what was said before we joined
+		this.catchUpWanted = true;
+		this.roomRoster.addListener(rosterListener);
+		this.roomHealth.addListener(healthListener);
 		channelUpdate = this.pubSubSyncManager.subscribeToUpdateChannel(remoteID, (pubSubSyncData) -> {
-			this.roomRoster.clear();
-
-			for (INamedRoomConnection receiver : pubSubSyncData.getData()) {
-
-				logger.log(LogLevel.INFO, receiver.toString());
-
-				this.roomRoster.add(receiver);
-			}
+			// publish the new roster in one step;  the listeners get the joins and leaves
+			this.roomRoster.update(pubSubSyncData.getData());
 		}, (statusMsg) -> {
 			this.logger.log(LogLevel.INFO, "Room Roster updated: " + statusMsg);
 		});
@@ -756,6 +1506,10 @@ public class RoomModel {
 		room = new GameRoom(roomNamedID);
 		room.setRoster(roomRoster);
 		room.setLocalRoomConnection(namedReceiver);
+		room.setLocalReceiver(receiver);
+
+		// replaces the room the app model made from the invite, which has no roster or connection of ours
+		this.miniModel2MainModelAdpt.sendRoom(room);
 	}
 
 	/**
@@ -772,87 +1526,98 @@ public class RoomModel {
 	 * 
 	 * @param text message to be sent
 	 */
-	public void sendMessage(String text) {
-
-		for (INamedRoomConnection dyad : this.roomRoster) {
-
-			try {
-
-				RoomDataPacket<ITextData> dp = new RoomDataPacket<ITextData>(ITextData.make(text), this.namedReceiver);
-				logger.log(LogLevel.INFO, "Sent message to Member: " + dyad.toString());
-
-				dyad.getStub().sendMessage(dp);
-
-			} catch (RemoteException e) {
-				e.printStackTrace();
-			}
-
-		}
+	public CompletableFuture<Map<INamedRoomConnection, Outcome>> sendMessage(String text) {
+		return sendToRoom(ITextData.make(text));
 	}
 
 	/**
 	 * @return the roster for this chat room
 	 */
-	public HashSet<INamedRoomConnection> getRoster() {
-		return this.roomRoster;
+	public Set<INamedRoomConnection> getRoster() {
+		return this.roomRoster.getSnapshot();
 	}
 
 	/**
 	 * Sends map to all players of the game
+	 * 
+	 * @return the per-member outcome of the send
 	 */
-	public void sendMap() {
-		for (INamedRoomConnection dyad : this.roomRoster) {
-
-			try {
-
-				RoomDataPacket<IMapData> dp = new RoomDataPacket<IMapData>(IMapData.make(IMapOptions.makeDefault()),
-						this.namedReceiver);
-				logger.log(LogLevel.INFO, "Sent map to Member: " + dyad.toString());
-				// member.getNamedMember().getStub().receiveMessage(dp);
+	public CompletableFuture<Map<INamedRoomConnection, Outcome>> sendMap() {
+		return sendToRoom(IMapData.make(IMapOptions.makeDefault()));
+	}
 
-				dyad.getStub().sendMessage(dp);
+	/**
+	 * Numbers a message to a member with the next sequence number of the stream to that member, as a resync if a
+	 * send to the member failed since the last one that went through.   Called by the outbox in the order the
+	 * messages are sent.
+	 * 
+	 * @param dyad the member
+	 * @param dp   the message
+	 * @return the message with its sequence number
+	 */
+	private RoomDataPacket<IRoomConnectionData> sequenced(INamedRoomConnection dyad,
+			RoomDataPacket<IRoomConnectionData> dp) {
+		long seq = dyadSeqs.computeIfAbsent(dyad, (k) -> new AtomicLong()).incrementAndGet();
+		return new RoomDataPacket<IRoomConnectionData>(dp.getData(), dp.getSender(), seq, dyadResyncs.remove(dyad));
+	}
 
-			} catch (RemoteException e) {
-				e.printStackTrace();
+	/**
+	 * Sends data to every member in the roster concurrently, each with a SEND_DEADLINE ms deadline, so that a slow
+	 * member does not hold up the others.   The packet is serialized once for all the members.   Members that could 
+	 * not be reached in time are logged.
+	 * 
+	 * @param <T>  type of the data to send
+	 * @param data the data to send
+	 * @return the per-member outcome of the send
+	 */
+	private <T extends IRoomConnectionData> CompletableFuture<Map<INamedRoomConnection, Outcome>> sendToRoom(T data) {
+		RoomDataPacket<T> dp = new RoomDataPacket<T>(data, this.namedReceiver);
+		// serialize once and send the same bytes to every member
+		SerializedDataPacket<RoomDataPacket<T>> envelope = roomCompressor.compress(SerializedDataPacket.make(dp));
+		CompletableFuture<Map<INamedRoomConnection, Outcome>> outcomes = roomFanOut
+				.send(roomHealth.filter(this.roomRoster.getSnapshot()), (member) -> DataPacketIDDictionary
+						.send(dictionaryPeer(member), () -> member.sendSerializedMessage(envelope)));
+		outcomes.thenAccept((results) -> results.forEach((member, outcome) -> {
+			roomHealth.report(member, outcome.isDelivered(), outcome.getError());
+			if (outcome.isDelivered()) {
+				logger.log(LogLevel.DEBUG, "Sent " + data.getID() + " to Member: " + member + " " + outcome);
+			} else {
+				logger.log(LogLevel.ERROR, "Could not send " + data.getID() + " to Member: " + member + " " + outcome);
 			}
-
-		}
+		}));
+		return outcomes;
 	}
 
 	/**
-	 * Initialize map of player connections to boolean status.
+	 * Initialize the count of the players alive, all but this room's own connection.
 	 */
 	public void initPlayerStatusMap() {
+		SurvivorCount<INamedRoomConnection> survival = new SurvivorCount<>(
+				new SurvivorCount.ISurvivorListener<INamedRoomConnection>() {
+					@Override
+					public void allPerished() {
+						// set team status to eliminated in app
+						logger.log(LogLevel.INFO, "Team \'" + roomName + "\' should be eliminated.");
+						miniModel2MainModelAdpt.eliminateTeam(uuid);
+					}
+				});
 		for (INamedRoomConnection player : roomRoster) {
-			//this.logger.log(LogLevel.INFO, "Initializing player: " + player.getName());
 			// UNCOMMENT FOR DEMO DAY
 			if (player.equals(this.namedReceiver)) {
 				this.logger.log(LogLevel.INFO, "Initializing player: " + player.getName());
-
-				playerStatusMap.put(player, false);
 			} else {
-			playerStatusMap.put(player, true);
+				survival.add(player);
 			}
-
 		}
+		this.playerSurvival = survival;
 	}
 
 	/**
-	 * Checks if team of this room is still alive.
+	 * Checks if team of this room is still alive.   The team is eliminated as soon as its last player perishes,
+	 * so this only reports the count.
 	 */
 	public void checkTeamSurvival() {
-		boolean teamEliminated = false;
-		// Iterate through the roster to check if all of the team is dead.
-		for (INamedRoomConnection player : playerStatusMap.keySet()) {
-			if (playerStatusMap.get(player)) {
-				teamEliminated = true;
-			}
-		}
-		if (!teamEliminated) {
-			// set team status to eliminated in app
-			this.logger.log(LogLevel.INFO, "Team \'" + roomName + "\' should be eliminated.");
-			this.miniModel2MainModelAdpt.eliminateTeam(this.uuid);
-		}
+		this.logger.log(LogLevel.DEBUG, "Team \'" + roomName + "\': " + playerSurvival);
 	}
 
 }
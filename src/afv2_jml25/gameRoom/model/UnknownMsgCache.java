@@ -0,0 +1,346 @@
+package afv2_jml25.gameRoom.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import common.dataPacket.RoomDataPacket;
+import common.dataPacket.data.IRoomConnectionData;
+import common.serverObj.INamedRoomConnection;
+import provided.datapacket.IDataPacketID;
+import provided.logger.ILogger;
+import provided.logger.LogLevel;
+
+/**
+ * Holds the packets of a room whose type has no command yet, while the command is requested from their senders
+ * (ICmdRequestData), so that they can all be replayed in order once the command arrives (ICmdData).
+ * <br>
+ * hold() tells the caller whether to send a command request:  only the first packet of an unknown type from a
+ * given sender does, so a burst of unknown packets costs one request per sender instead of one per packet.
+ * release() hands back every held packet of a type, in arrival order, once its command is installed.
+ * <br>
+ * The cache is bounded in two ways.   A type whose command has not arrived within the time to live, e.g. because
+ * its senders never answered, is evicted with its packets, and the next packet of that type is requested again.
+ * When the cache holds more than its maximum number of packets, the oldest types are evicted first.   Evictions
+ * happen on hold() and, if started, on a periodic sweep, and are counted.
+ *
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class UnknownMsgCache {
+
+	/**
+	 * Shared timer for the periodic sweeps
+	 */
+	private static final ScheduledExecutorService sweepTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new Thread(r, "UnknownMsgCache-sweep");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * The held packets of one unknown type
+	 */
+	private static class Entry {
+		/**
+		 * When the first packet was held, in System.nanoTime() time
+		 */
+		final long createdAt = System.nanoTime();
+
+		/**
+		 * The held packets, in arrival order
+		 */
+		final List<RoomDataPacket<IRoomConnectionData>> packets = new ArrayList<>();
+
+		/**
+		 * The senders the command was requested from
+		 */
+		final Set<INamedRoomConnection> askedSenders = new HashSet<>();
+
+		/**
+		 * Whether this entry was removed from the map and must not take new packets
+		 */
+		boolean removed = false;
+	}
+
+	/**
+	 * The held packets by unknown type
+	 */
+	private final ConcurrentMap<IDataPacketID, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of packets held, across all types
+	 */
+	private final AtomicInteger size = new AtomicInteger();
+
+	/**
+	 * The maximum number of packets held
+	 */
+	private final int maxPackets;
+
+	/**
+	 * How long a type is held without its command arriving, in nanoseconds
+	 */
+	private final long ttlNanos;
+
+	/**
+	 * Number of packets held
+	 */
+	private final LongAdder heldCount = new LongAdder();
+
+	/**
+	 * Number of packets replayed
+	 */
+	private final LongAdder replayedCount = new LongAdder();
+
+	/**
+	 * Number of command requests to be sent
+	 */
+	private final LongAdder requestCount = new LongAdder();
+
+	/**
+	 * Number of held packets whose command request was skipped because one was already pending
+	 */
+	private final LongAdder coalescedCount = new LongAdder();
+
+	/**
+	 * Number of types evicted because their command did not arrive in time
+	 */
+	private final LongAdder expiredCount = new LongAdder();
+
+	/**
+	 * Number of types evicted because the cache was full
+	 */
+	private final LongAdder overflowCount = new LongAdder();
+
+	/**
+	 * Number of packets dropped with evicted types
+	 */
+	private final LongAdder droppedCount = new LongAdder();
+
+	/**
+	 * The periodic sweep, if started
+	 */
+	private ScheduledFuture<?> sweep = null;
+
+	/**
+	 * Constructor for the class
+	 *
+	 * @param maxPackets The maximum number of packets held, across all types
+	 * @param ttlMillis  How long a type is held without its command arriving, in milliseconds
+	 */
+	public UnknownMsgCache(int maxPackets, long ttlMillis) {
+		this.maxPackets = maxPackets;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Hold a packet whose type has no command yet.
+	 *
+	 * @param id     ID of the packet's type
+	 * @param packet The packet
+	 * @return true if the command should be requested from the packet's sender, false if it already was
+	 */
+	public boolean hold(IDataPacketID id, RoomDataPacket<IRoomConnectionData> packet) {
+		evictExpired();
+		boolean request;
+		while (true) {
+			Entry entry = entries.computeIfAbsent(id, (k) -> new Entry());
+			synchronized (entry) {
+				if (entry.removed) {
+					continue; // lost the race with a release or an eviction
+				}
+				entry.packets.add(packet);
+				size.incrementAndGet();
+				request = entry.askedSenders.add(packet.getSender());
+			}
+			break;
+		}
+		heldCount.increment();
+		if (request) {
+			requestCount.increment();
+		} else {
+			coalescedCount.increment();
+		}
+		evictOverflow();
+		return request;
+	}
+
+	/**
+	 * Remove and return the held packets of a type, once its command is installed.
+	 *
+	 * @param id ID of the type
+	 * @return The held packets, in arrival order, empty if none
+	 */
+	public List<RoomDataPacket<IRoomConnectionData>> release(IDataPacketID id) {
+		List<RoomDataPacket<IRoomConnectionData>> packets = remove(id);
+		replayedCount.add(packets.size());
+		return packets;
+	}
+
+	/**
+	 * Remove a type's entry and its packets
+	 *
+	 * @param id ID of the type
+	 * @return The held packets, in arrival order, empty if none
+	 */
+	private List<RoomDataPacket<IRoomConnectionData>> remove(IDataPacketID id) {
+		Entry entry = entries.remove(id);
+		if (null == entry) {
+			return new ArrayList<>();
+		}
+		synchronized (entry) {
+			entry.removed = true;
+			size.addAndGet(-entry.packets.size());
+			return new ArrayList<>(entry.packets);
+		}
+	}
+
+	/**
+	 * Evict the types whose command did not arrive within the time to live
+	 *
+	 * @return The number of packets dropped
+	 */
+	public int evictExpired() {
+		int dropped = 0;
+		long now = System.nanoTime();
+		for (Map.Entry<IDataPacketID, Entry> e : entries.entrySet()) {
+			if (now - e.getValue().createdAt >= ttlNanos && entries.remove(e.getKey(), e.getValue())) {
+				dropped += drop(e.getValue());
+				expiredCount.increment();
+			}
+		}
+		return dropped;
+	}
+
+	/**
+	 * Evict the oldest types until no more than the maximum number of packets are held
+	 */
+	private void evictOverflow() {
+		while (size.get() > maxPackets) {
+			Map.Entry<IDataPacketID, Entry> oldest = null;
+			for (Map.Entry<IDataPacketID, Entry> e : entries.entrySet()) {
+				if (null == oldest || e.getValue().createdAt - oldest.getValue().createdAt < 0) {
+					oldest = e;
+				}
+			}
+			if (null == oldest) {
+				return;
+			}
+			if (entries.remove(oldest.getKey(), oldest.getValue())) {
+				drop(oldest.getValue());
+				overflowCount.increment();
+			}
+		}
+	}
+
+	/**
+	 * Drop the packets of an entry already removed from the map
+	 *
+	 * @param entry The entry
+	 * @return The number of packets dropped
+	 */
+	private int drop(Entry entry) {
+		synchronized (entry) {
+			entry.removed = true;
+			int n = entry.packets.size();
+			size.addAndGet(-n);
+			droppedCount.add(n);
+			return n;
+		}
+	}
+
+	/**
+	 * Evict expired types periodically, logging the evictions.   Replaces any sweep already started.
+	 *
+	 * @param logger       The logger to log to, at LogLevel.ERROR
+	 * @param periodMillis The period, in milliseconds
+	 */
+	public synchronized void startSweep(ILogger logger, long periodMillis) {
+		stopSweep();
+		sweep = sweepTimer.scheduleAtFixedRate(() -> {
+			int dropped = evictExpired();
+			if (0 < dropped) {
+				logger.log(LogLevel.ERROR, "Dropped " + dropped + " packets whose command never arrived:  " + this);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop the periodic sweep, if started.
+	 */
+	public synchronized void stopSweep() {
+		if (null != sweep) {
+			sweep.cancel(false);
+			sweep = null;
+		}
+	}
+
+	/**
+	 * @return Number of packets currently held
+	 */
+	public int getSize() {
+		return size.get();
+	}
+
+	/**
+	 * @return Number of command requests to be sent, i.e. hold() calls that returned true
+	 */
+	public long getRequestCount() {
+		return requestCount.sum();
+	}
+
+	/**
+	 * @return Number of held packets that did not need a command request of their own
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * @return Number of packets replayed once their command arrived
+	 */
+	public long getReplayedCount() {
+		return replayedCount.sum();
+	}
+
+	/**
+	 * @return Number of types evicted because their command did not arrive in time
+	 */
+	public long getExpiredCount() {
+		return expiredCount.sum();
+	}
+
+	/**
+	 * @return Number of types evicted because the cache was full
+	 */
+	public long getOverflowCount() {
+		return overflowCount.sum();
+	}
+
+	/**
+	 * @return Number of packets dropped with evicted types
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%d held (%d now), %d requests (%d coalesced), %d replayed, %d dropped (%d types expired, %d overflowed)",
+				heldCount.sum(), getSize(), getRequestCount(), getCoalescedCount(), getReplayedCount(),
+				getDroppedCount(), getExpiredCount(), getOverflowCount());
+	}
+}
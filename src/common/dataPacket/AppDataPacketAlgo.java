@@ -23,4 +23,14 @@ public class AppDataPacketAlgo extends DataPacketAlgo<Void, Void> {
 		super(defaultCmd);
 	}
 
+	/**
+	 * Constructs an AppDataPacketAlgo object that selects how its commands are stored. 
+	 * Delegates to the superclass constructor.
+	 * @param defaultCmd default command of this visitor algorithm
+	 * @param copyOnWrite true to hold the commands in an immutable snapshot so that dispatching never locks
+	 */
+	public AppDataPacketAlgo(AAppDataPacketAlgoCmd<? extends IAppConnectionData> defaultCmd, boolean copyOnWrite) {
+		super(defaultCmd, copyOnWrite);
+	}
+
 }
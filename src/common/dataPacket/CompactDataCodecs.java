@@ -0,0 +1,558 @@
+package common.dataPacket;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+import common.dataPacket.data.IAppConnectionData;
+import common.dataPacket.data.IRoomConnectionData;
+import common.dataPacket.data.IStatusData;
+import common.dataPacket.data.app.IConnectionDeltaData;
+import common.dataPacket.data.app.IConnectionDigestData;
+import common.dataPacket.data.app.IConnectionSetData;
+import common.dataPacket.data.app.IInviteData;
+import common.dataPacket.data.app.IQuitData;
+import common.dataPacket.data.app.IRequestJoinRoomData;
+import common.dataPacket.data.app.IRequestRoomsData;
+import common.dataPacket.data.app.IRoomBroadcastData;
+import common.dataPacket.data.app.ISendRoomsData;
+import common.dataPacket.data.room.ICmdRequestData;
+import common.dataPacket.data.room.IPacketListData;
+import common.dataPacket.data.room.ITextData;
+import common.dataPacket.data.status.IErrorStatusData;
+import common.dataPacket.data.status.IFailureStatusData;
+import common.dataPacket.data.status.IRejectStatusData;
+import common.serverObj.IAppConnection;
+import common.serverObj.INamedAppConnection;
+import common.serverObj.INamedRoomConnection;
+import common.serverObj.INamedRoomID;
+import common.serverObj.IRoomConnection;
+import provided.datapacket.CompactDataPacketFormat;
+import provided.datapacket.DataPacket;
+import provided.datapacket.IDataCodec;
+import provided.datapacket.IDataPacketData;
+import provided.datapacket.IDataPacketID;
+import provided.datapacket.IPacketCodec;
+import provided.datapacket.PeerMembership.Member;
+
+/**
+ * Compact wire format codecs for RoomDataPacket, AppDataPacket and the common data types.
+ * Data types not listed here, e.g. ICmdData, fall back to standard serialization inside the compact packet.
+ * <br>
+ * The tags below are part of the wire format and must never be reassigned.
+ * Application-defined data types should use tags from APP_TAG_BASE upwards.
+ * <br>
+ * Usage:
+ * <pre>
+ * CompactDataCodecs.install();                                  // on every peer, so that the format can be read
+ * CompactDataPacketFormat.Singleton.setEnabled(true);            // only once every peer has installed the codecs
+ * </pre>
+ * @author Group G
+ *
+ */
+public class CompactDataCodecs {
+
+	/**
+	 * Packet tag of RoomDataPacket
+	 */
+	public static final int ROOM_PACKET_TAG = 2;
+
+	/**
+	 * Packet tag of AppDataPacket
+	 */
+	public static final int APP_PACKET_TAG = 3;
+
+	/**
+	 * First data tag available for application-defined data types
+	 */
+	public static final int APP_TAG_BASE = 64;
+
+	/**
+	 * Utility class
+	 */
+	private CompactDataCodecs() {
+	}
+
+	/**
+	 * Register the codecs with CompactDataPacketFormat.Singleton.   Safe to call more than once.
+	 */
+	public static void install() {
+		CompactDataPacketFormat format = CompactDataPacketFormat.Singleton;
+
+		format.registerPacket(ROOM_PACKET_TAG, RoomDataPacket.class, new IPacketCodec<INamedRoomConnection>() {
+
+			@Override
+			public void writeSender(INamedRoomConnection sender, ObjectOutput out) throws IOException {
+				writeRoomConnection(sender, out);
+			}
+
+			@Override
+			public INamedRoomConnection readSender(ObjectInput in) throws IOException, ClassNotFoundException {
+				return readRoomConnection(in);
+			}
+
+			@Override
+			public DataPacket<?, INamedRoomConnection> make(IDataPacketData data, INamedRoomConnection sender) {
+				return new RoomDataPacket<IRoomConnectionData>((IRoomConnectionData) data, sender);
+			}
+
+			@Override
+			public void writeFields(DataPacket<?, INamedRoomConnection> packet, ObjectOutput out) throws IOException {
+				out.writeLong(((RoomDataPacket<?>) packet).getSeq());
+				out.writeBoolean(((RoomDataPacket<?>) packet).isResync());
+			}
+
+			@Override
+			public DataPacket<?, INamedRoomConnection> readFields(DataPacket<?, INamedRoomConnection> packet,
+					ObjectInput in) throws IOException, ClassNotFoundException {
+				long seq = in.readLong();
+				boolean resync = in.readBoolean();
+				return RoomDataPacket.UNSEQUENCED == seq ? packet
+						: new RoomDataPacket<IRoomConnectionData>((IRoomConnectionData) packet.getData(),
+								packet.getSender(), seq, resync);
+			}
+		});
+
+		format.registerPacket(APP_PACKET_TAG, AppDataPacket.class, new IPacketCodec<INamedAppConnection>() {
+
+			@Override
+			public void writeSender(INamedAppConnection sender, ObjectOutput out) throws IOException {
+				writeAppConnection(sender, out);
+			}
+
+			@Override
+			public INamedAppConnection readSender(ObjectInput in) throws IOException, ClassNotFoundException {
+				return readAppConnection(in);
+			}
+
+			@Override
+			public DataPacket<?, INamedAppConnection> make(IDataPacketData data, INamedAppConnection sender) {
+				return new AppDataPacket<IAppConnectionData>((IAppConnectionData) data, sender);
+			}
+		});
+
+		// room data
+
+		format.registerData(1, ITextData.class, new IDataCodec<ITextData>() {
+
+			@Override
+			public void write(ITextData data, ObjectOutput out) throws IOException {
+				out.writeObject(data.getText());
+			}
+
+			@Override
+			public ITextData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				return ITextData.make((String) in.readObject());
+			}
+		});
+
+		format.registerData(2, ICmdRequestData.class, new IDataCodec<ICmdRequestData>() {
+
+			@Override
+			public void write(ICmdRequestData data, ObjectOutput out) throws IOException {
+				out.writeObject(data.getUnknownMsgID());
+			}
+
+			@Override
+			public ICmdRequestData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				return ICmdRequestData.make((IDataPacketID) in.readObject());
+			}
+		});
+
+		format.registerData(3, IPacketListData.class, new IDataCodec<IPacketListData>() {
+
+			@Override
+			public void write(IPacketListData data, ObjectOutput out) throws IOException {
+				// the packets in the list are compacted in turn as they are written
+				out.writeInt(data.getPackets().size());
+				for (RoomDataPacket<IRoomConnectionData> packet : data.getPackets()) {
+					out.writeObject(packet);
+				}
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public IPacketListData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				int size = in.readInt();
+				ArrayList<RoomDataPacket<IRoomConnectionData>> packets = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) {
+					packets.add((RoomDataPacket<IRoomConnectionData>) in.readObject());
+				}
+				return IPacketListData.make(packets);
+			}
+		});
+
+		// status data
+
+		format.registerData(4, IRejectStatusData.class, new StatusCodec<IRejectStatusData<?>>() {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			@Override
+			IRejectStatusData<?> make(DataPacket causalDataPacket, String statusMsg) {
+				return IRejectStatusData.make(causalDataPacket, statusMsg);
+			}
+		}.raw());
+
+		format.registerData(5, IErrorStatusData.class, new StatusCodec<IErrorStatusData<?>>() {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			@Override
+			IErrorStatusData<?> make(DataPacket causalDataPacket, String statusMsg) {
+				return IErrorStatusData.make(causalDataPacket, statusMsg);
+			}
+		}.raw());
+
+		format.registerData(6, IFailureStatusData.class, new StatusCodec<IFailureStatusData<?>>() {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			@Override
+			IFailureStatusData<?> make(DataPacket causalDataPacket, String statusMsg) {
+				return IFailureStatusData.make(causalDataPacket, statusMsg);
+			}
+		}.raw());
+
+		// app data
+
+		format.registerData(7, IQuitData.class, new IDataCodec<IQuitData>() {
+
+			@Override
+			public void write(IQuitData data, ObjectOutput out) throws IOException {
+			}
+
+			@Override
+			public IQuitData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				return IQuitData.make();
+			}
+		});
+
+		format.registerData(8, IRequestRoomsData.class, new IDataCodec<IRequestRoomsData>() {
+
+			@Override
+			public void write(IRequestRoomsData data, ObjectOutput out) throws IOException {
+			}
+
+			@Override
+			public IRequestRoomsData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				return IRequestRoomsData.make();
+			}
+		});
+
+		format.registerData(9, IInviteData.class, new IDataCodec<IInviteData>() {
+
+			@Override
+			public void write(IInviteData data, ObjectOutput out) throws IOException {
+				writeRoomID(data.getNamedRoomID(), out);
+			}
+
+			@Override
+			public IInviteData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				return IInviteData.make(readRoomID(in));
+			}
+		});
+
+		format.registerData(10, IRequestJoinRoomData.class, new IDataCodec<IRequestJoinRoomData>() {
+
+			@Override
+			public void write(IRequestJoinRoomData data, ObjectOutput out) throws IOException {
+				writeRoomID(data.getNamedRoomID(), out);
+			}
+
+			@Override
+			public IRequestJoinRoomData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				return IRequestJoinRoomData.make(readRoomID(in));
+			}
+		});
+
+		format.registerData(11, ISendRoomsData.class, new IDataCodec<ISendRoomsData>() {
+
+			@Override
+			public void write(ISendRoomsData data, ObjectOutput out) throws IOException {
+				out.writeInt(data.getChatRooms().size());
+				for (INamedRoomID roomID : data.getChatRooms()) {
+					writeRoomID(roomID, out);
+				}
+			}
+
+			@Override
+			public ISendRoomsData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				int size = in.readInt();
+				HashSet<INamedRoomID> rooms = new HashSet<INamedRoomID>();
+				for (int i = 0; i < size; i++) {
+					rooms.add(readRoomID(in));
+				}
+				return ISendRoomsData.make(rooms);
+			}
+		});
+
+		format.registerData(12, IConnectionSetData.class, new IDataCodec<IConnectionSetData>() {
+
+			@Override
+			public void write(IConnectionSetData data, ObjectOutput out) throws IOException {
+				out.writeInt(data.getConnectionSet().size());
+				for (INamedAppConnection conn : data.getConnectionSet()) {
+					writeAppConnection(conn, out);
+				}
+			}
+
+			@Override
+			public IConnectionSetData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				int size = in.readInt();
+				HashSet<INamedAppConnection> connections = new HashSet<INamedAppConnection>();
+				for (int i = 0; i < size; i++) {
+					connections.add(readAppConnection(in));
+				}
+				return IConnectionSetData.make(connections);
+			}
+		});
+
+		format.registerData(13, IConnectionDigestData.class, new IDataCodec<IConnectionDigestData>() {
+
+			@Override
+			public void write(IConnectionDigestData data, ObjectOutput out) throws IOException {
+				out.writeLong(data.getChecksum());
+				writeDigest(data.getDigest(), out);
+			}
+
+			@Override
+			public IConnectionDigestData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				long checksum = in.readLong();
+				return IConnectionDigestData.make(checksum, readDigest(in));
+			}
+		});
+
+		format.registerData(14, IConnectionDeltaData.class, new IDataCodec<IConnectionDeltaData>() {
+
+			@Override
+			public void write(IConnectionDeltaData data, ObjectOutput out) throws IOException {
+				out.writeInt(data.getMembers().size());
+				for (Member<INamedAppConnection> member : data.getMembers()) {
+					writeUUID(member.getId(), out);
+					out.writeLong(member.getVersion());
+					out.writeBoolean(member.isLeft());
+					writeAppConnection(member.getPeer(), out);
+				}
+				writeDigest(data.getDigest(), out);
+			}
+
+			@Override
+			public IConnectionDeltaData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				int size = in.readInt();
+				ArrayList<Member<INamedAppConnection>> members = new ArrayList<Member<INamedAppConnection>>(size);
+				for (int i = 0; i < size; i++) {
+					UUID id = readUUID(in);
+					long version = in.readLong();
+					boolean left = in.readBoolean();
+					members.add(new Member<INamedAppConnection>(id, readAppConnection(in), version, left));
+				}
+				return IConnectionDeltaData.make(members, readDigest(in));
+			}
+		});
+
+		format.registerData(15, IRoomBroadcastData.class, new IDataCodec<IRoomBroadcastData>() {
+
+			@Override
+			public void write(IRoomBroadcastData data, ObjectOutput out) throws IOException {
+				out.writeObject(data.getData());
+				out.writeInt(data.getSenders().size());
+				for (Map.Entry<UUID, INamedRoomConnection> entry : data.getSenders().entrySet()) {
+					writeUUID(entry.getKey(), out);
+					writeRoomConnection(entry.getValue(), out);
+				}
+			}
+
+			@Override
+			public IRoomBroadcastData read(ObjectInput in) throws IOException, ClassNotFoundException {
+				IRoomConnectionData roomData = (IRoomConnectionData) in.readObject();
+				int size = in.readInt();
+				HashMap<UUID, INamedRoomConnection> senders = new HashMap<UUID, INamedRoomConnection>(2 * size);
+				for (int i = 0; i < size; i++) {
+					UUID id = readUUID(in);
+					senders.put(id, readRoomConnection(in));
+				}
+				return IRoomBroadcastData.make(roomData, senders);
+			}
+		});
+	}
+
+	/**
+	 * Codec for the status data types, which only differ by their factory method
+	 * @param <T> The status data type
+	 */
+	private static abstract class StatusCodec<T extends IDataPacketData> implements IDataCodec<T> {
+
+		@Override
+		public void write(T data, ObjectOutput out) throws IOException {
+			IStatusData<?> status = (IStatusData<?>) data;
+			out.writeObject(status.getCausalDataPacket());
+			out.writeObject(status.getStatusMsg());
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public T read(ObjectInput in) throws IOException, ClassNotFoundException {
+			DataPacket causalDataPacket = (DataPacket) in.readObject();
+			return make(causalDataPacket, (String) in.readObject());
+		}
+
+		/**
+		 * Make the status data
+		 * @param causalDataPacket The data packet that caused the status
+		 * @param statusMsg The status message
+		 * @return A new status data object
+		 */
+		@SuppressWarnings("rawtypes")
+		abstract T make(DataPacket causalDataPacket, String statusMsg);
+
+		/**
+		 * Erase the type parameter so that the codec can be registered for the raw status interface
+		 * @param <R> The raw status data type
+		 * @return This codec
+		 */
+		@SuppressWarnings("unchecked")
+		<R extends IDataPacketData> IDataCodec<R> raw() {
+			return (IDataCodec<R>) this;
+		}
+	}
+
+	/**
+	 * Write a room level dyad
+	 * @param conn The dyad, possibly null
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeRoomConnection(INamedRoomConnection conn, ObjectOutput out) throws IOException {
+		out.writeBoolean(null != conn);
+		if (null != conn) {
+			out.writeObject(conn.getName());
+			out.writeObject(conn.getStub());
+			writeAppConnection(conn.getNamedAppConnection(), out);
+		}
+	}
+
+	/**
+	 * Read a room level dyad
+	 * @param in The stream to read from
+	 * @return The dyad, possibly null
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException if the stub class cannot be found
+	 */
+	private static INamedRoomConnection readRoomConnection(ObjectInput in) throws IOException, ClassNotFoundException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		String name = (String) in.readObject();
+		IRoomConnection stub = (IRoomConnection) in.readObject();
+		return INamedRoomConnection.make(name, stub, readAppConnection(in));
+	}
+
+	/**
+	 * Write a connection level dyad
+	 * @param conn The dyad, possibly null
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeAppConnection(INamedAppConnection conn, ObjectOutput out) throws IOException {
+		out.writeBoolean(null != conn);
+		if (null != conn) {
+			out.writeObject(conn.getName());
+			out.writeObject(conn.getStub());
+		}
+	}
+
+	/**
+	 * Read a connection level dyad
+	 * @param in The stream to read from
+	 * @return The dyad, possibly null
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException if the stub class cannot be found
+	 */
+	private static INamedAppConnection readAppConnection(ObjectInput in) throws IOException, ClassNotFoundException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		String name = (String) in.readObject();
+		return INamedAppConnection.make(name, (IAppConnection) in.readObject());
+	}
+
+	/**
+	 * Write a room ID
+	 * @param roomID The room ID
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeRoomID(INamedRoomID roomID, ObjectOutput out) throws IOException {
+		out.writeObject(roomID.getName());
+		out.writeLong(roomID.getUUID().getMostSignificantBits());
+		out.writeLong(roomID.getUUID().getLeastSignificantBits());
+	}
+
+	/**
+	 * Read a room ID
+	 * @param in The stream to read from
+	 * @return The room ID
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException never
+	 */
+	private static INamedRoomID readRoomID(ObjectInput in) throws IOException, ClassNotFoundException {
+		String name = (String) in.readObject();
+		return INamedRoomID.make(name, new UUID(in.readLong(), in.readLong()));
+	}
+
+	/**
+	 * Write a UUID
+	 * @param id The UUID
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeUUID(UUID id, ObjectOutput out) throws IOException {
+		out.writeLong(id.getMostSignificantBits());
+		out.writeLong(id.getLeastSignificantBits());
+	}
+
+	/**
+	 * Read a UUID
+	 * @param in The stream to read from
+	 * @return The UUID
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static UUID readUUID(ObjectInput in) throws IOException {
+		return new UUID(in.readLong(), in.readLong());
+	}
+
+	/**
+	 * Write a connection set digest
+	 * @param digest The version of each host by host id, possibly null
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeDigest(Map<UUID, Long> digest, ObjectOutput out) throws IOException {
+		out.writeInt(null == digest ? -1 : digest.size());
+		if (null != digest) {
+			for (Map.Entry<UUID, Long> entry : digest.entrySet()) {
+				writeUUID(entry.getKey(), out);
+				out.writeLong(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Read a connection set digest
+	 * @param in The stream to read from
+	 * @return The version of each host by host id, possibly null
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static HashMap<UUID, Long> readDigest(ObjectInput in) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+		HashMap<UUID, Long> digest = new HashMap<UUID, Long>(2 * size);
+		for (int i = 0; i < size; i++) {
+			UUID id = readUUID(in);
+			digest.put(id, in.readLong());
+		}
+		return digest;
+	}
+}
@@ -17,13 +17,75 @@ public class RoomDataPacket<T extends IRoomConnectionData> extends DataPacket<T,
 	 */
 	private static final long serialVersionUID = 6902827342296986895L;
 
+	/**
+	 * Sequence number of a packet that is not part of a sequenced stream
+	 */
+	public static final long UNSEQUENCED = 0;
+
+	/**
+	 * Position of this packet in the stream of sequenced packets from its sender to its receiver, starting at 1,
+	 * or UNSEQUENCED.   Packets from older senders deserialize as UNSEQUENCED.
+	 */
+	private final long seq;
+
+	/**
+	 * Whether the sender gave up on the sequenced packets before this one that it could not send, so that the 
+	 * receiver does not wait for them.   Packets from older senders deserialize as false.
+	 */
+	private final boolean resync;
+
 	/**
 	 * Constructs an RoomDataPacket object with the input data and sender.
 	 * @param data data of RoomDataPacket object
 	 * @param sender sender of the RoomDataPacket object
 	 */
 	public RoomDataPacket(T data, INamedRoomConnection sender) {
+		this(data, sender, UNSEQUENCED);
+	}
+
+	/**
+	 * Constructs a sequenced RoomDataPacket object, which receivers process in sequence order.
+	 * @param data data of RoomDataPacket object
+	 * @param sender sender of the RoomDataPacket object
+	 * @param seq position of the packet in the stream from the sender to the receiver, starting at 1
+	 */
+	public RoomDataPacket(T data, INamedRoomConnection sender, long seq) {
+		this(data, sender, seq, false);
+	}
+
+	/**
+	 * Constructs a sequenced RoomDataPacket object, which receivers process in sequence order.
+	 * @param data data of RoomDataPacket object
+	 * @param sender sender of the RoomDataPacket object
+	 * @param seq position of the packet in the stream from the sender to the receiver, starting at 1
+	 * @param resync true if the sender could not send some packets before this one and gave up on them
+	 */
+	public RoomDataPacket(T data, INamedRoomConnection sender, long seq, boolean resync) {
 		super(data, sender);
+		this.seq = seq;
+		this.resync = resync;
+	}
+
+	/**
+	 * @return position of this packet in the stream from its sender to its receiver, or UNSEQUENCED
+	 */
+	public long getSeq() {
+		return seq;
+	}
+
+	/**
+	 * @return true if this packet is part of a sequenced stream
+	 */
+	public boolean isSequenced() {
+		return UNSEQUENCED != seq;
+	}
+
+	/**
+	 * @return true if the receiver should not wait for the sequenced packets before this one that it is missing,
+	 * as the sender could not send them
+	 */
+	public boolean isResync() {
+		return resync;
 	}
 
 }
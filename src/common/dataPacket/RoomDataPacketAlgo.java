@@ -24,4 +24,14 @@ public class RoomDataPacketAlgo extends DataPacketAlgo<Void, Void> {
 		super(defaultCmd);
 	}
 
+	/**
+	 * Constructs an RoomDataPacketAlgo object that selects how its commands are stored. 
+	 * Delegates to the superclass constructor.
+	 * @param defaultCmd default command of this visitor algorithm
+	 * @param copyOnWrite true to hold the commands in an immutable snapshot so that dispatching never locks
+	 */
+	public RoomDataPacketAlgo(ARoomDataPacketAlgoCmd<? extends IRoomConnectionData> defaultCmd, boolean copyOnWrite) {
+		super(defaultCmd, copyOnWrite);
+	}
+
 }
@@ -0,0 +1,75 @@
+package common.dataPacket.data.app;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+
+import common.dataPacket.data.IAppConnectionData;
+import common.serverObj.INamedAppConnection;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+import provided.datapacket.PeerMembership.Member;
+
+/**
+ * DataPacketData type for sending the connected hosts the receiver is missing, with their host id and version, 
+ * in answer to an IConnectionDigestData or to pass on hosts that just joined or left.
+ * It may carry the sender's own digest, in which case the receiver answers with the hosts the sender is missing.
+ * Apps that do not know this type are sent IConnectionSetData instead, until they send any connection gossip.
+ * @author Group G
+ *
+ */
+public interface IConnectionDeltaData extends IAppConnectionData {
+	
+	/**
+	 * @return the DataPacketID (host identifier) of this data type
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(IConnectionDeltaData.class);
+	}
+	
+	/**
+	 * Delegates to the static GetID() method to retrieve the DataPacketID of this object.
+	 * @return the DataPacketID (host identifier) of this object
+	 */
+	@Override
+	public default IDataPacketID getID() {
+		return IConnectionDeltaData.GetID();
+	}
+	
+	/**
+	 * @return the connected hosts contained in this data object, with their host id and version
+	 */
+	public ArrayList<Member<INamedAppConnection>> getMembers();
+	
+	/**
+	 * @return the version of each of the sender's connected hosts by host id, or null
+	 */
+	public HashMap<UUID, Long> getDigest();
+	
+	/**
+	 * Factory method for constructing a concrete IConnectionDeltaData object.
+	 * @param members connected hosts contained in the constructed data object
+	 * @param digest version of each of the sender's connected hosts by host id, or null
+	 * @return concrete IConnectionDeltaData object
+	 */
+	public static IConnectionDeltaData make(ArrayList<Member<INamedAppConnection>> members, HashMap<UUID, Long> digest) {
+		return new IConnectionDeltaData() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = -2920183756043378051L;
+
+			@Override
+			public ArrayList<Member<INamedAppConnection>> getMembers() {
+				return members;
+			}
+			
+			@Override
+			public HashMap<UUID, Long> getDigest() {
+				return digest;
+			}
+			
+		};
+	}
+}
@@ -0,0 +1,73 @@
+package common.dataPacket.data.app;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import common.dataPacket.data.IAppConnectionData;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * DataPacketData type for sending the digest of one's connected hosts, the version of each by host id, so that 
+ * the receiver can answer with only the hosts the sender is missing (IConnectionDeltaData).
+ * The digest may be left out, in which case only its checksum is sent and the receiver answers with its own 
+ * digest if the checksums differ.
+ * Apps that do not know this type are sent IConnectionSetData instead, until they send any connection gossip.
+ * @author Group G
+ *
+ */
+public interface IConnectionDigestData extends IAppConnectionData {
+	
+	/**
+	 * @return the DataPacketID (host identifier) of this data type
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(IConnectionDigestData.class);
+	}
+	
+	/**
+	 * Delegates to the static GetID() method to retrieve the DataPacketID of this object.
+	 * @return the DataPacketID (host identifier) of this object
+	 */
+	@Override
+	public default IDataPacketID getID() {
+		return IConnectionDigestData.GetID();
+	}
+	
+	/**
+	 * @return the checksum of the sender's digest
+	 */
+	public long getChecksum();
+	
+	/**
+	 * @return the version of each of the sender's connected hosts by host id, or null if only the checksum was sent
+	 */
+	public HashMap<UUID, Long> getDigest();
+	
+	/**
+	 * Factory method for constructing a concrete IConnectionDigestData object.
+	 * @param checksum checksum of the digest
+	 * @param digest version of each connected host by host id, or null to send only the checksum
+	 * @return concrete IConnectionDigestData object
+	 */
+	public static IConnectionDigestData make(long checksum, HashMap<UUID, Long> digest) {
+		return new IConnectionDigestData() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = 4817252379446613930L;
+
+			@Override
+			public long getChecksum() {
+				return checksum;
+			}
+			
+			@Override
+			public HashMap<UUID, Long> getDigest() {
+				return digest;
+			}
+			
+		};
+	}
+}
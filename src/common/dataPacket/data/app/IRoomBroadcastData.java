@@ -0,0 +1,74 @@
+package common.dataPacket.data.app;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import common.dataPacket.data.IAppConnectionData;
+import common.dataPacket.data.IRoomConnectionData;
+import common.serverObj.INamedRoomConnection;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * DataPacketData type for sending the same room data to several rooms the receiver's app is in, in one app level
+ * message instead of one room level message per room.
+ * The receiver delivers the room data to each of its rooms listed, as a room level message from the sender's
+ * connection in that room.
+ * @author Group G
+ *
+ */
+public interface IRoomBroadcastData extends IAppConnectionData {
+
+	/**
+	 * @return the DataPacketID (host identifier) of this data type
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(IRoomBroadcastData.class);
+	}
+
+	/**
+	 * Delegates to the static GetID() method to retrieve the DataPacketID of this object.
+	 * @return the DataPacketID (host identifier) of this object
+	 */
+	@Override
+	public default IDataPacketID getID() {
+		return IRoomBroadcastData.GetID();
+	}
+
+	/**
+	 * @return the room data to deliver to each room
+	 */
+	public IRoomConnectionData getData();
+
+	/**
+	 * @return the sender's connection in each room to deliver to, by room UUID
+	 */
+	public HashMap<UUID, INamedRoomConnection> getSenders();
+
+	/**
+	 * Factory method for constructing a concrete IRoomBroadcastData object.
+	 * @param data room data to deliver to each room
+	 * @param senders sender's connection in each room to deliver to, by room UUID
+	 * @return concrete IRoomBroadcastData object
+	 */
+	public static IRoomBroadcastData make(IRoomConnectionData data, HashMap<UUID, INamedRoomConnection> senders) {
+		return new IRoomBroadcastData() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = 6350829271530984417L;
+
+			@Override
+			public IRoomConnectionData getData() {
+				return data;
+			}
+
+			@Override
+			public HashMap<UUID, INamedRoomConnection> getSenders() {
+				return senders;
+			}
+
+		};
+	}
+}
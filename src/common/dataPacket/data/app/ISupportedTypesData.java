@@ -0,0 +1,60 @@
+package common.dataPacket.data.app;
+
+import java.util.HashSet;
+
+import common.dataPacket.data.IAppConnectionData;
+import provided.datapacket.DataPacketIDFactory;
+import provided.datapacket.IDataPacketID;
+
+/**
+ * DataPacketData type for telling a connected app the app level data types the sender handles, so that the
+ * receiver only sends it optional types, e.g. IRoomBroadcastData, that it knows.
+ * The receiver answers with its own types if it has not sent them yet.   Apps that do not know this type ignore
+ * it, and are only sent the types every app handles.
+ * @author Group G
+ *
+ */
+public interface ISupportedTypesData extends IAppConnectionData {
+
+	/**
+	 * @return the DataPacketID (host identifier) of this data type
+	 */
+	public static IDataPacketID GetID() {
+		return DataPacketIDFactory.Singleton.makeID(ISupportedTypesData.class);
+	}
+
+	/**
+	 * Delegates to the static GetID() method to retrieve the DataPacketID of this object.
+	 * @return the DataPacketID (host identifier) of this object
+	 */
+	@Override
+	public default IDataPacketID getID() {
+		return ISupportedTypesData.GetID();
+	}
+
+	/**
+	 * @return the IDs of the app level data types the sender handles
+	 */
+	public HashSet<IDataPacketID> getTypes();
+
+	/**
+	 * Factory method for constructing a concrete ISupportedTypesData object.
+	 * @param types IDs of the app level data types the sender handles
+	 * @return concrete ISupportedTypesData object
+	 */
+	public static ISupportedTypesData make(HashSet<IDataPacketID> types) {
+		return new ISupportedTypesData() {
+
+			/**
+			 * For serialization
+			 */
+			private static final long serialVersionUID = -3872254918601357710L;
+
+			@Override
+			public HashSet<IDataPacketID> getTypes() {
+				return types;
+			}
+
+		};
+	}
+}
@@ -1,10 +1,13 @@
 package common.serverObj;
 
+import java.io.IOException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
 
 import common.dataPacket.AppDataPacket;
 import common.dataPacket.data.IAppConnectionData;
+import provided.datapacket.SerializedDataPacket;
 
 /**
  * Server object for sending app-level messages.
@@ -20,4 +23,23 @@ public interface IAppConnection extends Remote {
 	 */
 	public void sendMessage(AppDataPacket<? extends IAppConnectionData> data) throws RemoteException;
 
+	/**
+	 * Sends an app-level message that was serialized once for a broadcast, see SerializedDataPacket.
+	 * The message is unpacked on arrival and handled by sendMessage().
+	 * Receivers that predate this method refuse the call with an UnmarshalException.
+	 * @param envelope the serialized data packet to send
+	 * @throws RemoteException for communication-related errors or if the message cannot be unpacked
+	 */
+	public default void sendSerializedMessage(
+			SerializedDataPacket<? extends AppDataPacket<? extends IAppConnectionData>> envelope)
+			throws RemoteException {
+		AppDataPacket<? extends IAppConnectionData> data;
+		try {
+			data = envelope.unpack();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new UnmarshalException("Could not unpack serialized message", e);
+		}
+		sendMessage(data);
+	}
+
 }
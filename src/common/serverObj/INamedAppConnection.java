@@ -1,9 +1,12 @@
 package common.serverObj;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
 import common.dataPacket.AppDataPacket;
 import common.dataPacket.data.IAppConnectionData;
+import provided.datapacket.SerializedDataPacket;
 
 /**
  * Dyad encapsulating an IAppConnection stub and a friendly name for displaying on the GUI.
@@ -31,6 +34,34 @@ public interface INamedAppConnection extends Serializable {
 	public default void sendMessage(AppDataPacket<? extends IAppConnectionData> data) throws RemoteException {
 		this.getStub().sendMessage(data);
 	}
+
+	/**
+	 * Sends an app-level message that was serialized once for a broadcast to the owner of this stub's 
+	 * corresponding server object.    Falls back to sending the plain packet through sendMessage() if the 
+	 * receiver does not accept serialized messages, and remembers not to try again.
+	 * @param envelope the serialized data packet to send
+	 * @throws RemoteException for communication-related errors
+	 */
+	public default void sendSerializedMessage(
+			SerializedDataPacket<? extends AppDataPacket<? extends IAppConnectionData>> envelope)
+			throws RemoteException {
+		if (SerializedDataPacket.isSupported(this.getStub())) {
+			try {
+				this.getStub().sendSerializedMessage(envelope);
+				return;
+			} catch (RemoteException e) {
+				if (!SerializedDataPacket.isUnsupported(e)) {
+					throw e;
+				}
+				SerializedDataPacket.markUnsupported(this.getStub());
+			}
+		}
+		try {
+			sendMessage(envelope.unpack());
+		} catch (IOException | ClassNotFoundException e) {
+			throw new UnmarshalException("Could not unpack serialized message", e);
+		}
+	}
 	
 	/**
 	 * Factory method for constructing a concrete INamedAppConnection object.
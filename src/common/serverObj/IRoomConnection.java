@@ -1,10 +1,13 @@
 package common.serverObj;
 
+import java.io.IOException;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.rmi.UnmarshalException;
 
 import common.dataPacket.RoomDataPacket;
 import common.dataPacket.data.IRoomConnectionData;
+import provided.datapacket.SerializedDataPacket;
 
 /**
  * Server object for sending room-level messages.
@@ -19,7 +22,23 @@ public interface IRoomConnection extends Remote {
 	 * @throws RemoteException for communication-related errors
 	 */
 	public void sendMessage(RoomDataPacket<? extends IRoomConnectionData> data) throws RemoteException;
-	
-	
 
+	/**
+	 * Sends a room-level message that was serialized once for a broadcast, see SerializedDataPacket.
+	 * The message is unpacked on arrival and handled by sendMessage().
+	 * Receivers that predate this method refuse the call with an UnmarshalException.
+	 * @param envelope the serialized data packet to send
+	 * @throws RemoteException for communication-related errors or if the message cannot be unpacked
+	 */
+	public default void sendSerializedMessage(
+			SerializedDataPacket<? extends RoomDataPacket<? extends IRoomConnectionData>> envelope)
+			throws RemoteException {
+		RoomDataPacket<? extends IRoomConnectionData> data;
+		try {
+			data = envelope.unpack();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new UnmarshalException("Could not unpack serialized message", e);
+		}
+		sendMessage(data);
+	}
 }
@@ -9,6 +9,7 @@ module f22_finalproject_comp310_f22_finalproject_50 {
 	requires transitive java.desktop;
 	requires transitive java.rmi;
 	requires java.base;
+	requires java.management;
 	requires transitive com.google.gson;
 	requires jcef;
 
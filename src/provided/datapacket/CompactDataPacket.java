@@ -0,0 +1,97 @@
+package provided.datapacket;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+
+import provided.datapacket.CompactDataPacketFormat.Entry;
+
+/**
+ * The serialized stand-in for a DataPacket written in the compact format.   See CompactDataPacketFormat.
+ * Deserializes back into the original data packet class.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+final class CompactDataPacket implements Externalizable {
+
+	/**
+	 * For serialization
+	 */
+	private static final long serialVersionUID = 3071645296853196413L;
+
+	/**
+	 * The packet being written or the packet that was read
+	 */
+	private DataPacket<?, ?> packet;
+
+	/**
+	 * No-arg constructor required by Externalizable
+	 */
+	public CompactDataPacket() {
+	}
+
+	/**
+	 * Constructor for writing a packet
+	 * @param packet The packet to write
+	 */
+	CompactDataPacket(DataPacket<?, ?> packet) {
+		this.packet = packet;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		Entry<IPacketCodec<?>> packetEntry = CompactDataPacketFormat.Singleton.getPacketEntry(packet.getClass());
+		out.writeByte(packetEntry.tag);
+		((IPacketCodec<Object>) packetEntry.codec).writeSender(packet.getSender(), out);
+
+		IDataPacketData data = packet.getData();
+		Entry<IDataCodec<?>> dataEntry = CompactDataPacketFormat.Singleton.getDataEntry(data.getID());
+		if (null == dataEntry) {
+			out.writeByte(CompactDataPacketFormat.FALLBACK_TAG);
+			out.writeObject(data);
+		} else {
+			out.writeByte(dataEntry.tag);
+			((IDataCodec<IDataPacketData>) dataEntry.codec).write(data, out);
+		}
+		((IPacketCodec<Object>) packetEntry.codec).writeFields((DataPacket<?, Object>) packet, out);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		int packetTag = in.readUnsignedByte();
+		Entry<IPacketCodec<?>> packetEntry = CompactDataPacketFormat.Singleton.getPacketEntry(packetTag);
+		if (null == packetEntry) {
+			throw new InvalidObjectException("No data packet codec registered for tag " + packetTag);
+		}
+		IPacketCodec<Object> packetCodec = (IPacketCodec<Object>) packetEntry.codec;
+		Object sender = packetCodec.readSender(in);
+
+		int dataTag = in.readUnsignedByte();
+		IDataPacketData data;
+		if (CompactDataPacketFormat.FALLBACK_TAG == dataTag) {
+			data = (IDataPacketData) in.readObject();
+		} else {
+			Entry<IDataCodec<?>> dataEntry = CompactDataPacketFormat.Singleton.getDataEntry(dataTag);
+			if (null == dataEntry) {
+				throw new InvalidObjectException("No data codec registered for tag " + dataTag);
+			}
+			data = dataEntry.codec.read(in);
+		}
+		packet = packetCodec.readFields(packetCodec.make(data, sender), in);
+	}
+
+	/**
+	 * Replace this proxy with the data packet it carries.
+	 * @return The data packet
+	 * @throws ObjectStreamException never
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		return packet;
+	}
+}
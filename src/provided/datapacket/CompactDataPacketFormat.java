@@ -0,0 +1,240 @@
+package provided.datapacket;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry for the opt-in compact wire format of DataPackets.
+ * <br>
+ * By default a DataPacket is sent with standard Java serialization, i.e. with the class descriptors of
+ * the packet, of its (often anonymous) data object, of the IDataPacketID and of the sender.
+ * When the compact format is enabled, a DataPacket whose exact class has a registered IPacketCodec is 
+ * replaced in the stream by an Externalizable proxy that holds a one-byte packet tag, the sender as 
+ * written by the IPacketCodec and, if the data's ID has a registered IDataCodec, a one-byte data tag 
+ * and the data as written by the IDataCodec.    Data types without a registered codec fall back to 
+ * standard serialization of the data object, inside the proxy.    The data packet's ID is not sent at 
+ * all since the data object recreates it.
+ * <br>
+ * Decoding is always available once the codecs are registered, but the format is only written while
+ * enabled, since a receiver that has not registered the same codecs under the same tags cannot decode it.
+ * Enable it only when every peer runs the same codec registrations.
+ * <br>
+ * Tag 0 is reserved for the standard serialization fallback and packet tag 1 for the plain DataPacket class.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class CompactDataPacketFormat {
+
+	/**
+	 * Singleton instance
+	 */
+	public static final CompactDataPacketFormat Singleton = new CompactDataPacketFormat();
+
+	/**
+	 * Tag written for data that is sent with standard serialization
+	 */
+	public static final int FALLBACK_TAG = 0;
+
+	/**
+	 * Largest tag value, since tags are written as one unsigned byte
+	 */
+	public static final int MAX_TAG = 255;
+
+	/**
+	 * A registered codec with its tag
+	 * @param <C> The type of codec
+	 */
+	static class Entry<C> {
+		/**
+		 * The tag written for this entry
+		 */
+		final int tag;
+
+		/**
+		 * The codec
+		 */
+		final C codec;
+
+		/**
+		 * Constructor for the class
+		 * @param tag The tag written for this entry
+		 * @param codec The codec
+		 */
+		Entry(int tag, C codec) {
+			this.tag = tag;
+			this.codec = codec;
+		}
+	}
+
+	/**
+	 * Whether data packets are currently written in the compact format
+	 */
+	private volatile boolean enabled = false;
+
+	/**
+	 * Packet codecs keyed by the exact class of the data packet
+	 */
+	private final Map<Class<?>, Entry<IPacketCodec<?>>> packetsByClass = new ConcurrentHashMap<>();
+
+	/**
+	 * Packet codecs keyed by tag
+	 */
+	private final Map<Integer, Entry<IPacketCodec<?>>> packetsByTag = new ConcurrentHashMap<>();
+
+	/**
+	 * Data codecs keyed by the data type's ID
+	 */
+	private final Map<IDataPacketID, Entry<IDataCodec<?>>> dataByID = new ConcurrentHashMap<>();
+
+	/**
+	 * Data codecs keyed by tag
+	 */
+	private final Map<Integer, Entry<IDataCodec<?>>> dataByTag = new ConcurrentHashMap<>();
+
+	/**
+	 * Tag of the plain DataPacket class, which is registered by default with a standard serialization of its sender
+	 */
+	public static final int DATA_PACKET_TAG = 1;
+
+	/**
+	 * Private constructor for singleton
+	 */
+	private CompactDataPacketFormat() {
+		registerPacket(DATA_PACKET_TAG, DataPacket.class, new IPacketCodec<Object>() {
+
+			@Override
+			public void writeSender(Object sender, ObjectOutput out) throws IOException {
+				out.writeObject(sender);
+			}
+
+			@Override
+			public Object readSender(ObjectInput in) throws IOException, ClassNotFoundException {
+				return in.readObject();
+			}
+
+			@Override
+			public DataPacket<?, Object> make(IDataPacketData data, Object sender) {
+				return new DataPacket<IDataPacketData, Object>(data, sender);
+			}
+		});
+	}
+
+	/**
+	 * Turn the writing of the compact format on or off.   Reading is not affected.
+	 * @param enabled true to write data packets in the compact format
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return true if data packets are currently written in the compact format
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Register the codec for a concrete data packet class.   Only packets of exactly this class are compacted.
+	 * Registering the same class and tag again replaces the codec.
+	 * @param <S> The type of the sender held by the data packet class
+	 * @param tag The tag written for this class, 1..MAX_TAG, unique among packet classes
+	 * @param packetClass The concrete data packet class
+	 * @param codec The codec for the class
+	 * @throws IllegalArgumentException if the tag is out of range or is already used by another class
+	 */
+	@SuppressWarnings("rawtypes")
+	public synchronized <S> void registerPacket(int tag, Class<? extends DataPacket> packetClass,
+			IPacketCodec<S> codec) {
+		checkTag(tag, packetsByTag.get(tag), packetsByClass.get(packetClass));
+		Entry<IPacketCodec<?>> entry = new Entry<IPacketCodec<?>>(tag, codec);
+		packetsByClass.put(packetClass, entry);
+		packetsByTag.put(tag, entry);
+	}
+
+	/**
+	 * Register the codec for a data type.   Data is matched by its ID, so all implementations of the
+	 * data interface, including anonymous ones, are compacted.
+	 * Registering the same data type and tag again replaces the codec.
+	 * @param <T> The data type
+	 * @param tag The tag written for this data type, 1..MAX_TAG, unique among data types
+	 * @param dataInterface The data interface
+	 * @param codec The codec for the data type
+	 * @throws IllegalArgumentException if the tag is out of range or is already used by another data type
+	 */
+	public synchronized <T extends IDataPacketData> void registerData(int tag, Class<T> dataInterface,
+			IDataCodec<T> codec) {
+		IDataPacketID id = DataPacketIDFactory.Singleton.makeID(dataInterface);
+		checkTag(tag, dataByTag.get(tag), dataByID.get(id));
+		Entry<IDataCodec<?>> entry = new Entry<IDataCodec<?>>(tag, codec);
+		dataByID.put(id, entry);
+		dataByTag.put(tag, entry);
+	}
+
+	/**
+	 * Check that a tag can be registered for a key
+	 * @param tag The tag
+	 * @param byTag The entry currently registered under the tag, if any
+	 * @param byKey The entry currently registered for the key, if any
+	 */
+	private void checkTag(int tag, Entry<?> byTag, Entry<?> byKey) {
+		if (tag <= FALLBACK_TAG || tag > MAX_TAG) {
+			throw new IllegalArgumentException("Compact format tag out of range: " + tag);
+		}
+		if ((null != byTag && byTag != byKey) || (null != byKey && byKey.tag != tag)) {
+			throw new IllegalArgumentException("Compact format tag already in use: " + tag);
+		}
+	}
+
+	/**
+	 * Get the object to be serialized in place of the given data packet.
+	 * @param packet The data packet being serialized
+	 * @return A compact proxy if the format is enabled and the packet's class is registered, otherwise the packet itself.
+	 */
+	Object replace(DataPacket<?, ?> packet) {
+		if (enabled) {
+			Entry<IPacketCodec<?>> entry = packetsByClass.get(packet.getClass());
+			if (null != entry) {
+				return new CompactDataPacket(packet);
+			}
+		}
+		return packet;
+	}
+
+	/**
+	 * @param packetClass The exact class of a data packet
+	 * @return The registered packet codec or null
+	 */
+	Entry<IPacketCodec<?>> getPacketEntry(Class<?> packetClass) {
+		return packetsByClass.get(packetClass);
+	}
+
+	/**
+	 * @param tag A packet tag read from the stream
+	 * @return The registered packet codec or null
+	 */
+	Entry<IPacketCodec<?>> getPacketEntry(int tag) {
+		return packetsByTag.get(tag);
+	}
+
+	/**
+	 * @param id The ID of a data type
+	 * @return The registered data codec or null
+	 */
+	Entry<IDataCodec<?>> getDataEntry(IDataPacketID id) {
+		return dataByID.get(id);
+	}
+
+	/**
+	 * @param tag A data tag read from the stream
+	 * @return The registered data codec or null
+	 */
+	Entry<IDataCodec<?>> getDataEntry(int tag) {
+		return dataByTag.get(tag);
+	}
+}
@@ -1,5 +1,7 @@
 package provided.datapacket;
 
+import java.io.ObjectStreamException;
+
 /**
  * Concrete data packet that holds a generic type of data.
  * Adds internal data content of type T and host ID type IDataPacketID;
@@ -57,4 +59,14 @@ public class DataPacket<T extends IDataPacketData, S> extends ADataPacket {
 		return sender;
 	}
 
+	/**
+	 * Serialization hook that substitutes the compact form of this packet when
+	 * the compact wire format is enabled for this packet's class.  See CompactDataPacketFormat.
+	 * @return The object to serialize in place of this packet
+	 * @throws ObjectStreamException never
+	 */
+	protected Object writeReplace() throws ObjectStreamException {
+		return CompactDataPacketFormat.Singleton.replace(this);
+	}
+
 }
@@ -7,6 +7,9 @@ import provided.extvisitor.*;
  * For convenience and increased type safety, the commands used by this visitor should be subclasses of
  * ADataPacketAlgoCmd&lt;R, D, P&gt;, where D is the type of the data that particular command processes,
  * i.e. the defining type of its associated DataPacket&lt;D&gt; host.
+ * <br>
+ * Since the IDs made by DataPacketIDFactory carry process-local ordinals, calling setDenseDispatch(true)
+ * on this visitor replaces the per-packet hash lookup with an array lookup for all locally known data types.
  * @author Stephen Wong (c) 2018
  *
  * @param <R>  The return type of the visitor
@@ -29,4 +32,18 @@ public class DataPacketAlgo<R,P> extends AExtVisitor<R, IDataPacketID, P, ADataP
 	public <A, H extends ADataPacket> DataPacketAlgo(ADataPacketAlgoCmd<R, ? extends IDataPacketData, P, A, H> defaultCmd){
 		super(defaultCmd);
 	}
+
+	/**
+	 * Constructor for the class that selects how the commands are stored.
+	 * @param defaultCmd  The default command to be used.  See the main class documentation for usage suggestions.
+	 * @param copyOnWrite  If true, the commands are held in an immutable snapshot that is atomically replaced
+	 * whenever a command is set or removed, so that caseAt() never locks.   
+	 * Use this for visitors that are dispatched from many threads concurrently.
+	 * @param <A> The type of the adapter for the command to the local model.
+	 * @param <H> The specific type of ADataPacket subclass that is being used
+	 */
+	public <A, H extends ADataPacket> DataPacketAlgo(ADataPacketAlgoCmd<R, ? extends IDataPacketData, P, A, H> defaultCmd,
+			boolean copyOnWrite) {
+		super(defaultCmd, copyOnWrite);
+	}
 }
@@ -0,0 +1,275 @@
+package provided.datapacket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import provided.extvisitor.IExtVisitor;
+
+/**
+ * Executes a batch of data packets with a visitor, running the packets of commutative types in parallel.
+ * <br>
+ * The packets of a batch are grouped by IDataPacketID.   The types registered as commutative through 
+ * setCommutative() are those whose packets may be processed in any order, concurrently with each other and 
+ * with every other packet of the batch, i.e. their commands neither depend on nor affect the processing of 
+ * other packets.   Each commutative group is processed in parallel on a fork/join pool.   All the other 
+ * packets are order-sensitive and are processed one after the other, in batch order, on the calling thread, 
+ * so that e.g. an ICmdData still installs its command before the unknown packet that follows it is processed.
+ * <br>
+ * Batches smaller than the parallel threshold are simply processed in order on the calling thread.
+ * 
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketBatchProcessor {
+
+	/**
+	 * Default minimum batch size for parallel processing
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 32;
+
+	/**
+	 * Number of packets of a commutative group below which a fork/join task stops splitting
+	 */
+	private static final int SPLIT_THRESHOLD = 64;
+
+	/**
+	 * The IDs of the commutative types
+	 */
+	private final Set<IDataPacketID> commutativeIDs = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The pool the commutative groups run on
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Minimum batch size for parallel processing
+	 */
+	private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/**
+	 * Constructor for a processor that runs on the common fork/join pool
+	 */
+	public DataPacketBatchProcessor() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param pool The pool the commutative groups run on
+	 */
+	public DataPacketBatchProcessor(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Mark a data type as commutative or order-sensitive.   Types are order-sensitive by default.
+	 * @param id The ID of the data type
+	 * @param commutative true if the type's packets may be processed in any order and concurrently with the rest of a batch
+	 */
+	public void setCommutative(IDataPacketID id, boolean commutative) {
+		if (commutative) {
+			commutativeIDs.add(id);
+		} else {
+			commutativeIDs.remove(id);
+		}
+	}
+
+	/**
+	 * @param id The ID of a data type
+	 * @return true if the data type is marked commutative
+	 */
+	public boolean isCommutative(IDataPacketID id) {
+		return commutativeIDs.contains(id);
+	}
+
+	/**
+	 * Set the minimum batch size for parallel processing
+	 * @param parallelThreshold The minimum number of packets
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * Process a batch of data packets.
+	 * If processing a packet throws, the remaining packets are still processed and the first exception is rethrown.
+	 * @param <R> The return type of the visitor
+	 * @param <P> The type of the input parameters of the visitor
+	 * @param <D> The type of the data packets
+	 * @param packets The data packets
+	 * @param algo The visitor to process the packets with
+	 * @param params Vararg input parameters to the visitor
+	 * @return The visitor's results, in batch order
+	 */
+	public <R, P, D extends DataPacket<?, ?>> List<R> execute(List<D> packets,
+			IExtVisitor<R, IDataPacketID, P, ? extends ADataPacket> algo, @SuppressWarnings("unchecked") P... params) {
+		int size = packets.size();
+		@SuppressWarnings("unchecked")
+		R[] results = (R[]) new Object[size];
+		if (size < parallelThreshold || commutativeIDs.isEmpty()) {
+			for (int i = 0; i < size; i++) {
+				results[i] = packets.get(i).execute(algo, params);
+			}
+			return Arrays.asList(results);
+		}
+
+		// Group the packets by ID.  Order-sensitive packets form a single group regardless of ID.
+		Map<IDataPacketID, int[]> groups = new LinkedHashMap<IDataPacketID, int[]>();
+		Map<IDataPacketID, Integer> groupSizes = new LinkedHashMap<IDataPacketID, Integer>();
+		int[] ordered = new int[size];
+		int orderedCount = 0;
+		IDataPacketID[] ids = new IDataPacketID[size];
+		for (int i = 0; i < size; i++) {
+			IDataPacketID id = packets.get(i).getData().getID();
+			if (commutativeIDs.contains(id)) {
+				ids[i] = id;
+				groupSizes.merge(id, 1, Integer::sum);
+			} else {
+				ordered[orderedCount++] = i;
+			}
+		}
+		for (Map.Entry<IDataPacketID, Integer> entry : groupSizes.entrySet()) {
+			groups.put(entry.getKey(), new int[entry.getValue()]);
+			entry.setValue(0);
+		}
+		for (int i = 0; i < size; i++) {
+			if (null != ids[i]) {
+				int n = groupSizes.get(ids[i]);
+				groups.get(ids[i])[n] = i;
+				groupSizes.put(ids[i], n + 1);
+			}
+		}
+
+		List<ForkJoinTask<Void>> tasks = new ArrayList<ForkJoinTask<Void>>(groups.size());
+		for (int[] group : groups.values()) {
+			tasks.add(pool.submit(new GroupTask<R, P, D>(packets, group, 0, group.length, results, algo, params)));
+		}
+
+		RuntimeException error = null;
+		for (int i = 0; i < orderedCount; i++) {
+			try {
+				results[ordered[i]] = packets.get(ordered[i]).execute(algo, params);
+			} catch (RuntimeException e) {
+				if (null == error) {
+					error = e;
+				}
+			}
+		}
+		for (ForkJoinTask<Void> task : tasks) {
+			try {
+				task.join();
+			} catch (RuntimeException e) {
+				if (null == error) {
+					error = e;
+				}
+			}
+		}
+		if (null != error) {
+			throw error;
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Processes a range of a commutative group, splitting it in halves while it is large
+	 * @param <R> The return type of the visitor
+	 * @param <P> The type of the input parameters of the visitor
+	 * @param <D> The type of the data packets
+	 */
+	private static class GroupTask<R, P, D extends DataPacket<?, ?>> extends RecursiveAction {
+
+		/**
+		 * For serialization
+		 */
+		private static final long serialVersionUID = -6123879064311749522L;
+
+		/**
+		 * The batch
+		 */
+		private final List<D> packets;
+
+		/**
+		 * The batch indices of the group's packets
+		 */
+		private final int[] group;
+
+		/**
+		 * Start of the range, inclusive
+		 */
+		private final int from;
+
+		/**
+		 * End of the range, exclusive
+		 */
+		private final int to;
+
+		/**
+		 * Where the results go, by batch index
+		 */
+		private final R[] results;
+
+		/**
+		 * The visitor
+		 */
+		private final IExtVisitor<R, IDataPacketID, P, ? extends ADataPacket> algo;
+
+		/**
+		 * The visitor's input parameters
+		 */
+		private final P[] params;
+
+		/**
+		 * Constructor for the class
+		 * @param packets The batch
+		 * @param group The batch indices of the group's packets
+		 * @param from Start of the range, inclusive
+		 * @param to End of the range, exclusive
+		 * @param results Where the results go, by batch index
+		 * @param algo The visitor
+		 * @param params The visitor's input parameters
+		 */
+		GroupTask(List<D> packets, int[] group, int from, int to, R[] results,
+				IExtVisitor<R, IDataPacketID, P, ? extends ADataPacket> algo, P[] params) {
+			this.packets = packets;
+			this.group = group;
+			this.from = from;
+			this.to = to;
+			this.results = results;
+			this.algo = algo;
+			this.params = params;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SPLIT_THRESHOLD) {
+				RuntimeException error = null;
+				for (int i = from; i < to; i++) {
+					try {
+						results[group[i]] = packets.get(group[i]).execute(algo, params);
+					} catch (RuntimeException e) {
+						if (null == error) {
+							error = e;
+						}
+					}
+				}
+				if (null != error) {
+					throw error;
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new GroupTask<R, P, D>(packets, group, from, mid, results, algo, params),
+					new GroupTask<R, P, D>(packets, group, mid, to, results, algo, params));
+		}
+	}
+}
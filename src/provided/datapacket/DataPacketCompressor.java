@@ -0,0 +1,186 @@
+package provided.datapacket;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * Size-aware compression of serialized data packets.
+ * <br>
+ * compress() deflates an envelope whose serialized size is at least the threshold, e.g. a map's options or an
+ * image, and passes smaller envelopes, e.g. chat or control packets, through unchanged, as it does envelopes that
+ * do not shrink.   The compressed envelope is still a SerializedDataPacket, so it travels wherever envelopes do
+ * and its receiver's unpack() inflates it before the packet is dispatched.   On the sending side, the compressed
+ * envelope still unpacks to the original packet without inflating anything, e.g. for peers that do not accept
+ * envelopes.
+ * <br>
+ * The compressor records how many envelopes it compressed and passed through, the bytes before and after
+ * compression and the CPU time spent compressing and, through unpack(), unpacking compressed envelopes.
+ * <br>
+ * Usage:
+ * <pre>
+ * DataPacketCompressor compressor = new DataPacketCompressor(4096, Deflater.BEST_SPEED);
+ * stub.sendSerializedMessage(compressor.compress(SerializedDataPacket.make(packet)));
+ * ...
+ * MyPacket packet = compressor.unpack(envelope);      // receiver
+ * </pre>
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketCompressor {
+
+	/**
+	 * Minimum serialized size of a compressed packet, in bytes
+	 */
+	private final int threshold;
+
+	/**
+	 * One deflater per sending thread, since deflaters are not thread-safe
+	 */
+	private final ThreadLocal<Deflater> deflaters;
+
+	/**
+	 * Number of envelopes compressed
+	 */
+	private final LongAdder compressedCount = new LongAdder();
+
+	/**
+	 * Number of envelopes passed through uncompressed
+	 */
+	private final LongAdder passedCount = new LongAdder();
+
+	/**
+	 * Serialized size of the compressed envelopes before compression, in bytes
+	 */
+	private final LongAdder bytesIn = new LongAdder();
+
+	/**
+	 * Size of the compressed envelopes after compression, in bytes
+	 */
+	private final LongAdder bytesOut = new LongAdder();
+
+	/**
+	 * Time spent compressing, including the envelopes that did not shrink, in nanoseconds
+	 */
+	private final LongAdder compressNanos = new LongAdder();
+
+	/**
+	 * Number of compressed envelopes unpacked
+	 */
+	private final LongAdder unpackedCount = new LongAdder();
+
+	/**
+	 * Time spent unpacking compressed envelopes, in nanoseconds
+	 */
+	private final LongAdder unpackNanos = new LongAdder();
+
+	/**
+	 * Constructor for the class
+	 * @param threshold Minimum serialized size of a compressed packet, in bytes
+	 * @param level Deflater compression level, e.g. Deflater.BEST_SPEED
+	 */
+	public DataPacketCompressor(int threshold, int level) {
+		this.threshold = threshold;
+		this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+	}
+
+	/**
+	 * Compress an envelope if it is large enough and shrinks
+	 * @param <P> The type of the packet
+	 * @param envelope The serialized packet
+	 * @return A compressed envelope or the given one
+	 */
+	public <P extends ADataPacket> SerializedDataPacket<P> compress(SerializedDataPacket<P> envelope) {
+		int size = envelope.getSize();
+		if (size < threshold || envelope.isCompressed()) {
+			passedCount.increment();
+			return envelope;
+		}
+
+		long start = System.nanoTime();
+		SerializedDataPacket<P> compressed = envelope.deflate(deflaters.get());
+		compressNanos.add(System.nanoTime() - start);
+		if (compressed.getSize() >= size) {
+			passedCount.increment();
+			return envelope;
+		}
+		compressedCount.increment();
+		bytesIn.add(size);
+		bytesOut.add(compressed.getSize());
+		return compressed;
+	}
+
+	/**
+	 * Unpack an envelope, recording the time taken if it is compressed
+	 * @param <P> The type of the packet
+	 * @param envelope The serialized packet, compressed or not
+	 * @return The packet
+	 * @throws IOException if the packet cannot be inflated or deserialized
+	 * @throws ClassNotFoundException if a class of the packet cannot be loaded
+	 */
+	public <P extends ADataPacket> P unpack(SerializedDataPacket<P> envelope)
+			throws IOException, ClassNotFoundException {
+		if (!envelope.isCompressed()) {
+			return envelope.unpack();
+		}
+		long start = System.nanoTime();
+		try {
+			return envelope.unpack();
+		} finally {
+			unpackNanos.add(System.nanoTime() - start);
+			unpackedCount.increment();
+		}
+	}
+
+	/**
+	 * @return Number of envelopes compressed
+	 */
+	public long getCompressedCount() {
+		return compressedCount.sum();
+	}
+
+	/**
+	 * @return Number of envelopes passed through uncompressed
+	 */
+	public long getPassedCount() {
+		return passedCount.sum();
+	}
+
+	/**
+	 * @return Compressed size over original size of the compressed envelopes, 1.0 if none
+	 */
+	public double getRatio() {
+		long in = bytesIn.sum();
+		return 0 == in ? 1.0 : (double) bytesOut.sum() / in;
+	}
+
+	/**
+	 * @return Number of bytes saved by compression
+	 */
+	public long getBytesSaved() {
+		return bytesIn.sum() - bytesOut.sum();
+	}
+
+	/**
+	 * @return Time spent compressing, in milliseconds
+	 */
+	public double getCompressMillis() {
+		return compressNanos.sum() / 1e6;
+	}
+
+	/**
+	 * @return Time spent unpacking compressed envelopes, in milliseconds
+	 */
+	public double getUnpackMillis() {
+		return unpackNanos.sum() / 1e6;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%d compressed (ratio %.2f, %d bytes saved, %.1f ms), %d passed, %d unpacked (%.1f ms)",
+				getCompressedCount(), getRatio(), getBytesSaved(), getCompressMillis(), getPassedCount(),
+				unpackedCount.sum(), getUnpackMillis());
+	}
+}
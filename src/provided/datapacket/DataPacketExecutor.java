@@ -0,0 +1,511 @@
+package provided.datapacket;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import provided.extvisitor.IExtVisitor;
+
+/**
+ * Bounded executor for processing received data packets off the receiving (e.g. RMI transport) thread.
+ * <br>
+ * Packets from the same sender are processed one at a time in the order they were submitted;
+ * packets from different senders are processed concurrently on a fixed number of worker threads.
+ * At most "capacity" packets can be waiting or running at any time.   When the executor is full, 
+ * a submission either waits for room for up to a given time (FullPolicy.BLOCK) or is refused right away
+ * (FullPolicy.REJECT).   A refused submission completes its future exceptionally with a RejectedExecutionException.
+ * <br>
+ * Packets selected by setPriority(), e.g. game control packets, never overtake the packets of their own sender,
+ * since they may depend on them.   Instead, a sender queue holding one is handed to the workers ahead of the
+ * queues of the other senders that hold none.   Priority packets also have "priorityCapacity" places of
+ * their own, taken before the shared ones, so that a flood of other packets cannot lock them out.
+ * <br>
+ * The queue depth and the number of refused packets can be exposed as a JMX MXBean with register().
+ * <br>
+ * Usage:
+ * <pre>
+ * DataPacketExecutor executor = new DataPacketExecutor("room", 2, 256, 64, FullPolicy.REJECT, 0);
+ * executor.setPriority((packet) -&gt; controlIDs.contains(packet.getData().getID()));
+ * executor.executeAsync(packet, algo).whenComplete((result, err) -&gt; { ... });
+ * </pre>
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketExecutor implements DataPacketExecutorMXBean {
+
+	/**
+	 * What to do when a packet is submitted to a full executor
+	 */
+	public enum FullPolicy {
+		/**
+		 * Wait for room, up to the executor's block timeout, then refuse the packet
+		 */
+		BLOCK,
+		/**
+		 * Refuse the packet immediately
+		 */
+		REJECT
+	}
+
+	/**
+	 * Maximum number of packets of one sender processed before the worker thread is yielded to other senders
+	 */
+	private static final int BATCH_SIZE = 16;
+
+	/**
+	 * The worker threads, taking the waiting sender queues priority first, then in the order they were handed over
+	 */
+	private final ThreadPoolExecutor workers;
+
+	/**
+	 * The number of worker threads
+	 */
+	private final int threads;
+
+	/**
+	 * One permit per packet that may be waiting or running
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * The maximum number of packets waiting or running
+	 */
+	private final int capacity;
+
+	/**
+	 * One permit per priority packet that may be waiting or running on top of the shared capacity
+	 */
+	private final Semaphore priorityPermits;
+
+	/**
+	 * The number of places reserved for priority packets
+	 */
+	private final int priorityCapacity;
+
+	/**
+	 * Selects the priority packets
+	 */
+	private volatile Predicate<? super DataPacket<?, ?>> isPriority = (packet) -> false;
+
+	/**
+	 * Orders the sender queues of the same priority by the time they were handed to the workers
+	 */
+	private final AtomicLong tickets = new AtomicLong();
+
+	/**
+	 * Largest number of packets waiting or running at once
+	 */
+	private final AtomicInteger peakPending = new AtomicInteger();
+
+	/**
+	 * Number of packets refused
+	 */
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * The JMX name this object is registered under or null
+	 */
+	private ObjectName objectName = null;
+
+	/**
+	 * What to do when full
+	 */
+	private final FullPolicy policy;
+
+	/**
+	 * How long a BLOCK submission waits for room, in milliseconds
+	 */
+	private final long blockTimeoutMillis;
+
+	/**
+	 * The non-empty per-sender queues
+	 */
+	private final ConcurrentMap<Object, SenderQueue> queues = new ConcurrentHashMap<Object, SenderQueue>();
+
+	/**
+	 * The packets of one sender, processed in order by at most one worker at a time
+	 */
+	private class SenderQueue implements Runnable, Comparable<SenderQueue> {
+		/**
+		 * The sender
+		 */
+		private final Object sender;
+
+		/**
+		 * Whether this queue held priority packets when it was last handed to the workers
+		 */
+		private volatile boolean priority = false;
+
+		/**
+		 * The number of waiting priority tasks
+		 */
+		private int priorityTasks = 0;
+
+		/**
+		 * When this queue was last handed to the workers
+		 */
+		private volatile long ticket;
+
+		/**
+		 * The waiting tasks
+		 */
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+		/**
+		 * Whether a worker is assigned to this queue
+		 */
+		private boolean scheduled = false;
+
+		/**
+		 * Whether this queue was removed from the queues map and must not take new tasks
+		 */
+		private boolean retired = false;
+
+		/**
+		 * Constructor for the class
+		 * @param sender The sender
+		 */
+		SenderQueue(Object sender) {
+			this.sender = sender;
+		}
+
+		/**
+		 * Priority queues first, then the queue handed over first
+		 */
+		@Override
+		public int compareTo(SenderQueue other) {
+			if (priority != other.priority) {
+				return priority ? -1 : 1;
+			}
+			return Long.compare(ticket, other.ticket);
+		}
+
+		/**
+		 * Process the tasks in batches of BATCH_SIZE, handing the queue back to the workers between batches
+		 * so that other senders get a turn.   Once the workers are shut down, the remaining tasks are processed
+		 * on the current thread.
+		 */
+		@Override
+		public void run() {
+			while (runBatch()) {
+				if (!workers.isShutdown()) {
+					try {
+						handOver();
+						return;
+					} catch (RejectedExecutionException e) {
+						// shut down in the meantime:  keep going on this thread
+					}
+				}
+			}
+		}
+
+		/**
+		 * Process up to BATCH_SIZE tasks
+		 * @return true if there are tasks left
+		 */
+		private boolean runBatch() {
+			for (int i = 0; i < BATCH_SIZE; i++) {
+				Runnable task;
+				synchronized (this) {
+					task = tasks.poll();
+					if (null == task) {
+						scheduled = false;
+						retired = true;
+						queues.remove(sender, this);
+						return false;
+					}
+				}
+				task.run();
+			}
+			return true;
+		}
+
+		/**
+		 * Hand this queue to a worker, or process it on the current thread if the workers are shut down
+		 */
+		private void schedule() {
+			try {
+				handOver();
+			} catch (RejectedExecutionException e) {
+				run();
+			}
+		}
+
+		/**
+		 * Hand this queue to the workers, ahead of the queues without priority tasks if it holds any
+		 * @throws RejectedExecutionException if the workers are shut down
+		 */
+		private void handOver() {
+			synchronized (this) {
+				priority = priorityTasks > 0;
+			}
+			ticket = tickets.incrementAndGet();
+			workers.execute(this);
+		}
+
+		/**
+		 * Move this queue ahead of the queues without priority tasks if it is waiting for a worker behind them.
+		 * A queue being processed is moved ahead when it is handed back after its batch.
+		 */
+		private void promote() {
+			if (!priority && workers.remove(this)) {
+				schedule();
+			}
+		}
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param name Name used for the worker threads
+	 * @param threads Number of worker threads
+	 * @param capacity Maximum number of packets waiting or running
+	 * @param policy What to do when the executor is full
+	 * @param blockTimeoutMillis How long a BLOCK submission waits for room, in milliseconds
+	 */
+	public DataPacketExecutor(String name, int threads, int capacity, FullPolicy policy, long blockTimeoutMillis) {
+		this(name, threads, capacity, 0, policy, blockTimeoutMillis);
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param name Name used for the worker threads
+	 * @param threads Number of worker threads
+	 * @param capacity Maximum number of packets waiting or running, shared by all packets
+	 * @param priorityCapacity Number of further places for priority packets only
+	 * @param policy What to do when the executor is full
+	 * @param blockTimeoutMillis How long a BLOCK submission waits for room, in milliseconds
+	 */
+	public DataPacketExecutor(String name, int threads, int capacity, int priorityCapacity, FullPolicy policy,
+			long blockTimeoutMillis) {
+		this.threads = threads;
+		this.capacity = capacity;
+		this.permits = new Semaphore(capacity);
+		this.priorityCapacity = priorityCapacity;
+		this.priorityPermits = new Semaphore(priorityCapacity);
+		this.policy = policy;
+		this.blockTimeoutMillis = blockTimeoutMillis;
+		AtomicInteger count = new AtomicInteger(0);
+		ThreadFactory factory = (r) -> {
+			Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+		this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new PriorityBlockingQueue<Runnable>(), factory);
+	}
+
+	/**
+	 * Select the packets that are processed ahead of the others
+	 * @param isPriority Returns true for a priority packet
+	 */
+	public void setPriority(Predicate<? super DataPacket<?, ?>> isPriority) {
+		this.isPriority = isPriority;
+	}
+
+	/**
+	 * Get an executor that runs tasks after all tasks previously submitted for the same sender.
+	 * Submissions are subject to the capacity and full policy of this executor.
+	 * @param sender The sender, compared by equals()
+	 * @return An executor that preserves the order of the sender's tasks
+	 */
+	public Executor forSender(Object sender) {
+		return forSender(sender, false);
+	}
+
+	/**
+	 * Get an executor that runs tasks after all tasks previously submitted for the same sender.
+	 * Submissions are subject to the capacity and full policy of this executor.
+	 * @param sender The sender, compared by equals()
+	 * @param priority Whether the tasks move the sender's queue ahead of the senders without priority tasks
+	 * @return An executor that preserves the order of the sender's tasks
+	 */
+	public Executor forSender(Object sender, boolean priority) {
+		return (task) -> submit(sender, task, priority);
+	}
+
+	/**
+	 * Process a data packet asynchronously with the given visitor, after the previously submitted 
+	 * packets of the same sender.
+	 * @param <R> The return type of the visitor
+	 * @param <P> The type of the input parameters of the visitor
+	 * @param packet The data packet
+	 * @param algo The visitor to process the packet with
+	 * @param params Vararg input parameters to the visitor
+	 * @return A future for the visitor's return value, completed exceptionally if the packet was refused
+	 */
+	public <R, P> CompletableFuture<R> executeAsync(DataPacket<?, ?> packet,
+			IExtVisitor<R, IDataPacketID, P, ? extends ADataPacket> algo, @SuppressWarnings("unchecked") P... params) {
+		return packet.executeAsync(algo, forSender(packet.getSender(), isPriority.test(packet)), params);
+	}
+
+	/**
+	 * Queue a task for a sender
+	 * @param sender The sender
+	 * @param task The task
+	 * @param priority Whether the task is a priority task
+	 * @throws RejectedExecutionException if the executor is full or shut down
+	 */
+	private void submit(Object sender, Runnable task, boolean priority) {
+		if (workers.isShutdown()) {
+			rejectedCount.increment();
+			throw new RejectedExecutionException("Data packet executor is shut down");
+		}
+		Semaphore permit = acquire(priority);
+		peakPending.accumulateAndGet(getPendingCount(), Math::max);
+		Runnable releasing = () -> {
+			try {
+				task.run();
+			} finally {
+				permit.release();
+			}
+		};
+		while (true) {
+			SenderQueue queue = queues.computeIfAbsent(sender, SenderQueue::new);
+			boolean schedule;
+			synchronized (queue) {
+				if (queue.retired) {
+					continue; // lost the race with a worker that just emptied the queue
+				}
+				if (priority) {
+					queue.priorityTasks++;
+					queue.tasks.add(() -> {
+						synchronized (queue) {
+							queue.priorityTasks--;
+						}
+						releasing.run();
+					});
+				} else {
+					queue.tasks.add(releasing);
+				}
+				schedule = !queue.scheduled;
+				queue.scheduled = true;
+			}
+			if (schedule) {
+				queue.schedule();
+			} else if (priority) {
+				queue.promote();
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Take a permit according to the full policy, from the priority places first for a priority task
+	 * @param priority Whether the task is a priority task
+	 * @return The semaphore the permit was taken from
+	 * @throws RejectedExecutionException if no permit could be taken
+	 */
+	private Semaphore acquire(boolean priority) {
+		if (priority && priorityPermits.tryAcquire()) {
+			return priorityPermits;
+		}
+		boolean acquired;
+		if (FullPolicy.BLOCK == policy) {
+			try {
+				acquired = permits.tryAcquire(blockTimeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				acquired = false;
+			}
+		} else {
+			acquired = permits.tryAcquire();
+		}
+		if (!acquired) {
+			rejectedCount.increment();
+			throw new RejectedExecutionException("Data packet executor is full (" + capacity + " packets)");
+		}
+		return permits;
+	}
+
+	@Override
+	public int getPendingCount() {
+		return capacity - permits.availablePermits() + getPriorityPendingCount();
+	}
+
+	@Override
+	public int getPriorityPendingCount() {
+		return priorityCapacity - priorityPermits.availablePermits();
+	}
+
+	@Override
+	public int getPeakPendingCount() {
+		return peakPending.get();
+	}
+
+	@Override
+	public int getCapacity() {
+		return capacity + priorityCapacity;
+	}
+
+	@Override
+	public int getThreadCount() {
+		return threads;
+	}
+
+	@Override
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * Register this object with the platform MBean server as provided.datapacket:type=DataPacketExecutor,name="name".
+	 * Does nothing if already registered.
+	 * @param name The name that identifies the executor
+	 * @throws JMException if the registration fails
+	 */
+	public synchronized void register(String name) throws JMException {
+		if (null != objectName) {
+			return;
+		}
+		ObjectName on = new ObjectName("provided.datapacket:type=DataPacketExecutor,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		objectName = on;
+	}
+
+	/**
+	 * Unregister this object from the platform MBean server, if registered.
+	 */
+	public synchronized void unregister() {
+		if (null == objectName) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			// already gone
+		}
+		objectName = null;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d pending (%d priority, peak %d) of %d on %d threads, %d refused", getPendingCount(),
+				getPriorityPendingCount(), getPeakPendingCount(), getCapacity(), getThreadCount(), getRejectedCount());
+	}
+
+	/**
+	 * Stop taking packets.   Packets already queued are still processed.
+	 */
+	public void shutdown() {
+		workers.shutdown();
+	}
+}
@@ -0,0 +1,40 @@
+package provided.datapacket;
+
+/**
+ * JMX management interface of DataPacketExecutor.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public interface DataPacketExecutorMXBean {
+
+	/**
+	 * @return The number of packets waiting or running
+	 */
+	public int getPendingCount();
+
+	/**
+	 * @return The number of packets waiting or running in the places reserved for priority packets
+	 */
+	public int getPriorityPendingCount();
+
+	/**
+	 * @return The largest number of packets waiting or running at once
+	 */
+	public int getPeakPendingCount();
+
+	/**
+	 * @return The maximum number of packets waiting or running, including the places reserved for priority packets
+	 */
+	public int getCapacity();
+
+	/**
+	 * @return The number of worker threads
+	 */
+	public int getThreadCount();
+
+	/**
+	 * @return The number of packets refused because the executor was full or shut down
+	 */
+	public long getRejectedCount();
+}
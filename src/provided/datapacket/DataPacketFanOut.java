@@ -0,0 +1,375 @@
+package provided.datapacket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends to a group of recipients concurrently, e.g. a data packet to every member of a room, so that one slow
+ * or unreachable recipient does not hold up delivery to the others.    The time to reach the last recipient is
+ * then about one round trip instead of one round trip per recipient.
+ * <br>
+ * The sends run on a bounded pool of daemon threads, which may be shared with other senders, e.g. a
+ * DataPacketOutbox, so that slow or dead recipients cannot make the threads grow without limit.   The sends to 
+ * one recipient go through its own serial queue:  they run one at a time, in the order they were made, so two
+ * fan-outs reach a recipient in the order they were sent, and a recipient whose sends hang holds at most one
+ * thread.   Each recipient has a deadline:  a send that has not finished by then is reported as TIMED_OUT.   
+ * A remote call cannot be interrupted, so the send itself carries on in the background and its eventual result 
+ * is ignored.
+ * <br>
+ * Usage:
+ * <pre>
+ * DataPacketFanOut fanOut = new DataPacketFanOut("room-send", 3000);
+ * fanOut.send(roster, (member) -&gt; member.sendMessage(packet)).thenAccept((outcomes) -&gt; { ... });
+ * </pre>
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketFanOut {
+
+	/**
+	 * The outcome of a send to one recipient
+	 */
+	public enum Status {
+		/**
+		 * The send completed normally
+		 */
+		DELIVERED,
+		/**
+		 * The send threw an exception or could not be started
+		 */
+		FAILED,
+		/**
+		 * The send did not complete before the deadline
+		 */
+		TIMED_OUT
+	}
+
+	/**
+	 * The outcome of a send to one recipient, with the time it took
+	 */
+	public static final class Outcome {
+		/**
+		 * The status of the send
+		 */
+		private final Status status;
+
+		/**
+		 * The exception thrown by a FAILED send, otherwise null
+		 */
+		private final Throwable error;
+
+		/**
+		 * Time from the start of the fan-out to the end of this send or to the deadline, in nanoseconds
+		 */
+		private final long nanos;
+
+		/**
+		 * Constructor for the class
+		 * @param status The status of the send
+		 * @param error The exception thrown by a FAILED send, otherwise null
+		 * @param nanos Time the send took, in nanoseconds
+		 */
+		Outcome(Status status, Throwable error, long nanos) {
+			this.status = status;
+			this.error = error;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * @return The status of the send
+		 */
+		public Status getStatus() {
+			return status;
+		}
+
+		/**
+		 * @return true if the send completed normally
+		 */
+		public boolean isDelivered() {
+			return Status.DELIVERED == status;
+		}
+
+		/**
+		 * @return The exception thrown by a FAILED send, otherwise null
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * @return Time from the start of the fan-out to the end of this send or to the deadline, in milliseconds
+		 */
+		public double getMillis() {
+			return nanos / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			return status + (null == error ? "" : " (" + error + ")") + String.format(" in %.1f ms", getMillis());
+		}
+	}
+
+	/**
+	 * The send to one recipient
+	 * @param <M> The type of the recipients
+	 */
+	@FunctionalInterface
+	public interface ISendAction<M> {
+		/**
+		 * Send to the given recipient
+		 * @param recipient The recipient
+		 * @throws Exception if the send fails
+		 */
+		public void send(M recipient) throws Exception;
+	}
+
+	/**
+	 * The sends waiting for one recipient, run by at most one thread at a time
+	 */
+	private final class RecipientQueue implements Runnable {
+		/**
+		 * The recipient
+		 */
+		private final Object recipient;
+
+		/**
+		 * The waiting sends
+		 */
+		private final ArrayDeque<Runnable> pending = new ArrayDeque<Runnable>();
+
+		/**
+		 * Whether a send is running or scheduled
+		 */
+		private boolean busy = false;
+
+		/**
+		 * Whether this queue was removed from the queues map and must not take new sends
+		 */
+		private boolean retired = false;
+
+		/**
+		 * Constructor for the class
+		 * @param recipient The recipient
+		 */
+		RecipientQueue(Object recipient) {
+			this.recipient = recipient;
+		}
+
+		/**
+		 * Run the next send, then schedule the one after, if any, so that one recipient does not keep a thread
+		 * from the others
+		 */
+		@Override
+		public void run() {
+			Runnable send;
+			synchronized (this) {
+				send = pending.poll();
+			}
+			if (null != send) {
+				send.run();
+			}
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					busy = false;
+					retired = true;
+					queues.remove(recipient, this);
+					return;
+				}
+			}
+			schedule();
+		}
+
+		/**
+		 * Hand this queue to a sending thread, or run it on the current thread if the threads are shut down
+		 */
+		private void schedule() {
+			try {
+				senders.execute(this);
+			} catch (RejectedExecutionException e) {
+				run();
+			}
+		}
+	}
+
+	/**
+	 * Default number of sending threads
+	 */
+	public static final int DEFAULT_THREADS = 8;
+
+	/**
+	 * The threads the sends run on
+	 */
+	private final ExecutorService senders;
+
+	/**
+	 * Whether this fan-out made the sending threads and shuts them down
+	 */
+	private final boolean ownsSenders;
+
+	/**
+	 * Whether this fan-out stopped accepting sends
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * The non-empty per-recipient queues
+	 */
+	private final ConcurrentMap<Object, RecipientQueue> queues = new ConcurrentHashMap<Object, RecipientQueue>();
+
+	/**
+	 * The default per-recipient deadline, in milliseconds
+	 */
+	private final long deadlineMillis;
+
+	/**
+	 * Constructor for the class, with its own DEFAULT_THREADS sending threads
+	 * @param name The name prefix of the sending threads
+	 * @param deadlineMillis The default per-recipient deadline, in milliseconds
+	 */
+	public DataPacketFanOut(String name, long deadlineMillis) {
+		this(makeSenders(name, DEFAULT_THREADS), true, deadlineMillis);
+	}
+
+	/**
+	 * Constructor for the class, sending on threads shared with other senders.   The threads are not shut down
+	 * by shutdown().
+	 * @param senders The sending threads, typically from makeSenders()
+	 * @param deadlineMillis The default per-recipient deadline, in milliseconds
+	 */
+	public DataPacketFanOut(ExecutorService senders, long deadlineMillis) {
+		this(senders, false, deadlineMillis);
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param senders The sending threads
+	 * @param ownsSenders Whether shutdown() shuts the threads down
+	 * @param deadlineMillis The default per-recipient deadline, in milliseconds
+	 */
+	private DataPacketFanOut(ExecutorService senders, boolean ownsSenders, long deadlineMillis) {
+		this.senders = senders;
+		this.ownsSenders = ownsSenders;
+		this.deadlineMillis = deadlineMillis;
+	}
+
+	/**
+	 * Make a bounded pool of daemon sending threads, to share between fan-outs and outboxes
+	 * @param name The name prefix of the threads
+	 * @param threads The number of threads
+	 * @return The pool
+	 */
+	public static ExecutorService makeSenders(String name, int threads) {
+		AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = (r) -> {
+			Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+		return Executors.newFixedThreadPool(threads, factory);
+	}
+
+	/**
+	 * Send to every recipient concurrently, with the default deadline.   The sends to a recipient run after the
+	 * sends already made to it.
+	 * @param <M> The type of the recipients
+	 * @param recipients The recipients.   They are copied before this method returns.
+	 * @param action The send to one recipient
+	 * @return A future that completes, never exceptionally, once every recipient's send has completed or passed
+	 * its deadline, with the outcome of every recipient in iteration order
+	 */
+	public <M> CompletableFuture<Map<M, Outcome>> send(Collection<? extends M> recipients,
+			ISendAction<? super M> action) {
+		return send(recipients, action, deadlineMillis);
+	}
+
+	/**
+	 * Send to every recipient concurrently.   The sends to a recipient run after the sends already made to it.
+	 * @param <M> The type of the recipients
+	 * @param recipients The recipients.   They are copied before this method returns.
+	 * @param action The send to one recipient
+	 * @param deadlineMillis The per-recipient deadline, in milliseconds from now
+	 * @return A future that completes, never exceptionally, once every recipient's send has completed or passed
+	 * its deadline, with the outcome of every recipient in iteration order
+	 */
+	public <M> CompletableFuture<Map<M, Outcome>> send(Collection<? extends M> recipients,
+			ISendAction<? super M> action, long deadlineMillis) {
+		List<M> members = new ArrayList<M>(recipients);
+		List<CompletableFuture<Outcome>> outcomes = new ArrayList<CompletableFuture<Outcome>>(members.size());
+		long start = System.nanoTime();
+		for (M member : members) {
+			CompletableFuture<Outcome> outcome = new CompletableFuture<Outcome>();
+			if (closed) {
+				outcome.complete(new Outcome(Status.FAILED,
+						new RejectedExecutionException("Data packet fan-out is shut down"), System.nanoTime() - start));
+			} else {
+				enqueue(member, () -> {
+					try {
+						action.send(member);
+						outcome.complete(new Outcome(Status.DELIVERED, null, System.nanoTime() - start));
+					} catch (Throwable t) {
+						outcome.complete(new Outcome(Status.FAILED, t, System.nanoTime() - start));
+					}
+				});
+			}
+			outcomes.add(outcome.completeOnTimeout(new Outcome(Status.TIMED_OUT, null, deadlineMillis * 1000000L),
+					deadlineMillis, TimeUnit.MILLISECONDS));
+		}
+
+		return CompletableFuture.allOf(outcomes.toArray(new CompletableFuture<?>[outcomes.size()])).thenApply((v) -> {
+			Map<M, Outcome> result = new LinkedHashMap<M, Outcome>();
+			for (int i = 0; i < members.size(); i++) {
+				result.put(members.get(i), outcomes.get(i).join());
+			}
+			return Collections.unmodifiableMap(result);
+		});
+	}
+
+	/**
+	 * Queue a send behind the sends already queued for its recipient
+	 * @param recipient The recipient
+	 * @param send The send
+	 */
+	private void enqueue(Object recipient, Runnable send) {
+		while (true) {
+			RecipientQueue queue = queues.computeIfAbsent(recipient, RecipientQueue::new);
+			synchronized (queue) {
+				if (queue.retired) {
+					continue; // lost the race with a thread that just emptied the queue
+				}
+				queue.pending.add(send);
+				if (queue.busy) {
+					return;
+				}
+				queue.busy = true;
+			}
+			queue.schedule();
+			return;
+		}
+	}
+
+	/**
+	 * Stop accepting sends.   Sends in progress or queued carry on;  later sends are reported as FAILED.   The
+	 * sending threads are shut down only if this fan-out made them.
+	 */
+	public void shutdown() {
+		closed = true;
+		if (ownsSenders) {
+			senders.shutdown();
+		}
+	}
+}
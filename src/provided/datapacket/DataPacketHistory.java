@@ -0,0 +1,182 @@
+package provided.datapacket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size history of the most recent data packets, kept in serialized form, e.g. so that a new member of a
+ * room can be sent what was said before it joined.
+ * <br>
+ * The packets are copied, as the bytes of their SerializedDataPacket, into one preallocated byte array used as a
+ * ring, with their offsets and lengths in two int arrays.   The history therefore never allocates when a packet
+ * is added and holds no object graphs:  its footprint is fixed by its byte and packet capacities.   Adding a
+ * packet evicts the oldest packets until it fits.   A packet larger than the whole byte capacity is not kept.
+ * <br>
+ * latest() returns the most recent packets that fit in a byte budget, oldest first, as envelopes that
+ * deserialize lazily.
+ * <br>
+ * Usage:
+ * <pre>
+ * DataPacketHistory&lt;MyPacket&gt; history = new DataPacketHistory&lt;&gt;(1 &lt;&lt; 20, 1024);
+ * history.add(SerializedDataPacket.make(packet));
+ * for (SerializedDataPacket&lt;MyPacket&gt; envelope : history.latest(64 * 1024)) { ... envelope.unpack() ... }
+ * </pre>
+ * @param <P> The type of the packets
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketHistory<P extends ADataPacket> {
+
+	/**
+	 * The serialized packets, back to back, wrapping around the end
+	 */
+	private final byte[] ring;
+
+	/**
+	 * Offset in the ring of each packet, indexed by packet slot
+	 */
+	private final int[] offsets;
+
+	/**
+	 * Length of each packet, indexed by packet slot
+	 */
+	private final int[] lengths;
+
+	/**
+	 * Slot of the oldest packet
+	 */
+	private int first = 0;
+
+	/**
+	 * Number of packets held
+	 */
+	private int count = 0;
+
+	/**
+	 * Offset in the ring at which the next packet is written
+	 */
+	private int end = 0;
+
+	/**
+	 * Number of bytes held
+	 */
+	private int used = 0;
+
+	/**
+	 * Number of packets added
+	 */
+	private final LongAdder addedCount = new LongAdder();
+
+	/**
+	 * Number of packets evicted to make room for newer ones
+	 */
+	private final LongAdder evictedCount = new LongAdder();
+
+	/**
+	 * Number of packets not kept because they were larger than the history
+	 */
+	private final LongAdder oversizedCount = new LongAdder();
+
+	/**
+	 * Constructor for the class
+	 * @param byteCapacity The number of bytes of serialized packets held
+	 * @param packetCapacity The maximum number of packets held
+	 */
+	public DataPacketHistory(int byteCapacity, int packetCapacity) {
+		this.ring = new byte[byteCapacity];
+		this.offsets = new int[packetCapacity];
+		this.lengths = new int[packetCapacity];
+	}
+
+	/**
+	 * Add a packet as the most recent one, evicting the oldest packets as needed
+	 * @param envelope The serialized packet
+	 * @return false if the packet is larger than the history and was not kept
+	 */
+	public synchronized boolean add(SerializedDataPacket<? extends P> envelope) {
+		byte[] bytes = envelope.getBytes();
+		int length = bytes.length;
+		if (length > ring.length || 0 == offsets.length) {
+			oversizedCount.increment();
+			return false;
+		}
+		while (count == offsets.length || used + length > ring.length) {
+			used -= lengths[first];
+			first = (first + 1) % offsets.length;
+			count--;
+			evictedCount.increment();
+		}
+
+		int slot = (first + count) % offsets.length;
+		offsets[slot] = end;
+		lengths[slot] = length;
+		int head = Math.min(length, ring.length - end);
+		System.arraycopy(bytes, 0, ring, end, head);
+		System.arraycopy(bytes, head, ring, 0, length - head);
+		end = (end + length) % ring.length;
+		used += length;
+		count++;
+		addedCount.increment();
+		return true;
+	}
+
+	/**
+	 * Get the most recent packets whose serialized sizes add up to no more than the given budget
+	 * @param byteBudget The maximum number of serialized bytes returned
+	 * @return The packets, oldest first, as envelopes that deserialize on the first unpack()
+	 */
+	public synchronized List<SerializedDataPacket<P>> latest(long byteBudget) {
+		int n = 0;
+		long bytes = 0;
+		while (n < count) {
+			int length = lengths[(first + count - 1 - n) % offsets.length];
+			if (bytes + length > byteBudget) {
+				break;
+			}
+			bytes += length;
+			n++;
+		}
+
+		List<SerializedDataPacket<P>> result = new ArrayList<SerializedDataPacket<P>>(n);
+		for (int i = count - n; i < count; i++) {
+			int slot = (first + i) % offsets.length;
+			int offset = offsets[slot];
+			int length = lengths[slot];
+			byte[] copy = new byte[length];
+			int head = Math.min(length, ring.length - offset);
+			System.arraycopy(ring, offset, copy, 0, head);
+			System.arraycopy(ring, 0, copy, head, length - head);
+			result.add(new SerializedDataPacket<P>(copy, null));
+		}
+		return result;
+	}
+
+	/**
+	 * @return Number of packets held
+	 */
+	public synchronized int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Number of serialized bytes held
+	 */
+	public synchronized int getBytes() {
+		return used;
+	}
+
+	/**
+	 * @return Number of packets evicted to make room for newer ones
+	 */
+	public long getEvictedCount() {
+		return evictedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d packets in %d bytes (%d added, %d evicted, %d too large)", getCount(), getBytes(),
+				addedCount.sum(), getEvictedCount(), oversizedCount.sum());
+	}
+}
@@ -0,0 +1,126 @@
+package provided.datapacket;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+
+/**
+ * The serialized stand-in for an IDataPacketID sent through a DataPacketIDDictionary:
+ * the sender's session number, the ID's code as a varint and, on first use, the data type name.
+ * Deserializes back into the locally interned ID when the data type is known locally.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+final class DataPacketIDCode implements Externalizable {
+
+	/**
+	 * For serialization
+	 */
+	private static final long serialVersionUID = -1436032217405786315L;
+
+	/**
+	 * The sender's session number
+	 */
+	private long sessionNumber;
+
+	/**
+	 * The ID's code in the session
+	 */
+	private int code;
+
+	/**
+	 * The data type name or null if the receiver already knows the code
+	 */
+	private String name;
+
+	/**
+	 * The ID that was read
+	 */
+	private transient IDataPacketID id;
+
+	/**
+	 * No-arg constructor required by Externalizable
+	 */
+	public DataPacketIDCode() {
+	}
+
+	/**
+	 * Constructor for writing a code
+	 * @param sessionNumber The sender's session number
+	 * @param code The ID's code in the session
+	 * @param name The data type name or null if the receiver already knows the code
+	 */
+	DataPacketIDCode(long sessionNumber, int code, String name) {
+		this.sessionNumber = sessionNumber;
+		this.code = code;
+		this.name = name;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeLong(sessionNumber);
+		// the low bit of the varint flags whether the name follows
+		writeVarInt(out, (code << 1) | (null == name ? 0 : 1));
+		if (null != name) {
+			out.writeUTF(name);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		sessionNumber = in.readLong();
+		int value = readVarInt(in);
+		code = value >>> 1;
+		name = (0 == (value & 1)) ? null : in.readUTF();
+		id = DataPacketIDDictionary.resolve(sessionNumber, code, name);
+		if (null == id) {
+			throw new DataPacketIDDictionary.UnknownCodeException(
+					"Unknown data packet ID code " + code + " in session " + sessionNumber);
+		}
+	}
+
+	/**
+	 * Replace this code with the ID it stands for.
+	 * @return The ID
+	 * @throws ObjectStreamException never
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		return id;
+	}
+
+	/**
+	 * Write a non-negative int in 7 bit groups, least significant first
+	 * @param out The stream to write to
+	 * @param value The value to write
+	 * @throws IOException if the stream cannot be written
+	 */
+	static void writeVarInt(ObjectOutput out, int value) throws IOException {
+		while (0 != (value & ~0x7F)) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Read an int written by writeVarInt()
+	 * @param in The stream to read from
+	 * @return The value
+	 * @throws IOException if the stream cannot be read or the value is malformed
+	 */
+	static int readVarInt(ObjectInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if (0 == (b & 0x80)) {
+				return value;
+			}
+		}
+		throw new InvalidObjectException("Malformed varint");
+	}
+}
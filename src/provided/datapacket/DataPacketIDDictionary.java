@@ -0,0 +1,342 @@
+package provided.datapacket;
+
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-peer dictionary that lets IDataPacketIDs travel as small integer codes instead of data type names.
+ * <br>
+ * Every send to a peer made through send() binds the peer's dictionary to the sending thread, so that each
+ * IDataPacketID serialized during the send (the packet's own ID, IDs inside the data, IDs of nested packets) 
+ * is written as a varint code.    The first time an ID is sent to a peer the code is accompanied by the
+ * data type name;  once a send carrying the name has returned successfully, the ID is sent as the code alone.
+ * <br>
+ * Codes are scoped by a random session number that is sent along with each code, so the receiver does not
+ * need to know who the sender is.    If a send fails, e.g. because the receiver restarted or dropped the 
+ * session, the sender's dictionary is reset to a new session and the names are sent again, so both sides
+ * rebuild the dictionary after a reconnect.    If the receiver could not decode a code (UnknownCodeException), 
+ * e.g. because it evicted the session, the packet never reached it, so it is sent again at once with every 
+ * name, in the new session.    A new stub for a peer gets a new dictionary altogether.
+ * <br>
+ * A receiver needs this version of the datapacket package to decode the codes, so codes are only sent to the
+ * peers marked with markSupported(), e.g. the peers that listed SUPPORT_ID among the data types they handle.
+ * To every other peer, send() just runs the send, and the IDs travel in full.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketIDDictionary {
+
+	/**
+	 * A send to a peer that may throw a checked exception
+	 * @param <E> The type of exception thrown by the send
+	 */
+	@FunctionalInterface
+	public interface ISendAction<E extends Exception> {
+		/**
+		 * Perform the send
+		 * @throws E if the send fails
+		 */
+		public void send() throws E;
+	}
+
+	/**
+	 * Thrown while unmarshalling a code the receiver does not know, e.g. of a session it evicted.   It reaches
+	 * the sender as the cause of the failed remote call.
+	 */
+	public static class UnknownCodeException extends InvalidObjectException {
+		/**
+		 * For serialization
+		 */
+		private static final long serialVersionUID = 4018573367190271539L;
+
+		/**
+		 * Constructor for the class
+		 * @param reason The detail message
+		 */
+		public UnknownCodeException(String reason) {
+			super(reason);
+		}
+	}
+
+	/**
+	 * Maximum number of receiving sessions remembered.   A sender whose session was forgotten gets a
+	 * decoding failure and starts a new session.
+	 */
+	private static final int MAX_INBOUND_SESSIONS = 1024;
+
+	/**
+	 * Stands for the ability to decode the codes, for a peer to list among the data types it handles
+	 */
+	public static final IDataPacketID SUPPORT_ID = DataPacketIDFactory.Singleton
+			.resolveID(DataPacketIDDictionary.class.getName());
+
+	/**
+	 * The peers known to decode the codes
+	 */
+	private static final Set<Object> supportedPeers = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The outbound dictionaries, keyed by the peer (typically its stub)
+	 */
+	private static final ConcurrentMap<Object, DataPacketIDDictionary> outbound = new ConcurrentHashMap<>();
+
+	/**
+	 * The inbound dictionaries, keyed by the sender's session number, least recently used first
+	 */
+	private static final Map<Long, Map<Integer, IDataPacketID>> inbound = Collections
+			.synchronizedMap(new LinkedHashMap<Long, Map<Integer, IDataPacketID>>(16, 0.75f, true) {
+				private static final long serialVersionUID = -3209557316426408093L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Long, Map<Integer, IDataPacketID>> eldest) {
+					return size() > MAX_INBOUND_SESSIONS;
+				}
+			});
+
+	/**
+	 * The dictionary bound to the current sending thread, if any
+	 */
+	private static final ThreadLocal<Binding> currentBinding = new ThreadLocal<Binding>();
+
+	/**
+	 * A dictionary bound to a sending thread plus the IDs whose names were written during the send
+	 */
+	private static class Binding {
+		/**
+		 * The bound dictionary
+		 */
+		final DataPacketIDDictionary dictionary;
+
+		/**
+		 * The session the names were written in
+		 */
+		final Session session;
+
+		/**
+		 * IDs whose names were written during the send
+		 */
+		final List<IDataPacketID> named = new ArrayList<IDataPacketID>();
+
+		/**
+		 * Constructor for the class
+		 * @param dictionary The dictionary to bind
+		 */
+		Binding(DataPacketIDDictionary dictionary) {
+			this.dictionary = dictionary;
+			this.session = dictionary.session;
+		}
+	}
+
+	/**
+	 * One outbound session, i.e. one set of codes known to the receiver under one session number
+	 */
+	private static class Session {
+		/**
+		 * The session number
+		 */
+		final long number = ThreadLocalRandom.current().nextLong();
+
+		/**
+		 * The codes assigned in this session
+		 */
+		final ConcurrentMap<IDataPacketID, Integer> codes = new ConcurrentHashMap<IDataPacketID, Integer>();
+
+		/**
+		 * The IDs whose names the receiver is known to have received
+		 */
+		final Set<IDataPacketID> confirmed = ConcurrentHashMap.newKeySet();
+
+		/**
+		 * The next code to assign
+		 */
+		final AtomicInteger nextCode = new AtomicInteger(0);
+	}
+
+	/**
+	 * The current session
+	 */
+	private volatile Session session = new Session();
+
+	/**
+	 * Use DataPacketIDDictionary.forPeer()
+	 */
+	private DataPacketIDDictionary() {
+	}
+
+	/**
+	 * Remember that a peer decodes the codes, so that sends to it through send() use its dictionary
+	 * @param peer The peer, typically its stub
+	 */
+	public static void markSupported(Object peer) {
+		supportedPeers.add(peer);
+	}
+
+	/**
+	 * @param peer The peer, typically its stub
+	 * @return true if the peer is known to decode the codes
+	 */
+	public static boolean isSupported(Object peer) {
+		return supportedPeers.contains(peer);
+	}
+
+	/**
+	 * Get the outbound dictionary of a peer, making it if needed.
+	 * @param peer The peer, typically its stub.  Must have value semantics for equals() and hashCode().
+	 * @return The peer's dictionary
+	 */
+	public static DataPacketIDDictionary forPeer(Object peer) {
+		return outbound.computeIfAbsent(peer, (p) -> new DataPacketIDDictionary());
+	}
+
+	/**
+	 * Discard the outbound dictionary of a peer and whether it decodes the codes, e.g. when it leaves.
+	 * @param peer The peer, as given to forPeer()
+	 */
+	public static void forget(Object peer) {
+		supportedPeers.remove(peer);
+		outbound.remove(peer);
+	}
+
+	/**
+	 * Perform a send to the given peer with the peer's dictionary bound to this thread, if the peer decodes the
+	 * codes.
+	 * @param <E> The type of exception thrown by the send
+	 * @param peer The peer, typically its stub
+	 * @param action The send
+	 * @throws E if the send fails
+	 */
+	public static <E extends Exception> void send(Object peer, ISendAction<E> action) throws E {
+		if (!supportedPeers.contains(peer) || null != currentBinding.get()) {
+			action.send(); // a peer without codes, or a nested send made while serializing, which must not rebind
+			return;
+		}
+		forPeer(peer).send(action);
+	}
+
+	/**
+	 * Perform a send with this dictionary bound to this thread.   If the receiver did not know one of the codes, 
+	 * the send is made once more in a new session, with every name.
+	 * @param <E> The type of exception thrown by the send
+	 * @param action The send
+	 * @throws E if the send fails
+	 */
+	public <E extends Exception> void send(ISendAction<E> action) throws E {
+		try {
+			sendBound(action);
+		} catch (Exception e) {
+			if (!isUnknownCode(e)) {
+				throw e;
+			}
+			// the receiver failed while unmarshalling, before processing the packet:  the failed send already
+			// reset the session, so this send carries every name
+			sendBound(action);
+		}
+	}
+
+	/**
+	 * Perform a send with this dictionary bound to this thread, confirming the names it carried if it succeeds
+	 * and resetting the session if it fails.
+	 * @param <E> The type of exception thrown by the send
+	 * @param action The send
+	 * @throws E if the send fails
+	 */
+	private <E extends Exception> void sendBound(ISendAction<E> action) throws E {
+		Binding binding = new Binding(this);
+		currentBinding.set(binding);
+		boolean sent = false;
+		try {
+			action.send();
+			sent = true;
+		} finally {
+			currentBinding.remove();
+			if (sent) {
+				binding.session.confirmed.addAll(binding.named);
+			} else {
+				reset(binding.session);
+			}
+		}
+	}
+
+	/**
+	 * @param error What a send threw
+	 * @return true if the receiver failed to decode one of the codes, so that the packet was not delivered
+	 */
+	public static boolean isUnknownCode(Throwable error) {
+		for (Throwable t = error; null != t; t = t.getCause()) {
+			if (t instanceof UnknownCodeException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Start a new session so that all names are sent again
+	 */
+	public void reset() {
+		session = new Session();
+	}
+
+	/**
+	 * Start a new session unless another thread already did so since the given session was in use
+	 * @param failed The session in use by the failed send
+	 */
+	private synchronized void reset(Session failed) {
+		if (session == failed) {
+			reset();
+		}
+	}
+
+	/**
+	 * Get the object to be serialized in place of an ID.
+	 * @param id The ID being serialized
+	 * @param name The data type name of the ID
+	 * @return A code proxy if a dictionary is bound to this thread, otherwise the ID itself
+	 */
+	static Object replace(IDataPacketID id, String name) {
+		Binding binding = currentBinding.get();
+		if (null == binding) {
+			return id;
+		}
+		Session session = binding.session;
+		Integer code = session.codes.get(id);
+		if (null == code) {
+			code = session.codes.computeIfAbsent(id, (k) -> session.nextCode.getAndIncrement());
+		}
+		if (session.confirmed.contains(id)) {
+			return new DataPacketIDCode(session.number, code, null);
+		}
+		binding.named.add(id);
+		return new DataPacketIDCode(session.number, code, name);
+	}
+
+	/**
+	 * Resolve a code received from a peer, learning the code if it came with a name.
+	 * @param sessionNumber The sender's session number
+	 * @param code The code
+	 * @param name The data type name, or null if the code should already be known
+	 * @return The ID or null if the code is not known
+	 */
+	static IDataPacketID resolve(long sessionNumber, int code, String name) {
+		if (null != name) {
+			IDataPacketID id = DataPacketIDFactory.Singleton.resolveID(name);
+			synchronized (inbound) {
+				inbound.computeIfAbsent(sessionNumber, (n) -> new ConcurrentHashMap<Integer, IDataPacketID>()).put(code,
+						id);
+			}
+			return id;
+		}
+		Map<Integer, IDataPacketID> codes = inbound.get(sessionNumber);
+		return null == codes ? null : codes.get(code);
+	}
+}
@@ -1,9 +1,23 @@
 package provided.datapacket;
 
+import java.io.ObjectStreamException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import provided.extvisitor.IOrdinalIndex;
+
 /**
  * A concrete implementation of IDataPacketIDFactory.   
  * This factory is NOT a unique implementation of the factory nor does it produce
  * unique implementations of the IDataPacketIDs.
+ * <br>
+ * The IDs made by this factory are interned:  every call to makeID() for the same data type
+ * returns the same instance, and each interned ID carries a small process-local ordinal 
+ * (see IOrdinalIndex) that enables dense dispatch in DataPacketAlgo.   Interning does not 
+ * change the serialized form or the equality semantics of the IDs.  
+ * IDs received from a remote system are resolved to the local interned instance if the data type
+ * is already known locally, otherwise they are left un-interned and have no ordinal.
  * 
  * @author Stephen Wong (c) 2018
  * * ----------------------------------------------
@@ -16,6 +30,16 @@ public class DataPacketIDFactory implements IDataPacketIDFactory {
 	 */
 	public static final DataPacketIDFactory Singleton = new DataPacketIDFactory();
 
+	/**
+	 * The interned IDs, keyed by the name of their data type
+	 */
+	private final ConcurrentMap<String, DataPacketID> internedIDs = new ConcurrentHashMap<String, DataPacketID>();
+
+	/**
+	 * The next ordinal to be assigned to a newly interned ID
+	 */
+	private final AtomicInteger nextOrdinal = new AtomicInteger(0);
+
 	/**
 	 * Private constructor for singleton
 	 */
@@ -30,7 +54,7 @@ public class DataPacketIDFactory implements IDataPacketIDFactory {
 	* A concrete IDataPacketID implementation used by DataPacketIDFactory 
 	* 
 	 */
-	private static class DataPacketID implements IDataPacketID {
+	private static class DataPacketID implements IDataPacketID, IOrdinalIndex {
 
 		/**
 		 * For Serializable
@@ -43,10 +67,46 @@ public class DataPacketIDFactory implements IDataPacketIDFactory {
 		private Object key;
 
 		/**
-		 * @param dataClass - class of the datapacket
+		 * Process-local ordinal of this ID.   Never serialized.
 		 */
-		public DataPacketID(Class<? extends IDataPacketData> dataClass) {
-			key = dataClass.getName();
+		private transient int ordinal;
+
+		/**
+		 * @param dataClassName - name of the class of the datapacket
+		 * @param ordinal - the process-local ordinal of this ID
+		 */
+		public DataPacketID(String dataClassName, int ordinal) {
+			key = dataClassName;
+			this.ordinal = ordinal;
+		}
+
+		@Override
+		public int getOrdinal() {
+			return ordinal;
+		}
+
+		/**
+		 * Replace a deserialized ID with the locally interned instance if there is one.
+		 * Otherwise the ID is left un-interned, without an ordinal, and is dispatched through the hash path.
+		 * @return The locally interned ID or this ID.
+		 * @throws ObjectStreamException never
+		 */
+		private Object readResolve() throws ObjectStreamException {
+			DataPacketID interned = (key instanceof String) ? Singleton.internedIDs.get(key) : null;
+			if (null != interned) {
+				return interned;
+			}
+			ordinal = NO_ORDINAL;
+			return this;
+		}
+
+		/**
+		 * Send this ID as a code when a DataPacketIDDictionary is bound to the sending thread.
+		 * @return The code that stands for this ID or this ID.
+		 * @throws ObjectStreamException never
+		 */
+		private Object writeReplace() throws ObjectStreamException {
+			return (key instanceof String) ? DataPacketIDDictionary.replace(this, (String) key) : this;
 		}
 
 		@Override
@@ -56,6 +116,9 @@ public class DataPacketIDFactory implements IDataPacketIDFactory {
 
 		@Override
 		public boolean equals(Object other) {
+			if (this == other) { // Interned IDs are the common case
+				return true;
+			}
 			if (other instanceof DataPacketID) { // Equality only if the other is the same type
 				return key.equals(((DataPacketID) other).key); // Check if the internal keys are equal.
 			}
@@ -73,7 +136,24 @@ public class DataPacketIDFactory implements IDataPacketIDFactory {
 
 	@Override
 	public IDataPacketID makeID(Class<? extends IDataPacketData> dataInterface) {
-		return new DataPacketID(dataInterface);
+		DataPacketID id = internedIDs.get(dataInterface.getName()); // fast path, no allocation
+		if (null == id) {
+			id = internedIDs.computeIfAbsent(dataInterface.getName(),
+					(name) -> new DataPacketID(name, nextOrdinal.getAndIncrement()));
+		}
+		return id;
+	}
+
+	/**
+	 * Get the ID of a data type given its name, as received from a remote system.
+	 * Like a deserialized ID, the result is the locally interned ID if the data type is already known locally,
+	 * otherwise an un-interned ID without an ordinal.
+	 * @param dataClassName The name of the data type
+	 * @return The ID of the data type
+	 */
+	IDataPacketID resolveID(String dataClassName) {
+		DataPacketID interned = internedIDs.get(dataClassName);
+		return (null != interned) ? interned : new DataPacketID(dataClassName, IOrdinalIndex.NO_ORDINAL);
 	}
 
 }
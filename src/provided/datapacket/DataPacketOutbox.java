@@ -0,0 +1,465 @@
+package provided.datapacket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Per-peer outbound queues that combine bursts of packets to the same peer into one send, e.g. one packet
+ * holding a list of packets, to save round trips.
+ * <br>
+ * A packet sent to a peer with nothing queued or in flight goes out immediately.   Packets sent while a send to
+ * the peer is in flight wait for it to complete and then for the batch window, counted from the oldest waiting
+ * packet, unless a full batch is already waiting.   The waiting packets then go out as one batch made by the
+ * combiner, or on their own if there is only one.   Sends to one peer never overlap and keep the order in which
+ * the packets were sent;  sends to different peers run concurrently, on a bounded pool of threads that may be
+ * shared with a DataPacketFanOut, so that slow or dead peers cannot make the threads grow without limit.
+ * <br>
+ * Usage:
+ * <pre>
+ * DataPacketOutbox&lt;Peer, Packet&gt; outbox = new DataPacketOutbox&lt;&gt;("room-out", 5, 32,
+ *     (peer, packet) -&gt; peer.sendMessage(packet), (packets) -&gt; makeListPacket(packets));
+ * outbox.send(peer, packet).whenComplete((v, err) -&gt; { ... });
+ * </pre>
+ * @param <M> The type of the peers, compared by equals()
+ * @param <P> The type of the packets
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketOutbox<M, P> {
+
+	/**
+	 * The send of one packet, or one batch, to a peer
+	 * @param <M> The type of the peers
+	 * @param <P> The type of the packets
+	 */
+	@FunctionalInterface
+	public interface ISendAction<M, P> {
+		/**
+		 * Send a packet to a peer
+		 * @param peer The peer
+		 * @param packet The packet
+		 * @throws Exception if the send fails
+		 */
+		public void send(M peer, P packet) throws Exception;
+	}
+
+	/**
+	 * A packet waiting to be sent
+	 * @param <P> The type of the packets
+	 */
+	private static class Pending<P> {
+		/**
+		 * The packet
+		 */
+		final P packet;
+
+		/**
+		 * When the packet was queued, in System.nanoTime() time
+		 */
+		final long queuedAt;
+
+		/**
+		 * Completed when the packet has been sent
+		 */
+		final CompletableFuture<Void> sent = new CompletableFuture<Void>();
+
+		/**
+		 * Constructor for the class
+		 * @param packet The packet
+		 */
+		Pending(P packet) {
+			this.packet = packet;
+			this.queuedAt = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The packets waiting for one peer, sent by at most one thread at a time
+	 */
+	private class PeerQueue implements Runnable {
+		/**
+		 * The peer
+		 */
+		private final M peer;
+
+		/**
+		 * The waiting packets
+		 */
+		private final ArrayDeque<Pending<P>> pending = new ArrayDeque<Pending<P>>();
+
+		/**
+		 * Whether a send is in flight or scheduled
+		 */
+		private boolean busy = false;
+
+		/**
+		 * The scheduled end of the batch window, if any
+		 */
+		private ScheduledFuture<?> windowEnd = null;
+
+		/**
+		 * Whether this queue was removed from the queues map and must not take new packets
+		 */
+		private boolean retired = false;
+
+		/**
+		 * Constructor for the class
+		 * @param peer The peer
+		 */
+		PeerQueue(M peer) {
+			this.peer = peer;
+		}
+
+		/**
+		 * Send the next batch, then schedule the one after, if any
+		 */
+		@Override
+		public void run() {
+			List<Pending<P>> batch = new ArrayList<Pending<P>>();
+			synchronized (this) {
+				windowEnd = null;
+				while (batch.size() < maxBatchSize && !pending.isEmpty()) {
+					batch.add(pending.poll());
+				}
+			}
+			Throwable error = batch.isEmpty() ? null : sendBatch(peer, batch);
+
+			// update the queue before completing the futures, so that a packet sent as soon as they complete
+			// finds the queue idle and goes out immediately
+			boolean next = true;
+			synchronized (this) {
+				if (pending.isEmpty()) {
+					busy = false;
+					retired = true;
+					queues.remove(peer, this);
+					next = false;
+				} else {
+					long delay = pending.peek().queuedAt + windowNanos - System.nanoTime();
+					if (0 < delay && pending.size() < maxBatchSize) {
+						try {
+							windowEnd = timer.schedule(this::schedule, delay, TimeUnit.NANOSECONDS);
+							next = false;
+						} catch (RejectedExecutionException e) {
+							// shut down:  send what is left right away
+						}
+					}
+				}
+			}
+			complete(batch, error);
+			if (next) {
+				schedule();
+			}
+		}
+
+		/**
+		 * Hand this queue to a sending thread, or send on the current thread if the outbox is shut down
+		 */
+		private void schedule() {
+			try {
+				senders.execute(this);
+			} catch (RejectedExecutionException e) {
+				run();
+			}
+		}
+	}
+
+	/**
+	 * The threads the sends run on
+	 */
+	private final ExecutorService senders;
+
+	/**
+	 * Whether this outbox made the sending threads and shuts them down
+	 */
+	private final boolean ownsSenders;
+
+	/**
+	 * Whether this outbox stopped taking packets
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * Ends the batch windows
+	 */
+	private final ScheduledExecutorService timer;
+
+	/**
+	 * How long waiting packets are held to collect a batch, in nanoseconds
+	 */
+	private final long windowNanos;
+
+	/**
+	 * The maximum number of packets in a batch
+	 */
+	private final int maxBatchSize;
+
+	/**
+	 * Sends a packet or a batch to a peer
+	 */
+	private final ISendAction<? super M, ? super P> sendAction;
+
+	/**
+	 * Combines the packets of a batch into one packet
+	 */
+	private final Function<List<P>, ? extends P> combiner;
+
+	/**
+	 * The non-empty per-peer queues
+	 */
+	private final ConcurrentMap<M, PeerQueue> queues = new ConcurrentHashMap<M, PeerQueue>();
+
+	/**
+	 * Number of packets sent, on their own or in a batch
+	 */
+	private final LongAdder packetCount = new LongAdder();
+
+	/**
+	 * Number of sends, i.e. round trips
+	 */
+	private final LongAdder sendCount = new LongAdder();
+
+	/**
+	 * Number of packets whose send failed
+	 */
+	private final LongAdder failureCount = new LongAdder();
+
+	/**
+	 * Number of sends by number of packets sent, index 1 to maxBatchSize
+	 */
+	private final AtomicLongArray batchSizeCounts;
+
+	/**
+	 * Constructor for the class, with its own DataPacketFanOut.DEFAULT_THREADS sending threads
+	 * @param name Name used for the sending threads
+	 * @param windowMillis How long packets that queue up behind a send are held to collect a batch, in milliseconds
+	 * @param maxBatchSize The maximum number of packets in a batch
+	 * @param sendAction Sends a packet or a batch to a peer
+	 * @param combiner Combines the packets of a batch, in order, into one packet
+	 */
+	public DataPacketOutbox(String name, long windowMillis, int maxBatchSize, ISendAction<? super M, ? super P> sendAction,
+			Function<List<P>, ? extends P> combiner) {
+		this(name, DataPacketFanOut.makeSenders(name, DataPacketFanOut.DEFAULT_THREADS), true, windowMillis,
+				maxBatchSize, sendAction, combiner);
+	}
+
+	/**
+	 * Constructor for the class, sending on threads shared with other senders, e.g. a DataPacketFanOut.   The 
+	 * threads are not shut down by shutdown().
+	 * @param name Name used for the batch window timer thread
+	 * @param senders The sending threads, typically from DataPacketFanOut.makeSenders()
+	 * @param windowMillis How long packets that queue up behind a send are held to collect a batch, in milliseconds
+	 * @param maxBatchSize The maximum number of packets in a batch
+	 * @param sendAction Sends a packet or a batch to a peer
+	 * @param combiner Combines the packets of a batch, in order, into one packet
+	 */
+	public DataPacketOutbox(String name, ExecutorService senders, long windowMillis, int maxBatchSize,
+			ISendAction<? super M, ? super P> sendAction, Function<List<P>, ? extends P> combiner) {
+		this(name, senders, false, windowMillis, maxBatchSize, sendAction, combiner);
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param name Name used for the batch window timer thread
+	 * @param senders The sending threads
+	 * @param ownsSenders Whether shutdown() shuts the sending threads down
+	 * @param windowMillis How long packets that queue up behind a send are held to collect a batch, in milliseconds
+	 * @param maxBatchSize The maximum number of packets in a batch
+	 * @param sendAction Sends a packet or a batch to a peer
+	 * @param combiner Combines the packets of a batch, in order, into one packet
+	 */
+	private DataPacketOutbox(String name, ExecutorService senders, boolean ownsSenders, long windowMillis,
+			int maxBatchSize, ISendAction<? super M, ? super P> sendAction, Function<List<P>, ? extends P> combiner) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+		}
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+		this.maxBatchSize = maxBatchSize;
+		this.sendAction = sendAction;
+		this.combiner = combiner;
+		this.batchSizeCounts = new AtomicLongArray(maxBatchSize + 1);
+		this.senders = senders;
+		this.ownsSenders = ownsSenders;
+		this.timer = Executors.newSingleThreadScheduledExecutor((r) -> {
+			Thread t = new Thread(r, name + "-window");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Queue a packet for a peer.   The packet goes out immediately if nothing is queued or in flight for the peer.
+	 * @param peer The peer
+	 * @param packet The packet
+	 * @return A future completed once the packet, or the batch holding it, has been sent, or exceptionally with
+	 * whatever the send threw or with a RejectedExecutionException if the outbox is shut down
+	 */
+	public CompletableFuture<Void> send(M peer, P packet) {
+		Pending<P> item = new Pending<P>(packet);
+		if (closed) {
+			item.sent.completeExceptionally(new RejectedExecutionException("Data packet outbox is shut down"));
+			return item.sent;
+		}
+		while (true) {
+			PeerQueue queue = queues.computeIfAbsent(peer, PeerQueue::new);
+			boolean schedule = false;
+			synchronized (queue) {
+				if (queue.retired) {
+					continue; // lost the race with a sender that just emptied the queue
+				}
+				queue.pending.add(item);
+				if (!queue.busy) {
+					queue.busy = true;
+					schedule = true;
+				} else if (null != queue.windowEnd && queue.pending.size() >= maxBatchSize
+						&& queue.windowEnd.cancel(false)) {
+					// a full batch is waiting:  do not wait for the end of the window
+					queue.windowEnd = null;
+					schedule = true;
+				}
+			}
+			if (schedule) {
+				queue.schedule();
+			}
+			return item.sent;
+		}
+	}
+
+	/**
+	 * Send a batch, combined if it holds more than one packet
+	 * @param peer The peer
+	 * @param batch The packets, in order
+	 * @return What the send threw, or null if it succeeded
+	 */
+	private Throwable sendBatch(M peer, List<Pending<P>> batch) {
+		Throwable error = null;
+		try {
+			if (1 == batch.size()) {
+				sendAction.send(peer, batch.get(0).packet);
+			} else {
+				List<P> packets = new ArrayList<P>(batch.size());
+				for (Pending<P> item : batch) {
+					packets.add(item.packet);
+				}
+				sendAction.send(peer, combiner.apply(packets));
+			}
+		} catch (Throwable t) {
+			error = t;
+		}
+
+		sendCount.increment();
+		packetCount.add(batch.size());
+		batchSizeCounts.incrementAndGet(batch.size());
+		if (null != error) {
+			failureCount.add(batch.size());
+		}
+		return error;
+	}
+
+	/**
+	 * Complete the futures of a batch
+	 * @param <P> The type of the packets
+	 * @param batch The packets
+	 * @param error What the send threw, or null if it succeeded
+	 */
+	private static <P> void complete(List<Pending<P>> batch, Throwable error) {
+		for (Pending<P> item : batch) {
+			if (null == error) {
+				item.sent.complete(null);
+			} else {
+				item.sent.completeExceptionally(error);
+			}
+		}
+	}
+
+	/**
+	 * @return Number of packets sent, on their own or in a batch
+	 */
+	public long getPacketCount() {
+		return packetCount.sum();
+	}
+
+	/**
+	 * @return Number of sends, i.e. round trips, made
+	 */
+	public long getSendCount() {
+		return sendCount.sum();
+	}
+
+	/**
+	 * @return Number of round trips saved by batching, i.e. packets sent minus sends made
+	 */
+	public long getRoundTripsSaved() {
+		return packetCount.sum() - sendCount.sum();
+	}
+
+	/**
+	 * @return Number of packets whose send failed
+	 */
+	public long getFailureCount() {
+		return failureCount.sum();
+	}
+
+	/**
+	 * @return Average number of packets per send
+	 */
+	public double getMeanBatchSize() {
+		long sends = sendCount.sum();
+		return 0 == sends ? 0.0 : (double) packetCount.sum() / sends;
+	}
+
+	/**
+	 * @return Number of sends by number of packets they carried:  element n is the number of sends of n packets
+	 */
+	public long[] getBatchSizeCounts() {
+		long[] counts = new long[batchSizeCounts.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = batchSizeCounts.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * @return Number of packets waiting, across all peers
+	 */
+	public int getPendingCount() {
+		int count = 0;
+		for (PeerQueue queue : queues.values()) {
+			synchronized (queue) {
+				count += queue.pending.size();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Stop taking packets.   Packets already queued are still sent, without waiting for the batch window.   The
+	 * sending threads are shut down only if this outbox made them.
+	 */
+	public void shutdown() {
+		closed = true;
+		if (ownsSenders) {
+			senders.shutdown();
+		}
+		timer.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d packets in %d sends (%d round trips saved, %.2f packets/send, %d failed)",
+				getPacketCount(), getSendCount(), getRoundTripsSaved(), getMeanBatchSize(), getFailureCount());
+	}
+}
@@ -0,0 +1,393 @@
+package provided.datapacket;
+
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Receiver-side reordering buffer that releases each sender's sequenced packets in sequence order, so that a
+ * sender can have several sends to the same receiver in flight at once, e.g. on different RMI connections,
+ * without the receiver processing them out of order.
+ * <br>
+ * Each sender numbers its packets to the receiver 1, 2, 3, ...   A packet that arrives ahead of its turn is held
+ * until the packets before it have been released.   A packet that was already released or is already held is a
+ * duplicate and is dropped.   If a gap does not fill within the gap timeout, or a sender has more than "capacity"
+ * packets held, the missing packets are given up on and the held ones are released from the lowest.   A sender
+ * that could not send some of its packets marks the next one it sends as a resync, and the packets missing before
+ * a resync packet are given up on as soon as it arrives, instead of after the gap timeout.   Packets without a
+ * sequence number (0 or less) bypass the buffer and are released immediately.
+ * <br>
+ * Packets are released to the consumer one at a time per sender, in order, on the thread that completed the
+ * sequence or on the gap timer thread.
+ * <br>
+ * Usage:
+ * <pre>
+ * DataPacketReorderBuffer&lt;Sender, Packet&gt; buffer = new DataPacketReorderBuffer&lt;&gt;(64, 2000,
+ *     (packet) -&gt; packet.getSeq(), (packet) -&gt; process(packet));
+ * buffer.receive(packet.getSender(), packet);
+ * </pre>
+ * @param <K> The type of the senders, compared by equals()
+ * @param <P> The type of the packets
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DataPacketReorderBuffer<K, P> {
+
+	/**
+	 * Shared timer for the gap timeouts
+	 */
+	private static final ScheduledExecutorService gapTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new Thread(r, "DataPacketReorderBuffer-gap");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * The sequenced packets of one sender
+	 */
+	private class Stream {
+		/**
+		 * The sequence number of the next packet to release
+		 */
+		long next = 1;
+
+		/**
+		 * The packets that arrived ahead of their turn, by sequence number
+		 */
+		final TreeMap<Long, P> held = new TreeMap<Long, P>();
+
+		/**
+		 * The timeout of the current gap, if any
+		 */
+		ScheduledFuture<?> timeout = null;
+
+		/**
+		 * The sequence number the current gap timeout is waiting for
+		 */
+		long timeoutSeq = 0;
+	}
+
+	/**
+	 * The streams by sender
+	 */
+	private final ConcurrentMap<K, Stream> streams = new ConcurrentHashMap<K, Stream>();
+
+	/**
+	 * The maximum number of packets held per sender
+	 */
+	private final int capacity;
+
+	/**
+	 * How long a gap may stay open, in nanoseconds
+	 */
+	private final long gapTimeoutNanos;
+
+	/**
+	 * Gets the sequence number of a packet
+	 */
+	private final ToLongFunction<? super P> seqOf;
+
+	/**
+	 * Whether a packet is a resync, after which the missing packets before it are not waited for
+	 */
+	private final Predicate<? super P> isResync;
+
+	/**
+	 * Takes the released packets
+	 */
+	private final Consumer<? super P> release;
+
+	/**
+	 * Number of sequenced packets released
+	 */
+	private final LongAdder releasedCount = new LongAdder();
+
+	/**
+	 * Number of unsequenced packets passed through
+	 */
+	private final LongAdder unsequencedCount = new LongAdder();
+
+	/**
+	 * Number of packets that arrived ahead of their turn and were held
+	 */
+	private final LongAdder reorderedCount = new LongAdder();
+
+	/**
+	 * Number of duplicate packets dropped
+	 */
+	private final LongAdder duplicateCount = new LongAdder();
+
+	/**
+	 * Number of missing packets given up on
+	 */
+	private final LongAdder skippedCount = new LongAdder();
+
+	/**
+	 * Number of gaps given up on because they timed out
+	 */
+	private final LongAdder timeoutCount = new LongAdder();
+
+	/**
+	 * Number of gaps given up on because too many packets were held
+	 */
+	private final LongAdder overflowCount = new LongAdder();
+
+	/**
+	 * Number of gaps given up on because a resync packet arrived
+	 */
+	private final LongAdder resyncCount = new LongAdder();
+
+	/**
+	 * Constructor for the class
+	 * @param capacity The maximum number of packets held per sender
+	 * @param gapTimeoutMillis How long a gap in a sender's sequence may stay open before the missing packets are
+	 * given up on, in milliseconds
+	 * @param seqOf Gets the sequence number of a packet, 0 or less if it is not sequenced
+	 * @param release Takes the packets in sequence order
+	 */
+	public DataPacketReorderBuffer(int capacity, long gapTimeoutMillis, ToLongFunction<? super P> seqOf,
+			Consumer<? super P> release) {
+		this(capacity, gapTimeoutMillis, seqOf, (packet) -> false, release);
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param capacity The maximum number of packets held per sender
+	 * @param gapTimeoutMillis How long a gap in a sender's sequence may stay open before the missing packets are
+	 * given up on, in milliseconds
+	 * @param seqOf Gets the sequence number of a packet, 0 or less if it is not sequenced
+	 * @param isResync Whether a packet is a resync, i.e. its sender gave up on the packets before it that it
+	 * could not send
+	 * @param release Takes the packets in sequence order
+	 */
+	public DataPacketReorderBuffer(int capacity, long gapTimeoutMillis, ToLongFunction<? super P> seqOf,
+			Predicate<? super P> isResync, Consumer<? super P> release) {
+		this.capacity = capacity;
+		this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+		this.seqOf = seqOf;
+		this.isResync = isResync;
+		this.release = release;
+	}
+
+	/**
+	 * Take a received packet, releasing it and any held packets it unblocks if it is next in its sender's
+	 * sequence, holding it if it is ahead, or dropping it if it is a duplicate.
+	 * @param sender The sender of the packet
+	 * @param packet The packet
+	 */
+	public void receive(K sender, P packet) {
+		long seq = seqOf.applyAsLong(packet);
+		if (seq <= 0) {
+			unsequencedCount.increment();
+			release.accept(packet);
+			return;
+		}
+
+		Stream stream = streams.computeIfAbsent(sender, (k) -> new Stream());
+		synchronized (stream) {
+			if (seq < stream.next || stream.held.containsKey(seq)) {
+				duplicateCount.increment();
+				return;
+			}
+			if (seq > stream.next && isResync.test(packet)) {
+				resyncCount.increment();
+				skipTo(stream, seq);
+			}
+			if (seq > stream.next) {
+				stream.held.put(seq, packet);
+				reorderedCount.increment();
+				if (stream.held.size() > capacity) {
+					overflowCount.increment();
+					skipGap(stream);
+				} else {
+					updateTimeout(stream);
+				}
+				return;
+			}
+			releaseNext(stream, packet);
+			drain(stream);
+			updateTimeout(stream);
+		}
+	}
+
+	/**
+	 * Release the next packet of a stream
+	 * @param stream The stream, locked
+	 * @param packet The packet with the stream's next sequence number
+	 */
+	private void releaseNext(Stream stream, P packet) {
+		stream.next++;
+		releasedCount.increment();
+		release.accept(packet);
+	}
+
+	/**
+	 * Release the held packets that are now in turn
+	 * @param stream The stream, locked
+	 */
+	private void drain(Stream stream) {
+		while (!stream.held.isEmpty() && stream.held.firstKey() == stream.next) {
+			releaseNext(stream, stream.held.pollFirstEntry().getValue());
+		}
+	}
+
+	/**
+	 * Give up on the packets missing before the lowest held packet and release the held packets from there
+	 * @param stream The stream, locked
+	 */
+	private void skipGap(Stream stream) {
+		long first = stream.held.firstKey();
+		skippedCount.add(first - stream.next);
+		stream.next = first;
+		drain(stream);
+		updateTimeout(stream);
+	}
+
+	/**
+	 * Give up on the packets missing before a sequence number, releasing the held packets before it in order
+	 * @param stream The stream, locked
+	 * @param seq The sequence number to go on from
+	 */
+	private void skipTo(Stream stream, long seq) {
+		while (!stream.held.isEmpty() && stream.held.firstKey() < seq) {
+			long first = stream.held.firstKey();
+			skippedCount.add(first - stream.next);
+			stream.next = first;
+			drain(stream);
+		}
+		if (stream.next < seq) {
+			skippedCount.add(seq - stream.next);
+			stream.next = seq;
+		}
+	}
+
+	/**
+	 * Start the gap timeout if a gap just opened, and cancel it if the gap closed
+	 * @param stream The stream, locked
+	 */
+	private void updateTimeout(Stream stream) {
+		if (null != stream.timeout && (stream.held.isEmpty() || stream.timeoutSeq != stream.next)) {
+			stream.timeout.cancel(false);
+			stream.timeout = null;
+		}
+		if (null == stream.timeout && !stream.held.isEmpty()) {
+			long seq = stream.next;
+			stream.timeoutSeq = seq;
+			stream.timeout = gapTimer.schedule(() -> expire(stream, seq), gapTimeoutNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Give up on a gap that timed out, unless it closed in the meantime
+	 * @param stream The stream
+	 * @param seq The sequence number the timeout was waiting for
+	 */
+	private void expire(Stream stream, long seq) {
+		synchronized (stream) {
+			if (stream.next != seq || stream.held.isEmpty()) {
+				return;
+			}
+			stream.timeout = null;
+			timeoutCount.increment();
+			skipGap(stream);
+		}
+	}
+
+	/**
+	 * Drop the state of a sender that will not send again, e.g. one that left, without releasing its held packets
+	 * @param sender The sender
+	 */
+	public void forget(K sender) {
+		Stream stream = streams.remove(sender);
+		if (null != stream) {
+			synchronized (stream) {
+				if (null != stream.timeout) {
+					stream.timeout.cancel(false);
+					stream.timeout = null;
+				}
+				skippedCount.add(stream.held.size());
+				stream.held.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return Number of packets currently held, across all senders
+	 */
+	public int getHeldCount() {
+		int count = 0;
+		for (Stream stream : streams.values()) {
+			synchronized (stream) {
+				count += stream.held.size();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return Number of sequenced packets released
+	 */
+	public long getReleasedCount() {
+		return releasedCount.sum();
+	}
+
+	/**
+	 * @return Number of packets that arrived ahead of their turn
+	 */
+	public long getReorderedCount() {
+		return reorderedCount.sum();
+	}
+
+	/**
+	 * @return Number of duplicate packets dropped
+	 */
+	public long getDuplicateCount() {
+		return duplicateCount.sum();
+	}
+
+	/**
+	 * @return Number of missing or held packets given up on
+	 */
+	public long getSkippedCount() {
+		return skippedCount.sum();
+	}
+
+	/**
+	 * @return Number of gaps given up on because they timed out
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.sum();
+	}
+
+	/**
+	 * @return Number of gaps given up on because too many packets were held
+	 */
+	public long getOverflowCount() {
+		return overflowCount.sum();
+	}
+
+	/**
+	 * @return Number of gaps given up on because a resync packet arrived
+	 */
+	public long getResyncCount() {
+		return resyncCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%d released (%d unsequenced), %d reordered, %d duplicates, %d skipped (%d timeouts, %d overflows, "
+						+ "%d resyncs)",
+				getReleasedCount(), unsequencedCount.sum(), getReorderedCount(), getDuplicateCount(),
+				getSkippedCount(), getTimeoutCount(), getOverflowCount(), getResyncCount());
+	}
+}
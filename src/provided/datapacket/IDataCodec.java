@@ -0,0 +1,32 @@
+package provided.datapacket;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Hand-written compact encoding of one data type, used by CompactDataPacketFormat.
+ * The encoding must be symmetric:  read() must consume exactly what write() produced.
+ * @param <T>  The data type encoded.  T must be an INTERFACE extending IDataPacketData.
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public interface IDataCodec<T extends IDataPacketData> {
+
+	/**
+	 * Write the given data to the stream
+	 * @param data The data to write
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(T data, ObjectOutput out) throws IOException;
+
+	/**
+	 * Read a data object from the stream
+	 * @param in The stream to read from
+	 * @return A data object equivalent to the one that was written
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException if a class of a nested object cannot be found
+	 */
+	public T read(ObjectInput in) throws IOException, ClassNotFoundException;
+}
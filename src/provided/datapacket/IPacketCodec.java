@@ -0,0 +1,62 @@
+package provided.datapacket;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Compact encoding of the sender of one concrete data packet class plus a factory to 
+ * rebuild that data packet class on the receiving side, used by CompactDataPacketFormat.
+ * @param <S> The type of the sender held by the data packet class
+ * @author Jason Lee
+ * @author Andres Villada
+ */
+public interface IPacketCodec<S> {
+
+	/**
+	 * Write the given sender to the stream
+	 * @param sender The sender to write, possibly null
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeSender(S sender, ObjectOutput out) throws IOException;
+
+	/**
+	 * Read a sender from the stream
+	 * @param in The stream to read from
+	 * @return A sender equivalent to the one that was written
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException if a class of a nested object cannot be found
+	 */
+	public S readSender(ObjectInput in) throws IOException, ClassNotFoundException;
+
+	/**
+	 * Rebuild the data packet
+	 * @param data The data held by the packet
+	 * @param sender The sender of the packet
+	 * @return A new data packet of the class this codec is registered for
+	 */
+	public DataPacket<?, S> make(IDataPacketData data, S sender);
+
+	/**
+	 * Write the fields the data packet class adds to DataPacket, if any.   Written after the data.
+	 * @param packet The data packet being written
+	 * @param out The stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public default void writeFields(DataPacket<?, S> packet, ObjectOutput out) throws IOException {
+	}
+
+	/**
+	 * Read the fields written by writeFields() and apply them to the rebuilt data packet
+	 * @param packet The data packet rebuilt by make()
+	 * @param in The stream to read from
+	 * @return The data packet with its fields, either the given one or a replacement
+	 * @throws IOException if the stream cannot be read
+	 * @throws ClassNotFoundException if a class of a nested object cannot be found
+	 */
+	public default DataPacket<?, S> readFields(DataPacket<?, S> packet, ObjectInput in)
+			throws IOException, ClassNotFoundException {
+		return packet;
+	}
+}
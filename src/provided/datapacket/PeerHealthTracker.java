@@ -0,0 +1,403 @@
+package provided.datapacket;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Health of the peers sent to, with a circuit breaker per peer, so that a peer that went away costs one failed
+ * send per probe instead of a connect timeout on every message.
+ * <br>
+ * A peer's circuit is CLOSED until "threshold" sends in a row to it fail.   The circuit then OPENs:  allow()
+ * refuses sends to the peer, and filter() leaves it out of fan-outs, until its backoff has passed.   The next
+ * send is then let through as a probe (HALF_OPEN) while the others are still refused.   A successful probe closes
+ * the circuit;  a failed one reopens it with twice the backoff, up to the maximum.   After "maxProbes" failed
+ * probes in a row the peer is declared dead and no longer probed until it is forgotten or a send to it succeeds.
+ * <br>
+ * The listeners are told when a circuit opens, when it closes again and when a peer is declared dead, e.g. so
+ * that a room can publish the removal of a dead member.   They are called on the thread that reported the send,
+ * outside of any lock.   Peers that never failed cost nothing:  they are only tracked from their first failure.
+ * <br>
+ * Usage:
+ * <pre>
+ * PeerHealthTracker&lt;Peer&gt; health = new PeerHealthTracker&lt;&gt;(3, 1000, 30000, 5);
+ * fanOut.send(health.filter(peers), (peer) -&gt; peer.sendMessage(packet)).thenAccept((outcomes) -&gt;
+ *     outcomes.forEach((peer, outcome) -&gt; health.report(peer, outcome.isDelivered(), outcome.getError())));
+ * </pre>
+ * @param <M> The type of the peers, compared by equals()
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class PeerHealthTracker<M> {
+
+	/**
+	 * The state of a peer's circuit
+	 */
+	public enum State {
+		/**
+		 * Sends go through
+		 */
+		CLOSED,
+		/**
+		 * Sends are refused until the backoff has passed
+		 */
+		OPEN,
+		/**
+		 * One probe send is in flight and the others are refused
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * Listener for changes in the health of the peers
+	 * @param <M> The type of the peers
+	 */
+	public interface IHealthListener<M> {
+		/**
+		 * Called when a peer's circuit opens after failing sends
+		 * @param peer The peer
+		 * @param failures The number of sends in a row that failed
+		 * @param cause The last failure, or null if the send timed out
+		 */
+		public default void opened(M peer, int failures, Throwable cause) {
+		}
+
+		/**
+		 * Called when a send to a peer whose circuit was open succeeds
+		 * @param peer The peer
+		 */
+		public default void closed(M peer) {
+		}
+
+		/**
+		 * Called when a peer has failed every probe and is no longer probed
+		 * @param peer The peer
+		 */
+		public default void dead(M peer) {
+		}
+	}
+
+	/**
+	 * The health of one peer that failed
+	 */
+	private static class Health {
+		/**
+		 * The state of the circuit
+		 */
+		State state = State.CLOSED;
+
+		/**
+		 * Number of sends in a row that failed
+		 */
+		int failures = 0;
+
+		/**
+		 * Number of probes in a row that failed
+		 */
+		int failedProbes = 0;
+
+		/**
+		 * How long the circuit stays open, in nanoseconds
+		 */
+		long backoffNanos = 0;
+
+		/**
+		 * When the next probe may be sent or, while HALF_OPEN, when the probe was sent, in System.nanoTime() terms
+		 */
+		long retryAt = 0;
+
+		/**
+		 * Whether the peer failed every probe
+		 */
+		boolean dead = false;
+	}
+
+	/**
+	 * The peers that failed, by peer
+	 */
+	private final ConcurrentMap<M, Health> peers = new ConcurrentHashMap<M, Health>();
+
+	/**
+	 * Number of sends in a row that open a peer's circuit
+	 */
+	private final int threshold;
+
+	/**
+	 * Backoff before the first probe, in nanoseconds
+	 */
+	private final long backoffNanos;
+
+	/**
+	 * Maximum backoff between probes, in nanoseconds
+	 */
+	private final long maxBackoffNanos;
+
+	/**
+	 * Number of probes in a row that fail before a peer is declared dead
+	 */
+	private final int maxProbes;
+
+	/**
+	 * The health listeners
+	 */
+	private final List<IHealthListener<? super M>> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Number of failed sends reported
+	 */
+	private final LongAdder failureCount = new LongAdder();
+
+	/**
+	 * Number of sends refused because a circuit was open
+	 */
+	private final LongAdder refusedCount = new LongAdder();
+
+	/**
+	 * Number of circuits opened
+	 */
+	private final LongAdder openedCount = new LongAdder();
+
+	/**
+	 * Number of probes let through
+	 */
+	private final LongAdder probeCount = new LongAdder();
+
+	/**
+	 * Number of circuits closed again
+	 */
+	private final LongAdder closedCount = new LongAdder();
+
+	/**
+	 * Number of peers declared dead
+	 */
+	private final LongAdder deadCount = new LongAdder();
+
+	/**
+	 * Constructor for the class
+	 * @param threshold The number of sends in a row that fail before a peer's circuit opens
+	 * @param backoffMillis How long a circuit stays open before the first probe, in milliseconds
+	 * @param maxBackoffMillis The maximum time between probes, in milliseconds
+	 * @param maxProbes The number of probes in a row that fail before a peer is declared dead
+	 */
+	public PeerHealthTracker(int threshold, long backoffMillis, long maxBackoffMillis, int maxProbes) {
+		this.threshold = threshold;
+		this.backoffNanos = TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+		this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMillis);
+		this.maxProbes = maxProbes;
+	}
+
+	/**
+	 * Decide whether to send to a peer now.   If the peer's backoff has passed, this send becomes its probe.
+	 * @param peer The peer
+	 * @return false if the peer's circuit is open and the send should not be made
+	 */
+	public boolean allow(M peer) {
+		Health health = peers.get(peer);
+		if (null == health) {
+			return true;
+		}
+		synchronized (health) {
+			switch (health.state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (!health.dead && System.nanoTime() - health.retryAt >= 0) {
+					health.state = State.HALF_OPEN;
+					health.retryAt = System.nanoTime();
+					probeCount.increment();
+					return true;
+				}
+				break;
+			case HALF_OPEN:
+				// a probe whose result was never reported is given up on after the maximum backoff
+				if (System.nanoTime() - health.retryAt >= maxBackoffNanos) {
+					health.retryAt = System.nanoTime();
+					probeCount.increment();
+					return true;
+				}
+				break;
+			}
+		}
+		refusedCount.increment();
+		return false;
+	}
+
+	/**
+	 * Select the peers to send to now, as allow() does for each of them
+	 * @param <C> The type of the given peers
+	 * @param candidates The peers
+	 * @return The peers that may be sent to, in iteration order
+	 */
+	public <C extends M> List<C> filter(Collection<C> candidates) {
+		List<C> result = new ArrayList<C>(candidates.size());
+		for (C peer : candidates) {
+			if (allow(peer)) {
+				result.add(peer);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Report the result of a send to a peer
+	 * @param peer The peer
+	 * @param delivered Whether the send succeeded
+	 * @param cause The exception thrown by a failed send, or null if it timed out
+	 */
+	public void report(M peer, boolean delivered, Throwable cause) {
+		if (delivered) {
+			onSuccess(peer);
+		} else {
+			onFailure(peer, cause);
+		}
+	}
+
+	/**
+	 * Report a successful send to a peer, closing its circuit
+	 * @param peer The peer
+	 */
+	public void onSuccess(M peer) {
+		Health health = peers.get(peer);
+		if (null == health) {
+			return;
+		}
+		boolean wasOpen;
+		synchronized (health) {
+			wasOpen = State.CLOSED != health.state;
+			health.state = State.CLOSED;
+			health.failures = 0;
+			health.failedProbes = 0;
+			health.dead = false;
+		}
+		if (wasOpen) {
+			closedCount.increment();
+			for (IHealthListener<? super M> listener : listeners) {
+				listener.closed(peer);
+			}
+		}
+	}
+
+	/**
+	 * Report a failed send to a peer, opening or reopening its circuit as needed
+	 * @param peer The peer
+	 * @param cause The exception thrown by the send, or null if it timed out
+	 */
+	public void onFailure(M peer, Throwable cause) {
+		failureCount.increment();
+		Health health = peers.computeIfAbsent(peer, (k) -> new Health());
+		boolean opened = false;
+		boolean dead = false;
+		int failures;
+		synchronized (health) {
+			failures = ++health.failures;
+			switch (health.state) {
+			case CLOSED:
+				if (failures >= threshold) {
+					health.state = State.OPEN;
+					health.backoffNanos = backoffNanos;
+					health.retryAt = System.nanoTime() + health.backoffNanos;
+					opened = true;
+				}
+				break;
+			case HALF_OPEN:
+				health.state = State.OPEN;
+				if (++health.failedProbes >= maxProbes) {
+					health.dead = true;
+					dead = true;
+				} else {
+					health.backoffNanos = Math.min(2 * health.backoffNanos, maxBackoffNanos);
+					health.retryAt = System.nanoTime() + health.backoffNanos;
+				}
+				break;
+			default:
+				// a send let through before the circuit opened
+				break;
+			}
+		}
+		if (opened) {
+			openedCount.increment();
+			for (IHealthListener<? super M> listener : listeners) {
+				listener.opened(peer, failures, cause);
+			}
+		}
+		if (dead) {
+			deadCount.increment();
+			for (IHealthListener<? super M> listener : listeners) {
+				listener.dead(peer);
+			}
+		}
+	}
+
+	/**
+	 * Drop the health of a peer, e.g. one that left or joined again
+	 * @param peer The peer
+	 */
+	public void forget(M peer) {
+		peers.remove(peer);
+	}
+
+	/**
+	 * @param peer A peer
+	 * @return The state of the peer's circuit
+	 */
+	public State getState(M peer) {
+		Health health = peers.get(peer);
+		if (null == health) {
+			return State.CLOSED;
+		}
+		synchronized (health) {
+			return health.state;
+		}
+	}
+
+	/**
+	 * @return Number of peers whose circuit is not closed
+	 */
+	public int getOpenCount() {
+		int count = 0;
+		for (Health health : peers.values()) {
+			synchronized (health) {
+				if (State.CLOSED != health.state) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return Number of sends refused because a circuit was open
+	 */
+	public long getRefusedCount() {
+		return refusedCount.sum();
+	}
+
+	/**
+	 * Add a health listener
+	 * @param listener The listener to add
+	 */
+	public void addListener(IHealthListener<? super M> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a health listener
+	 * @param listener The listener to remove
+	 */
+	public void removeListener(IHealthListener<? super M> listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d failures, %d sends refused, %d opened, %d probes, %d closed, %d dead, %d open now",
+				failureCount.sum(), getRefusedCount(), openedCount.sum(), probeCount.sum(), closedCount.sum(),
+				deadCount.sum(), getOpenCount());
+	}
+}
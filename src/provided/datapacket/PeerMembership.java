@@ -0,0 +1,650 @@
+package provided.datapacket;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Versioned membership of a group of peers, e.g. the connected apps, kept in sync by gossip so that a peer
+ * joining a group of N costs O(N) small messages instead of every member sending its whole set to every other.
+ * <br>
+ * Every peer is keyed by its own stable id and has a version that only that peer increases, e.g. when it leaves.
+ * A peer learns what it is missing in three steps at most:
+ * <ul>
+ * <li>a digest, the id and version of every member it knows, or just their checksum,</li>
+ * <li>a delta answering it with the members the digest lacks, and the answerer's own digest if it lacks
+ * something itself,</li>
+ * <li>a delta answering that digest in turn.</li>
+ * </ul>
+ * A member learned from a delta is passed on once, to at most "fanOut" random peers, so news spreads in about
+ * log(N) hops without any peer sending to every other.   Anti-entropy rounds, one checksum to one random peer per
+ * period, repair whatever the rumors missed.
+ * <br>
+ * A member that left stays as a tombstone with a higher version, so that gossip does not bring it back.   A peer
+ * that is told it left while it has not, e.g. after being evicted for not answering, refutes it with a higher
+ * version of its own.
+ * <br>
+ * The messages are sent through an IGossipTransport, which is expected to catch its own send failures.   The
+ * listeners are told when a member joins or leaves, on the thread that received the news.
+ * <br>
+ * Usage:
+ * <pre>
+ * PeerMembership&lt;Peer&gt; members = new PeerMembership&lt;&gt;(UUID.randomUUID(), self, transport, 3);
+ * members.hello(discoveredPeer);                // first contact
+ * members.receiveDigest(sender, checksum, digest);  // from the transport's messages
+ * members.receiveDelta(sender, delta, digest);
+ * members.startAntiEntropy(5000);
+ * </pre>
+ * @param <P> The type of the peers, compared by equals()
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class PeerMembership<P> {
+
+	/**
+	 * Shared timer for the anti-entropy rounds
+	 */
+	private static final ScheduledExecutorService antiEntropyTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new Thread(r, "PeerMembership-antiEntropy");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * One version of a member, as known locally and as sent in deltas
+	 * @param <P> The type of the peers
+	 */
+	public static final class Member<P> implements Serializable {
+
+		/**
+		 * For serialization
+		 */
+		private static final long serialVersionUID = -6174426305514418357L;
+
+		/**
+		 * The member's stable id
+		 */
+		private final UUID id;
+
+		/**
+		 * The member
+		 */
+		private final P peer;
+
+		/**
+		 * The version, only ever increased by the member itself, or by one when it is evicted
+		 */
+		private final long version;
+
+		/**
+		 * Whether the member left
+		 */
+		private final boolean left;
+
+		/**
+		 * Constructor for the class
+		 * @param id The member's stable id
+		 * @param peer The member
+		 * @param version The version
+		 * @param left Whether the member left
+		 */
+		public Member(UUID id, P peer, long version, boolean left) {
+			this.id = id;
+			this.peer = peer;
+			this.version = version;
+			this.left = left;
+		}
+
+		/**
+		 * @return The member's stable id
+		 */
+		public UUID getId() {
+			return id;
+		}
+
+		/**
+		 * @return The member
+		 */
+		public P getPeer() {
+			return peer;
+		}
+
+		/**
+		 * @return The version
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * @return Whether the member left
+		 */
+		public boolean isLeft() {
+			return left;
+		}
+
+		@Override
+		public String toString() {
+			return peer + "@" + version + (left ? " (left)" : "");
+		}
+	}
+
+	/**
+	 * Sends the gossip messages of a membership.   Implementations catch their own send failures.
+	 * @param <P> The type of the peers
+	 */
+	public interface IGossipTransport<P> {
+		/**
+		 * Send a digest
+		 * @param to The peer to send to
+		 * @param checksum The checksum of the digest
+		 * @param digest The version of every member by id, or null to send only the checksum
+		 */
+		public void sendDigest(P to, long checksum, Map<UUID, Long> digest);
+
+		/**
+		 * Send a delta
+		 * @param to The peer to send to
+		 * @param members The members the peer is missing
+		 * @param digest The sender's digest, if it is missing members of the peer's, else null
+		 */
+		public void sendDelta(P to, List<Member<P>> members, Map<UUID, Long> digest);
+	}
+
+	/**
+	 * Listener for the members joining and leaving
+	 * @param <P> The type of the peers
+	 */
+	public interface IMembershipListener<P> {
+		/**
+		 * Called when a member joins, or comes back after leaving
+		 * @param peer The member
+		 */
+		public default void joined(P peer) {
+		}
+
+		/**
+		 * Called when a member leaves or is evicted
+		 * @param peer The member
+		 */
+		public default void left(P peer) {
+		}
+	}
+
+	/**
+	 * The members by id, including this peer and the tombstones of those that left
+	 */
+	private final ConcurrentMap<UUID, Member<P>> members = new ConcurrentHashMap<UUID, Member<P>>();
+
+	/**
+	 * The ids of the members by peer
+	 */
+	private final ConcurrentMap<P, UUID> ids = new ConcurrentHashMap<P, UUID>();
+
+	/**
+	 * This peer's id
+	 */
+	private final UUID localId;
+
+	/**
+	 * This peer
+	 */
+	private final P localPeer;
+
+	/**
+	 * Sends the gossip messages
+	 */
+	private final IGossipTransport<P> transport;
+
+	/**
+	 * Maximum number of peers a new member is passed on to
+	 */
+	private final int fanOut;
+
+	/**
+	 * The membership listeners
+	 */
+	private final List<IMembershipListener<? super P>> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The periodic anti-entropy rounds, if started
+	 */
+	private ScheduledFuture<?> antiEntropy = null;
+
+	/**
+	 * Number of digests sent
+	 */
+	private final LongAdder digestCount = new LongAdder();
+
+	/**
+	 * Number of deltas sent
+	 */
+	private final LongAdder deltaCount = new LongAdder();
+
+	/**
+	 * Number of members sent in deltas
+	 */
+	private final LongAdder sentMemberCount = new LongAdder();
+
+	/**
+	 * Number of members received that were news
+	 */
+	private final LongAdder mergedCount = new LongAdder();
+
+	/**
+	 * Number of times this peer was told it left and refuted it
+	 */
+	private final LongAdder refutedCount = new LongAdder();
+
+	/**
+	 * Constructor for the class
+	 * @param localId This peer's stable id
+	 * @param localPeer This peer
+	 * @param transport Sends the gossip messages
+	 * @param fanOut The maximum number of peers a new member is passed on to
+	 */
+	public PeerMembership(UUID localId, P localPeer, IGossipTransport<P> transport, int fanOut) {
+		this.localId = localId;
+		this.localPeer = localPeer;
+		this.transport = transport;
+		this.fanOut = fanOut;
+		members.put(localId, new Member<P>(localId, localPeer, 1, false));
+		ids.put(localPeer, localId);
+	}
+
+	/**
+	 * Make first contact with a peer that is not a member yet, e.g. one just discovered, by sending it this peer
+	 * and this peer's digest.   The peer answers with every member this one is missing.
+	 * @param peer The peer
+	 * @return false if the peer is already a member and nothing was sent
+	 */
+	public boolean hello(P peer) {
+		if (contains(peer)) {
+			return false;
+		}
+		sendDelta(peer, Collections.singletonList(members.get(localId)), digest());
+		return true;
+	}
+
+	/**
+	 * Run one anti-entropy round:  send this peer's checksum to a random member, which answers with its digest if
+	 * their memberships differ.
+	 */
+	public void antiEntropy() {
+		List<P> targets = pickTargets(1, null);
+		if (!targets.isEmpty()) {
+			sendDigest(targets.get(0), checksum(), null);
+		}
+	}
+
+	/**
+	 * Process a digest received from a peer
+	 * @param from The peer that sent it
+	 * @param checksum The checksum of its digest
+	 * @param digest Its digest, or null if it only sent the checksum
+	 */
+	public void receiveDigest(P from, long checksum, Map<UUID, Long> digest) {
+		if (null == digest) {
+			long local = checksum();
+			if (local != checksum) {
+				sendDigest(from, local, digest());
+			}
+			return;
+		}
+		List<Member<P>> missing = missing(digest);
+		boolean behind = isBehind(digest);
+		if (!missing.isEmpty() || behind) {
+			sendDelta(from, missing, behind ? digest() : null);
+		}
+	}
+
+	/**
+	 * Process a delta received from a peer:  merge its members, pass on those that were news and answer its
+	 * digest, if any.
+	 * @param from The peer that sent it
+	 * @param delta The members it sent
+	 * @param digest Its digest, or null
+	 */
+	public void receiveDelta(P from, List<Member<P>> delta, Map<UUID, Long> digest) {
+		List<Member<P>> news = merge(delta);
+		if (!news.isEmpty()) {
+			spread(news, from);
+		}
+		if (null != digest) {
+			List<Member<P>> missing = missing(digest);
+			if (!missing.isEmpty()) {
+				sendDelta(from, missing, null);
+			}
+		}
+	}
+
+	/**
+	 * Merge members received from a peer into this membership
+	 * @param delta The members received
+	 * @return The members that were news, including this peer's refutation if it was told it left
+	 */
+	public List<Member<P>> merge(List<Member<P>> delta) {
+		List<Member<P>> news = new ArrayList<Member<P>>();
+		for (Member<P> member : delta) {
+			if (localId.equals(member.getId())) {
+				Member<P> refuted = refute(member);
+				if (null != refuted) {
+					news.add(refuted);
+				}
+				continue;
+			}
+			AtomicReference<Member<P>> previous = new AtomicReference<>();
+			Member<P> current = members.compute(member.getId(), (id, known) -> {
+				previous.set(known);
+				return null == known || member.getVersion() > known.getVersion() ? member : known;
+			});
+			if (current != member) {
+				continue;
+			}
+			news.add(member);
+			mergedCount.increment();
+			ids.put(member.getPeer(), member.getId());
+			notify(previous.get(), member);
+		}
+		return news;
+	}
+
+	/**
+	 * Leave the group:  mark this peer as left and pass it on
+	 */
+	public void leave() {
+		Member<P> self = members.compute(localId,
+				(id, known) -> new Member<P>(localId, localPeer, known.getVersion() + 1, true));
+		spread(Collections.singletonList(self), null);
+	}
+
+	/**
+	 * Mark a member as left locally, e.g. one that said it quits, without passing it on
+	 * @param peer The member
+	 * @return The member's tombstone, or null if it was not a member
+	 */
+	public Member<P> remove(P peer) {
+		UUID id = ids.get(peer);
+		if (null == id || localId.equals(id)) {
+			return null;
+		}
+		AtomicReference<Member<P>> previous = new AtomicReference<>();
+		Member<P> current = members.computeIfPresent(id, (k, known) -> {
+			previous.set(known);
+			return known.isLeft() ? known : new Member<P>(id, known.getPeer(), known.getVersion() + 1, true);
+		});
+		if (null == current || current == previous.get()) {
+			return null;
+		}
+		notify(previous.get(), current);
+		return current;
+	}
+
+	/**
+	 * Evict a member, e.g. one that stopped answering, and pass it on.   If the member is still there, it will
+	 * refute it.
+	 * @param peer The member
+	 * @return false if it was not a member
+	 */
+	public boolean evict(P peer) {
+		Member<P> tombstone = remove(peer);
+		if (null == tombstone) {
+			return false;
+		}
+		spread(Collections.singletonList(tombstone), peer);
+		return true;
+	}
+
+	/**
+	 * @param peer A peer
+	 * @return Whether the peer is a member that did not leave
+	 */
+	public boolean contains(P peer) {
+		UUID id = ids.get(peer);
+		if (null == id) {
+			return false;
+		}
+		Member<P> member = members.get(id);
+		return null != member && !member.isLeft();
+	}
+
+	/**
+	 * @return The members that did not leave, other than this peer
+	 */
+	public List<P> getPeers() {
+		List<P> result = new ArrayList<P>(members.size());
+		for (Member<P> member : members.values()) {
+			if (!member.isLeft() && !localId.equals(member.getId())) {
+				result.add(member.getPeer());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return Number of members that did not leave, including this peer
+	 */
+	public int getSize() {
+		int count = 0;
+		for (Member<P> member : members.values()) {
+			if (!member.isLeft()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return The version of every member by id, tombstones included
+	 */
+	public Map<UUID, Long> digest() {
+		Map<UUID, Long> result = new HashMap<UUID, Long>(2 * members.size());
+		for (Member<P> member : members.values()) {
+			result.put(member.getId(), member.getVersion());
+		}
+		return result;
+	}
+
+	/**
+	 * @return A checksum of the digest, equal on two peers that know the same versions of the same members
+	 */
+	public long checksum() {
+		long sum = 0;
+		for (Member<P> member : members.values()) {
+			sum += mix(member.getId(), member.getVersion());
+		}
+		return sum;
+	}
+
+	/**
+	 * Start the anti-entropy rounds.   Replaces any rounds already started.
+	 * @param periodMillis The period, in milliseconds
+	 */
+	public synchronized void startAntiEntropy(long periodMillis) {
+		stopAntiEntropy();
+		antiEntropy = antiEntropyTimer.scheduleAtFixedRate(this::antiEntropy, periodMillis, periodMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop the anti-entropy rounds, if started
+	 */
+	public synchronized void stopAntiEntropy() {
+		if (null != antiEntropy) {
+			antiEntropy.cancel(false);
+			antiEntropy = null;
+		}
+	}
+
+	/**
+	 * Add a membership listener
+	 * @param listener The listener to add
+	 */
+	public void addListener(IMembershipListener<? super P> listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a membership listener
+	 * @param listener The listener to remove
+	 */
+	public void removeListener(IMembershipListener<? super P> listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @param digest A peer's digest
+	 * @return The members whose version in the digest is older or missing
+	 */
+	private List<Member<P>> missing(Map<UUID, Long> digest) {
+		List<Member<P>> result = new ArrayList<Member<P>>();
+		for (Member<P> member : members.values()) {
+			Long version = digest.get(member.getId());
+			if (null == version || version < member.getVersion()) {
+				result.add(member);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param digest A peer's digest
+	 * @return Whether the digest has a member this peer is missing or knows an older version of
+	 */
+	private boolean isBehind(Map<UUID, Long> digest) {
+		for (Map.Entry<UUID, Long> entry : digest.entrySet()) {
+			Member<P> member = members.get(entry.getKey());
+			if (null == member || member.getVersion() < entry.getValue()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Answer news of this peer with a higher version, unless this peer left
+	 * @param claim The version of this peer received
+	 * @return This peer's new version, or null if the claim was not newer or this peer left
+	 */
+	private Member<P> refute(Member<P> claim) {
+		AtomicReference<Member<P>> previous = new AtomicReference<>();
+		Member<P> self = members.compute(localId, (id, known) -> {
+			previous.set(known);
+			boolean newer = claim.getVersion() > known.getVersion()
+					|| (claim.getVersion() == known.getVersion() && claim.isLeft());
+			return known.isLeft() || !newer ? known : new Member<P>(localId, localPeer, claim.getVersion() + 1, false);
+		});
+		if (self == previous.get()) {
+			return null;
+		}
+		refutedCount.increment();
+		return self;
+	}
+
+	/**
+	 * Pass members on to at most fanOut random members
+	 * @param news The members to pass on
+	 * @param except A peer not to pass them to, e.g. the one they came from, or null
+	 */
+	private void spread(List<Member<P>> news, P except) {
+		for (P peer : pickTargets(fanOut, except)) {
+			sendDelta(peer, news, null);
+		}
+	}
+
+	/**
+	 * Pick random members that did not leave, other than this peer
+	 * @param count The maximum number of members to pick
+	 * @param except A peer not to pick, or null
+	 * @return At most count distinct members
+	 */
+	private List<P> pickTargets(int count, P except) {
+		List<P> peers = getPeers();
+		if (null != except) {
+			peers.remove(except);
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int picked = Math.min(count, peers.size());
+		for (int i = 0; i < picked; i++) {
+			Collections.swap(peers, i, i + random.nextInt(peers.size() - i));
+		}
+		return peers.subList(0, picked);
+	}
+
+	/**
+	 * Send a digest and count it
+	 * @param to The peer to send to
+	 * @param checksum The checksum of the digest
+	 * @param digest The digest, or null
+	 */
+	private void sendDigest(P to, long checksum, Map<UUID, Long> digest) {
+		digestCount.increment();
+		transport.sendDigest(to, checksum, digest);
+	}
+
+	/**
+	 * Send a delta and count it
+	 * @param to The peer to send to
+	 * @param delta The members to send
+	 * @param digest The digest, or null
+	 */
+	private void sendDelta(P to, List<Member<P>> delta, Map<UUID, Long> digest) {
+		deltaCount.increment();
+		sentMemberCount.add(delta.size());
+		transport.sendDelta(to, delta, digest);
+	}
+
+	/**
+	 * Tell the listeners about a member that joined or left
+	 * @param previous The member's previous version, or null
+	 * @param current The member's new version
+	 */
+	private void notify(Member<P> previous, Member<P> current) {
+		boolean wasIn = null != previous && !previous.isLeft();
+		if (wasIn == !current.isLeft()) {
+			return;
+		}
+		for (IMembershipListener<? super P> listener : listeners) {
+			if (wasIn) {
+				listener.left(current.getPeer());
+			} else {
+				listener.joined(current.getPeer());
+			}
+		}
+	}
+
+	/**
+	 * Mix a member's id and version into a well spread hash, summed into the checksum
+	 * @param id The id
+	 * @param version The version
+	 * @return The hash
+	 */
+	private static long mix(UUID id, long version) {
+		long h = id.getMostSignificantBits() * 0x9E3779B97F4A7C15L ^ id.getLeastSignificantBits() + version;
+		h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+		h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return h ^ (h >>> 33);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d members, %d gone; %d digests, %d deltas of %d members sent, %d merged, %d refuted",
+				getSize(), members.size() - getSize(), digestCount.sum(), deltaCount.sum(), sentMemberCount.sum(),
+				mergedCount.sum(), refutedCount.sum());
+	}
+}
@@ -0,0 +1,294 @@
+package provided.datapacket;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamConstants;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
+import java.rmi.ServerException;
+import java.rmi.UnmarshalException;
+import java.rmi.server.RMIClassLoader;
+import java.rmi.server.RemoteObject;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Envelope holding a data packet that was serialized once, up front, so that it can be broadcast to any number
+ * of recipients without serializing the packet's object graph again for each of them:  sending the envelope only
+ * copies an immutable byte array.
+ * <br>
+ * Classes are annotated with their RMI codebase the same way RMI annotates them, so a receiver can unpack a
+ * packet holding classes it does not have yet, e.g. unknown data types.   The receiver unpacks the packet
+ * lazily, on the first call to unpack(), and the result is kept for subsequent calls.   On the sending side,
+ * unpack() returns the original packet without deserializing anything.
+ * <br>
+ * The bytes may be compressed, see DataPacketCompressor.   unpack() recognizes compressed bytes, which start with
+ * a zlib header instead of the serialization stream header, and inflates them.
+ * <br>
+ * Peers built before envelopes existed refuse them as a call to an unknown remote method ("unrecognized method
+ * hash").   isUnsupported() recognizes that failure, and only that one, and markUnsupported()/isSupported() 
+ * remember such peers so that senders can fall back to sending the plain packet.   Any other failure, e.g. a 
+ * peer that knows envelopes but could not unpack this one, is reported to the sender as is, and the packet is 
+ * not sent again in plain form, so that it is not delivered twice.
+ * <br>
+ * The IDataPacketIDs in an envelope are written as codes of a DataPacketIDDictionary only if the envelope is 
+ * made while a peer's dictionary is bound to the thread, i.e. inside DataPacketIDDictionary.send(), which suits
+ * an envelope made for a single peer.   An envelope broadcast to several peers, or kept in a history, must be 
+ * made outside any dictionary so that every receiver can read it, and then carries the full IDs.
+ * <br>
+ * Usage:
+ * <pre>
+ * SerializedDataPacket&lt;MyPacket&gt; envelope = SerializedDataPacket.make(packet);
+ * for (...) stub.sendSerializedMessage(envelope);    // receiver:  envelope.unpack()
+ * </pre>
+ * @param <P> The type of the packet in the envelope
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public final class SerializedDataPacket<P extends ADataPacket> implements Serializable {
+
+	/**
+	 * For serialization
+	 */
+	private static final long serialVersionUID = 2908640611283531157L;
+
+	/**
+	 * Start of the message of the UnmarshalException RMI throws for a call to a method the remote object does not
+	 * have
+	 */
+	private static final String UNRECOGNIZED_METHOD = "unrecognized method hash";
+
+	/**
+	 * First byte of a Java serialization stream, which no zlib header starts with
+	 */
+	private static final byte STREAM_MAGIC_START = (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8);
+
+	/**
+	 * The peers known not to accept envelopes
+	 */
+	private static final Map<Object, Boolean> unsupportedPeers = Collections
+			.synchronizedMap(new WeakHashMap<Object, Boolean>());
+
+	/**
+	 * The serialized packet.   Never modified once made.
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * The packet, once unpacked, or the original packet on the sending side
+	 */
+	private transient volatile P packet;
+
+	/**
+	 * Constructor for the class
+	 * @param bytes The serialized packet, not copied
+	 * @param packet The original packet, or null to unpack it from the bytes when needed
+	 */
+	SerializedDataPacket(byte[] bytes, P packet) {
+		this.bytes = bytes;
+		this.packet = packet;
+	}
+
+	/**
+	 * Serialize a packet into a new envelope
+	 * @param <P> The type of the packet
+	 * @param packet The packet to serialize
+	 * @return An envelope holding the serialized packet
+	 * @throws UncheckedIOException if the packet cannot be serialized
+	 */
+	public static <P extends ADataPacket> SerializedDataPacket<P> make(P packet) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+		try (ObjectOutputStream out = new AnnotatingOutputStream(buffer)) {
+			out.writeObject(packet);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not serialize " + packet, e);
+		}
+		return new SerializedDataPacket<P>(buffer.toByteArray(), packet);
+	}
+
+	/**
+	 * Get the packet, deserializing it on the first call on the receiving side
+	 * @return The packet
+	 * @throws IOException if the packet cannot be deserialized
+	 * @throws ClassNotFoundException if a class of the packet cannot be loaded
+	 */
+	@SuppressWarnings("unchecked")
+	public P unpack() throws IOException, ClassNotFoundException {
+		P result = packet;
+		if (null == result) {
+			synchronized (this) {
+				result = packet;
+				if (null == result) {
+					InputStream raw = new ByteArrayInputStream(bytes);
+					if (isCompressed()) {
+						// buffered, since the object stream reads its headers a byte at a time
+						raw = new BufferedInputStream(new InflaterInputStream(raw));
+					}
+					try (ObjectInputStream in = new AnnotatedInputStream(raw)) {
+						result = (P) in.readObject();
+					}
+					packet = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return true if the serialized packet is compressed
+	 */
+	public boolean isCompressed() {
+		return 0 < bytes.length && STREAM_MAGIC_START != bytes[0];
+	}
+
+	/**
+	 * Make a compressed copy of this envelope, holding the same original packet on the sending side
+	 * @param deflater The deflater to compress with, reset before use
+	 * @return The compressed envelope
+	 */
+	SerializedDataPacket<P> deflate(Deflater deflater) {
+		deflater.reset();
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2 + 64);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+			out.write(bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not compress " + packet, e); // cannot happen in memory
+		}
+		return new SerializedDataPacket<P>(buffer.toByteArray(), packet);
+	}
+
+	/**
+	 * @return The serialized packet itself, not a copy, which must not be modified
+	 */
+	byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return The size of the serialized packet, in bytes
+	 */
+	public int getSize() {
+		return bytes.length;
+	}
+
+	/**
+	 * Whether a failed send of an envelope was refused because the peer does not know envelopes, i.e. the remote
+	 * method taking it does not exist on the peer.   RMI then reports an UnmarshalException for an unrecognized 
+	 * method hash, wrapped in a ServerException.   A peer that knows the method but failed to unpack the envelope 
+	 * is not such a peer.
+	 * @param e The exception thrown by the send
+	 * @return true if the plain packet should be sent instead
+	 */
+	public static boolean isUnsupported(Exception e) {
+		Throwable cause = (e instanceof ServerException) ? e.getCause() : e;
+		return cause instanceof UnmarshalException && null != cause.getMessage()
+				&& cause.getMessage().startsWith(UNRECOGNIZED_METHOD);
+	}
+
+	/**
+	 * Remember that a peer does not accept envelopes
+	 * @param peer The peer, typically its stub
+	 */
+	public static void markUnsupported(Object peer) {
+		unsupportedPeers.put(peer, Boolean.TRUE);
+	}
+
+	/**
+	 * @param peer The peer, typically its stub
+	 * @return false if the peer is known not to accept envelopes
+	 */
+	public static boolean isSupported(Object peer) {
+		return !unsupportedPeers.containsKey(peer);
+	}
+
+	/**
+	 * Object output stream that writes the RMI codebase of every class after its descriptor and, like RMI, 
+	 * replaces exported remote objects by their stubs
+	 */
+	private static class AnnotatingOutputStream extends ObjectOutputStream {
+		/**
+		 * Constructor for the class
+		 * @param out The stream to write to
+		 * @throws IOException if the stream header cannot be written
+		 */
+		AnnotatingOutputStream(OutputStream out) throws IOException {
+			super(out);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			if (obj instanceof Remote) {
+				try {
+					return RemoteObject.toStub((Remote) obj);
+				} catch (NoSuchObjectException e) {
+					// a stub or not exported, serialize it as it is
+				}
+			}
+			return obj;
+		}
+
+		@Override
+		protected void annotateClass(Class<?> cl) throws IOException {
+			writeObject(RMIClassLoader.getClassAnnotation(cl));
+		}
+
+		@Override
+		protected void annotateProxyClass(Class<?> cl) throws IOException {
+			annotateClass(cl);
+		}
+	}
+
+	/**
+	 * Object input stream that loads classes through RMIClassLoader, from their RMI codebase if necessary
+	 */
+	private static class AnnotatedInputStream extends ObjectInputStream {
+		/**
+		 * Constructor for the class
+		 * @param in The stream to read from
+		 * @throws IOException if the stream header cannot be read
+		 */
+		AnnotatedInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		/**
+		 * @return The class loader to try before the codebase
+		 */
+		private static ClassLoader defaultLoader() {
+			ClassLoader loader = Thread.currentThread().getContextClassLoader();
+			return null == loader ? SerializedDataPacket.class.getClassLoader() : loader;
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			String codebase = (String) readObject();
+			try {
+				return RMIClassLoader.loadClass(codebase, desc.getName(), defaultLoader());
+			} catch (ClassNotFoundException e) {
+				// primitive types and the like
+				return super.resolveClass(desc);
+			}
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+			String codebase = (String) readObject();
+			return RMIClassLoader.loadProxyClass(codebase, interfaces, defaultLoader());
+		}
+	}
+}
@@ -1,18 +1,20 @@
 package provided.datapacket;
 
-import java.util.Vector;
+import java.util.ArrayList;
 
 
 /**
  * Concrete IVDataPacket composite data type for use in data packets, DataPacket&lt;IVDataPacket&gt;, 
- * implemented as a Vector of ADataPackets. <br>
- * Note that Vector&lt;ADataPacket&gt; cannot be used as a data packet data type 
+ * implemented as an array-backed list of ADataPackets. <br>
+ * Note that ArrayList&lt;ADataPacket&gt; cannot be used as a data packet data type 
  * directly because type erasure prevents the distinction between 
- * Vector&lt;A&gt; and Vector&lt;B&gt; -- that is, they produce the same Class object.
+ * ArrayList&lt;A&gt; and ArrayList&lt;B&gt; -- that is, they produce the same Class object.
+ * <br>
+ * This class is NOT synchronized:  a VDataPacket is filled by one thread before it is sent and only read afterwards.
  * <br>
  * Usage:<br>
  * <pre>
- *      // make the vector of data packets
+ *      // make the list of data packets
  *      VDataPacket vdp = new VDataPacket();
  *      vdp.add(datapacket1);
  *      vdp.add(datapacket2);
@@ -21,19 +23,34 @@ import java.util.Vector;
  *      // make the composite data packet
  *      ADataPacket vd = new DataPacket&lt;VDataPacket, SenderType&gt;(vdp, aSender);
  * </pre>
- * This class is a vector of the abstract data packets, ADataPacket.  If a vector of more specific 
+ * This class is a list of the abstract data packets, ADataPacket.  If a list of more specific 
  * types of data packets is desired, a custom class that is a sub-class of the desired
- * Vector type should be used instead of this class.   Composites made as such would be 
+ * list type should be used instead of this class.   Composites made as such would be 
  * distinguishable as per their held types.
  * 
  * @author Stephen Wong (c) 2018
  *
  */
-public class VDataPacket extends Vector<ADataPacket> implements IVDataPacket{
+public class VDataPacket extends ArrayList<ADataPacket> implements IVDataPacket{
+
+	/**
+	 * Version number for serialization.   Changed when the superclass changed from Vector to ArrayList.
+	 */
+	private static final long serialVersionUID = 2265338920106683129L;
+
+	/**
+	 * Constructs an empty VDataPacket
+	 */
+	public VDataPacket() {
+		super();
+	}
 
 	/**
-	 * Version number for serialization
+	 * Constructs an empty VDataPacket with room for the given number of data packets
+	 * @param initialCapacity the number of data packets that can be added without growing the backing array
 	 */
-	private static final long serialVersionUID = -860544422905072718L;
+	public VDataPacket(int initialCapacity) {
+		super(initialCapacity);
+	}
 
 }
@@ -10,6 +10,24 @@ import java.util.*;
  * executed.  The return value is the return value from the command.
  * If no associated command is found, then a default command is executed.
  * In general, command-based implementations of IExtVisitor will be concrete subclasses of this class.
+ * <br>
+ * Dense dispatch:  If the visitor's index values implement IOrdinalIndex, setDenseDispatch(true) will
+ * make caseAt() resolve commands through an array indexed by the index value's ordinal rather than
+ * through the dictionary.   Index values without an ordinal transparently fall back to the dictionary.
+ * The dictionary always remains the authoritative store, so getCmd(), getAllIndices(), etc. are unaffected.
+ * <br>
+ * Copy-on-write mode:  By default the dictionary is a synchronized Hashtable, so every caseAt() takes its monitor.
+ * A visitor constructed in copy-on-write mode instead holds an immutable snapshot of the dictionary that is 
+ * atomically replaced by setCmd() and removeCmd().   caseAt() and getCmd() then take no lock at all and 
+ * getAllIndices() returns a stable, unmodifiable snapshot.   This suits visitors that are dispatched from many 
+ * threads at once but whose commands rarely change, at the cost of copying the dictionary on every change.
+ * <br>
+ * Monitoring:  An IDispatchMonitor installed with setDispatchMonitor() is told the index value, whether the
+ * default command was used, the time taken and any exception thrown for every caseAt() call (see DispatchStats).
+ * <br>
+ * Fixed arity:  caseAt(idx, host) and caseAt(idx, host, param) call the command's matching apply() overload and
+ * do not allocate a vararg array (see ExtVisitorParams).   Hosts that extend AExtVisitorHost use them whenever
+ * execute() is called with no or one parameter.
  * <br>Usage:<pre>  
  * public class MyExtVisitor extends AExtVisitor&lt;MyReturn, MyIndex, MyReturn, MyExtVisitorHost&gt; {...}
  * </pre>
@@ -28,21 +46,56 @@ public abstract class AExtVisitor<R, I, P, H extends IExtVisitorHost<I, ? super
 	private static final long serialVersionUID = 4445948668748598430L;
 
 	/**
-	 * The dictionary used to store the commands
+	 * The dictionary used to store the commands.   In copy-on-write mode, this is an immutable snapshot
+	 * that is replaced, never mutated.
 	 */
-	private Map<I, IExtVisitorCmd<R, I, P, H>> cmds = new Hashtable<I, IExtVisitorCmd<R, I, P, H>>();
+	private volatile Map<I, IExtVisitorCmd<R, I, P, H>> cmds;
+
+	/**
+	 * True if the dictionary is an immutable snapshot that is replaced on every change.
+	 */
+	private final boolean copyOnWrite;
 
 	/**
 	 * The default command to use if no command is associated with a case index value.
 	 */
-	private IExtVisitorCmd<R, I, P, H> defaultCmd;
+	private volatile IExtVisitorCmd<R, I, P, H> defaultCmd;
+
+	/**
+	 * Commands indexed by the ordinal of their index value, used when dense dispatch is enabled.
+	 * null if dense dispatch is disabled.   The array is never mutated once published;  
+	 * setCmd() and removeCmd() replace it with an updated copy so that caseAt() can read it without locking.
+	 * Transient, so a deserialized visitor starts with dense dispatch disabled.
+	 */
+	private transient volatile IExtVisitorCmd<R, I, P, H>[] denseCmds = null;
+
+	/**
+	 * Told about every caseAt() call, or null.   Transient, so a deserialized visitor is not monitored.
+	 */
+	private transient volatile IDispatchMonitor<? super I> dispatchMonitor = null;
 
 	/**
 	 * Constructor that takes a default command to use.
 	 * @param defaultCmd  The default command to use.
 	 */
 	public AExtVisitor(IExtVisitorCmd<R, I, P, H> defaultCmd) {
+		this(defaultCmd, false);
+	}
+
+	/**
+	 * Constructor that takes a default command to use and selects how the commands are stored.
+	 * @param defaultCmd  The default command to use.
+	 * @param copyOnWrite  If true, the commands are held in an immutable snapshot that is replaced on every change
+	 * so that dispatching never locks.  If false, the commands are held in a synchronized Hashtable.
+	 */
+	public AExtVisitor(IExtVisitorCmd<R, I, P, H> defaultCmd, boolean copyOnWrite) {
 		this.defaultCmd = defaultCmd;
+		this.copyOnWrite = copyOnWrite;
+		if (copyOnWrite) {
+			this.cmds = Collections.emptyMap();
+		} else {
+			this.cmds = new Hashtable<I, IExtVisitorCmd<R, I, P, H>>();
+		}
 	}
 
 	/**
@@ -68,7 +121,16 @@ public abstract class AExtVisitor<R, I, P, H extends IExtVisitorHost<I, ? super
 	 * @param cmd The command associated with the index value
 	 */
 	public void setCmd(I idx, IExtVisitorCmd<R, I, P, H> cmd) {
-		cmds.put(idx, cmd);
+		synchronized (this) {
+			if (copyOnWrite) {
+				Map<I, IExtVisitorCmd<R, I, P, H>> next = new HashMap<I, IExtVisitorCmd<R, I, P, H>>(cmds);
+				next.put(idx, cmd);
+				cmds = Collections.unmodifiableMap(next);
+			} else {
+				cmds.put(idx, cmd);
+			}
+			updateDenseCmd(idx, cmd);
+		}
 	}
 
 	/**
@@ -88,7 +150,108 @@ public abstract class AExtVisitor<R, I, P, H extends IExtVisitorHost<I, ? super
 	 * @return The IExtVisitorCmd that was associated with the index value or null
 	 */
 	public IExtVisitorCmd<R, I, P, H> removeCmd(I idx) {
-		return cmds.remove(idx);
+		synchronized (this) {
+			IExtVisitorCmd<R, I, P, H> removed;
+			if (copyOnWrite) {
+				if (!cmds.containsKey(idx)) {
+					return null;
+				}
+				Map<I, IExtVisitorCmd<R, I, P, H>> next = new HashMap<I, IExtVisitorCmd<R, I, P, H>>(cmds);
+				removed = next.remove(idx);
+				cmds = Collections.unmodifiableMap(next);
+			} else {
+				removed = cmds.remove(idx);
+			}
+			updateDenseCmd(idx, null);
+			return removed;
+		}
+	}
+
+	/**
+	 * Enable or disable dense dispatch.   When enabled, caseAt() resolves the command for any 
+	 * index value that implements IOrdinalIndex and has been assigned an ordinal via an array lookup.
+	 * All other index values are resolved through the dictionary as usual.
+	 * Enabling dense dispatch builds the array from the currently installed commands.
+	 * @param enabled true to enable dense dispatch, false to disable it.
+	 */
+	public void setDenseDispatch(boolean enabled) {
+		synchronized (this) {
+			if (!enabled) {
+				denseCmds = null;
+				return;
+			}
+			rebuildDenseCmds();
+		}
+	}
+
+	/**
+	 * Query whether dense dispatch is enabled
+	 * @return true if dense dispatch is enabled
+	 */
+	public boolean isDenseDispatch() {
+		return null != denseCmds;
+	}
+
+	/**
+	 * Rebuild the dense command array from the dictionary.   Must be called while holding the lock on this visitor.
+	 */
+	private void rebuildDenseCmds() {
+		IExtVisitorCmd<R, I, P, H>[] rebuilt = newCmdArray(0);
+		for (Map.Entry<I, IExtVisitorCmd<R, I, P, H>> entry : cmds.entrySet()) {
+			int ordinal = ordinalOf(entry.getKey());
+			if (ordinal >= rebuilt.length) {
+				rebuilt = Arrays.copyOf(rebuilt, ordinal + 1);
+			}
+			if (ordinal >= 0) {
+				rebuilt[ordinal] = entry.getValue();
+			}
+		}
+		denseCmds = rebuilt;
+	}
+
+	/**
+	 * Copy-on-write update of the dense command array.  Does nothing if dense dispatch is disabled.
+	 * Must be called while holding the lock on this visitor.
+	 * @param idx The index value being updated
+	 * @param cmd The new command for the index value or null to clear it
+	 */
+	private void updateDenseCmd(I idx, IExtVisitorCmd<R, I, P, H> cmd) {
+		IExtVisitorCmd<R, I, P, H>[] current = denseCmds;
+		if (null == current) {
+			return;
+		}
+		int ordinal = ordinalOf(idx);
+		if (ordinal < 0) {
+			// The dictionary may hold an equal index value that does have an ordinal, so resync from the dictionary.
+			rebuildDenseCmds();
+			return;
+		}
+		if (ordinal >= current.length && null == cmd) {
+			return;
+		}
+		IExtVisitorCmd<R, I, P, H>[] updated = newCmdArray(Math.max(current.length, ordinal + 1));
+		System.arraycopy(current, 0, updated, 0, current.length);
+		updated[ordinal] = cmd;
+		denseCmds = updated;
+	}
+
+	/**
+	 * Get the ordinal of the given index value
+	 * @param idx An index value
+	 * @return The ordinal of the index value or IOrdinalIndex.NO_ORDINAL if it does not have one.
+	 */
+	private static int ordinalOf(Object idx) {
+		return (idx instanceof IOrdinalIndex) ? ((IOrdinalIndex) idx).getOrdinal() : IOrdinalIndex.NO_ORDINAL;
+	}
+
+	/**
+	 * Allocate a command array of the given length
+	 * @param length The length of the array
+	 * @return A new array of nulls
+	 */
+	@SuppressWarnings("unchecked")
+	private IExtVisitorCmd<R, I, P, H>[] newCmdArray(int length) {
+		return (IExtVisitorCmd<R, I, P, H>[]) new IExtVisitorCmd<?, ?, ?, ?>[length];
 	}
 
 	/**
@@ -125,7 +288,10 @@ public abstract class AExtVisitor<R, I, P, H extends IExtVisitorHost<I, ? super
 	@Override
 	public <T extends IExtVisitorHost<I, ? super H>> R caseAt(I idx, T host,
 			@SuppressWarnings("unchecked") P... params) {
-		IExtVisitorCmd<R, I, P, H> cmd = cmds.get(idx);
+		IExtVisitorCmd<R, I, P, H> cmd = lookup(idx);
+		IDispatchMonitor<? super I> monitor = dispatchMonitor;
+		if (null != monitor)
+			return monitoredApply(monitor, cmd, idx, host, params);
 		if (cmd == null)
 			return defaultCmd.apply(idx, host, params);
 		else
@@ -133,7 +299,119 @@ public abstract class AExtVisitor<R, I, P, H extends IExtVisitorHost<I, ? super
 	}
 
 	/**
-	 * Returns a Set of all the indices currently installed in the visitor 
+	 * Fixed-arity version of caseAt() for calls without input parameters.   Calls the command's 
+	 * fixed-arity apply(), so no parameter array is allocated, with or without a monitor.
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param idx The index value for the case
+	 * @param host The visitor's host.
+	 * @return The result from executing the associated or default command
+	 */
+	@Override
+	public <T extends IExtVisitorHost<I, ? super H>> R caseAt(I idx, T host) {
+		IExtVisitorCmd<R, I, P, H> cmd = lookup(idx);
+		IDispatchMonitor<? super I> monitor = dispatchMonitor;
+		if (null != monitor)
+			return monitoredApply(monitor, cmd, idx, host, ExtVisitorParams.none(null == cmd ? defaultCmd : cmd));
+		if (cmd == null)
+			return defaultCmd.apply(idx, host);
+		else
+			return cmd.apply(idx, host);
+	}
+
+	/**
+	 * Fixed-arity version of caseAt() for calls with a single input parameter.   Calls the command's 
+	 * fixed-arity apply().
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param idx The index value for the case
+	 * @param host The visitor's host.
+	 * @param param The input parameter for the case
+	 * @return The result from executing the associated or default command
+	 */
+	@Override
+	public <T extends IExtVisitorHost<I, ? super H>> R caseAt(I idx, T host, P param) {
+		IExtVisitorCmd<R, I, P, H> cmd = lookup(idx);
+		IDispatchMonitor<? super I> monitor = dispatchMonitor;
+		if (null != monitor)
+			return monitoredApply(monitor, cmd, idx, host, ExtVisitorParams.of(null == cmd ? defaultCmd : cmd, param));
+		if (cmd == null)
+			return defaultCmd.apply(idx, host, param);
+		else
+			return cmd.apply(idx, host, param);
+	}
+
+	/**
+	 * Find the command associated with an index value, through the dense array if enabled.
+	 * @param idx The index value for the case
+	 * @return The associated command or null if there is none
+	 */
+	private IExtVisitorCmd<R, I, P, H> lookup(I idx) {
+		IExtVisitorCmd<R, I, P, H> cmd = null;
+		IExtVisitorCmd<R, I, P, H>[] dense = denseCmds;
+		if (null != dense) {
+			int ordinal = ordinalOf(idx);
+			if (0 <= ordinal && ordinal < dense.length) {
+				cmd = dense[ordinal];
+			}
+		}
+		if (cmd == null)
+			cmd = cmds.get(idx);
+		return cmd;
+	}
+
+	/**
+	 * Run the associated or default command and report the dispatch to the monitor.
+	 * @param <T> The type of the host
+	 * @param monitor The monitor to report to
+	 * @param cmd The associated command or null to use the default command
+	 * @param idx The index value for the case
+	 * @param host The visitor's host.
+	 * @param params Vararg input parameters for the case
+	 * @return The result from executing the command
+	 */
+	private <T extends IExtVisitorHost<I, ? super H>> R monitoredApply(IDispatchMonitor<? super I> monitor,
+			IExtVisitorCmd<R, I, P, H> cmd, I idx, T host, @SuppressWarnings("unchecked") P... params) {
+		boolean usedDefault = (cmd == null);
+		long start = System.nanoTime();
+		try {
+			R result = usedDefault ? defaultCmd.apply(idx, host, params) : cmd.apply(idx, host, params);
+			monitor.dispatched(idx, usedDefault, System.nanoTime() - start, null);
+			return result;
+		} catch (RuntimeException | Error e) {
+			monitor.dispatched(idx, usedDefault, System.nanoTime() - start, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Install a monitor that is told about every caseAt() call, or remove it.
+	 * Without a monitor, caseAt() only pays for reading one volatile field.
+	 * The monitor is transient, so a deserialized visitor starts without one.
+	 * @param monitor The monitor or null to remove the current one
+	 */
+	public void setDispatchMonitor(IDispatchMonitor<? super I> monitor) {
+		this.dispatchMonitor = monitor;
+	}
+
+	/**
+	 * @return The current dispatch monitor or null if there is none
+	 */
+	public IDispatchMonitor<? super I> getDispatchMonitor() {
+		return dispatchMonitor;
+	}
+
+	/**
+	 * Query whether this visitor stores its commands in copy-on-write mode
+	 * @return true if the commands are held in an immutable snapshot that is replaced on every change
+	 */
+	public boolean isCopyOnWrite() {
+		return copyOnWrite;
+	}
+
+	/**
+	 * Returns a Set of all the indices currently installed in the visitor.
+	 * In copy-on-write mode, the Set is an unmodifiable snapshot that is unaffected by later changes.
+	 * Otherwise it is a live view of the dictionary and commands should be removed with removeCmd() 
+	 * rather than through this Set so that dense dispatch stays in sync.
 	 * @return a Set of index values
 	 */
 	public Set<I> getAllIndices() {
@@ -47,4 +47,30 @@ public abstract class AExtVisitorHost<I, H extends IExtVisitorHost<I, ? extends
 		return algo.caseAt(idx, this, params);
 	}
 
+	/**
+	 * Fixed-arity "accept" method for calls without input parameters.
+	 * Returns algo.caseAt(idx, this)  where idx is the index value stored in this host, without allocating 
+	 * a parameter array.
+	 * 
+	 * @param algo   The extended visitor to run, which must use the same index type as this host, and be able to run on a sub-class of this host.
+	 * @return  The result of running the associated indexed case of the visitor method.
+	 */
+	@Override
+	public <R, P> R execute(IExtVisitor<R, I, P, ? extends H> algo) {
+		return algo.caseAt(idx, this);
+	}
+
+	/**
+	 * Fixed-arity "accept" method for calls with a single input parameter.
+	 * Returns algo.caseAt(idx, this, param)  where idx is the index value stored in this host.
+	 * 
+	 * @param algo   The extended visitor to run, which must use the same index type as this host, and be able to run on a sub-class of this host.
+	 * @param param  Input parameter to be used by the visitor.
+	 * @return  The result of running the associated indexed case of the visitor method.
+	 */
+	@Override
+	public <R, P> R execute(IExtVisitor<R, I, P, ? extends H> algo, P param) {
+		return algo.caseAt(idx, this, param);
+	}
+
 }
\ No newline at end of file
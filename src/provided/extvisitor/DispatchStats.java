@@ -0,0 +1,223 @@
+package provided.extvisitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import provided.logger.ILogger;
+import provided.logger.LogLevel;
+
+/**
+ * Per-index-value dispatch statistics of an AExtVisitor:  invocation count, default command count, error count
+ * and latency histogram.   All counters are lock-free, striped LongAdders.
+ * <br>
+ * The statistics are recorded only while enabled, i.e. while this object is installed as the visitor's 
+ * IDispatchMonitor.   Disabled, the visitor pays for one volatile read per caseAt() and nothing else.
+ * The statistics can be exposed as a JMX MXBean with register() and logged periodically with startDump().
+ * <br>
+ * Usage:
+ * <pre>
+ * DispatchStats&lt;IDataPacketID&gt; stats = new DispatchStats&lt;&gt;(algo);
+ * stats.register("room-" + roomID);           // provided.extvisitor:type=DispatchStats,name="room-..."
+ * stats.startDump(logger, 60000);              // logs only while enabled
+ * stats.setEnabled(true);                      // or from a JMX console
+ * </pre>
+ * @param <I> The type of the index value
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DispatchStats<I> implements IDispatchMonitor<I>, DispatchStatsMXBean {
+
+	/**
+	 * Shared timer for the periodic dumps
+	 */
+	private static final ScheduledExecutorService dumpTimer = Executors.newSingleThreadScheduledExecutor((r) -> {
+		Thread t = new Thread(r, "DispatchStats-dump");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * The statistics of one index value
+	 */
+	private static class TypeCounters {
+		/**
+		 * Number of dispatches
+		 */
+		final LongAdder count = new LongAdder();
+
+		/**
+		 * Number of dispatches that ran the default command
+		 */
+		final LongAdder defaultCount = new LongAdder();
+
+		/**
+		 * Number of dispatches that threw
+		 */
+		final LongAdder errorCount = new LongAdder();
+
+		/**
+		 * Latencies in nanoseconds
+		 */
+		final LatencyHistogram latency = new LatencyHistogram();
+	}
+
+	/**
+	 * The visitor being monitored
+	 */
+	private final AExtVisitor<?, I, ?, ?> visitor;
+
+	/**
+	 * The statistics, keyed by index value
+	 */
+	private final ConcurrentMap<I, TypeCounters> counters = new ConcurrentHashMap<I, TypeCounters>();
+
+	/**
+	 * The JMX name this object is registered under or null
+	 */
+	private ObjectName objectName = null;
+
+	/**
+	 * The periodic dump or null
+	 */
+	private ScheduledFuture<?> dump = null;
+
+	/**
+	 * Constructor for the class.   Recording starts disabled.
+	 * @param visitor The visitor to monitor
+	 */
+	public DispatchStats(AExtVisitor<?, I, ?, ?> visitor) {
+		this.visitor = visitor;
+	}
+
+	@Override
+	public void dispatched(I idx, boolean usedDefault, long nanos, Throwable error) {
+		TypeCounters c = counters.get(idx);
+		if (null == c) {
+			c = counters.computeIfAbsent(idx, (k) -> new TypeCounters());
+		}
+		c.count.increment();
+		if (usedDefault) {
+			c.defaultCount.increment();
+		}
+		if (null != error) {
+			c.errorCount.increment();
+		}
+		c.latency.record(nanos);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return this == visitor.getDispatchMonitor();
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		visitor.setDispatchMonitor(enabled ? this : null);
+	}
+
+	@Override
+	public long getTotalCount() {
+		long total = 0;
+		for (TypeCounters c : counters.values()) {
+			total += c.count.sum();
+		}
+		return total;
+	}
+
+	@Override
+	public List<DispatchTypeStats> getTypeStats() {
+		List<DispatchTypeStats> stats = new ArrayList<DispatchTypeStats>(counters.size());
+		counters.forEach((idx, c) -> {
+			LatencyHistogram h = c.latency;
+			stats.add(new DispatchTypeStats(String.valueOf(idx), c.count.sum(), c.defaultCount.sum(),
+					c.errorCount.sum(), h.getMean() / 1000.0, h.getPercentile(50) / 1000.0,
+					h.getPercentile(90) / 1000.0, h.getPercentile(99) / 1000.0, h.getMax() / 1000.0));
+		});
+		stats.sort(Comparator.comparingLong(DispatchTypeStats::getCount).reversed());
+		return stats;
+	}
+
+	@Override
+	public void reset() {
+		counters.clear();
+	}
+
+	@Override
+	public String dump() {
+		StringBuilder sb = new StringBuilder("Dispatch statistics (" + getTotalCount() + " dispatches):");
+		for (DispatchTypeStats stats : getTypeStats()) {
+			sb.append("\n  ").append(stats);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Register this object with the platform MBean server as provided.extvisitor:type=DispatchStats,name="name".
+	 * Does nothing if already registered.
+	 * @param name The name that identifies the monitored visitor
+	 * @throws JMException if the registration fails
+	 */
+	public synchronized void register(String name) throws JMException {
+		if (null != objectName) {
+			return;
+		}
+		ObjectName on = new ObjectName("provided.extvisitor:type=DispatchStats,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		objectName = on;
+	}
+
+	/**
+	 * Unregister this object from the platform MBean server, if registered.
+	 */
+	public synchronized void unregister() {
+		if (null == objectName) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.unregisterMBean(objectName);
+		} catch (JMException e) {
+			// already gone
+		}
+		objectName = null;
+	}
+
+	/**
+	 * Log dump() periodically while recording is enabled and there is something to report.
+	 * Replaces any periodic dump already started.
+	 * @param logger The logger to log to, at LogLevel.INFO
+	 * @param periodMillis The period, in milliseconds
+	 */
+	public synchronized void startDump(ILogger logger, long periodMillis) {
+		stopDump();
+		dump = dumpTimer.scheduleAtFixedRate(() -> {
+			if (isEnabled() && 0 < getTotalCount()) {
+				logger.log(LogLevel.INFO, dump());
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop the periodic dump, if started.
+	 */
+	public synchronized void stopDump() {
+		if (null != dump) {
+			dump.cancel(false);
+			dump = null;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package provided.extvisitor;
+
+import java.util.List;
+
+/**
+ * JMX management interface of DispatchStats.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public interface DispatchStatsMXBean {
+
+	/**
+	 * @return true if dispatches are being recorded
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Start or stop recording dispatches
+	 * @param enabled true to record dispatches
+	 */
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * @return Total number of recorded dispatches
+	 */
+	public long getTotalCount();
+
+	/**
+	 * @return A snapshot of the statistics of every index value seen, busiest first
+	 */
+	public List<DispatchTypeStats> getTypeStats();
+
+	/**
+	 * Discard all the statistics
+	 */
+	public void reset();
+
+	/**
+	 * @return A multi-line, human-readable summary of the statistics
+	 */
+	public String dump();
+}
@@ -0,0 +1,154 @@
+package provided.extvisitor;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable snapshot of the dispatch statistics of one index value, as exposed by DispatchStatsMXBean.
+ * Latencies are in microseconds.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class DispatchTypeStats {
+
+	/**
+	 * The index value, as a string
+	 */
+	private final String type;
+
+	/**
+	 * Number of dispatches
+	 */
+	private final long count;
+
+	/**
+	 * Number of dispatches that ran the default command
+	 */
+	private final long defaultCount;
+
+	/**
+	 * Number of dispatches that threw
+	 */
+	private final long errorCount;
+
+	/**
+	 * Mean latency
+	 */
+	private final double meanMicros;
+
+	/**
+	 * Median latency
+	 */
+	private final double p50Micros;
+
+	/**
+	 * 90th percentile latency
+	 */
+	private final double p90Micros;
+
+	/**
+	 * 99th percentile latency
+	 */
+	private final double p99Micros;
+
+	/**
+	 * Largest latency
+	 */
+	private final double maxMicros;
+
+	/**
+	 * Constructor for the class
+	 * @param type The index value, as a string
+	 * @param count Number of dispatches
+	 * @param defaultCount Number of dispatches that ran the default command
+	 * @param errorCount Number of dispatches that threw
+	 * @param meanMicros Mean latency
+	 * @param p50Micros Median latency
+	 * @param p90Micros 90th percentile latency
+	 * @param p99Micros 99th percentile latency
+	 * @param maxMicros Largest latency
+	 */
+	@ConstructorProperties({ "type", "count", "defaultCount", "errorCount", "meanMicros", "p50Micros", "p90Micros",
+			"p99Micros", "maxMicros" })
+	public DispatchTypeStats(String type, long count, long defaultCount, long errorCount, double meanMicros,
+			double p50Micros, double p90Micros, double p99Micros, double maxMicros) {
+		this.type = type;
+		this.count = count;
+		this.defaultCount = defaultCount;
+		this.errorCount = errorCount;
+		this.meanMicros = meanMicros;
+		this.p50Micros = p50Micros;
+		this.p90Micros = p90Micros;
+		this.p99Micros = p99Micros;
+		this.maxMicros = maxMicros;
+	}
+
+	/**
+	 * @return The index value, as a string
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return Number of dispatches
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Number of dispatches that ran the default command
+	 */
+	public long getDefaultCount() {
+		return defaultCount;
+	}
+
+	/**
+	 * @return Number of dispatches that threw
+	 */
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * @return Mean latency in microseconds
+	 */
+	public double getMeanMicros() {
+		return meanMicros;
+	}
+
+	/**
+	 * @return Median latency in microseconds
+	 */
+	public double getP50Micros() {
+		return p50Micros;
+	}
+
+	/**
+	 * @return 90th percentile latency in microseconds
+	 */
+	public double getP90Micros() {
+		return p90Micros;
+	}
+
+	/**
+	 * @return 99th percentile latency in microseconds
+	 */
+	public double getP99Micros() {
+		return p99Micros;
+	}
+
+	/**
+	 * @return Largest latency in microseconds
+	 */
+	public double getMaxMicros() {
+		return maxMicros;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: count=%d default=%d errors=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus",
+				type, count, defaultCount, errorCount, meanMicros, p50Micros, p90Micros, p99Micros, maxMicros);
+	}
+}
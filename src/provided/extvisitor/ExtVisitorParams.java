@@ -0,0 +1,161 @@
+package provided.extvisitor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Shared parameter arrays for the fixed-arity visitor methods, e.g. IExtVisitorCmd.apply(index, host).
+ * <br>
+ * A fixed-arity call still has to hand an array to the vararg method it delegates to, and that array must have
+ * the component type the receiving class was compiled with:  a command declared with Void... params is entered
+ * through a bridge method that casts the array to Void[].    This class works out that component type once per
+ * class, from its non-bridge vararg methods, and caches an empty array of it.   Since an empty array is immutable,
+ * it is shared by every call and the zero-argument path allocates nothing.   A Void[] can only ever hold null, so
+ * the single-argument path shares a {null} array for Void parameters as well.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public final class ExtVisitorParams {
+
+	/**
+	 * The cached arrays of one class
+	 */
+	private static final class ParamArrays {
+		/**
+		 * Component type of the vararg parameter
+		 */
+		final Class<?> componentType;
+
+		/**
+		 * Shared empty array
+		 */
+		final Object[] none;
+
+		/**
+		 * Shared {null} array or null if a {null} array cannot be shared
+		 */
+		final Object[] oneNull;
+
+		/**
+		 * Constructor for the class
+		 * @param componentType Component type of the vararg parameter
+		 */
+		ParamArrays(Class<?> componentType) {
+			this.componentType = componentType;
+			this.none = (Object[]) Array.newInstance(componentType, 0);
+			this.oneNull = Void.class == componentType ? (Object[]) Array.newInstance(componentType, 1) : null;
+		}
+	}
+
+	/**
+	 * Arrays for the classes whose vararg method is apply(), i.e. commands
+	 */
+	private static final ClassValue<ParamArrays> applyArrays = new ClassValue<ParamArrays>() {
+		@Override
+		protected ParamArrays computeValue(Class<?> type) {
+			return new ParamArrays(componentTypeOf(type, "apply"));
+		}
+	};
+
+	/**
+	 * Arrays for the classes whose vararg method is caseAt(), i.e. visitors
+	 */
+	private static final ClassValue<ParamArrays> caseAtArrays = new ClassValue<ParamArrays>() {
+		@Override
+		protected ParamArrays computeValue(Class<?> type) {
+			return new ParamArrays(componentTypeOf(type, "caseAt"));
+		}
+	};
+
+	/**
+	 * Not instantiable
+	 */
+	private ExtVisitorParams() {
+	}
+
+	/**
+	 * Get a shared, empty parameter array for the vararg apply() method of the given command.
+	 * @param <P> The type of the input parameters
+	 * @param cmd The command to be called
+	 * @return An empty array of the command's parameter type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P> P[] none(IExtVisitorCmd<?, ?, P, ?> cmd) {
+		return (P[]) applyArrays.get(cmd.getClass()).none;
+	}
+
+	/**
+	 * Get a parameter array holding the given parameter for the vararg apply() method of the given command.
+	 * The array is shared if the parameter type is Void and a new array otherwise.
+	 * @param <P> The type of the input parameters
+	 * @param cmd The command to be called
+	 * @param param The parameter
+	 * @return A one-element array of the command's parameter type holding the parameter
+	 */
+	public static <P> P[] of(IExtVisitorCmd<?, ?, P, ?> cmd, P param) {
+		return of(applyArrays.get(cmd.getClass()), param);
+	}
+
+	/**
+	 * Get a shared, empty parameter array for the vararg caseAt() method of the given visitor.
+	 * @param <P> The type of the input parameters
+	 * @param algo The visitor to be called
+	 * @return An empty array of the visitor's parameter type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P> P[] none(IExtVisitor<?, ?, P, ?> algo) {
+		return (P[]) caseAtArrays.get(algo.getClass()).none;
+	}
+
+	/**
+	 * Get a parameter array holding the given parameter for the vararg caseAt() method of the given visitor.
+	 * The array is shared if the parameter type is Void and a new array otherwise.
+	 * @param <P> The type of the input parameters
+	 * @param algo The visitor to be called
+	 * @param param The parameter
+	 * @return A one-element array of the visitor's parameter type holding the parameter
+	 */
+	public static <P> P[] of(IExtVisitor<?, ?, P, ?> algo, P param) {
+		return of(caseAtArrays.get(algo.getClass()), param);
+	}
+
+	/**
+	 * Make or share a one-element array
+	 * @param <P> The type of the input parameters
+	 * @param arrays The cached arrays of the receiving class
+	 * @param param The parameter
+	 * @return A one-element array holding the parameter
+	 */
+	@SuppressWarnings("unchecked")
+	private static <P> P[] of(ParamArrays arrays, P param) {
+		if (null == param && null != arrays.oneNull) {
+			return (P[]) arrays.oneNull;
+		}
+		P[] params = (P[]) Array.newInstance(arrays.componentType, 1);
+		params[0] = param;
+		return params;
+	}
+
+	/**
+	 * Find the most specific component type among the array parameters of the public, non-bridge, 
+	 * (index, host, params) methods with the given name.
+	 * @param type The class to inspect
+	 * @param name The name of the vararg method
+	 * @return The component type, Object if the parameter type is generic
+	 */
+	private static Class<?> componentTypeOf(Class<?> type, String name) {
+		Class<?> componentType = Object.class;
+		for (Method m : type.getMethods()) {
+			Class<?>[] paramTypes = m.getParameterTypes();
+			if (m.isBridge() || 3 != paramTypes.length || !paramTypes[2].isArray() || !name.equals(m.getName())) {
+				continue;
+			}
+			Class<?> c = paramTypes[2].getComponentType();
+			if (!c.isPrimitive() && componentType.isAssignableFrom(c)) {
+				componentType = c;
+			}
+		}
+		return componentType;
+	}
+}
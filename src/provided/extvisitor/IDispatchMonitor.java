@@ -0,0 +1,22 @@
+package provided.extvisitor;
+
+/**
+ * Observer of the dispatches made by an AExtVisitor, installed with AExtVisitor.setDispatchMonitor().
+ * Called on the dispatching thread after every caseAt(), so implementations must be thread-safe and fast.
+ * @param <I> The type of the index value
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+@FunctionalInterface
+public interface IDispatchMonitor<I> {
+
+	/**
+	 * Record one dispatch
+	 * @param idx The index value that was dispatched on
+	 * @param usedDefault true if no command was associated with the index value and the default command ran
+	 * @param nanos The time the command took, in nanoseconds
+	 * @param error The exception thrown by the command or null if it returned normally
+	 */
+	public void dispatched(I idx, boolean usedDefault, long nanos, Throwable error);
+}
@@ -1,6 +1,9 @@
 package provided.extvisitor;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Top-level extended visitor interfaces.  Completely implementation-independent. 
@@ -29,4 +32,58 @@ public abstract interface IExtVisitor<R, I, P, H extends IExtVisitorHost<I, ? su
 	 */
 	public <T extends IExtVisitorHost<I, ? super H>> R caseAt(I idx, T host,
 			@SuppressWarnings("unchecked") P... params);
+
+	/**
+	 * Fixed-arity version of caseAt() for calls without input parameters.   The default implementation delegates to
+	 * the vararg caseAt() with a shared, empty parameter array, so it does not allocate.
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param idx The index value for the desired case
+	 * @param host The host for the visitor
+	 * @return The value returned by the running the indexed case.
+	 */
+	public default <T extends IExtVisitorHost<I, ? super H>> R caseAt(I idx, T host) {
+		return caseAt(idx, host, ExtVisitorParams.none(this));
+	}
+
+	/**
+	 * Fixed-arity version of caseAt() for calls with a single input parameter.   The default implementation 
+	 * delegates to the vararg caseAt(), see ExtVisitorParams.of() for when the parameter array is shared.
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param idx The index value for the desired case
+	 * @param host The host for the visitor
+	 * @param param The input parameter
+	 * @return The value returned by the running the indexed case.
+	 */
+	public default <T extends IExtVisitorHost<I, ? super H>> R caseAt(I idx, T host, P param) {
+		return caseAt(idx, host, ExtVisitorParams.of(this, param));
+	}
+
+	/**
+	 * Asynchronous version of caseAt():  runs the indexed case on the given executor.
+	 * The returned future completes with the case's return value or exceptionally with whatever the case threw.
+	 * If the executor refuses the task, the future completes exceptionally with the RejectedExecutionException
+	 * and the case is not run.
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param executor The executor to run the case on
+	 * @param idx The index value for the desired case
+	 * @param host The host for the visitor
+	 * @param params Vararg input parameters
+	 * @return A future for the value returned by running the indexed case.
+	 */
+	public default <T extends IExtVisitorHost<I, ? super H>> CompletableFuture<R> caseAtAsync(Executor executor, I idx,
+			T host, @SuppressWarnings("unchecked") P... params) {
+		CompletableFuture<R> result = new CompletableFuture<R>();
+		try {
+			executor.execute(() -> {
+				try {
+					result.complete(caseAt(idx, host, params));
+				} catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
 }
\ No newline at end of file
@@ -36,4 +36,29 @@ public abstract interface IExtVisitorCmd<R, I, P, H extends IExtVisitorHost<I, ?
 	 */
 	public abstract <T extends IExtVisitorHost<I, ? super H>> R apply(I index, T host,
 			@SuppressWarnings("unchecked") P... params);
+
+	/**
+	 * Fixed-arity version of apply() for calls without input parameters.   Delegates to the vararg apply() with
+	 * a shared, empty parameter array of the type this command was compiled with, so it does not allocate.
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param index The index value for the case for which this command is associated. 
+	 * @param host The host for the visitor
+	 * @return The value returned by the running this command.
+	 */
+	public default <T extends IExtVisitorHost<I, ? super H>> R apply(I index, T host) {
+		return apply(index, host, ExtVisitorParams.none(this));
+	}
+
+	/**
+	 * Fixed-arity version of apply() for calls with a single input parameter.   Delegates to the vararg apply(), 
+	 * see ExtVisitorParams.of() for when the parameter array is shared.
+	 * @param <T> The type of the host the is expected to call this method.  T is restricted to be a subclass of IExtVisitorHost&lt;I, ? super H&gt;
+	 * @param index The index value for the case for which this command is associated. 
+	 * @param host The host for the visitor
+	 * @param param The input parameter
+	 * @return The value returned by the running this command.
+	 */
+	public default <T extends IExtVisitorHost<I, ? super H>> R apply(I index, T host, P param) {
+		return apply(index, host, ExtVisitorParams.of(this, param));
+	}
 }
\ No newline at end of file
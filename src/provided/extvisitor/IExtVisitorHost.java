@@ -1,6 +1,9 @@
 package provided.extvisitor;
 
 import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Top-level extended visitor interfaces.  Completely implementation-independent. 
@@ -23,4 +26,63 @@ public abstract interface IExtVisitorHost<I, H extends IExtVisitorHost<I, ? exte
 	 * @return The return value from executing the visitor.
 	 */
 	public <R, P> R execute(IExtVisitor<R, I, P, ? extends H> algo, @SuppressWarnings("unchecked") P... params);
+
+	/**
+	 * Fixed-arity version of execute() for calls without input parameters.   By default, delegates to the
+	 * vararg execute().   Implementations should override it to call the visitor's fixed-arity caseAt(), 
+	 * which does not allocate a parameter array.
+	 * @param <R> The return type of the visitor.
+	 * @param <P> The type of the input parameters of the visitor.
+	 * @param algo The extended visitor to execute.
+	 * @return The return value from executing the visitor.
+	 */
+	public default <R, P> R execute(IExtVisitor<R, I, P, ? extends H> algo) {
+		@SuppressWarnings("unchecked")
+		P[] params = (P[]) new Object[0];
+		return execute(algo, params);
+	}
+
+	/**
+	 * Fixed-arity version of execute() for calls with a single input parameter.   By default, delegates to 
+	 * the vararg execute().   Implementations should override it to call the visitor's fixed-arity caseAt().
+	 * @param <R> The return type of the visitor.
+	 * @param <P> The type of the input parameters of the visitor.
+	 * @param algo The extended visitor to execute.
+	 * @param param  The input parameter to the visitor.
+	 * @return The return value from executing the visitor.
+	 */
+	public default <R, P> R execute(IExtVisitor<R, I, P, ? extends H> algo, P param) {
+		@SuppressWarnings("unchecked")
+		P[] params = (P[]) new Object[] { param };
+		return execute(algo, params);
+	}
+
+	/**
+	 * Asynchronous version of execute():  executes the extended visitor on the given executor.
+	 * The returned future completes with the visitor's return value or exceptionally with whatever the visitor threw.
+	 * If the executor refuses the task, the future completes exceptionally with the RejectedExecutionException
+	 * and the visitor is not run.
+	 * @param <R> The return type of the visitor.
+	 * @param <P> The type of the input parameters of the visitor.
+	 * @param algo The extended visitor to execute.
+	 * @param executor The executor to run the visitor on.
+	 * @param params  Vararg input parameters to the visitor.
+	 * @return A future for the return value from executing the visitor.
+	 */
+	public default <R, P> CompletableFuture<R> executeAsync(IExtVisitor<R, I, P, ? extends H> algo, Executor executor,
+			@SuppressWarnings("unchecked") P... params) {
+		CompletableFuture<R> result = new CompletableFuture<R>();
+		try {
+			executor.execute(() -> {
+				try {
+					result.complete(execute(algo, params));
+				} catch (Throwable t) {
+					result.completeExceptionally(t);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package provided.extvisitor;
+
+/**
+ * Optional capability of an index value used by an AExtVisitor.
+ * An index value that implements this interface advertises a small, dense,
+ * process-local ordinal that uniquely identifies its equality class in the
+ * running process.   AExtVisitor can use that ordinal to resolve commands
+ * through an array instead of a hash lookup (see AExtVisitor.setDenseDispatch()).
+ * <br>
+ * The ordinal is an implementation detail of the local process and must NEVER
+ * be sent over the wire:  two equal index values in two different processes
+ * are not guaranteed to have the same ordinal.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public interface IOrdinalIndex {
+
+	/**
+	 * Value returned by getOrdinal() when the index value has not been assigned an ordinal.
+	 */
+	public static final int NO_ORDINAL = -1;
+
+	/**
+	 * Get the dense, non-negative ordinal of this index value.    All equal index values
+	 * that have been assigned an ordinal return the same ordinal.
+	 * @return The ordinal of this index value or NO_ORDINAL if none has been assigned.
+	 */
+	public int getOrdinal();
+}
@@ -0,0 +1,165 @@
+package provided.extvisitor;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets:  every power of two is split into
+ * SUB_BUCKETS equal buckets, so any recorded value is known to within 1/SUB_BUCKETS (about 6%).
+ * Every bucket is a striped LongAdder, so concurrent recording threads do not contend.
+ * Values from 0 to 2^MAX_EXPONENT - 1 are recorded exactly;  larger values are clamped.
+ * @author Jason Lee
+ * @author Andres Villada
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * log2 of the number of sub-buckets per power of two
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * Number of sub-buckets per power of two
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Values are recorded up to 2^MAX_EXPONENT - 1, i.e. about 18 minutes in nanoseconds
+	 */
+	private static final int MAX_EXPONENT = 40;
+
+	/**
+	 * Largest recordable value
+	 */
+	private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+
+	/**
+	 * The buckets.   Bucket i &lt; SUB_BUCKETS holds the value i exactly.
+	 */
+	private final LongAdder[] buckets = new LongAdder[(MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+
+	/**
+	 * Sum of all the recorded values
+	 */
+	private final LongAdder sum = new LongAdder();
+
+	/**
+	 * Largest recorded value
+	 */
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Constructs an empty histogram
+	 */
+	public LatencyHistogram() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Get the bucket of a value
+	 * @param value A value between 0 and MAX_VALUE
+	 * @return The index of the value's bucket
+	 */
+	private static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+		int shift = exponent - SUB_BUCKET_BITS;
+		// (shift + 1) * SUB_BUCKETS is the first bucket of this power of two;  the top bit of the value is implied
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	/**
+	 * Get the largest value that falls in a bucket
+	 * @param bucket The index of a bucket
+	 * @return The bucket's upper bound, inclusive
+	 */
+	private static long upperBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long first = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return first + (1L << shift) - 1;
+	}
+
+	/**
+	 * Record a value
+	 * @param value The value, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+		buckets[bucketOf(clamped)].increment();
+		sum.add(clamped);
+		max.accumulate(clamped);
+	}
+
+	/**
+	 * @return The number of recorded values
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * @return The mean of the recorded values or 0 if there are none
+	 */
+	public double getMean() {
+		long count = getCount();
+		return 0 == count ? 0 : (double) sum.sum() / count;
+	}
+
+	/**
+	 * @return The largest recorded value
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Get a percentile of the recorded values.   The result is the upper bound of the bucket holding the 
+	 * percentile, so it overestimates by at most one bucket width.   The histogram may be recorded to 
+	 * concurrently, in which case the result is approximate.
+	 * @param percentile The percentile, between 0 and 100
+	 * @return The value at the percentile or 0 if there are no recorded values
+	 */
+	public long getPercentile(double percentile) {
+		long[] counts = new long[buckets.length];
+		long total = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		if (0 == total) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Discard all the recorded values.   Values recorded concurrently may or may not be discarded.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		sum.reset();
+		max.reset();
+	}
+}